@@ -0,0 +1,128 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.configurationcache
+
+import org.gradle.api.provider.ValueSource
+import org.gradle.api.provider.ValueSourceParameters
+import org.gradle.api.services.BuildService
+import org.gradle.api.services.BuildServiceParameters
+
+class ConfigurationCacheShardedWorkGraphIntegrationTest extends AbstractConfigurationCacheIntegrationTest {
+    static final String SHARDED_WORK_GRAPH = "-Dorg.gradle.configuration-cache.internal.sharded-work-graph=true"
+    static final String DEFERRED_TASK_STATE = "-Dorg.gradle.configuration-cache.internal.deferred-task-state=true"
+
+    def "objects shared by the tasks of several projects keep their identity"() {
+        given:
+        def configurationCache = newConfigurationCacheFixture()
+        def projects = countingProjects()
+
+        when:
+        configurationCacheRun SHARDED_WORK_GRAPH, "count"
+
+        then:
+        configurationCache.assertStateStored()
+        countedOnce(projects)
+
+        when:
+        configurationCacheRun SHARDED_WORK_GRAPH, "count"
+
+        then:
+        configurationCache.assertStateLoaded()
+        countedOnce(projects)
+    }
+
+    def "tasks run once their state has been loaded in the background"() {
+        given:
+        def configurationCache = newConfigurationCacheFixture()
+        def projects = countingProjects()
+        // Each task also waits for the task of the previous project, whose state may be loaded by another shard
+        projects.drop(1).eachWithIndex { project, i ->
+            buildFile << """
+                project(':$project').tasks.named('count') { dependsOn(':${projects[i]}:count') }
+            """
+        }
+
+        when:
+        configurationCacheRun DEFERRED_TASK_STATE, "--parallel", "count"
+
+        then:
+        configurationCache.assertStateStored()
+        countedOnce(projects)
+
+        when:
+        configurationCacheRun DEFERRED_TASK_STATE, "--parallel", "count"
+
+        then:
+        configurationCache.assertStateLoaded()
+        countedOnce(projects)
+        result.assertTasksExecutedInOrder(*projects.collect { ":$it:count" })
+    }
+
+    private List<String> countingProjects() {
+        def projects = (1..6).collect { "p$it" }
+        createDirs(*projects)
+        settingsFile << """
+            include ${projects.collect { "'$it'" }.join(", ")}
+        """
+        buildFile << """
+            abstract class Counter implements ${BuildService.name}<${BuildServiceParameters.name}.None> {
+                final String id = UUID.randomUUID().toString()
+                final java.util.concurrent.atomic.AtomicInteger count = new java.util.concurrent.atomic.AtomicInteger()
+            }
+
+            abstract class Greeting implements ${ValueSource.name}<String, ${ValueSourceParameters.name}.None> {
+                String obtain() {
+                    return "hello"
+                }
+            }
+
+            abstract class CountTask extends DefaultTask {
+                @Internal
+                abstract Property<Counter> getCounter()
+
+                @Input
+                abstract Property<String> getGreeting()
+
+                @TaskAction
+                def count() {
+                    def counter = counter.get()
+                    println "\${greeting.get()} from \$path, counter = \${counter.id}, count = \${counter.count.incrementAndGet()}"
+                }
+            }
+
+            def counter = gradle.sharedServices.registerIfAbsent("counter", Counter) {}
+            def greeting = providers.of(Greeting) {}
+
+            subprojects {
+                tasks.register("count", CountTask) {
+                    usesService(counter)
+                    it.counter = counter
+                    it.greeting = greeting
+                }
+            }
+        """
+        return projects
+    }
+
+    private void countedOnce(List<String> projects) {
+        def lines = output.readLines().findAll { it.startsWith("hello from ") }
+        assert lines.collect { it.substring("hello from ".length(), it.indexOf(",")) }.toSet() == projects.collect { ":$it:count" }.toSet()
+        // All tasks use the same service instance
+        assert lines.collect { (it =~ /counter = ([^,]+),/)[0][1] }.toSet().size() == 1
+        assert lines.collect { (it =~ /count = (\d+)$/)[0][1] as int }.toSet() == (1..projects.size()).toSet()
+    }
+}
@@ -26,7 +26,13 @@ import org.gradle.configurationcache.initialization.ConfigurationCacheStartParam
 import org.gradle.configurationcache.problems.ConfigurationCacheProblems
 import org.gradle.configurationcache.serialization.DefaultReadContext
 import org.gradle.configurationcache.serialization.DefaultWriteContext
+import org.gradle.configurationcache.serialization.EncodingStatistics
 import org.gradle.configurationcache.serialization.LoggingTracer
+import org.gradle.configurationcache.serialization.PlainReadIdentities
+import org.gradle.configurationcache.serialization.PlainWriteIdentities
+import org.gradle.configurationcache.serialization.ProjectProvider
+import org.gradle.configurationcache.serialization.SharedReadIdentities
+import org.gradle.configurationcache.serialization.SharedWriteIdentities
 import org.gradle.configurationcache.serialization.Tracer
 import org.gradle.configurationcache.serialization.beans.BeanStateReaderLookup
 import org.gradle.configurationcache.serialization.beans.BeanStateWriterLookup
@@ -42,6 +48,8 @@ import org.gradle.configurationcache.serialization.writeCollection
 import org.gradle.configurationcache.serialization.writeFile
 import org.gradle.internal.build.BuildStateRegistry
 import org.gradle.internal.buildtree.BuildTreeWorkGraph
+import org.gradle.internal.concurrent.CompositeStoppable
+import org.gradle.internal.concurrent.Stoppable
 import org.gradle.internal.hash.HashCode
 import org.gradle.internal.operations.BuildOperationProgressEventEmitter
 import org.gradle.internal.serialize.Decoder
@@ -65,10 +73,16 @@ class ConfigurationCacheIO internal constructor(
     private val beanStateReaderLookup: BeanStateReaderLookup,
     private val beanStateWriterLookup: BeanStateWriterLookup,
     private val eventEmitter: BuildOperationProgressEventEmitter
-) {
+) : Stoppable {
     private
     val codecs = codecs()
 
+    private
+    val backgroundLoads = CompositeStoppable.stoppable()
+
+    private
+    val encodingStatistics = if (startParameter.encodingStatistics) EncodingStatistics() else null
+
     private
     val encryptionService by lazy { service<EncryptionService>() }
 
@@ -184,10 +198,11 @@ class ConfigurationCacheIO internal constructor(
         stateFile: ConfigurationCacheStateFile,
         action: suspend DefaultReadContext.(ConfigurationCacheState) -> T
     ): T {
-        return withReadContextFor(encryptionService.inputStream(stateFile.stateType, stateFile::inputStream)) { codecs ->
-            ConfigurationCacheState(codecs, stateFile, eventEmitter, host).run {
-                action(this)
-            }
+        val state = ConfigurationCacheState(codecs, stateFile, eventEmitter, host)
+        return withReadContextFor(encryptionService.inputStream(stateFile.stateType, stateFile::inputStream)) {
+            action(state)
+        }.also {
+            state.completeStateFile()
         }
     }
 
@@ -199,9 +214,76 @@ class ConfigurationCacheIO internal constructor(
         val (context, codecs) = writerContextFor(encryptionService.outputStream(stateFile.stateType, stateFile::outputStream)) {
             host.currentBuild.gradle.owner.displayName.displayName + " state"
         }
+        val state = ConfigurationCacheState(codecs, stateFile, eventEmitter, host)
         return context.useToRun {
             runWriteOperation {
-                action(ConfigurationCacheState(codecs, stateFile, eventEmitter, host))
+                action(state)
+            }
+        }.also {
+            state.completeStateFile()
+        }
+    }
+
+    /**
+     * Keeps track of the given [executor] loading state in the background, so it can be waited for when the build finishes.
+     */
+    internal
+    fun loadingInBackground(executor: Stoppable) {
+        synchronized(backgroundLoads) {
+            backgroundLoads.add(executor)
+        }
+    }
+
+    override fun stop() {
+        synchronized(backgroundLoads) {
+            backgroundLoads.stop()
+        }
+        encodingStatistics?.report(logger, LogLevel.LIFECYCLE)
+    }
+
+    /**
+     * Writes a shard of the work graph to its own state file, next to the given [stateFile].
+     * The shards of a work graph are written one after the other, and share the objects of the given [sharedIdentities].
+     */
+    internal
+    fun writeShardTo(
+        stateFile: ConfigurationCacheStateFile,
+        shard: Int,
+        sharedIdentities: SharedWriteIdentities,
+        action: suspend DefaultWriteContext.() -> Unit
+    ) {
+        val shardFile = stateFile.stateFileForShard(shard)
+        val encoder = KryoBackedEncoder(compressing(encryptionService.outputStream(shardFile.stateType, shardFile::outputStream)))
+        val tracer = tracerFor({ host.currentBuild.gradle.owner.displayName.displayName + " state shard $shard" }, encoder)
+        writeContextFor(encoder, tracer, codecs, sharedIdentities).useToRun {
+            runWriteOperation {
+                action()
+            }
+        }
+    }
+
+    /**
+     * Reads a shard of the work graph written by [writeShardTo].
+     *
+     * Returns the result of the given [action], along with the operations of the shard to run once all shards have been read.
+     */
+    internal
+    fun <T> readShardFrom(
+        stateFile: ConfigurationCacheStateFile,
+        shard: Int,
+        sharedIdentities: SharedReadIdentities,
+        projectProvider: ProjectProvider,
+        action: suspend DefaultReadContext.() -> T
+    ): Pair<T, () -> Unit> {
+        val shardFile = stateFile.stateFileForShard(shard)
+        val decoder = KryoBackedDecoder(decompressing(encryptionService.inputStream(shardFile.stateType, shardFile::inputStream)))
+        return readContextFor(decoder, codecs, sharedIdentities).use { context ->
+            context.run {
+                initClassLoader(javaClass.classLoader)
+                initProjectProvider(projectProvider)
+                runReadOperation {
+                    action()
+                } to ::finish
             }
         }
     }
@@ -229,19 +311,25 @@ class ConfigurationCacheIO internal constructor(
      */
     internal
     fun writerContextFor(outputStream: OutputStream, profile: () -> String): Pair<DefaultWriteContext, Codecs> =
-        KryoBackedEncoder(outputStream).let { encoder ->
+        KryoBackedEncoder(compressing(outputStream)).let { encoder ->
             writeContextFor(
                 encoder,
-                loggingTracerFor(profile, encoder),
+                tracerFor(profile, encoder),
                 codecs
             ) to codecs
         }
 
     private
-    fun loggingTracerFor(profile: () -> String, encoder: KryoBackedEncoder) =
-        loggingTracerLogLevel()?.let { level ->
+    fun compressing(outputStream: OutputStream) =
+        compressing(outputStream, startParameter.compressState, encodingStatistics)
+
+    private
+    fun tracerFor(profile: () -> String, encoder: KryoBackedEncoder): Tracer? {
+        val loggingTracer = loggingTracerLogLevel()?.let { level ->
             LoggingTracer(profile(), encoder::getWritePosition, logger, level)
         }
+        return encodingStatistics?.tracerFor(encoder::getWritePosition, loggingTracer) ?: loggingTracer
+    }
 
     private
     fun loggingTracerLogLevel(): LogLevel? = when {
@@ -279,7 +367,7 @@ class ConfigurationCacheIO internal constructor(
     private
     fun readerContextFor(
         inputStream: InputStream,
-    ) = readerContextFor(KryoBackedDecoder(inputStream))
+    ) = readerContextFor(KryoBackedDecoder(decompressing(inputStream)))
 
     internal
     fun readerContextFor(
@@ -293,7 +381,8 @@ class ConfigurationCacheIO internal constructor(
     fun writeContextFor(
         encoder: Encoder,
         tracer: Tracer?,
-        codecs: Codecs
+        codecs: Codecs,
+        sharedIdentities: SharedWriteIdentities = PlainWriteIdentities()
     ) = DefaultWriteContext(
         codecs.userTypesCodec(),
         encoder,
@@ -301,19 +390,22 @@ class ConfigurationCacheIO internal constructor(
         beanStateWriterLookup,
         logger,
         tracer,
-        problems
+        problems,
+        sharedIdentities
     )
 
     private
     fun readContextFor(
         decoder: Decoder,
-        codecs: Codecs
+        codecs: Codecs,
+        sharedIdentities: SharedReadIdentities = PlainReadIdentities()
     ) = DefaultReadContext(
         codecs.userTypesCodec(),
         decoder,
         beanStateReaderLookup,
         logger,
-        problems
+        problems,
+        sharedIdentities
     )
 
     private
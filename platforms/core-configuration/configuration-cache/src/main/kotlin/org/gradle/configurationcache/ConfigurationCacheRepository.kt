@@ -118,6 +118,12 @@ class ConfigurationCacheRepository(
                 includedBuildFileFor(file, build),
                 stateType
             )
+
+        override fun stateFileForShard(shard: Int): ConfigurationCacheStateFile =
+            ReadableConfigurationCacheStateFile(
+                shardFileFor(file, shard),
+                stateType
+            )
     }
 
     private
@@ -154,6 +160,13 @@ class ConfigurationCacheRepository(
                 stateType,
                 onFileAccess
             )
+
+        override fun stateFileForShard(shard: Int): ConfigurationCacheStateFile =
+            WriteableConfigurationCacheStateFile(
+                shardFileFor(file, shard),
+                stateType,
+                onFileAccess
+            )
     }
 
     private
@@ -206,6 +219,12 @@ class ConfigurationCacheRepository(
             resolveSibling("$name.${build.name}")
         }
 
+    private
+    fun shardFileFor(parentStateFile: File, shard: Int) =
+        parentStateFile.run {
+            resolveSibling("$name.shard-$shard")
+        }
+
     private
     val cleanupDepth = 1
 
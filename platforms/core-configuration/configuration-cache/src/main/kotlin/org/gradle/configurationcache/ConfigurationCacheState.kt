@@ -34,6 +34,7 @@ import org.gradle.caching.configuration.internal.BuildCacheServiceRegistration
 import org.gradle.configurationcache.extensions.serviceOf
 import org.gradle.configurationcache.extensions.uncheckedCast
 import org.gradle.configurationcache.flow.BuildFlowScope
+import org.gradle.configurationcache.initialization.ConfigurationCacheStartParameter
 import org.gradle.configurationcache.problems.DocumentationSection.NotYetImplementedSourceDependencies
 import org.gradle.configurationcache.serialization.DefaultReadContext
 import org.gradle.configurationcache.serialization.DefaultWriteContext
@@ -129,6 +130,7 @@ interface ConfigurationCacheStateFile {
     // Replace the contents of this state file, by moving the given file to the location of this state file
     fun moveFrom(file: File)
     fun stateFileForIncludedBuild(build: BuildDefinition): ConfigurationCacheStateFile
+    fun stateFileForShard(shard: Int): ConfigurationCacheStateFile
 }
 
 
@@ -139,6 +141,9 @@ class ConfigurationCacheState(
     private val eventEmitter: BuildOperationProgressEventEmitter,
     private val host: DefaultConfigurationCache.Host
 ) {
+    private
+    var workGraphShards: ParallelWorkGraphShards? = null
+
     /**
      * Writes the state for the whole build starting from the given root [build] and returns the set
      * of stored included build directories.
@@ -482,17 +487,41 @@ class ConfigurationCacheState(
 
     private
     suspend fun DefaultWriteContext.writeWorkGraphOf(gradle: GradleInternal, scheduledWork: ScheduledWork) {
+        val startParameter = host.service<ConfigurationCacheStartParameter>()
+        val deferTaskStates = startParameter.deferredTaskState
+        val shards = workGraphShardsOf(gradle).takeIf { startParameter.shardedWorkGraph || deferTaskStates }
         workNodeCodec(gradle).run {
-            writeWork(scheduledWork)
+            writeWork(scheduledWork, shards, deferTaskStates)
         }
     }
 
     private
     suspend fun DefaultReadContext.readWorkGraph(gradle: GradleInternal) =
         workNodeCodec(gradle).run {
-            readWork()
+            readWork(workGraphShardsOf(gradle))
+        }
+
+    private
+    fun workGraphShardsOf(gradle: GradleInternal) =
+        workGraphShards ?: ParallelWorkGraphShards(
+            gradle.serviceOf(),
+            stateFile,
+            gradle.serviceOf(),
+            gradle.serviceOf(),
+            gradle.serviceOf(),
+            host.service<ConfigurationCacheStartParameter>().maxWorkerCount
+        ).also {
+            workGraphShards = it
         }
 
+    /**
+     * Writes, or starts reading, the parts of the state deferred until the rest of the state file has been written or read.
+     */
+    internal
+    fun completeStateFile() {
+        workGraphShards?.completeStateFile()
+    }
+
     private
     suspend fun WriteContext.writeFlowScopeOf(gradle: GradleInternal) {
         withIsolate(IsolateOwner.OwnerFlowScope(gradle), userTypesCodec) {
@@ -0,0 +1,267 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.configurationcache
+
+import org.gradle.configurationcache.serialization.PlainReadIdentities
+import org.gradle.configurationcache.serialization.PlainWriteIdentities
+import org.gradle.configurationcache.serialization.ProjectProvider
+import org.gradle.configurationcache.serialization.ReadContext
+import org.gradle.configurationcache.serialization.ReadIdentities
+import org.gradle.configurationcache.serialization.ShardReadIdentities
+import org.gradle.configurationcache.serialization.ShardWriteIdentities
+import org.gradle.configurationcache.serialization.ShardedReadIdentities
+import org.gradle.configurationcache.serialization.ShardedWriteIdentities
+import org.gradle.configurationcache.serialization.SharedReadIdentities
+import org.gradle.configurationcache.serialization.SharedWriteIdentities
+import org.gradle.configurationcache.serialization.WriteContext
+import org.gradle.configurationcache.serialization.WriteIdentities
+import org.gradle.configurationcache.serialization.codecs.WorkGraphShards
+import org.gradle.configurationcache.serialization.readCollection
+import org.gradle.configurationcache.serialization.writeCollection
+import org.gradle.execution.plan.Node
+import org.gradle.internal.concurrent.ExecutorFactory
+import org.gradle.internal.concurrent.ManagedExecutor
+import org.gradle.internal.operations.BuildOperationRef
+import org.gradle.internal.operations.CurrentBuildOperationRef
+import org.gradle.internal.resources.ResourceLockCoordinationService
+import org.gradle.internal.work.WorkerLeaseService
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Future
+import java.util.concurrent.Semaphore
+
+
+/**
+ * Writes the shards of a work graph one after the other, each to its own state file next to the [stateFile] of the build,
+ * and reads them back concurrently.
+ *
+ * Writing the shards in order makes the owner of each shared object, see [ShardedWriteIdentities], the same from one run to the next.
+ * When reading, at most [maxParallelism] shards run at the same time, a shard waiting for an object owned by another shard does not count.
+ * The work graph is loaded while the calling thread holds the lock of all the projects of the build. The calling thread keeps
+ * these locks while it waits for the shards, which are given uncontrolled access to the projects.
+ *
+ * The states deferred by [writeStatesLater] are written once the rest of the state file has been written, the same way,
+ * while [readStatesLater] reads them in the background, along with the execution of the work graph.
+ * The state of each node is completed while holding the state lock, so the node becomes ready to execute without the work graph waiting for it.
+ */
+internal
+class ParallelWorkGraphShards(
+    private val cacheIO: ConfigurationCacheIO,
+    private val stateFile: ConfigurationCacheStateFile,
+    private val executorFactory: ExecutorFactory,
+    private val workerLeaseService: WorkerLeaseService,
+    private val coordinationService: ResourceLockCoordinationService,
+    private val maxParallelism: Int
+) : WorkGraphShards {
+
+    private
+    val pendingStates = ArrayList<() -> Unit>()
+
+    override val maxShards: Int
+        get() = 4 * maxParallelism
+
+    /**
+     * Writes, or starts reading, the states deferred by [writeStatesLater] or [readStatesLater].
+     * Called once the rest of the state file has been written or read.
+     */
+    fun completeStateFile() {
+        pendingStates.forEach { it() }
+        pendingStates.clear()
+    }
+
+    override fun WriteContext.writeShards(shards: List<List<Node>>, writeShard: suspend WriteContext.(List<Node>) -> Unit) {
+        val identities = ShardedWriteIdentities(plainIdentitiesOf(sharedIdentities))
+        shards.indices.forEach { shard ->
+            cacheIO.writeShardTo(stateFile, shard, identities.forShard(shard)) {
+                writeShard(shards[shard])
+            }
+        }
+        writeOwners(identities.owners)
+    }
+
+    override fun ReadContext.readShards(count: Int, readShard: suspend ReadContext.(Int) -> List<Node>): List<List<Node>> {
+        val owners = readOwners()
+        val parallelism = Semaphore(maxParallelism)
+        val identities = ShardedReadIdentities(plainIdentitiesOf(sharedIdentities), owners, parallelism)
+        val projectProvider: ProjectProvider = this::getProject
+        val shards = arrayOfNulls<Pair<List<Node>, () -> Unit>>(count)
+        runConcurrently(count, parallelism) { shard ->
+            try {
+                shards[shard] = cacheIO.readShardFrom(stateFile, shard, identities.forShard(shard), projectProvider) {
+                    readShard(shard)
+                }
+            } catch (e: Throwable) {
+                identities.failed(shard)
+                throw e
+            }
+        }
+        return shards.map {
+            val (nodes, finish) = it!!
+            onFinish(finish)
+            nodes
+        }
+    }
+
+    override fun WriteContext.writeStatesLater(shards: List<List<Node>>, writeShard: suspend WriteContext.(List<Node>) -> Unit) {
+        val identities = sharedIdentities
+        pendingStates.add {
+            // The owners of the shared objects are written to a shard of their own, after the other shards
+            cacheIO.writeShardTo(stateFile, shards.size, identities) {
+                writeShards(shards, writeShard)
+            }
+        }
+    }
+
+    override fun ReadContext.readStatesLater(
+        shards: List<List<Node>>,
+        readShard: suspend ReadContext.(nodes: List<Node>, loaded: (Int) -> Unit) -> Unit
+    ): List<List<CompletableFuture<Unit>>> {
+        val identities = sharedIdentities
+        val projectProvider: ProjectProvider = this::getProject
+        val states = shards.map { nodes ->
+            List(nodes.size) { CompletableFuture<Unit>() }
+        }
+        pendingStates.add {
+            val (owners, _) = cacheIO.readShardFrom(stateFile, shards.size, identities, projectProvider) {
+                readOwners()
+            }
+            val parallelism = Semaphore(maxParallelism)
+            val shardIdentities = ShardedReadIdentities(plainIdentitiesOf(identities), owners, parallelism)
+            val executor = executorFactory.create("Configuration cache task states")
+            // The work graph has been loaded by the time the states are read, so there is no parent operation to attach them to
+            submitAll(executor, shards.size, parallelism, null) { shard ->
+                val shardStates = states[shard]
+                try {
+                    cacheIO.readShardFrom(stateFile, shard, shardIdentities.forShard(shard), projectProvider) {
+                        readShard(shards[shard]) { index ->
+                            finish()
+                            stateLoaded {
+                                shardStates[index].complete(Unit)
+                            }
+                        }
+                    }
+                } catch (e: Throwable) {
+                    shardIdentities.failed(shard)
+                    stateLoaded {
+                        shardStates.forEach {
+                            it.completeExceptionally(e)
+                        }
+                    }
+                }
+            }
+            cacheIO.loadingInBackground(executor)
+        }
+        return states
+    }
+
+    /**
+     * Completes the state of some nodes while holding the state lock, which makes the nodes ready to execute,
+     * then wakes up the threads waiting for a node to execute.
+     */
+    private
+    fun stateLoaded(complete: () -> Unit) {
+        coordinationService.withStateLock(Runnable {
+            complete()
+            coordinationService.notifyStateChange()
+        })
+    }
+
+    /**
+     * The shards of a work graph are written and read from the state file of the work graph itself, never from another shard.
+     */
+    private
+    fun plainIdentitiesOf(identities: SharedWriteIdentities): WriteIdentities =
+        when (identities) {
+            is PlainWriteIdentities -> identities.identities
+            is ShardWriteIdentities -> throw IllegalStateException("Cannot write the shards of a work graph from a shard.")
+        }
+
+    private
+    fun plainIdentitiesOf(identities: SharedReadIdentities): ReadIdentities =
+        when (identities) {
+            is PlainReadIdentities -> identities.identities
+            is ShardReadIdentities -> throw IllegalStateException("Cannot read the shards of a work graph from a shard.")
+        }
+
+    private
+    fun WriteContext.writeOwners(owners: Map<Int, Int>) {
+        writeCollection(owners.entries) { (id, shard) ->
+            writeSmallInt(id)
+            writeSmallInt(shard)
+        }
+    }
+
+    private
+    fun ReadContext.readOwners(): Map<Int, Int> {
+        val owners = HashMap<Int, Int>()
+        readCollection {
+            owners[readSmallInt()] = readSmallInt()
+        }
+        return owners
+    }
+
+    /**
+     * Runs the given [action] for each shard, on its own thread so a shard can always wait for another one.
+     * The calling thread keeps its locks while it waits for the shards.
+     */
+    private
+    fun runConcurrently(count: Int, parallelism: Semaphore, action: (Int) -> Unit) {
+        val parentOperation = CurrentBuildOperationRef.instance().get()
+        val executor = executorFactory.create("Configuration cache shards")
+        try {
+            awaitAll(submitAll(executor, count, parallelism, parentOperation, action))
+        } finally {
+            executor.stop()
+        }
+    }
+
+    private
+    fun submitAll(executor: ManagedExecutor, count: Int, parallelism: Semaphore, parentOperation: BuildOperationRef?, action: (Int) -> Unit) =
+        (0 until count).map { shard ->
+            executor.submit(Runnable {
+                parallelism.acquireUninterruptibly()
+                try {
+                    CurrentBuildOperationRef.instance().with(parentOperation, Runnable {
+                        workerLeaseService.runAsUnmanagedWorkerThread {
+                            workerLeaseService.allowUncontrolledAccessToAnyProject {
+                                action(shard)
+                            }
+                        }
+                    })
+                } finally {
+                    parallelism.release()
+                }
+            })
+        }
+
+    private
+    fun awaitAll(results: List<Future<*>>) {
+        var failure: Throwable? = null
+        for (result in results) {
+            try {
+                result.get()
+            } catch (e: ExecutionException) {
+                if (failure == null) {
+                    failure = e.cause
+                }
+            }
+        }
+        failure?.let {
+            throw it
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.configurationcache
+
+import org.gradle.configurationcache.serialization.EncodingStatistics
+import java.io.InputStream
+import java.io.OutputStream
+import java.util.zip.Deflater
+import java.util.zip.DeflaterOutputStream
+import java.util.zip.Inflater
+import java.util.zip.InflaterInputStream
+
+
+private
+const val uncompressedState = 0
+
+
+private
+const val compressedState = 1
+
+
+private
+const val compressionBufferSize = 64 * 1024
+
+
+/**
+ * Compresses the state written to the given [outputStream], when [compress] is set, before the state is encrypted by the [outputStream].
+ *
+ * The first byte written tells whether the state is compressed, so that [decompressing] can read the state either way.
+ */
+internal
+fun compressing(outputStream: OutputStream, compress: Boolean, statistics: EncodingStatistics?): OutputStream =
+    if (compress) {
+        outputStream.write(compressedState)
+        CompressingOutputStream(outputStream, statistics)
+    } else {
+        outputStream.write(uncompressedState)
+        outputStream
+    }
+
+
+/**
+ * Decompresses the state read from the given [inputStream], if it was compressed by [compressing].
+ */
+internal
+fun decompressing(inputStream: InputStream): InputStream =
+    when (val format = inputStream.read()) {
+        compressedState -> DecompressingInputStream(inputStream)
+        uncompressedState -> inputStream
+        else -> throw IllegalStateException("Unknown configuration cache state format: $format.")
+    }
+
+
+/**
+ * Favors speed over size, so that compressing costs less than writing the uncompressed state.
+ */
+private
+class CompressingOutputStream(
+    outputStream: OutputStream,
+    private val statistics: EncodingStatistics?
+) : DeflaterOutputStream(outputStream, Deflater(Deflater.BEST_SPEED), compressionBufferSize) {
+
+    private
+    var closed = false
+
+    override fun close() {
+        if (closed) {
+            return
+        }
+        closed = true
+        try {
+            super.close()
+            statistics?.compressed(def.bytesRead, def.bytesWritten)
+        } finally {
+            // The deflater is not ended by the stream, as it was not created by the stream
+            def.end()
+        }
+    }
+}
+
+
+private
+class DecompressingInputStream(
+    inputStream: InputStream
+) : InflaterInputStream(inputStream, Inflater(), compressionBufferSize) {
+
+    override fun close() {
+        try {
+            super.close()
+        } finally {
+            inf.end()
+        }
+    }
+}
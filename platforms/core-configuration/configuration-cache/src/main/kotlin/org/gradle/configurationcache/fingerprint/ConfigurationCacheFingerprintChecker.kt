@@ -33,6 +33,11 @@ import org.gradle.internal.util.NumberUtil.ordinal
 import org.gradle.util.Path
 import java.io.File
 import java.net.URI
+import java.util.IdentityHashMap
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Executor
+import java.util.concurrent.Future
 import java.util.function.Consumer
 
 
@@ -40,8 +45,18 @@ internal
 typealias InvalidationReason = String
 
 
+/**
+ * Checks the inputs of a configuration cache entry.
+ *
+ * The files and directories of the inputs are hashed ahead of their check on the given [hashingExecutor],
+ * except for the files whose hash is still recorded by the virtual file system, which are checked without accessing them.
+ * The inputs are still checked in the order they were recorded, up to the first invalid one.
+ */
 internal
-class ConfigurationCacheFingerprintChecker(private val host: Host) {
+class ConfigurationCacheFingerprintChecker(
+    private val host: Host,
+    private val hashingExecutor: Executor = Executor { it.run() }
+) {
 
     interface Host {
         val isEncrypted: Boolean
@@ -58,36 +73,78 @@ class ConfigurationCacheFingerprintChecker(private val host: Host) {
         fun fingerprintOf(fileCollection: FileCollectionInternal): HashCode
         fun hashCodeOf(file: File): HashCode?
         fun hashCodeOfDirectoryContent(file: File): HashCode?
+
+        /**
+         * Returns the hash of the given file recorded by the virtual file system, or `null` when it has to be hashed again,
+         * for instance because a change to the file has been seen since it was recorded.
+         */
+        fun recordedHashCodeOf(file: File): HashCode?
         fun displayNameOf(fileOrDirectory: File): String
         fun instantiateValueSourceOf(obtainedValue: ObtainedValue): ValueSource<Any, ValueSourceParameters>
         fun isRemoteScriptUpToDate(uri: URI): Boolean
     }
 
+    private
+    val pendingHashes = IdentityHashMap<ConfigurationCacheFingerprint, Future<HashCode?>>()
+
+    private
+    val timings = CheckTimings()
+
     suspend fun ReadContext.checkBuildScopedFingerprint(): CheckedFingerprint {
-        // TODO: log some debug info
-        while (true) {
-            when (val input = read()) {
-                null -> break
-                is ConfigurationCacheFingerprint -> {
-                    // An input that is not specific to a project. If it is out-of-date, then invalidate the whole cache entry and skip any further checks
-                    val reason = check(input)
-                    if (reason != null) {
-                        return CheckedFingerprint.EntryInvalid(reason)
+        try {
+            val inputs = ArrayList<ConfigurationCacheFingerprint>()
+            while (true) {
+                val input = try {
+                    read()
+                } catch (e: Throwable) {
+                    // Reading the inputs may fail because of a change detected by the inputs already read, report that change instead
+                    firstInvalidationReasonOf(inputs)?.let {
+                        return CheckedFingerprint.EntryInvalid(it)
                     }
+                    throw e
+                }
+                when (input) {
+                    null -> break
+                    is ConfigurationCacheFingerprint -> {
+                        startHashing(input)
+                        inputs.add(input)
+                    }
+                    else -> throw IllegalStateException("Unexpected configuration cache fingerprint: $input")
                 }
-                else -> throw IllegalStateException("Unexpected configuration cache fingerprint: $input")
             }
+            // An input that is not specific to a project. If it is out-of-date, then invalidate the whole cache entry and skip any further checks
+            return firstInvalidationReasonOf(inputs)?.let {
+                CheckedFingerprint.EntryInvalid(it)
+            } ?: CheckedFingerprint.Valid
+        } finally {
+            cancelHashing()
+            timings.report("build")
         }
-        return CheckedFingerprint.Valid
     }
 
     suspend fun ReadContext.checkProjectScopedFingerprint(): CheckedFingerprint {
-        // TODO: log some debug info
+        try {
+            val inputs = ArrayList<Any>()
+            while (true) {
+                val input = read() ?: break
+                if (input is ProjectSpecificFingerprint.ProjectFingerprint) {
+                    startHashing(input.value)
+                }
+                inputs.add(input)
+            }
+            return checkProjectScopedInputs(inputs)
+        } finally {
+            cancelHashing()
+            timings.report("project")
+        }
+    }
+
+    private
+    fun checkProjectScopedInputs(inputs: List<Any>): CheckedFingerprint {
         var firstReason: InvalidationReason? = null
         val projects = mutableMapOf<Path, ProjectInvalidationState>()
-        while (true) {
-            when (val input = read()) {
-                null -> break
+        for (input in inputs) {
+            when (input) {
                 is ProjectSpecificFingerprint.ProjectFingerprint -> input.run {
                     // An input that is specific to a project. If it is out-of-date, then invalidate that project's values and continue checking values
                     // Don't check a value for a project that is already out-of-date
@@ -148,8 +205,73 @@ class ConfigurationCacheFingerprintChecker(private val host: Host) {
     private
     fun MutableMap<Path, ProjectInvalidationState>.entryFor(path: Path) = getOrPut(path) { ProjectInvalidationState() }
 
+    private
+    fun firstInvalidationReasonOf(inputs: List<ConfigurationCacheFingerprint>): InvalidationReason? {
+        for (input in inputs) {
+            val reason = check(input)
+            if (reason != null) {
+                return reason
+            }
+        }
+        return null
+    }
+
+    /**
+     * Starts hashing the file or directory of the given input, if any, so that it is ready by the time the input is checked.
+     */
+    private
+    fun startHashing(input: ConfigurationCacheFingerprint) {
+        when (input) {
+            is ConfigurationCacheFingerprint.InputFile -> {
+                val recordedHash = host.recordedHashCodeOf(input.file)
+                pendingHashes[input] = if (recordedHash != null) {
+                    timings.recorded()
+                    CompletableFuture.completedFuture(recordedHash)
+                } else {
+                    hashing { host.hashCodeOf(input.file) }
+                }
+            }
+            is ConfigurationCacheFingerprint.DirectoryChildren -> {
+                pendingHashes[input] = hashing { host.hashCodeOfDirectoryContent(input.file) }
+            }
+            else -> {}
+        }
+    }
+
+    private
+    fun hashing(hash: () -> HashCode?): Future<HashCode?> =
+        CompletableFuture.supplyAsync(hash, hashingExecutor)
+
+    private
+    fun cancelHashing() {
+        pendingHashes.values.forEach {
+            it.cancel(false)
+        }
+        pendingHashes.clear()
+    }
+
+    private
+    fun currentHashOf(input: ConfigurationCacheFingerprint, hash: () -> HashCode?): HashCode? {
+        val pendingHash = pendingHashes.remove(input) ?: return hash()
+        try {
+            return pendingHash.get()
+        } catch (e: ExecutionException) {
+            throw e.cause ?: e
+        }
+    }
+
     private
     fun check(input: ConfigurationCacheFingerprint): InvalidationReason? {
+        val startTime = System.nanoTime()
+        try {
+            return checkInput(input)
+        } finally {
+            timings.checked(input, System.nanoTime() - startTime)
+        }
+    }
+
+    private
+    fun checkInput(input: ConfigurationCacheFingerprint): InvalidationReason? {
         when (input) {
             is ConfigurationCacheFingerprint.WorkInputs -> input.run {
                 val currentFingerprint = host.fingerprintOf(fileSystemInputs)
@@ -159,12 +281,12 @@ class ConfigurationCacheFingerprintChecker(private val host: Host) {
                 }
             }
             is ConfigurationCacheFingerprint.InputFile -> input.run {
-                if (hasFileChanged(file, hash)) {
+                if (currentHashOf(input) { host.hashCodeOf(file) } != hash) {
                     return "file '${displayNameOf(file)}' has changed"
                 }
             }
             is ConfigurationCacheFingerprint.DirectoryChildren -> input.run {
-                if (hasDirectoryChanged(file, hash)) {
+                if (currentHashOf(input) { host.hashCodeOfDirectoryContent(file) } != hash) {
                     return "directory '${displayNameOf(file)}' has changed"
                 }
             }
@@ -310,14 +432,6 @@ class ConfigurationCacheFingerprintChecker(private val host: Host) {
         }
     }
 
-    private
-    fun hasFileChanged(file: File, originalHash: HashCode) =
-        !isUpToDate(file, originalHash)
-
-    private
-    fun hasDirectoryChanged(file: File, originalHash: HashCode?) =
-        host.hashCodeOfDirectoryContent(file) != originalHash
-
     private
     fun isUpToDate(file: File, originalHash: HashCode) =
         host.hashCodeOf(file) == originalHash
@@ -336,6 +450,45 @@ class ConfigurationCacheFingerprintChecker(private val host: Host) {
     fun buildLogicInputFailed(obtainedValue: ObtainedValue, failure: Throwable): InvalidationReason =
         "a build logic input of type '${obtainedValue.valueSourceType.simpleName}' failed when storing the entry with $failure"
 
+    /**
+     * The number of inputs checked and the time spent checking them, by type of input.
+     */
+    private
+    class CheckTimings {
+
+        private
+        val categories = LinkedHashMap<String, CategoryTiming>()
+
+        private
+        var recordedFiles = 0
+
+        fun recorded() {
+            recordedFiles += 1
+        }
+
+        fun checked(input: ConfigurationCacheFingerprint, nanos: Long) {
+            val category = categories.getOrPut(input.javaClass.simpleName) { CategoryTiming() }
+            category.count += 1
+            category.nanos += nanos
+        }
+
+        fun report(scope: String) {
+            if (categories.isEmpty() || !logger.isDebugEnabled) {
+                return
+            }
+            val summary = categories.entries.joinToString { (name, category) ->
+                "$name: ${category.count} in ${category.nanos / 1_000_000}ms"
+            }
+            logger.debug("Checked the {} scoped configuration cache inputs ({} files unchanged since recorded), {}", scope, recordedFiles, summary)
+        }
+
+        private
+        class CategoryTiming {
+            var count = 0
+            var nanos = 0L
+        }
+    }
+
     private
     class ProjectInvalidationState {
         // When true, the project is definitely invalid
@@ -43,6 +43,7 @@ import org.gradle.configurationcache.services.ConfigurationCacheEnvironmentChang
 import org.gradle.configurationcache.services.RemoteScriptUpToDateChecker
 import org.gradle.internal.agents.AgentStatus
 import org.gradle.internal.buildtree.BuildModelParameters
+import org.gradle.internal.concurrent.ExecutorFactory
 import org.gradle.internal.concurrent.Stoppable
 import org.gradle.internal.event.ListenerManager
 import org.gradle.internal.execution.FileCollectionFingerprinterRegistry
@@ -58,6 +59,7 @@ import org.gradle.internal.scripts.ScriptFileResolverListeners
 import org.gradle.internal.service.scopes.Scopes
 import org.gradle.internal.service.scopes.ServiceScope
 import org.gradle.internal.vfs.FileSystemAccess
+import org.gradle.internal.vfs.VirtualFileSystem
 import org.gradle.util.Path
 import org.gradle.util.internal.BuildCommencedTimeProvider
 import org.gradle.util.internal.GFileUtils
@@ -77,6 +79,8 @@ class ConfigurationCacheFingerprintController internal constructor(
     private val modelParameters: BuildModelParameters,
     private val workInputListeners: WorkInputListeners,
     private val fileSystemAccess: FileSystemAccess,
+    private val virtualFileSystem: VirtualFileSystem,
+    private val executorFactory: ExecutorFactory,
     fingerprinterRegistry: FileCollectionFingerprinterRegistry,
     private val buildCommencedTimeProvider: BuildCommencedTimeProvider,
     private val listenerManager: ListenerManager,
@@ -276,15 +280,25 @@ class ConfigurationCacheFingerprintController internal constructor(
     }
 
     suspend fun ReadContext.checkBuildScopedFingerprint(host: Host): CheckedFingerprint =
-        ConfigurationCacheFingerprintChecker(CacheFingerprintCheckerHost(host)).run {
+        withHashingCheckerFor(host) {
             checkBuildScopedFingerprint()
         }
 
     suspend fun ReadContext.checkProjectScopedFingerprint(host: Host): CheckedFingerprint =
-        ConfigurationCacheFingerprintChecker(CacheFingerprintCheckerHost(host)).run {
+        withHashingCheckerFor(host) {
             checkProjectScopedFingerprint()
         }
 
+    private
+    inline fun <T> withHashingCheckerFor(host: Host, action: ConfigurationCacheFingerprintChecker.() -> T): T {
+        val hashingExecutor = executorFactory.create("Configuration cache fingerprint hashing", startParameter.maxWorkerCount)
+        try {
+            return ConfigurationCacheFingerprintChecker(CacheFingerprintCheckerHost(host), hashingExecutor).action()
+        } finally {
+            hashingExecutor.stop()
+        }
+    }
+
     suspend fun ReadContext.collectFingerprintForReusedProjects(host: Host, reusedProjects: Set<Path>): Unit =
         ConfigurationCacheFingerprintChecker(CacheFingerprintCheckerHost(host)).run {
             visitEntriesForProjects(reusedProjects) { fingerprint ->
@@ -410,6 +424,9 @@ class ConfigurationCacheFingerprintController internal constructor(
 
         override fun hashCodeOfDirectoryContent(file: File): HashCode = directoryChildrenNamesHash(file)
 
+        override fun recordedHashCodeOf(file: File): HashCode? =
+            virtualFileSystem.findSnapshot(file.absolutePath).map { it.hash }.orElse(null)
+
         override fun fingerprintOf(fileCollection: FileCollectionInternal): HashCode =
             fileCollectionFingerprinter.fingerprint(fileCollection).hash
 
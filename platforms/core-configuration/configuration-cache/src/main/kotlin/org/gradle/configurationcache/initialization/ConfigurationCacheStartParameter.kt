@@ -52,6 +52,30 @@ class ConfigurationCacheStartParameter(
 
     val encryptionAlgorithm: String = options.getInternalString("org.gradle.configuration-cache.internal.encryption-alg", SupportedEncryptionAlgorithm.AES_ECB_PADDING.transformation)
 
+    /**
+     * Stores the tasks of the work graph in one shard per project, written one after the other and read concurrently.
+     * Work graphs stored this way are read concurrently regardless of this flag.
+     */
+    val shardedWorkGraph: Boolean = options.getInternalFlag("org.gradle.configuration-cache.internal.sharded-work-graph", false)
+
+    /**
+     * Stores the state of the tasks of the work graph apart from the work graph itself, so that on load,
+     * the tasks can start running while their state is read in the background.
+     * Work graphs stored this way are loaded in the background regardless of this flag.
+     */
+    val deferredTaskState: Boolean = options.getInternalFlag("org.gradle.configuration-cache.internal.deferred-task-state", false)
+
+    /**
+     * Compresses the state files before they are encrypted.
+     * State files are read whether they are compressed or not, regardless of this flag.
+     */
+    val compressState: Boolean = options.getInternalFlag("org.gradle.configuration-cache.internal.compress-state", true)
+
+    /**
+     * Logs the number of values written for each type, and the size of their encoding, once the state has been stored.
+     */
+    val encodingStatistics: Boolean = options.getInternalFlag("org.gradle.configuration-cache.internal.encoding-statistics", false)
+
     /**
      * Should be provided if a link to the report is expected even if no errors were found.
      * Useful in testing.
@@ -74,6 +98,9 @@ class ConfigurationCacheStartParameter(
     val maxProblems: Int
         get() = startParameter.configurationCacheMaxProblems
 
+    val maxWorkerCount: Int
+        get() = startParameter.maxWorkerCount
+
     val ignoredFileSystemCheckInputs: String?
         get() = startParameter.configurationCacheIgnoredFileSystemCheckInputs
 
@@ -42,7 +42,7 @@ interface WriteContext : IsolateContext, MutableIsolateContext, Encoder {
 
     val tracer: Tracer?
 
-    val sharedIdentities: WriteIdentities
+    val sharedIdentities: SharedWriteIdentities
 
     val circularReferences: CircularReferences
 
@@ -66,7 +66,7 @@ interface Tracer {
 
 interface ReadContext : IsolateContext, MutableIsolateContext, Decoder {
 
-    val sharedIdentities: ReadIdentities
+    val sharedIdentities: SharedReadIdentities
 
     override val isolate: ReadIsolate
 
@@ -260,8 +260,31 @@ inline fun <T : Any> WriteContext.encodePreservingIdentityOf(reference: T, encod
 
 
 internal
-inline fun <T : Any> WriteContext.encodePreservingSharedIdentityOf(reference: T, encode: WriteContext.(T) -> Unit) =
-    encodePreservingIdentityOf(sharedIdentities, reference, encode)
+inline fun <T : Any> WriteContext.encodePreservingSharedIdentityOf(reference: T, encode: WriteContext.(T) -> Unit) {
+    when (val identities = sharedIdentities) {
+        is PlainWriteIdentities -> encodePreservingIdentityOf(identities.identities, reference, encode)
+        is ShardWriteIdentities -> encodePreservingShardIdentityOf(identities, reference, encode)
+    }
+}
+
+
+/**
+ * Writes the claimed id of the [reference], see [ShardedWriteIdentities.claim], followed by the [reference] itself
+ * when the shard of this context is the first one to meet it.
+ */
+internal
+inline fun <T : Any> WriteContext.encodePreservingShardIdentityOf(identities: ShardWriteIdentities, reference: T, encode: WriteContext.(T) -> Unit) {
+    val claim = identities.claim(reference)
+    writeSmallInt(claim)
+    if (claim and 1 != 0) {
+        circularReferences.enter(reference)
+        try {
+            encode(reference)
+        } finally {
+            circularReferences.leave(reference)
+        }
+    }
+}
 
 
 internal
@@ -289,11 +312,27 @@ inline fun <T> ReadContext.decodePreservingIdentity(decode: ReadContext.(Int) ->
 
 internal
 inline fun <T : Any> ReadContext.decodePreservingSharedIdentity(decode: ReadContext.(Int) -> T): T =
-    decodePreservingIdentity(sharedIdentities) { id ->
-        decode(id).also {
-            sharedIdentities.putInstance(id, it)
+    when (val identities = sharedIdentities) {
+        is PlainReadIdentities -> decodePreservingIdentity(identities.identities) { id ->
+            decode(id).also {
+                identities.identities.putInstance(id, it)
+            }
+        }
+        is ShardReadIdentities -> decodePreservingShardIdentity(identities, decode)
+    }
+
+
+internal
+inline fun <T : Any> ReadContext.decodePreservingShardIdentity(identities: ShardReadIdentities, decode: ReadContext.(Int) -> T): T {
+    val claim = readSmallInt()
+    val id = claim ushr 1
+    return when {
+        claim and 1 != 0 -> decode(id).also {
+            identities.putInstance(id, it)
         }
+        else -> identities.awaitInstance(id).uncheckedCast()
     }
+}
 
 
 internal
@@ -36,6 +36,7 @@ import org.gradle.internal.Describables
 import org.gradle.internal.hash.HashCode
 import org.gradle.internal.serialize.Decoder
 import org.gradle.internal.serialize.Encoder
+import java.io.File
 
 
 internal
@@ -55,11 +56,11 @@ class DefaultWriteContext(
 
     override val tracer: Tracer?,
 
-    problemsListener: ProblemsListener
+    problemsListener: ProblemsListener,
 
-) : AbstractIsolateContext<WriteIsolate>(codec, problemsListener), WriteContext, Encoder by encoder, AutoCloseable {
+    override val sharedIdentities: SharedWriteIdentities = PlainWriteIdentities()
 
-    override val sharedIdentities = WriteIdentities()
+) : AbstractIsolateContext<WriteIsolate>(codec, problemsListener), WriteContext, Encoder by encoder, AutoCloseable {
 
     override val circularReferences = CircularReferences()
 
@@ -69,6 +70,9 @@ class DefaultWriteContext(
     private
     val scopes = WriteIdentities()
 
+    private
+    val dictionary = WriteDictionary(encoder)
+
     /**
      * Closes the given [encoder] if it is [AutoCloseable].
      */
@@ -146,9 +150,14 @@ class DefaultWriteContext(
         }
     }
 
-    // TODO: consider interning strings
     override fun writeString(string: CharSequence) =
-        encoder.writeString(string)
+        dictionary.writeNullableString(string.toString())
+
+    override fun writeNullableString(string: CharSequence?) =
+        dictionary.writeNullableString(string?.toString())
+
+    fun writeFile(file: File) =
+        dictionary.writeFile(file)
 
     override fun newIsolate(owner: IsolateOwner): WriteIsolate =
         DefaultWriteIsolate(owner)
@@ -217,11 +226,11 @@ class DefaultReadContext(
 
     override val logger: Logger,
 
-    problemsListener: ProblemsListener
+    problemsListener: ProblemsListener,
 
-) : AbstractIsolateContext<ReadIsolate>(codec, problemsListener), ReadContext, Decoder by decoder, AutoCloseable {
+    override val sharedIdentities: SharedReadIdentities = PlainReadIdentities()
 
-    override val sharedIdentities = ReadIdentities()
+) : AbstractIsolateContext<ReadIsolate>(codec, problemsListener), ReadContext, Decoder by decoder, AutoCloseable {
 
     private
     val classes = ReadIdentities()
@@ -229,6 +238,9 @@ class DefaultReadContext(
     private
     val scopes = ReadIdentities()
 
+    private
+    val dictionary = ReadDictionary(decoder)
+
     private
     lateinit var projectProvider: ProjectProvider
 
@@ -338,6 +350,15 @@ class DefaultReadContext(
         null
     }
 
+    override fun readString(): String =
+        dictionary.readString()
+
+    override fun readNullableString(): String? =
+        dictionary.readNullableString()
+
+    fun readFile(): File =
+        dictionary.readFile()
+
     override fun getProject(path: String): ProjectInternal =
         projectProvider(path)
 
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.configurationcache.serialization
+
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap
+import org.gradle.internal.serialize.Decoder
+import org.gradle.internal.serialize.Encoder
+import java.io.File
+
+
+/**
+ * Writes each distinct string and file once per stream, and then only its id.
+ *
+ * A file is written as a reference to its parent file plus its name, so the files of a directory share the path of the directory.
+ * Files are told apart by their path, as [File.equals] ignores case on some platforms.
+ * The ids are allocated in the order the strings and files are first written, which [ReadDictionary] follows.
+ */
+internal
+class WriteDictionary(private val encoder: Encoder) {
+
+    private
+    val strings = Object2IntOpenHashMap<String>().apply { defaultReturnValue(-1) }
+
+    private
+    val files = Object2IntOpenHashMap<String>().apply { defaultReturnValue(-1) }
+
+    fun writeNullableString(string: String?) {
+        if (string == null) {
+            encoder.writeSmallInt(0)
+            return
+        }
+        val id = strings.getInt(string)
+        if (id >= 0) {
+            encoder.writeSmallInt(id + 1)
+        } else {
+            val newId = strings.size
+            strings.put(string, newId)
+            encoder.writeSmallInt(newId + 1)
+            encoder.writeString(string)
+        }
+    }
+
+    fun writeFile(file: File) {
+        writeFilePath(file.path)
+    }
+
+    private
+    fun writeFilePath(path: String) {
+        val id = files.getInt(path)
+        if (id >= 0) {
+            encoder.writeSmallInt(id)
+        } else {
+            val newId = files.size
+            files.put(path, newId)
+            encoder.writeSmallInt(newId)
+            val file = File(path)
+            val parent = file.parent
+            if (parent == null) {
+                encoder.writeBoolean(false)
+                writeNullableString(path)
+            } else {
+                encoder.writeBoolean(true)
+                writeFilePath(parent)
+                writeNullableString(file.name)
+            }
+        }
+    }
+}
+
+
+/**
+ * Reads the strings and files written by [WriteDictionary].
+ */
+internal
+class ReadDictionary(private val decoder: Decoder) {
+
+    private
+    val strings = ArrayList<String>()
+
+    private
+    val files = ArrayList<File?>()
+
+    fun readNullableString(): String? {
+        val id = decoder.readSmallInt()
+        return when {
+            id == 0 -> null
+            id <= strings.size -> strings[id - 1]
+            else -> decoder.readString().also {
+                strings.add(it)
+            }
+        }
+    }
+
+    fun readString(): String =
+        requireNotNull(readNullableString())
+
+    fun readFile(): File {
+        val id = decoder.readSmallInt()
+        if (id < files.size) {
+            return requireNotNull(files[id]) {
+                "File $id refers to itself."
+            }
+        }
+        // Reserve the id of the file, its parent gets the next one
+        files.add(null)
+        val file = if (decoder.readBoolean()) {
+            val parent = readFile()
+            File(parent, readString())
+        } else {
+            File(readString())
+        }
+        files[id] = file
+        return file
+    }
+}
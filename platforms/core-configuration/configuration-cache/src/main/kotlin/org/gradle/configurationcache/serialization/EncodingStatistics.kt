@@ -0,0 +1,100 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.configurationcache.serialization
+
+import org.gradle.api.logging.LogLevel
+import org.gradle.api.logging.Logger
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicLong
+
+
+/**
+ * The number of values written for each frame traced by the codecs, typically the type of the values, and the size of their encoding.
+ *
+ * The size of a value excludes the nested values that are traced on their own, and is measured before compression.
+ * Streams written concurrently are traced by their own [tracerFor].
+ */
+internal
+class EncodingStatistics {
+
+    private
+    val frames = ConcurrentHashMap<String, FrameStatistics>()
+
+    private
+    val uncompressedBytes = AtomicLong()
+
+    private
+    val compressedBytes = AtomicLong()
+
+    fun tracerFor(writePosition: () -> Long, tracer: Tracer?): Tracer =
+        StatisticsTracer(writePosition, tracer)
+
+    fun compressed(uncompressed: Long, compressed: Long) {
+        uncompressedBytes.addAndGet(uncompressed)
+        compressedBytes.addAndGet(compressed)
+    }
+
+    fun report(logger: Logger, level: LogLevel, maxFrames: Int = 50) {
+        if (frames.isEmpty()) {
+            return
+        }
+        val summary = frames.entries
+            .sortedByDescending { it.value.bytes.get() }
+            .take(maxFrames)
+            .joinToString("\n") { (frame, statistics) ->
+                "  $frame: ${statistics.count.get()} values, ${statistics.bytes.get()} bytes"
+            }
+        val compression = uncompressedBytes.get().takeIf { it > 0 }?.let {
+            ", $it bytes compressed to ${compressedBytes.get()} bytes"
+        } ?: ""
+        logger.log(level, "Configuration cache encoding statistics{}:\n{}", compression, summary)
+    }
+
+    private
+    class FrameStatistics {
+        val count = AtomicLong()
+        val bytes = AtomicLong()
+    }
+
+    private
+    inner class StatisticsTracer(
+        private val writePosition: () -> Long,
+        private val tracer: Tracer?
+    ) : Tracer {
+
+        // The position each open frame started at, and the size of its nested frames
+        private
+        val openFrames = ArrayList<LongArray>()
+
+        override fun open(frame: String) {
+            tracer?.open(frame)
+            openFrames.add(longArrayOf(writePosition(), 0))
+        }
+
+        override fun close(frame: String) {
+            val (start, nestedBytes) = openFrames.removeAt(openFrames.size - 1)
+            val bytes = writePosition() - start
+            openFrames.lastOrNull()?.let {
+                it[1] += bytes
+            }
+            val statistics = frames.computeIfAbsent(frame) { FrameStatistics() }
+            statistics.count.incrementAndGet()
+            statistics.bytes.addAndGet(bytes - nestedBytes)
+            tracer?.close(frame)
+        }
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.configurationcache.serialization
+
+import java.util.concurrent.Semaphore
+import java.util.concurrent.locks.ReentrantLock
+import kotlin.concurrent.withLock
+
+
+/**
+ * The identities of the objects shared by the isolates of a [WriteContext], see [encodePreservingSharedIdentityOf].
+ */
+sealed interface SharedWriteIdentities
+
+
+/**
+ * The identities of the objects shared within a single stream.
+ */
+class PlainWriteIdentities(
+    val identities: WriteIdentities = WriteIdentities()
+) : SharedWriteIdentities
+
+
+/**
+ * The identities of the objects shared by the isolates of a [ReadContext], see [decodePreservingSharedIdentity].
+ */
+sealed interface SharedReadIdentities
+
+
+/**
+ * The identities of the objects shared within a single stream.
+ */
+class PlainReadIdentities(
+    val identities: ReadIdentities = ReadIdentities()
+) : SharedReadIdentities
+
+
+/**
+ * The identities of the objects shared by shards written one after the other, each to its own stream.
+ *
+ * The first shard to meet a shared object writes it and becomes its owner, the shards written after it only write its id.
+ * A shard therefore only refers to objects owned by itself or by the shards written before it, so the owner of an object
+ * never depends on the timing of the shards, and a reader never waits for a shard that waits for it in turn.
+ *
+ * Ids are allocated from the given [identities], so that the objects keep their identity after the shards have been written.
+ */
+internal
+class ShardedWriteIdentities(
+    private val identities: WriteIdentities
+) {
+    private
+    val ownerShards = HashMap<Int, Int>()
+
+    /**
+     * The owner shard of each object written by the shards, by id.
+     */
+    val owners: Map<Int, Int>
+        get() = ownerShards
+
+    fun forShard(shard: Int) =
+        ShardWriteIdentities(this, shard)
+
+    /**
+     * Returns the id of the given object, shifted left by one bit.
+     * The lowest bit is set when the given shard must write the object.
+     */
+    fun claim(shard: Int, instance: Any): Int {
+        val id = identities.getId(instance)
+        if (id != null) {
+            return id shl 1
+        }
+        val newId = identities.putInstance(instance)
+        ownerShards[newId] = shard
+        return newId shl 1 or 1
+    }
+}
+
+
+/**
+ * The identities of the objects shared by a shard with the other shards of the same [ShardedWriteIdentities].
+ */
+internal
+class ShardWriteIdentities(
+    private val shared: ShardedWriteIdentities,
+    private val shard: Int
+) : SharedWriteIdentities {
+
+    fun claim(instance: Any) =
+        shared.claim(shard, instance)
+}
+
+
+/**
+ * The identities of the objects shared by shards read concurrently, see [ShardedWriteIdentities].
+ *
+ * A shard waits for the shards written before it to read the objects they own. A shard gives up its [parallelism] permit while it waits.
+ */
+internal
+class ShardedReadIdentities(
+    private val identities: ReadIdentities,
+    private val owners: Map<Int, Int>,
+    private val parallelism: Semaphore
+) {
+    private
+    val lock = ReentrantLock()
+
+    private
+    val changed = lock.newCondition()
+
+    private
+    val failedShards = HashSet<Int>()
+
+    fun forShard(shard: Int) =
+        ShardReadIdentities(this, shard)
+
+    fun putInstance(id: Int, instance: Any) {
+        lock.withLock {
+            identities.putInstance(id, instance)
+            changed.signalAll()
+        }
+    }
+
+    /**
+     * Waits for the owner shard of the given object to read it.
+     */
+    fun awaitInstance(shard: Int, id: Int): Any {
+        var blocked = false
+        try {
+            return lock.withLock {
+                var instance = identities.getInstance(id)
+                while (instance == null) {
+                    val owner = owners[id]
+                    check(owner != null && owner < shard) {
+                        "Shared object $id has not been read."
+                    }
+                    check(owner !in failedShards) {
+                        "Shared object $id could not be read, as shard $owner failed."
+                    }
+                    if (!blocked) {
+                        parallelism.release()
+                        blocked = true
+                    }
+                    changed.await()
+                    instance = identities.getInstance(id)
+                }
+                instance
+            }
+        } finally {
+            if (blocked) {
+                parallelism.acquireUninterruptibly()
+            }
+        }
+    }
+
+    fun failed(shard: Int) {
+        lock.withLock {
+            failedShards.add(shard)
+            changed.signalAll()
+        }
+    }
+}
+
+
+/**
+ * The identities of the objects shared by a shard with the other shards of the same [ShardedReadIdentities].
+ */
+internal
+class ShardReadIdentities(
+    private val shared: ShardedReadIdentities,
+    private val shard: Int
+) : SharedReadIdentities {
+
+    fun awaitInstance(id: Int) =
+        shared.awaitInstance(shard, id)
+
+    fun putInstance(id: Int, instance: Any) =
+        shared.putInstance(id, instance)
+}
@@ -30,6 +30,7 @@ import org.gradle.configurationcache.serialization.withDebugFrame
 
 import org.gradle.internal.serialize.Serializer
 
+import java.util.concurrent.ConcurrentHashMap
 import kotlin.reflect.KClass
 
 
@@ -42,7 +43,7 @@ class BindingsBackedCodec(private val bindings: List<Binding>) : Codec<Any?> {
     }
 
     private
-    val encodings = HashMap<Class<*>, TaggedEncoding>()
+    val encodings = ConcurrentHashMap<Class<*>, TaggedEncoding>()
 
     override suspend fun WriteContext.encode(value: Any?) = when (value) {
         null -> writeSmallInt(NULL_VALUE)
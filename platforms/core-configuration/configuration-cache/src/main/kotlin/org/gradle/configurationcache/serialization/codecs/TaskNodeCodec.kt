@@ -71,53 +71,57 @@ class TaskNodeCodec(
 
     override suspend fun WriteContext.encode(value: LocalTaskNode) {
         val task = value.task
-        writeTask(task)
+        withDebugFrame({ task.path }) {
+            writeTaskHeader(task)
+            writeTaskState(task)
+        }
     }
 
     override suspend fun ReadContext.decode(): LocalTaskNode {
-        val task = readTask()
-        val node = taskNodeFactory.getOrCreateNode(task) as LocalTaskNode
-        node.isolated()
+        val node = readTaskHeader()
+        readTaskState(node.task)
         return node
     }
 
-    private
-    suspend fun WriteContext.writeTask(task: TaskInternal) {
+    /**
+     * Writes the task of the given node without its state, which is then written separately by [writeNodeState].
+     */
+    internal
+    suspend fun WriteContext.writeNodeWithoutState(value: LocalTaskNode) {
+        val task = value.task
         withDebugFrame({ task.path }) {
-            val taskType = GeneratedSubclasses.unpackType(task)
-            val projectPath = task.project.path
-            val taskName = task.name
-            writeClass(taskType)
-            writeString(projectPath)
-            writeString(taskName)
-            writeLong(task.taskIdentity.uniqueId)
-            writeNullableString(task.reasonTaskIsIncompatibleWithConfigurationCache.orElse(null))
-
-            withDebugFrame({ taskType.name }) {
-                withTaskOf(taskType, task, userTypesCodec) {
-                    writeUpToDateSpec(task)
-                    writeCollection(task.outputs.cacheIfSpecs)
-                    writeCollection(task.outputs.doNotCacheIfSpecs)
-                    writeReasonNotToTrackState(task)
-                    beanStateWriterFor(task.javaClass).run {
-                        writeStateOf(task)
-                        withTaskReferencesAllowed {
-                            writeRegisteredPropertiesOf(
-                                task,
-                                this as BeanPropertyWriter
-                            )
-                        }
-                    }
-                    writeDestroyablesOf(task)
-                    writeLocalStateOf(task)
-                    writeRequiredServices(task)
-                }
-            }
+            writeTaskHeader(task)
         }
     }
 
+    internal
+    suspend fun ReadContext.readNodeWithoutState(): LocalTaskNode =
+        readTaskHeader()
+
+    internal
+    suspend fun WriteContext.writeNodeState(value: LocalTaskNode) {
+        val task = value.task
+        withDebugFrame({ task.path }) {
+            writeTaskState(task)
+        }
+    }
+
+    internal
+    suspend fun ReadContext.readNodeState(value: LocalTaskNode) {
+        readTaskState(value.task)
+    }
+
     private
-    suspend fun ReadContext.readTask(): Task {
+    fun WriteContext.writeTaskHeader(task: TaskInternal) {
+        writeClass(GeneratedSubclasses.unpackType(task))
+        writeString(task.project.path)
+        writeString(task.name)
+        writeLong(task.taskIdentity.uniqueId)
+        writeNullableString(task.reasonTaskIsIncompatibleWithConfigurationCache.orElse(null))
+    }
+
+    private
+    fun ReadContext.readTaskHeader(): LocalTaskNode {
         val taskType = readClassOf<Task>()
         val projectPath = readString()
         val taskName = readString()
@@ -126,6 +130,42 @@ class TaskNodeCodec(
 
         val task = createTask(projectPath, taskName, taskType, uniqueId, incompatibleReason)
 
+        // The shards of a work graph may be read concurrently
+        val node = synchronized(taskNodeFactory) {
+            taskNodeFactory.getOrCreateNode(task)
+        } as LocalTaskNode
+        node.isolated()
+        return node
+    }
+
+    private
+    suspend fun WriteContext.writeTaskState(task: TaskInternal) {
+        val taskType = GeneratedSubclasses.unpackType(task)
+        withDebugFrame({ taskType.name }) {
+            withTaskOf(taskType, task, userTypesCodec) {
+                writeUpToDateSpec(task)
+                writeCollection(task.outputs.cacheIfSpecs)
+                writeCollection(task.outputs.doNotCacheIfSpecs)
+                writeReasonNotToTrackState(task)
+                beanStateWriterFor(task.javaClass).run {
+                    writeStateOf(task)
+                    withTaskReferencesAllowed {
+                        writeRegisteredPropertiesOf(
+                            task,
+                            this as BeanPropertyWriter
+                        )
+                    }
+                }
+                writeDestroyablesOf(task)
+                writeLocalStateOf(task)
+                writeRequiredServices(task)
+            }
+        }
+    }
+
+    private
+    suspend fun ReadContext.readTaskState(task: TaskInternal) {
+        val taskType = GeneratedSubclasses.unpackType(task)
         withTaskOf(taskType, task, userTypesCodec) {
             readUpToDateSpec(task)
             readCollectionInto { task.outputs.cacheIfSpecs.uncheckedCast() }
@@ -139,8 +179,6 @@ class TaskNodeCodec(
             readLocalStateOf(task)
             readRequiredServices(task)
         }
-
-        return task
     }
 
     private
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.configurationcache.serialization.codecs
+
+import org.gradle.configurationcache.serialization.ReadContext
+import org.gradle.configurationcache.serialization.WriteContext
+import org.gradle.execution.plan.Node
+import java.util.concurrent.CompletableFuture
+
+
+/**
+ * Writes and reads the nodes of a work graph as separate shards, each with its own context.
+ *
+ * Objects shared by the nodes of different shards keep their identity.
+ */
+internal
+interface WorkGraphShards {
+
+    /**
+     * The maximum number of shards to split the tasks of a work graph into.
+     */
+    val maxShards: Int
+
+    /**
+     * Writes each shard with [writeShard], then records in this context how to share objects between the shards.
+     */
+    fun WriteContext.writeShards(shards: List<List<Node>>, writeShard: suspend WriteContext.(List<Node>) -> Unit)
+
+    /**
+     * Reads the given number of shards written by [writeShards], each with [readShard].
+     */
+    fun ReadContext.readShards(count: Int, readShard: suspend ReadContext.(Int) -> List<Node>): List<List<Node>>
+
+    /**
+     * Writes the state of the nodes of each shard with [writeShard], once the rest of the state file has been written.
+     */
+    fun WriteContext.writeStatesLater(shards: List<List<Node>>, writeShard: suspend WriteContext.(List<Node>) -> Unit)
+
+    /**
+     * Reads in the background the states written by [writeStatesLater], once the rest of the state file has been read.
+     * Each shard is read with [readShard], which reports the index of each node whose state has been read to `loaded`.
+     *
+     * Returns, for each node of each shard, a future completed once the state of the node has been read.
+     * The futures are completed while holding the state lock.
+     */
+    fun ReadContext.readStatesLater(
+        shards: List<List<Node>>,
+        readShard: suspend ReadContext.(nodes: List<Node>, loaded: (Int) -> Unit) -> Unit
+    ): List<List<CompletableFuture<Unit>>>
+}
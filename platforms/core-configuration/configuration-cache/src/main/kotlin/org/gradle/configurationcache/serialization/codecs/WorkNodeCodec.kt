@@ -47,26 +47,57 @@ internal
 class WorkNodeCodec(
     private val owner: GradleInternal,
     private val internalTypesCodec: Codec<Any?>,
-    private val ordinalGroups: OrdinalGroupFactory
+    private val ordinalGroups: OrdinalGroupFactory,
+    // Some codecs are stateful, so each shard, running on its own thread, needs its own codec
+    private val shardTypesCodec: () -> Codec<Any?>,
+    private val taskNodeCodec: () -> TaskNodeCodec
 ) {
 
-    suspend fun WriteContext.writeWork(work: ScheduledWork) {
+    /**
+     * Writes the given [work], splitting its nodes into [shards] when given, see [shardsOf].
+     *
+     * When [deferTaskStates] is set, the work graph only refers to its tasks, whose states are written to the [shards] afterwards,
+     * so the tasks can start running before all the states have been read back, see [WorkGraphShards.readStatesLater].
+     */
+    suspend fun WriteContext.writeWork(work: ScheduledWork, shards: WorkGraphShards? = null, deferTaskStates: Boolean = false) {
         // Share bean instances across all nodes (except tasks, which have their own isolate)
         withGradleIsolate(owner, internalTypesCodec) {
-            doWrite(work)
+            doWrite(work, shards, deferTaskStates)
         }
     }
 
-    suspend fun ReadContext.readWork(): ScheduledWork =
+    /**
+     * Reads the work written by [writeWork], using the given [shards] to read the nodes when they have been split.
+     */
+    suspend fun ReadContext.readWork(shards: WorkGraphShards? = null): ScheduledWork =
         withGradleIsolate(owner, internalTypesCodec) {
-            doRead()
+            doRead(shards)
         }
 
     private
-    suspend fun WriteContext.doWrite(work: ScheduledWork) {
+    suspend fun WriteContext.doWrite(work: ScheduledWork, shards: WorkGraphShards?, deferTaskStates: Boolean) {
         val nodes = work.scheduledNodes
         val nodeCount = nodes.size
         writeSmallInt(nodeCount)
+        val nodeShards = shards?.let { shardsOf(nodes, it.maxShards, if (deferTaskStates) 1 else 2) }
+        when {
+            shards == null || nodeShards == null -> {
+                writeSmallInt(inlineNodesLayout)
+                nodes.forEach { node ->
+                    write(node)
+                }
+            }
+
+            deferTaskStates -> {
+                writeSmallInt(deferredTaskStatesLayout)
+                writeNodesDeferringTaskStates(nodes, nodeShards, shards)
+            }
+
+            else -> {
+                writeSmallInt(shardedNodesLayout)
+                writeShardedNodes(nodes, nodeShards, shards)
+            }
+        }
         val scheduledNodeIds = HashMap<Node, Int>(nodeCount)
         // Not all entry nodes are always scheduled.
         // In particular, it happens when the entry node is a task of the included plugin build that runs as part of building the plugin.
@@ -74,7 +105,6 @@ class WorkNodeCodec(
         // Not restoring them as entry points doesn't affect the resulting execution plan.
         val scheduledEntryNodeIds = mutableListOf<Int>()
         nodes.forEach { node ->
-            write(node)
             val nodeId = scheduledNodeIds.size
             scheduledNodeIds[node] = nodeId
             if (node in work.entryNodes) {
@@ -95,13 +125,108 @@ class WorkNodeCodec(
         }
     }
 
+    /**
+     * Assigns the tasks of each project to the same shard, so a task is read along with the tasks it may refer to.
+     * Projects are spread over at most [maxShards] shards, the other nodes, such as transform nodes, all go to shard 0.
+     *
+     * Returns the shard of each node, or `null` when the tasks belong to less than [minProjects] projects, as the nodes are then not worth splitting.
+     */
+    private
+    fun shardsOf(nodes: List<Node>, maxShards: Int, minProjects: Int): IntArray? {
+        val projectShards = HashMap<Any, Int>()
+        val nodeShards = IntArray(nodes.size) { index ->
+            when (val node = nodes[index]) {
+                is LocalTaskNode -> projectShards.getOrPut(node.task.project) { 1 + projectShards.size % maxShards }
+                else -> 0
+            }
+        }
+        return nodeShards.takeIf { projectShards.size >= minProjects }
+    }
+
+    private
+    fun WriteContext.writeNodeShards(nodeShards: IntArray): Int {
+        val shardCount = nodeShards.maxOrNull()!! + 1
+        writeSmallInt(shardCount)
+        nodeShards.forEach {
+            writeSmallInt(it)
+        }
+        return shardCount
+    }
+
     private
-    suspend fun ReadContext.doRead(): ScheduledWork {
+    fun ReadContext.readNodeShards(nodeCount: Int): Pair<Int, IntArray> {
+        val shardCount = readSmallInt()
+        val nodeShards = IntArray(nodeCount) {
+            readSmallInt()
+        }
+        return shardCount to nodeShards
+    }
+
+    private
+    fun nodesByShard(nodes: List<Node>, nodeShards: IntArray, shardCount: Int): List<List<Node>> {
+        val nodesByShard = List(shardCount) { ArrayList<Node>() }
+        nodes.forEachIndexed { index, node ->
+            nodesByShard[nodeShards[index]].add(node)
+        }
+        return nodesByShard
+    }
+
+    private
+    fun WriteContext.writeShardedNodes(nodes: List<Node>, nodeShards: IntArray, shards: WorkGraphShards) {
+        val shardCount = writeNodeShards(nodeShards)
+        val nodesByShard = nodesByShard(nodes, nodeShards, shardCount)
+        shards.run {
+            writeShards(nodesByShard) { shardNodes ->
+                withGradleIsolate(owner, shardTypesCodec()) {
+                    shardNodes.forEach { node ->
+                        write(node)
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the tasks of shards other than 0 without their state, which is written to the [shards] once the rest of the state file has been written.
+     */
+    private
+    suspend fun WriteContext.writeNodesDeferringTaskStates(nodes: List<Node>, nodeShards: IntArray, shards: WorkGraphShards) {
+        val shardCount = writeNodeShards(nodeShards)
+        val taskCodec = taskNodeCodec()
+        nodes.forEachIndexed { index, node ->
+            if (nodeShards[index] == 0) {
+                write(node)
+            } else {
+                taskCodec.run {
+                    writeNodeWithoutState(node as LocalTaskNode)
+                }
+            }
+        }
+        shards.run {
+            writeStatesLater(nodesByShard(nodes, nodeShards, shardCount).drop(1)) { shardNodes ->
+                val shardCodec = taskNodeCodec()
+                shardNodes.forEach { node ->
+                    shardCodec.run {
+                        writeNodeState(node as LocalTaskNode)
+                    }
+                }
+            }
+        }
+    }
+
+    private
+    suspend fun ReadContext.doRead(shards: WorkGraphShards?): ScheduledWork {
         val nodeCount = readSmallInt()
+        val readNodes = when (val layout = readSmallInt()) {
+            inlineNodesLayout -> null
+            shardedNodesLayout -> readShardedNodes(nodeCount, shards)
+            deferredTaskStatesLayout -> readNodesDeferringTaskStates(nodeCount, shards)
+            else -> throw IllegalStateException("Unknown work graph layout $layout.")
+        }
         val nodes = ArrayList<Node>(nodeCount)
         val nodesById = HashMap<Int, Node>(nodeCount)
         for (i in 0 until nodeCount) {
-            val node = readNode()
+            val node = if (readNodes == null) readNode() else readNodes[i].also(::scheduled)
             nodesById[nodesById.size] = node
             if (node is LocalTaskNode) {
                 node.prepareNode.require()
@@ -121,12 +246,83 @@ class WorkNodeCodec(
         return ScheduledWork(nodes, entryNodes.build())
     }
 
+    private
+    fun ReadContext.readShardedNodes(nodeCount: Int, shards: WorkGraphShards?): List<Node> {
+        require(shards != null) {
+            "The work graph has been stored in shards."
+        }
+        val (shardCount, nodeShards) = readNodeShards(nodeCount)
+        val shardSizes = IntArray(shardCount)
+        nodeShards.forEach {
+            shardSizes[it]++
+        }
+        val nodesByShard = shards.run {
+            readShards(shardCount) { shard ->
+                withGradleIsolate(owner, shardTypesCodec()) {
+                    List(shardSizes[shard]) {
+                        readNonNull<Node>()
+                    }
+                }
+            }
+        }
+        // Restore the original order of the nodes
+        val shardPositions = IntArray(shardCount)
+        return nodeShards.map { shard ->
+            nodesByShard[shard][shardPositions[shard]++]
+        }
+    }
+
+    /**
+     * Reads the nodes written by [writeNodesDeferringTaskStates], then starts reading the states of their tasks in the background.
+     * A task waits for its state to be read before running.
+     */
+    private
+    suspend fun ReadContext.readNodesDeferringTaskStates(nodeCount: Int, shards: WorkGraphShards?): List<Node> {
+        require(shards != null) {
+            "The states of the tasks of the work graph have been stored separately."
+        }
+        val (shardCount, nodeShards) = readNodeShards(nodeCount)
+        val taskCodec = taskNodeCodec()
+        val nodes = nodeShards.map { shard ->
+            if (shard == 0) {
+                readNonNull<Node>()
+            } else {
+                taskCodec.run {
+                    readNodeWithoutState()
+                }
+            }
+        }
+        val tasksByShard = nodesByShard(nodes, nodeShards, shardCount).drop(1)
+        val pendingStates = shards.run {
+            readStatesLater(tasksByShard) { shardNodes, loaded ->
+                val shardCodec = taskNodeCodec()
+                shardNodes.forEachIndexed { index, node ->
+                    shardCodec.run {
+                        readNodeState(node as LocalTaskNode)
+                    }
+                    loaded(index)
+                }
+            }
+        }
+        tasksByShard.forEachIndexed { shard, shardNodes ->
+            shardNodes.forEachIndexed { index, node ->
+                (node as LocalTaskNode).stateLoadedBy(pendingStates[shard][index])
+            }
+        }
+        return nodes
+    }
+
     private
     suspend fun ReadContext.readNode(): Node {
         val node = readNonNull<Node>()
+        scheduled(node)
+        return node
+    }
+
+    private
+    fun scheduled(node: Node) {
         node.require()
         node.dependenciesProcessed()
-        return node
     }
 
     private
@@ -270,3 +466,15 @@ class WorkNodeCodec(
         }
     }
 }
+
+
+private
+const val inlineNodesLayout = 0
+
+
+private
+const val shardedNodesLayout = 1
+
+
+private
+const val deferredTaskStatesLayout = 2
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.configurationcache
+
+import org.gradle.configurationcache.serialization.EncodingStatistics
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.lessThan
+import org.junit.Test
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+
+
+class StateCompressionTest {
+
+    private
+    val state = (1..1000).joinToString("\n") { "line $it of some repetitive state" }.toByteArray()
+
+    @Test
+    fun `reads compressed state`() {
+        val compressed = write(compress = true)
+
+        assertThat(compressed.size, lessThan(state.size / 4))
+        assertThat(read(compressed), equalTo(state))
+    }
+
+    @Test
+    fun `reads uncompressed state`() {
+        val uncompressed = write(compress = false)
+
+        assertThat(uncompressed.size, equalTo(state.size + 1))
+        assertThat(read(uncompressed), equalTo(state))
+    }
+
+    private
+    fun write(compress: Boolean): ByteArray {
+        val output = ByteArrayOutputStream()
+        compressing(output, compress, EncodingStatistics()).use {
+            it.write(state)
+        }
+        return output.toByteArray()
+    }
+
+    private
+    fun read(bytes: ByteArray): ByteArray =
+        decompressing(ByteArrayInputStream(bytes)).use {
+            it.readBytes()
+        }
+}
@@ -32,11 +32,11 @@ import org.gradle.configurationcache.serialization.CircularReferences
 import org.gradle.configurationcache.serialization.Codec
 import org.gradle.configurationcache.serialization.IsolateOwner
 import org.gradle.configurationcache.serialization.ReadContext
-import org.gradle.configurationcache.serialization.ReadIdentities
 import org.gradle.configurationcache.serialization.ReadIsolate
+import org.gradle.configurationcache.serialization.SharedReadIdentities
+import org.gradle.configurationcache.serialization.SharedWriteIdentities
 import org.gradle.configurationcache.serialization.Tracer
 import org.gradle.configurationcache.serialization.WriteContext
-import org.gradle.configurationcache.serialization.WriteIdentities
 import org.gradle.configurationcache.serialization.WriteIsolate
 import org.gradle.configurationcache.serialization.beans.BeanStateReader
 import org.gradle.configurationcache.serialization.beans.BeanStateWriter
@@ -53,6 +53,8 @@ import org.junit.Test
 import java.io.File
 import java.io.InputStream
 import java.io.OutputStream
+import java.util.concurrent.Executor
+import java.util.concurrent.Executors
 
 
 class ConfigurationCacheFingerprintCheckerTest {
@@ -177,6 +179,49 @@ class ConfigurationCacheFingerprintCheckerTest {
         )
     }
 
+    @Test
+    fun `file recorded by the virtual file system is not hashed again`() {
+        val scriptFile = File("build.gradle.kts")
+        assertThat(
+            checkFingerprintGiven(
+                mock {
+                    on { recordedHashCodeOf(scriptFile) } doReturn TestHashCodes.hashCodeFrom(1)
+                },
+                ConfigurationCacheFingerprint.InputFile(
+                    scriptFile,
+                    TestHashCodes.hashCodeFrom(1)
+                )
+            ),
+            equalTo(null)
+        )
+    }
+
+    @Test
+    fun `first invalid input is reported when hashing concurrently`() {
+        val executor = Executors.newFixedThreadPool(4)
+        try {
+            val files = (1..20).map { File("file$it.txt") }
+            assertThat(
+                checkFingerprintGiven(
+                    mock {
+                        on { hashCodeOf(any()) } doReturn TestHashCodes.hashCodeFrom(2)
+                        on { hashCodeOfDirectoryContent(any()) } doReturn TestHashCodes.hashCodeFrom(2)
+                        on { displayNameOf(any()) }.then { invocation ->
+                            invocation.getArgument<File>(0).name
+                        }
+                    },
+                    files.take(10).map { ConfigurationCacheFingerprint.InputFile(it, TestHashCodes.hashCodeFrom(2)) } +
+                        ConfigurationCacheFingerprint.DirectoryChildren(File("dir"), TestHashCodes.hashCodeFrom(2)) +
+                        files.drop(10).map { ConfigurationCacheFingerprint.InputFile(it, TestHashCodes.hashCodeFrom(3)) },
+                    executor
+                ),
+                equalTo("file 'file11.txt' has changed")
+            )
+        } finally {
+            executor.shutdown()
+        }
+    }
+
     @Test
     fun `invalidation reason includes ValueSource description`() {
 
@@ -226,15 +271,23 @@ class ConfigurationCacheFingerprintCheckerTest {
     fun checkFingerprintGiven(
         host: ConfigurationCacheFingerprintChecker.Host,
         fingerprint: ConfigurationCacheFingerprint
+    ): InvalidationReason? =
+        checkFingerprintGiven(host, listOf(fingerprint), Executor { it.run() })
+
+    private
+    fun checkFingerprintGiven(
+        host: ConfigurationCacheFingerprintChecker.Host,
+        fingerprints: List<ConfigurationCacheFingerprint>,
+        hashingExecutor: Executor
     ): InvalidationReason? {
 
         val readContext = recordWritingOf {
-            write(fingerprint)
+            fingerprints.forEach { write(it) }
             write(null)
         }
 
         val checkedFingerprint = readContext.runReadOperation {
-            ConfigurationCacheFingerprintChecker(host).run {
+            ConfigurationCacheFingerprintChecker(host, hashingExecutor).run {
                 checkBuildScopedFingerprint()
             }
         }
@@ -282,7 +335,7 @@ class ConfigurationCacheFingerprintCheckerTest {
         override val tracer: Tracer?
             get() = null
 
-        override val sharedIdentities: WriteIdentities
+        override val sharedIdentities: SharedWriteIdentities
             get() = undefined()
 
         override val isolate: WriteIsolate
@@ -381,7 +434,7 @@ class ConfigurationCacheFingerprintCheckerTest {
         private
         fun <T : Any?> next(): T = reader.next() as T
 
-        override val sharedIdentities: ReadIdentities
+        override val sharedIdentities: SharedReadIdentities
             get() = undefined()
 
         override val isolate: ReadIsolate
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.configurationcache.serialization
+
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.CoreMatchers.sameInstance
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+import java.util.concurrent.Semaphore
+import java.util.concurrent.TimeUnit
+import kotlin.concurrent.thread
+
+
+class ShardedIdentitiesTest {
+
+    private
+    val parallelism = Semaphore(2)
+
+    @Test
+    fun `first shard to claim an object writes it`() {
+        val identities = ShardedWriteIdentities(WriteIdentities().apply { putInstance("existing") })
+        val shared = Any()
+
+        val first = identities.forShard(1).claim(shared)
+        val second = identities.forShard(2).claim(shared)
+        val again = identities.forShard(1).claim(shared)
+
+        assertThat(first, equalTo(1 shl 1 or 1))
+        assertThat(second, equalTo(1 shl 1))
+        assertThat(again, equalTo(1 shl 1))
+        assertThat(identities.owners, equalTo(mapOf(1 to 1)))
+    }
+
+    @Test
+    fun `objects written before the shards are not owned by any shard`() {
+        val identities = ShardedWriteIdentities(WriteIdentities().apply { putInstance("existing") })
+
+        val claim = identities.forShard(1).claim("existing")
+
+        assertThat(claim, equalTo(0))
+        assertThat(identities.owners, equalTo(emptyMap<Int, Int>()))
+    }
+
+    @Test
+    fun `reading a reference waits for the owner shard to read the object`() {
+        val identities = ShardedReadIdentities(ReadIdentities(), mapOf(0 to 1), parallelism)
+        val shared = Any()
+
+        var read: Any? = null
+        val waiter = thread {
+            read = identities.forShard(2).awaitInstance(0)
+        }
+        awaitBlocked(waiter)
+        identities.forShard(1).putInstance(0, shared)
+        waiter.join()
+
+        assertThat(read, sameInstance(shared))
+    }
+
+    @Test(expected = IllegalStateException::class)
+    fun `reading a reference to an object owned by a later shard fails`() {
+        val identities = ShardedReadIdentities(ReadIdentities(), mapOf(0 to 2), parallelism)
+
+        identities.forShard(1).awaitInstance(0)
+    }
+
+    @Test(expected = IllegalStateException::class)
+    fun `reading a reference fails when the owner shard fails`() {
+        val identities = ShardedReadIdentities(ReadIdentities(), mapOf(0 to 1), parallelism)
+        identities.failed(1)
+
+        identities.forShard(2).awaitInstance(0)
+    }
+
+    private
+    fun awaitBlocked(thread: Thread) {
+        val deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10)
+        while (thread.state != Thread.State.WAITING) {
+            check(System.nanoTime() < deadline)
+            Thread.sleep(10)
+        }
+    }
+}
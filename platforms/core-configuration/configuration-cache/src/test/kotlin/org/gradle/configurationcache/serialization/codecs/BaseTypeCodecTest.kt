@@ -18,7 +18,9 @@ package org.gradle.configurationcache.serialization.codecs
 
 import org.hamcrest.CoreMatchers.equalTo
 import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.lessThan
 import org.junit.Test
+import java.io.File
 import java.util.Hashtable
 import java.util.Properties
 
@@ -45,4 +47,30 @@ class BaseTypeCodecTest : AbstractUserTypeCodecTest() {
             assertThat(hashtable, equalTo(this))
         }
     }
+
+    @Test
+    fun `can handle Files`() {
+        val files = arrayListOf(
+            File("/root/dir/a.txt"),
+            File("/root/dir/b.txt"),
+            File("/root/dir"),
+            File("/root/dir/a.txt"),
+            File("relative/path"),
+            File("relative"),
+            File("/"),
+            File("")
+        )
+        configurationCacheRoundtripOf(files).run {
+            assertThat(this, equalTo(files))
+        }
+    }
+
+    @Test
+    fun `writes repeated strings and files once`() {
+        val value = "some/rather/long/string/that/is/repeated"
+        val once = writeToByteArray(arrayListOf(value, File(value)), userTypesCodec())
+        val repeated = writeToByteArray(arrayListOf(value, File(value)) + (1..100).flatMap { listOf(value, File("$value/$it")) }, userTypesCodec())
+
+        assertThat(repeated.size - once.size, lessThan(100 * value.length))
+    }
 }
@@ -0,0 +1,933 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.packaging.impl;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Interner;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CountingInputStream;
+import com.google.common.io.CountingOutputStream;
+import org.apache.commons.io.FileUtils;
+import org.gradle.caching.internal.CacheableEntity;
+import org.gradle.caching.internal.origin.OriginMetadata;
+import org.gradle.caching.internal.origin.OriginReader;
+import org.gradle.caching.internal.origin.OriginWriter;
+import org.gradle.caching.internal.packaging.BuildCacheEntryPacker;
+import org.gradle.internal.RelativePathSupplier;
+import org.gradle.internal.file.FileType;
+import org.gradle.internal.file.PathTraversalChecker;
+import org.gradle.internal.file.TreeType;
+import org.gradle.internal.file.impl.DefaultFileMetadata;
+import org.gradle.internal.hash.PrimitiveHasher;
+import org.gradle.internal.hash.StreamHasher;
+import org.gradle.internal.snapshot.DirectorySnapshot;
+import org.gradle.internal.snapshot.DirectorySnapshotBuilder;
+import org.gradle.internal.snapshot.FileSystemLocationSnapshot;
+import org.gradle.internal.snapshot.FileSystemLocationSnapshot.FileSystemLocationSnapshotVisitor;
+import org.gradle.internal.snapshot.FileSystemSnapshot;
+import org.gradle.internal.snapshot.MerkleDirectorySnapshotBuilder;
+import org.gradle.internal.snapshot.MissingFileSnapshot;
+import org.gradle.internal.snapshot.RegularFileSnapshot;
+import org.gradle.internal.snapshot.RelativePathTracker;
+import org.gradle.internal.snapshot.RelativePathTrackingFileSystemSnapshotHierarchyVisitor;
+import org.gradle.internal.snapshot.SnapshotVisitResult;
+
+import javax.annotation.Nullable;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import static org.gradle.internal.file.FileMetadata.AccessType.DIRECT;
+import static org.gradle.internal.snapshot.DirectorySnapshotBuilder.EmptyDirectoryHandlingStrategy.INCLUDE_EMPTY_DIRS;
+
+/**
+ * Packages build cache entries in an indexed format where the contents of files are split into independently compressed chunks.
+ *
+ * <p>A gzipped TAR file can only be compressed and decompressed sequentially. Here the chunks are compressed and decompressed on the given executor,
+ * and unpacked files are written and hashed in parallel, while the entry itself is still read and written as a stream. An entry consists of:</p>
+ *
+ * <ul>
+ *     <li>a header with the magic number, the format version and the chunk size,</li>
+ *     <li>the length-prefixed origin metadata,</li>
+ *     <li>the records of the output trees: a {@code TREE} record followed by the record of the root, and for directories the {@code DIRECTORY},
+ *     {@code FILE} and {@code LEAVE_DIRECTORY} records of their contents. The content of each file follows its record as a sequence of chunks,
+ *     each either stored or deflated, together with the CRC32 of its uncompressed bytes,</li>
+ *     <li>a central index with the kind, tree, relative path and offset of each record, followed by the offset of the index and the magic number.</li>
+ * </ul>
+ *
+ * <p>The central index allows locating single files of an entry stored on disk without reading through the preceding contents.
+ * When unpacking from a stream, the index is checked against the records read.</p>
+ *
+ * <p>Entries that do not start with the magic number are unpacked by the legacy packer, so existing cache entries stay usable.
+ * Older Gradle versions cannot unpack entries in this format.</p>
+ */
+public class IndexedBuildCacheEntryPacker implements BuildCacheEntryPacker, Closeable {
+
+    @SuppressWarnings("OctalInteger")
+    private interface UnixPermissions {
+        int DEFAULT_DIR_PERM = 0755;
+        int PERM_MASK = 07777;
+    }
+
+    private static final int MAGIC = 0x47424349;
+    private static final byte VERSION = 1;
+    private static final int DEFAULT_CHUNK_SIZE = 1024 * 1024;
+
+    private static final byte END_OF_RECORDS = 0;
+    private static final byte TREE = 1;
+    private static final byte DIRECTORY = 2;
+    private static final byte FILE = 3;
+    private static final byte MISSING = 4;
+    private static final byte LEAVE_DIRECTORY = 5;
+
+    private static final byte STORED = 0;
+    private static final byte DEFLATED = 1;
+    private static final int CHUNK_HEADER_SIZE = 9;
+
+    private final TarPackerFileSystemSupport fileSystemSupport;
+    private final FilePermissionAccess filePermissionAccess;
+    private final StreamHasher streamHasher;
+    private final Interner<String> stringInterner;
+    private final BuildCacheEntryPacker legacyPacker;
+    private final ExecutorService executor;
+    private final int maxChunksInFlight;
+    private final int compressionLevel;
+    private final int chunkSize;
+
+    /**
+     * Creates a packer that compresses and decompresses chunks on the given executor, which is shut down when the packer is closed.
+     *
+     * @param parallelism the number of threads of the executor, used to limit the number of chunks held in memory
+     * @param compressionLevel the {@link Deflater} compression level of the chunks
+     */
+    public IndexedBuildCacheEntryPacker(
+        TarPackerFileSystemSupport fileSystemSupport,
+        FilePermissionAccess filePermissionAccess,
+        StreamHasher streamHasher,
+        Interner<String> stringInterner,
+        BuildCacheEntryPacker legacyPacker,
+        ExecutorService executor,
+        int parallelism,
+        int compressionLevel
+    ) {
+        this(fileSystemSupport, filePermissionAccess, streamHasher, stringInterner, legacyPacker, executor, parallelism, compressionLevel, DEFAULT_CHUNK_SIZE);
+    }
+
+    IndexedBuildCacheEntryPacker(
+        TarPackerFileSystemSupport fileSystemSupport,
+        FilePermissionAccess filePermissionAccess,
+        StreamHasher streamHasher,
+        Interner<String> stringInterner,
+        BuildCacheEntryPacker legacyPacker,
+        ExecutorService executor,
+        int parallelism,
+        int compressionLevel,
+        int chunkSize
+    ) {
+        this.fileSystemSupport = fileSystemSupport;
+        this.filePermissionAccess = filePermissionAccess;
+        this.streamHasher = streamHasher;
+        this.stringInterner = stringInterner;
+        this.legacyPacker = legacyPacker;
+        this.executor = executor;
+        this.maxChunksInFlight = 4 * Math.max(1, parallelism);
+        this.compressionLevel = compressionLevel;
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public PackResult pack(CacheableEntity entity, Map<String, ? extends FileSystemSnapshot> snapshots, OutputStream output, OriginWriter writeOrigin) throws IOException {
+        try (EntryWriter writer = new EntryWriter(output)) {
+            writer.writeHeader(writeOrigin);
+            long entryCount = pack(entity, snapshots, writer);
+            writer.finish();
+            return new PackResult(entryCount + 1);
+        }
+    }
+
+    private long pack(CacheableEntity entity, Map<String, ? extends FileSystemSnapshot> snapshots, EntryWriter writer) {
+        long[] entries = new long[1];
+        entity.visitOutputTrees((treeName, type, root) -> {
+            FileSystemSnapshot treeSnapshots = snapshots.get(treeName);
+            try {
+                PackingVisitor packingVisitor = new PackingVisitor(writer, treeName, type);
+                treeSnapshots.accept(new RelativePathTracker(), packingVisitor);
+                entries[0] += packingVisitor.getPackedEntryCount();
+            } catch (Exception ex) {
+                throw new RuntimeException(String.format("Could not pack tree '%s': %s", treeName, ex.getMessage()), ex);
+            }
+        });
+        return entries[0];
+    }
+
+    @Override
+    public UnpackResult unpack(CacheableEntity entity, InputStream input, OriginReader readOrigin) throws IOException {
+        BufferedInputStream bufferedInput = new BufferedInputStream(input);
+        if (!startsWithMagic(bufferedInput)) {
+            return legacyPacker.unpack(entity, bufferedInput, readOrigin);
+        }
+        try (EntryReader reader = new EntryReader(bufferedInput)) {
+            return reader.unpack(entity, readOrigin);
+        }
+    }
+
+    private static boolean startsWithMagic(BufferedInputStream input) throws IOException {
+        input.mark(4);
+        byte[] magic = new byte[4];
+        int read = ByteStreams.read(input, magic, 0, magic.length);
+        input.reset();
+        return read == magic.length && ByteBuffer.wrap(magic).getInt() == MAGIC;
+    }
+
+    /**
+     * Shuts down the executor used for compressing and decompressing chunks.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    private class EntryWriter implements Closeable {
+        private final CountingOutputStream countingOutput;
+        private final DataOutputStream output;
+        private final Deque<PendingWrite> pendingWrites = new ArrayDeque<>();
+        private final List<IndexEntry> index = new ArrayList<>();
+        private int chunksInFlight;
+
+        public EntryWriter(OutputStream output) {
+            this.countingOutput = new CountingOutputStream(output instanceof BufferedOutputStream ? output : new BufferedOutputStream(output));
+            this.output = new DataOutputStream(countingOutput);
+        }
+
+        public void writeHeader(OriginWriter writeOrigin) throws IOException {
+            output.writeInt(MAGIC);
+            output.writeByte(VERSION);
+            output.writeInt(chunkSize);
+            ByteArrayOutputStream metadata = new ByteArrayOutputStream();
+            writeOrigin.execute(metadata);
+            output.writeInt(metadata.size());
+            metadata.writeTo(output);
+        }
+
+        public void writeTree(String treeName) throws IOException {
+            RecordBuilder record = new RecordBuilder(TREE);
+            record.writeString(treeName);
+            enqueueRecord(record, null);
+        }
+
+        public void writeDirectory(String treeName, String relativePath, String name, int mode) throws IOException {
+            RecordBuilder record = new RecordBuilder(DIRECTORY);
+            record.writeString(name);
+            record.writeInt(mode);
+            enqueueRecord(record, new IndexEntry(DIRECTORY, treeName, relativePath));
+        }
+
+        public void writeMissing(String treeName) throws IOException {
+            enqueueRecord(new RecordBuilder(MISSING), new IndexEntry(MISSING, treeName, ""));
+        }
+
+        public void writeLeaveDirectory() throws IOException {
+            enqueueRecord(new RecordBuilder(LEAVE_DIRECTORY), null);
+        }
+
+        public void writeFile(String treeName, String relativePath, String name, int mode, File file, long length) throws IOException {
+            RecordBuilder record = new RecordBuilder(FILE);
+            record.writeString(name);
+            record.writeInt(mode);
+            record.writeLong(length);
+            enqueueRecord(record, new IndexEntry(FILE, treeName, relativePath));
+            for (long offset = 0; offset < length; offset += chunkSize) {
+                long position = offset;
+                int chunkLength = (int) Math.min(chunkSize, length - offset);
+                CompletableFuture<byte[]> chunk = CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return packChunk(file, position, chunkLength);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, executor);
+                pendingWrites.add(new PendingWrite(chunk, null, true));
+                chunksInFlight++;
+                while (chunksInFlight > maxChunksInFlight) {
+                    writeNext();
+                }
+            }
+        }
+
+        private void enqueueRecord(RecordBuilder record, @Nullable IndexEntry indexEntry) throws IOException {
+            if (pendingWrites.isEmpty()) {
+                write(record.toByteArray(), indexEntry);
+            } else {
+                pendingWrites.add(new PendingWrite(CompletableFuture.completedFuture(record.toByteArray()), indexEntry, false));
+            }
+        }
+
+        private void writeNext() throws IOException {
+            PendingWrite next = pendingWrites.remove();
+            if (next.chunk) {
+                chunksInFlight--;
+            }
+            write(await(next.bytes), next.indexEntry);
+        }
+
+        private void write(byte[] bytes, @Nullable IndexEntry indexEntry) throws IOException {
+            if (indexEntry != null) {
+                indexEntry.offset = countingOutput.getCount();
+                index.add(indexEntry);
+            }
+            output.write(bytes);
+        }
+
+        public void finish() throws IOException {
+            while (!pendingWrites.isEmpty()) {
+                writeNext();
+            }
+            output.writeByte(END_OF_RECORDS);
+            long indexOffset = countingOutput.getCount();
+            output.writeInt(index.size());
+            for (IndexEntry entry : index) {
+                entry.writeTo(output);
+            }
+            output.writeLong(indexOffset);
+            output.writeInt(MAGIC);
+        }
+
+        @Override
+        public void close() throws IOException {
+            for (PendingWrite pendingWrite : pendingWrites) {
+                pendingWrite.bytes.cancel(false);
+            }
+            output.close();
+        }
+    }
+
+    private static class PendingWrite {
+        private final CompletableFuture<byte[]> bytes;
+        private final IndexEntry indexEntry;
+        private final boolean chunk;
+
+        public PendingWrite(CompletableFuture<byte[]> bytes, @Nullable IndexEntry indexEntry, boolean chunk) {
+            this.bytes = bytes;
+            this.indexEntry = indexEntry;
+            this.chunk = chunk;
+        }
+    }
+
+    private static class RecordBuilder {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final DataOutputStream output = new DataOutputStream(bytes);
+
+        public RecordBuilder(byte kind) throws IOException {
+            output.writeByte(kind);
+        }
+
+        public void writeString(String value) throws IOException {
+            IndexedBuildCacheEntryPacker.writeString(output, value);
+        }
+
+        public void writeInt(int value) throws IOException {
+            output.writeInt(value);
+        }
+
+        public void writeLong(long value) throws IOException {
+            output.writeLong(value);
+        }
+
+        public byte[] toByteArray() {
+            return bytes.toByteArray();
+        }
+    }
+
+    private static class IndexEntry {
+        private final byte kind;
+        private final String treeName;
+        private final String relativePath;
+        private long offset;
+
+        public IndexEntry(byte kind, String treeName, String relativePath) {
+            this.kind = kind;
+            this.treeName = treeName;
+            this.relativePath = relativePath;
+        }
+
+        public void writeTo(DataOutputStream output) throws IOException {
+            output.writeByte(kind);
+            writeString(output, treeName);
+            writeString(output, relativePath);
+            output.writeLong(offset);
+        }
+
+        public static IndexEntry readFrom(DataInputStream input) throws IOException {
+            byte kind = input.readByte();
+            String treeName = readString(input);
+            String relativePath = readString(input);
+            IndexEntry entry = new IndexEntry(kind, treeName, relativePath);
+            entry.offset = input.readLong();
+            return entry;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            IndexEntry that = (IndexEntry) o;
+            return kind == that.kind
+                && offset == that.offset
+                && treeName.equals(that.treeName)
+                && relativePath.equals(that.relativePath);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(kind, treeName, relativePath, offset);
+        }
+    }
+
+    private byte[] packChunk(File file, long position, int length) throws IOException {
+        byte[] data = new byte[length];
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) {
+                    throw new IOException(String.format("File '%s' changed while it was being packed", file));
+                }
+            }
+        }
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, length);
+
+        byte[] chunk = new byte[CHUNK_HEADER_SIZE + length];
+        int compressedLength = deflate(data, chunk, CHUNK_HEADER_SIZE);
+        ByteBuffer header = ByteBuffer.wrap(chunk, 0, CHUNK_HEADER_SIZE);
+        if (compressedLength < 0) {
+            System.arraycopy(data, 0, chunk, CHUNK_HEADER_SIZE, length);
+            header.put(STORED).putInt(length).putInt((int) crc.getValue());
+            return chunk;
+        }
+        header.put(DEFLATED).putInt(compressedLength).putInt((int) crc.getValue());
+        return Arrays.copyOf(chunk, CHUNK_HEADER_SIZE + compressedLength);
+    }
+
+    /**
+     * Deflates the data into the target array, returning the compressed length or -1 when compressing would not make the data smaller.
+     */
+    private int deflate(byte[] data, byte[] target, int offset) {
+        Deflater deflater = new Deflater(compressionLevel);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            int length = 0;
+            int maxLength = data.length - 1;
+            while (!deflater.finished() && length < maxLength) {
+                length += deflater.deflate(target, offset + length, maxLength - length);
+            }
+            return deflater.finished() ? length : -1;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private class EntryReader implements Closeable {
+        private final CountingInputStream countingInput;
+        private final DataInputStream input;
+        private final Deque<CompletableFuture<?>> chunksInFlight = new ArrayDeque<>();
+        private final List<CompletableFuture<?>> tasks = new ArrayList<>();
+        private final List<IndexEntry> records = new ArrayList<>();
+        private int entryChunkSize;
+        private long entries;
+
+        public EntryReader(InputStream input) {
+            this.countingInput = new CountingInputStream(input);
+            this.input = new DataInputStream(countingInput);
+        }
+
+        public UnpackResult unpack(CacheableEntity entity, OriginReader readOrigin) throws IOException {
+            ImmutableMap.Builder<String, CacheableTree> treesBuilder = ImmutableMap.builder();
+            entity.visitOutputTrees((name, type, root) -> treesBuilder.put(name, new CacheableTree(type, root)));
+            ImmutableMap<String, CacheableTree> treesByName = treesBuilder.build();
+
+            boolean successful = false;
+            try {
+                OriginMetadata originMetadata = readHeader(readOrigin);
+                Map<String, Consumer<Map<String, FileSystemLocationSnapshot>>> treeSnapshots = new HashMap<>();
+                byte kind;
+                while ((kind = input.readByte()) != END_OF_RECORDS) {
+                    if (kind != TREE) {
+                        throw new IllegalStateException("Cached entry format error, expected a tree but found record of kind " + kind);
+                    }
+                    String treeName = readString(input);
+                    CacheableTree tree = treesByName.get(treeName);
+                    if (tree == null) {
+                        throw new IllegalStateException(String.format("No tree '%s' registered", treeName));
+                    }
+                    treeSnapshots.put(treeName, unpackTree(treeName, tree.getType(), tree.getRoot()));
+                }
+                readIndex();
+
+                for (CompletableFuture<?> task : tasks) {
+                    await(task);
+                }
+                Map<String, FileSystemLocationSnapshot> snapshots = new HashMap<>();
+                treeSnapshots.values().forEach(treeSnapshot -> treeSnapshot.accept(snapshots));
+                successful = true;
+                return new UnpackResult(originMetadata, entries, snapshots);
+            } finally {
+                if (!successful) {
+                    awaitQuietly();
+                }
+            }
+        }
+
+        private OriginMetadata readHeader(OriginReader readOrigin) throws IOException {
+            input.readInt();
+            byte version = input.readByte();
+            if (version != VERSION) {
+                throw new IllegalStateException("Cached entry format error, unsupported version " + version);
+            }
+            entryChunkSize = input.readInt();
+            if (entryChunkSize <= 0) {
+                throw new IllegalStateException("Cached entry format error, invalid chunk size " + entryChunkSize);
+            }
+            byte[] metadata = new byte[input.readInt()];
+            input.readFully(metadata);
+            entries++;
+            return readOrigin.execute(new ByteArrayInputStream(metadata));
+        }
+
+        private Consumer<Map<String, FileSystemLocationSnapshot>> unpackTree(String treeName, TreeType treeType, File treeRoot) throws IOException {
+            long offset = countingInput.getCount();
+            byte kind = input.readByte();
+            entries++;
+            switch (kind) {
+                case MISSING:
+                    records.add(indexEntry(MISSING, treeName, "", offset));
+                    fileSystemSupport.ensureFileIsMissing(treeRoot);
+                    return snapshots -> {};
+                case FILE: {
+                    records.add(indexEntry(FILE, treeName, "", offset));
+                    if (treeType != TreeType.FILE) {
+                        throw new IllegalStateException("Should be a file: " + treeName);
+                    }
+                    fileSystemSupport.ensureDirectoryForTree(treeType, treeRoot);
+                    readString(input);
+                    CompletableFuture<RegularFileSnapshot> fileSnapshot = unpackFile(treeRoot, treeRoot.getName());
+                    return snapshots -> snapshots.put(treeName, fileSnapshot.join());
+                }
+                case DIRECTORY: {
+                    records.add(indexEntry(DIRECTORY, treeName, "", offset));
+                    if (treeType != TreeType.DIRECTORY) {
+                        throw new IllegalStateException("Should be a directory: " + treeName);
+                    }
+                    fileSystemSupport.ensureDirectoryForTree(treeType, treeRoot);
+                    readString(input);
+                    chmod(treeRoot, input.readInt());
+                    List<Consumer<DirectorySnapshotBuilder>> builderActions = unpackDirectoryTree(treeName, treeRoot);
+                    return snapshots -> {
+                        DirectorySnapshotBuilder builder = MerkleDirectorySnapshotBuilder.noSortingRequired();
+                        builderActions.forEach(action -> action.accept(builder));
+                        snapshots.put(treeName, builder.getResult());
+                    };
+                }
+                default:
+                    throw new IllegalStateException("Cached entry format error, invalid root of tree " + treeName);
+            }
+        }
+
+        /**
+         * Unpacks the contents of a directory tree, returning the actions to build its snapshot once all files have been written.
+         */
+        private List<Consumer<DirectorySnapshotBuilder>> unpackDirectoryTree(String treeName, File treeRoot) throws IOException {
+            List<Consumer<DirectorySnapshotBuilder>> builderActions = new ArrayList<>();
+            String rootPath = stringInterner.intern(treeRoot.getAbsolutePath());
+            String rootName = stringInterner.intern(treeRoot.getName());
+            builderActions.add(builder -> builder.enterDirectory(DIRECT, rootPath, rootName, INCLUDE_EMPTY_DIRS));
+
+            Deque<File> directories = new ArrayDeque<>();
+            Deque<String> relativePaths = new ArrayDeque<>();
+            directories.push(treeRoot);
+            relativePaths.push("");
+            while (!directories.isEmpty()) {
+                long offset = countingInput.getCount();
+                byte kind = input.readByte();
+                switch (kind) {
+                    case DIRECTORY: {
+                        String name = safeEntryName(readString(input));
+                        String relativePath = childPath(relativePaths.peek(), name);
+                        records.add(indexEntry(DIRECTORY, treeName, relativePath, offset));
+                        entries++;
+                        File dir = new File(directories.peek(), name);
+                        FileUtils.forceMkdir(dir);
+                        chmod(dir, input.readInt());
+                        String internedAbsolutePath = stringInterner.intern(dir.getAbsolutePath());
+                        String internedName = stringInterner.intern(name);
+                        builderActions.add(builder -> builder.enterDirectory(DIRECT, internedAbsolutePath, internedName, INCLUDE_EMPTY_DIRS));
+                        directories.push(dir);
+                        relativePaths.push(relativePath);
+                        break;
+                    }
+                    case FILE: {
+                        String name = safeEntryName(readString(input));
+                        records.add(indexEntry(FILE, treeName, childPath(relativePaths.peek(), name), offset));
+                        entries++;
+                        CompletableFuture<RegularFileSnapshot> fileSnapshot = unpackFile(new File(directories.peek(), name), name);
+                        builderActions.add(builder -> builder.visitLeafElement(fileSnapshot.join()));
+                        break;
+                    }
+                    case LEAVE_DIRECTORY:
+                        directories.pop();
+                        relativePaths.pop();
+                        builderActions.add(DirectorySnapshotBuilder::leaveDirectory);
+                        break;
+                    default:
+                        throw new IllegalStateException("Cached entry format error, invalid record of kind " + kind + " in tree " + treeName);
+                }
+            }
+            return builderActions;
+        }
+
+        private CompletableFuture<RegularFileSnapshot> unpackFile(File file, String fileName) throws IOException {
+            int mode = input.readInt();
+            long length = input.readLong();
+            new FileOutputStream(file).close();
+
+            // The chunks are fed to the hasher in order as they complete, so the file does not need to be read back
+            CompletableFuture<PrimitiveHasher> contentHasher = CompletableFuture.completedFuture(streamHasher.newContentHasher());
+            for (long offset = 0; offset < length; offset += entryChunkSize) {
+                int chunkLength = (int) Math.min(entryChunkSize, length - offset);
+                byte method = input.readByte();
+                int payloadLength = input.readInt();
+                int crc = input.readInt();
+                if (method != STORED && method != DEFLATED || payloadLength < 0 || payloadLength > chunkLength) {
+                    throw new IllegalStateException(String.format("Cached entry format error, invalid chunk for '%s'", fileName));
+                }
+                byte[] payload = new byte[payloadLength];
+                input.readFully(payload);
+                long position = offset;
+                CompletableFuture<byte[]> chunk = submitChunk(() -> unpackChunk(file, position, method, payload, chunkLength, crc));
+                contentHasher = contentHasher.thenCombine(chunk, (hasher, data) -> {
+                    hasher.putBytes(data, 0, chunkLength);
+                    return hasher;
+                });
+            }
+
+            CompletableFuture<RegularFileSnapshot> fileSnapshot = contentHasher
+                .thenApply(hasher -> {
+                    chmod(file, mode);
+                    String internedAbsolutePath = stringInterner.intern(file.getAbsolutePath());
+                    String internedFileName = stringInterner.intern(fileName);
+                    return new RegularFileSnapshot(internedAbsolutePath, internedFileName, hasher.hash(), DefaultFileMetadata.file(file.lastModified(), length, DIRECT));
+                });
+            tasks.add(fileSnapshot);
+            return fileSnapshot;
+        }
+
+        private <T> CompletableFuture<T> submitChunk(IOSupplier<T> action) throws IOException {
+            CompletableFuture<T> chunk = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return action.get();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, executor);
+            tasks.add(chunk);
+            chunksInFlight.add(chunk);
+            while (chunksInFlight.size() > maxChunksInFlight) {
+                await(chunksInFlight.remove());
+            }
+            return chunk;
+        }
+
+        private void readIndex() throws IOException {
+            long indexOffset = countingInput.getCount();
+            int count = input.readInt();
+            List<IndexEntry> index = new ArrayList<>(Math.min(count, records.size()));
+            for (int i = 0; i < count; i++) {
+                index.add(IndexEntry.readFrom(input));
+            }
+            if (!index.equals(records) || input.readLong() != indexOffset || input.readInt() != MAGIC) {
+                throw new IllegalStateException("Cached entry format error, the index does not match the contents");
+            }
+        }
+
+        private void awaitQuietly() {
+            for (CompletableFuture<?> task : tasks) {
+                try {
+                    task.join();
+                } catch (RuntimeException ignored) {
+                    // The first failure has already been reported
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            input.close();
+        }
+    }
+
+    private interface IOSupplier<T> {
+        T get() throws IOException;
+    }
+
+    private static byte[] unpackChunk(File file, long position, byte method, byte[] payload, int length, int expectedCrc) throws IOException {
+        byte[] data = method == DEFLATED ? inflate(file, payload, length) : payload;
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, length);
+        if ((int) crc.getValue() != expectedCrc) {
+            throw new IOException(String.format("Cached entry is corrupt, checksum mismatch for '%s'", file));
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, position + buffer.position());
+            }
+        }
+        return data;
+    }
+
+    private static byte[] inflate(File file, byte[] payload, int length) throws IOException {
+        byte[] data = new byte[length];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(payload);
+            int inflated = 0;
+            while (inflated < length) {
+                int count = inflater.inflate(data, inflated, length - inflated);
+                if (count == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IOException(String.format("Cached entry is corrupt, truncated chunk for '%s'", file));
+                }
+                inflated += count;
+            }
+            return data;
+        } catch (DataFormatException e) {
+            throw new IOException(String.format("Cached entry is corrupt, invalid chunk for '%s'", file), e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static IndexEntry indexEntry(byte kind, String treeName, String relativePath, long offset) {
+        IndexEntry entry = new IndexEntry(kind, treeName, relativePath);
+        entry.offset = offset;
+        return entry;
+    }
+
+    private static String childPath(String parentPath, String name) {
+        return parentPath.isEmpty() ? name : parentPath + "/" + name;
+    }
+
+    /**
+     * Returns a safe name for a file or directory in an unpacked tree.
+     *
+     * @see PathTraversalChecker#safePathName(String)
+     */
+    private static String safeEntryName(String name) {
+        if (name.equals(".") || name.equals("..") || name.indexOf('/') >= 0 || name.indexOf('\\') >= 0) {
+            throw new IllegalArgumentException(String.format("'%s' is not a safe archive entry or path name.", name));
+        }
+        return PathTraversalChecker.safePathName(name);
+    }
+
+    private void chmod(File file, int mode) {
+        filePermissionAccess.chmod(file, mode & UnixPermissions.PERM_MASK);
+    }
+
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(DataInputStream input) throws IOException {
+        int length = input.readInt();
+        if (length < 0) {
+            throw new IllegalStateException("Cached entry format error, invalid string length " + length);
+        }
+        byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static <T> T await(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    private static class CacheableTree {
+        private final TreeType type;
+        private final File root;
+
+        public CacheableTree(TreeType type, File root) {
+            this.type = type;
+            this.root = root;
+        }
+
+        public TreeType getType() {
+            return type;
+        }
+
+        public File getRoot() {
+            return root;
+        }
+    }
+
+    private class PackingVisitor implements RelativePathTrackingFileSystemSnapshotHierarchyVisitor {
+        private final EntryWriter writer;
+        private final String treeName;
+        private final TreeType type;
+
+        private long packedEntryCount;
+
+        public PackingVisitor(EntryWriter writer, String treeName, TreeType type) {
+            this.writer = writer;
+            this.treeName = treeName;
+            this.type = type;
+        }
+
+        @Override
+        public SnapshotVisitResult visitEntry(FileSystemLocationSnapshot snapshot, RelativePathSupplier relativePath) {
+            boolean isRoot = relativePath.isRoot();
+            String path = isRoot ? "" : relativePath.toRelativePath();
+            String name = isRoot ? "" : snapshot.getName();
+            if (isRoot) {
+                try {
+                    writer.writeTree(treeName);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            snapshot.accept(new FileSystemLocationSnapshotVisitor() {
+                @Override
+                public void visitDirectory(DirectorySnapshot directorySnapshot) {
+                    assertCorrectType(isRoot, snapshot);
+                    File dir = new File(snapshot.getAbsolutePath());
+                    int dirMode = isRoot ? UnixPermissions.DEFAULT_DIR_PERM : filePermissionAccess.getUnixMode(dir);
+                    try {
+                        writer.writeDirectory(treeName, path, name, dirMode);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+
+                @Override
+                public void visitRegularFile(RegularFileSnapshot fileSnapshot) {
+                    assertCorrectType(isRoot, snapshot);
+                    File file = new File(snapshot.getAbsolutePath());
+                    int fileMode = filePermissionAccess.getUnixMode(file);
+                    try {
+                        writer.writeFile(treeName, path, name, fileMode, file, fileSnapshot.getMetadata().getLength());
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+
+                @Override
+                public void visitMissing(MissingFileSnapshot missingSnapshot) {
+                    if (!isRoot) {
+                        throw new RuntimeException(String.format("Couldn't read content of file '%s'", snapshot.getAbsolutePath()));
+                    }
+                    try {
+                        writer.writeMissing(treeName);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            });
+            packedEntryCount++;
+            return SnapshotVisitResult.CONTINUE;
+        }
+
+        @Override
+        public void leaveDirectory(DirectorySnapshot directorySnapshot, RelativePathSupplier relativePath) {
+            try {
+                writer.writeLeaveDirectory();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        public long getPackedEntryCount() {
+            return packedEntryCount;
+        }
+
+        private void assertCorrectType(boolean root, FileSystemLocationSnapshot snapshot) {
+            if (root) {
+                switch (type) {
+                    case DIRECTORY:
+                        if (snapshot.getType() != FileType.Directory) {
+                            throw new IllegalArgumentException(String.format("Expected '%s' to be a directory", snapshot.getAbsolutePath()));
+                        }
+                        break;
+                    case FILE:
+                        if (snapshot.getType() != FileType.RegularFile) {
+                            throw new IllegalArgumentException(String.format("Expected '%s' to be a file", snapshot.getAbsolutePath()));
+                        }
+                        break;
+                    default:
+                        throw new AssertionError();
+                }
+            }
+        }
+    }
+}
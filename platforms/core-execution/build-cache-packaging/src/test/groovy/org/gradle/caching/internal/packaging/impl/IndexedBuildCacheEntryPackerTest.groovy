@@ -0,0 +1,217 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.packaging.impl
+
+import org.gradle.api.internal.cache.StringInterner
+import org.gradle.api.internal.file.TestFiles
+import org.gradle.caching.internal.CacheableEntity
+import org.gradle.caching.internal.origin.OriginMetadata
+import org.gradle.caching.internal.origin.OriginReader
+import org.gradle.caching.internal.origin.OriginWriter
+import org.gradle.internal.file.BufferProvider
+import org.gradle.internal.file.FileMetadata
+import org.gradle.internal.file.TreeType
+import org.gradle.internal.hash.DefaultStreamHasher
+import org.gradle.internal.nativeintegration.filesystem.FileSystem
+import org.gradle.internal.snapshot.FileSystemLocationSnapshot
+import org.gradle.internal.snapshot.FileSystemSnapshot
+import org.gradle.internal.snapshot.RegularFileSnapshot
+import org.gradle.internal.snapshot.RelativePathTracker
+import org.gradle.internal.snapshot.RelativePathTrackingFileSystemSnapshotHierarchyVisitor
+import org.gradle.internal.snapshot.SnapshotVisitResult
+import org.gradle.test.fixtures.file.CleanupTestDirectory
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+import java.time.Duration
+import java.util.concurrent.Executors
+import java.util.zip.Deflater
+
+import static org.gradle.internal.file.TreeType.DIRECTORY
+import static org.gradle.internal.file.TreeType.FILE
+
+@CleanupTestDirectory
+class IndexedBuildCacheEntryPackerTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider temporaryFolder = new TestNameTestDirectoryProvider(getClass())
+
+    def originMetadata = new OriginMetadata("build-id", Duration.ofMillis(100))
+    def writeOrigin = { OutputStream output -> output.write(originMetadata.buildInvocationId.bytes) } as OriginWriter
+    def readOrigin = { InputStream input -> new OriginMetadata(input.text, originMetadata.executionTime) } as OriginReader
+
+    def filePermissionAccess = new FilePermissionAccess() {
+        @Delegate
+        FileSystem fs = TestFiles.fileSystem()
+    }
+    def fileSystemSupport = new DefaultTarPackerFileSystemSupport(TestFiles.deleter())
+    def streamHasher = new DefaultStreamHasher()
+    def stringInterner = new StringInterner()
+    def tarPacker = new GZipBuildCacheEntryPacker(new TarBuildCacheEntryPacker(fileSystemSupport, filePermissionAccess, streamHasher, stringInterner, Stub(BufferProvider) {
+        getBuffer() >> new byte[4096]
+    }))
+    def packer = new IndexedBuildCacheEntryPacker(fileSystemSupport, filePermissionAccess, streamHasher, stringInterner, tarPacker, Executors.newFixedThreadPool(4), 4, Deflater.DEFAULT_COMPRESSION, 16)
+    def fileSystemAccess = TestFiles.fileSystemAccess()
+
+    def cleanup() {
+        packer.close()
+    }
+
+    def "can pack and unpack directory with files spanning multiple chunks"() {
+        def sourceDir = temporaryFolder.file("source").createDir()
+        sourceDir.file("empty.txt").createFile()
+        sourceDir.file("small.txt") << "small"
+        sourceDir.file("sub/compressible.txt") << ("output" * 100)
+        sourceDir.file("sub/deeper/random.bin").bytes = randomBytes(1000)
+        sourceDir.file("sub/empty-dir").createDir()
+        def targetDir = temporaryFolder.file("target")
+        def output = new ByteArrayOutputStream()
+
+        when:
+        def packResult = pack output, prop(DIRECTORY, sourceDir)
+
+        then:
+        packResult.entries == 9
+
+        when:
+        def result = unpack output.toByteArray(), prop(DIRECTORY, targetDir)
+
+        then:
+        result.entries == 9
+        result.originMetadata.buildInvocationId == "build-id"
+        targetDir.file("empty.txt").bytes.length == 0
+        targetDir.file("small.txt").text == "small"
+        targetDir.file("sub/compressible.txt").text == "output" * 100
+        targetDir.file("sub/deeper/random.bin").bytes == sourceDir.file("sub/deeper/random.bin").bytes
+        targetDir.file("sub/empty-dir").assertIsEmptyDir()
+        fileHashes(result.snapshots["test"]) == fileHashes(fileSystemAccess.read(sourceDir.absolutePath))
+    }
+
+    def "can pack single file and missing trees"() {
+        def sourceFile = temporaryFolder.file("source.txt")
+        sourceFile << "output"
+        def targetFile = temporaryFolder.file("target.txt")
+        def missingTargetDir = temporaryFolder.file("missing-target").createDir()
+        def output = new ByteArrayOutputStream()
+
+        when:
+        pack output,
+            prop("file", FILE, sourceFile),
+            prop("missing", DIRECTORY, temporaryFolder.file("missing-source"))
+        def result = unpack output.toByteArray(),
+            prop("file", FILE, targetFile),
+            prop("missing", DIRECTORY, missingTargetDir)
+
+        then:
+        targetFile.text == "output"
+        (result.snapshots["file"] as RegularFileSnapshot).hash == streamHasher.hash(new ByteArrayInputStream("output".bytes))
+        !missingTargetDir.exists()
+        !result.snapshots.containsKey("missing")
+    }
+
+    def "records the metadata of unpacked files"() {
+        def sourceFile = temporaryFolder.file("source.bin")
+        sourceFile.bytes = randomBytes(100)
+        def targetFile = temporaryFolder.file("target.bin")
+        def output = new ByteArrayOutputStream()
+
+        when:
+        pack output, prop(FILE, sourceFile)
+        def result = unpack output.toByteArray(), prop(FILE, targetFile)
+
+        then:
+        def metadata = (result.snapshots["test"] as RegularFileSnapshot).metadata
+        metadata.length == 100
+        metadata.lastModified == targetFile.lastModified()
+        metadata.accessType == FileMetadata.AccessType.DIRECT
+    }
+
+    def "unpacks entries in the legacy format"() {
+        def sourceDir = temporaryFolder.file("source").createDir()
+        sourceDir.file("output.txt") << "output"
+        def targetDir = temporaryFolder.file("target")
+        def output = new ByteArrayOutputStream()
+        def treeDef = prop(DIRECTORY, sourceDir)
+        tarPacker.pack(entity(treeDef), snapshots(treeDef), output, writeOrigin)
+
+        when:
+        def result = unpack output.toByteArray(), prop(DIRECTORY, targetDir)
+
+        then:
+        targetDir.file("output.txt").text == "output"
+        result.originMetadata.buildInvocationId == "build-id"
+    }
+
+    def "detects corrupted chunks"() {
+        def sourceFile = temporaryFolder.file("source.bin")
+        sourceFile.bytes = randomBytes(100)
+        def output = new ByteArrayOutputStream()
+        pack output, prop(FILE, sourceFile)
+        def bytes = output.toByteArray()
+        // Random content is stored uncompressed, so the content of the first chunk can be found in the entry
+        def contentOffset = Collections.indexOfSubList(bytes.toList(), sourceFile.bytes.toList().subList(0, 16))
+        bytes[contentOffset] = (byte) (bytes[contentOffset] ^ 0x55)
+
+        when:
+        unpack bytes, prop(FILE, temporaryFolder.file("target.bin"))
+
+        then:
+        def e = thrown(IOException)
+        e.message.startsWith("Cached entry is corrupt")
+    }
+
+    def pack(OutputStream output, Map<String, Object>... treeDefs) {
+        packer.pack(entity(treeDefs), snapshots(treeDefs), output, writeOrigin)
+    }
+
+    def unpack(byte[] input, Map<String, Object>... treeDefs) {
+        packer.unpack(entity(treeDefs), new ByteArrayInputStream(input), readOrigin)
+    }
+
+    Map<String, FileSystemSnapshot> snapshots(Map<String, Object>... treeDefs) {
+        treeDefs.collectEntries { treeDef -> [(treeDef.name): fileSystemAccess.read((treeDef.root as File).absolutePath)] }
+    }
+
+    def entity(Map<String, Object>... treeDefs) {
+        Stub(CacheableEntity) {
+            visitOutputTrees(_ as CacheableEntity.CacheableTreeVisitor) >> { CacheableEntity.CacheableTreeVisitor visitor ->
+                treeDefs.each {
+                    visitor.visitOutputTree(it.name as String, it.type as TreeType, it.root as File)
+                }
+            }
+        }
+    }
+
+    static Map<String, Object> prop(String name = "test", TreeType type, File root) {
+        [name: name, type: type, root: root]
+    }
+
+    static byte[] randomBytes(int length) {
+        def bytes = new byte[length]
+        new Random(1234).nextBytes(bytes)
+        bytes
+    }
+
+    static Map<String, String> fileHashes(FileSystemLocationSnapshot snapshot) {
+        def hashes = [:]
+        snapshot.accept(new RelativePathTracker(), { entry, relativePath ->
+            hashes[relativePath.toRelativePath()] = entry instanceof RegularFileSnapshot ? entry.hash.toString() : entry.type.name()
+            SnapshotVisitResult.CONTINUE
+        } as RelativePathTrackingFileSystemSnapshotHierarchyVisitor)
+        hashes
+    }
+}
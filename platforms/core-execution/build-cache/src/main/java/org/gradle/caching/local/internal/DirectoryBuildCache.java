@@ -40,15 +40,22 @@
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.Consumer;
 
+/**
+ * Stores build cache entries in a directory, one file per entry named after its key.
+ *
+ * <p>Entries are guarded by a fixed number of locks picked by their key, so that loading and storing unrelated entries
+ * does not contend within the process. The file lock of the persistent cache guards against cleanup by other processes.</p>
+ */
 @NonNullApi
 public class DirectoryBuildCache implements BuildCacheTempFileStore, Closeable, LocalBuildCache {
+    private static final int LOCK_COUNT = 256;
 
     private final PathKeyFileStore fileStore;
     private final PersistentCache persistentCache;
     private final BuildCacheTempFileStore tempFileStore;
     private final FileAccessTracker fileAccessTracker;
     private final String failedFileSuffix;
-    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ReadWriteLock[] locks = new ReadWriteLock[LOCK_COUNT];
 
     public DirectoryBuildCache(PathKeyFileStore fileStore, PersistentCache persistentCache, BuildCacheTempFileStore tempFileStore, FileAccessTracker fileAccessTracker, String failedFileSuffix) {
         this.fileStore = fileStore;
@@ -56,6 +63,13 @@ public DirectoryBuildCache(PathKeyFileStore fileStore, PersistentCache persisten
         this.tempFileStore = tempFileStore;
         this.fileAccessTracker = fileAccessTracker;
         this.failedFileSuffix = failedFileSuffix;
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantReadWriteLock();
+        }
+    }
+
+    private ReadWriteLock lockFor(HashCode key) {
+        return locks[key.hashCode() & (LOCK_COUNT - 1)];
     }
 
     @Override
@@ -82,6 +96,7 @@ public boolean load(HashCode key, IoConsumer<InputStream> reader) {
     public void loadLocally(HashCode key, Consumer<? super File> reader) {
         // We need to lock other processes out here because garbage collection can be under way in another process
         persistentCache.withFileLock(() -> {
+            ReadWriteLock lock = lockFor(key);
             lock.readLock().lock();
             try {
                 loadInsideLock(key, reader);
@@ -137,6 +152,7 @@ public void store(HashCode key, IoConsumer<OutputStream> result) {
     @Override
     public void storeLocally(HashCode key, File file) {
         persistentCache.withFileLock(() -> {
+            ReadWriteLock lock = lockFor(key);
             lock.writeLock().lock();
             try {
                 storeInsideLock(key, file);
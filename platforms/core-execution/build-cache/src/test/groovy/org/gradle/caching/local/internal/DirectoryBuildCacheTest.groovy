@@ -111,4 +111,28 @@ class DirectoryBuildCacheTest extends Specification {
         1 * fileAccessTracker.markAccessed(cachedFile)
         loaded
     }
+
+    def "stores entries in the cache directory"() {
+        given:
+        def originalFile = temporaryFolder.createFile("foo")
+        originalFile.text = "bar"
+
+        when:
+        cache.storeLocally(key, originalFile)
+
+        then:
+        // Other Gradle versions share the directory and expect this layout
+        new File(cacheDir, hashCode).text == "bar"
+    }
+
+    def "does not load missing entry"() {
+        when:
+        def loaded = cache.load(key) { input ->
+            throw new IllegalStateException("should not be called")
+        }
+
+        then:
+        !loaded
+        0 * fileAccessTracker.markAccessed(_)
+    }
 }
@@ -132,9 +132,8 @@ public void visitRegularFile(RegularFileSnapshot fileSnapshot) {
                             writePath(encoder, isRoot, fileSnapshot);
                             writeAccessType(encoder, fileSnapshot.getAccessType());
                             writeHashCode(encoder, fileSnapshot.getHash());
-                            FileMetadata metadata = fileSnapshot.getMetadata();
-                            encoder.writeSmallLong(metadata.getLastModified());
-                            encoder.writeSmallLong(metadata.getLength());
+                            encoder.writeSmallLong(fileSnapshot.getLastModified());
+                            encoder.writeSmallLong(fileSnapshot.getLength());
                         } catch (IOException e) {
                             throw new UncheckedIOException(e);
                         }
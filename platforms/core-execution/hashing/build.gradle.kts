@@ -1,6 +1,7 @@
 plugins {
     id("gradlebuild.distribution.api-java")
     id("gradlebuild.publish-public-libraries")
+    id("gradlebuild.jmh")
 }
 
 description = "Tools for creating secure hashes for files and other content"
@@ -13,4 +14,6 @@ dependencies {
     api(libs.jsr305)
 
     implementation(libs.guava)
+
+    jmhImplementation(platform(project(":distributions-dependencies")))
 }
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.hash;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+/**
+ * Compares the throughput of the hash functions available for hashing file contents, for typical file sizes.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.Throughput)
+@State(Scope.Thread)
+public class HashFunctionBenchmark {
+
+    @Param({"md5", "sha1", "murmur3"})
+    String function;
+
+    @Param({"64", "4096", "65536", "1048576"})
+    int size;
+
+    private HashFunction hashFunction;
+    private StreamHasher streamHasher;
+    private byte[] input;
+    private ByteBuffer directInput;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        hashFunction = select(function);
+        streamHasher = new DefaultStreamHasher(hashFunction);
+        input = new byte[size];
+        new Random(1234L).nextBytes(input);
+        directInput = ByteBuffer.allocateDirect(size);
+        directInput.put(input);
+        directInput.flip();
+    }
+
+    private static HashFunction select(String name) {
+        if (name.equals("sha1")) {
+            return Hashing.sha1();
+        }
+        return Hashing.selectFileContentFunction(name);
+    }
+
+    @Benchmark
+    public HashCode hashBytes() {
+        return hashFunction.hashBytes(input);
+    }
+
+    @Benchmark
+    public HashCode hashDirectBuffer() {
+        PrimitiveHasher hasher = hashFunction.newPrimitiveHasher();
+        hasher.putBytes(directInput.duplicate());
+        return hasher.hash();
+    }
+
+    @Benchmark
+    public HashCode hashStream() throws IOException {
+        return streamHasher.hash(new ByteArrayInputStream(input));
+    }
+}
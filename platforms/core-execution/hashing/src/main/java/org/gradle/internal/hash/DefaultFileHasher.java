@@ -21,12 +21,29 @@
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
 
 public class DefaultFileHasher implements FileHasher {
+    /**
+     * Files at least this large are hashed through memory mapped buffers instead of being copied through a heap buffer.
+     */
+    public static final long DEFAULT_MEMORY_MAPPED_THRESHOLD = 1024 * 1024;
+
     private final StreamHasher streamHasher;
+    private final long memoryMappedThreshold;
 
     public DefaultFileHasher(StreamHasher streamHasher) {
+        this(streamHasher, Long.MAX_VALUE);
+    }
+
+    /**
+     * @param memoryMappedThreshold the minimum length of files to hash using memory mapped buffers, or {@link Long#MAX_VALUE} to never map files.
+     */
+    public DefaultFileHasher(StreamHasher streamHasher, long memoryMappedThreshold) {
         this.streamHasher = streamHasher;
+        this.memoryMappedThreshold = memoryMappedThreshold;
     }
 
     @Override
@@ -35,7 +52,7 @@ public HashCode hash(File file) {
         try {
             inputStream = new FileInputStream(file);
         } catch (FileNotFoundException e) {
-            throw new UncheckedIOException(String.format("Failed to create MD5 hash for file '%s' as it does not exist.", file), e);
+            throw new UncheckedIOException(String.format("Failed to create %s hash for file '%s' as it does not exist.", streamHasher.getAlgorithm(), file), e);
         }
         try {
             return streamHasher.hash(inputStream);
@@ -50,6 +67,34 @@ public HashCode hash(File file) {
 
     @Override
     public HashCode hash(File file, long length, long lastModified) {
+        if (length >= memoryMappedThreshold) {
+            return hashMapped(file);
+        }
         return hash(file);
     }
+
+    private HashCode hashMapped(File file) {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            throw new UncheckedIOException(String.format("Failed to create %s hash for file '%s' as it does not exist.", streamHasher.getAlgorithm(), file), e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Failed to create %s hash for file '%s'.", streamHasher.getAlgorithm(), file), e);
+        }
+        try {
+            return streamHasher.hash(channel);
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Failed to create %s hash for file '%s'.", streamHasher.getAlgorithm(), file), e);
+        } catch (InternalError e) {
+            // Reading a mapped buffer of a file that has been truncated meanwhile fails with an InternalError rather than an IOException
+            throw new UncheckedIOException(String.format("Failed to create %s hash for file '%s'.", streamHasher.getAlgorithm(), file), new IOException(e));
+        } finally {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // Ignored
+            }
+        }
+    }
 }
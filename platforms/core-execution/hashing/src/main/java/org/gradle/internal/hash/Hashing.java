@@ -20,6 +20,7 @@
 import com.google.common.io.ByteStreams;
 import com.google.common.io.Files;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
@@ -47,8 +48,17 @@ private Hashing() {
 
     private static final HashFunction SHA512 = MessageDigestHashFunction.of("SHA-512");
 
+    private static final HashFunction MURMUR3 = new Murmur3HashFunction();
+
     private static final HashFunction DEFAULT = MD5;
 
+    /**
+     * System property that selects the hash function used for file contents, see {@link #fileContentFunction()}.
+     */
+    public static final String FILE_CONTENT_HASH_FUNCTION_PROPERTY = "org.gradle.internal.hash.file-content";
+
+    private static final HashFunction FILE_CONTENT = selectFileContentFunction(System.getProperty(FILE_CONTENT_HASH_FUNCTION_PROPERTY));
+
     /**
      * Returns a new {@link Hasher} based on the default hashing implementation.
      */
@@ -122,6 +132,29 @@ public static HashFunction defaultFunction() {
         return DEFAULT;
     }
 
+    /**
+     * The hashing function used for file contents in local snapshots and execution history.
+     *
+     * <p>This is the default hash function unless the {@value #FILE_CONTENT_HASH_FUNCTION_PROPERTY} system property selects {@code murmur3}.
+     * File content hashes contribute to build cache keys, so only machines using the same function can share build cache entries.</p>
+     */
+    public static HashFunction fileContentFunction() {
+        return FILE_CONTENT;
+    }
+
+    /**
+     * Returns the hash function with the given name, as accepted by the {@value #FILE_CONTENT_HASH_FUNCTION_PROPERTY} system property.
+     */
+    static HashFunction selectFileContentFunction(@Nullable String name) {
+        if (name == null || name.isEmpty() || name.equalsIgnoreCase("md5")) {
+            return DEFAULT;
+        }
+        if (name.equalsIgnoreCase("murmur3")) {
+            return MURMUR3;
+        }
+        throw new IllegalArgumentException(String.format("Unknown file content hash function '%s', supported values are 'md5' and 'murmur3'.", name));
+    }
+
     /**
      * MD5 hashing function.
      */
@@ -150,35 +183,21 @@ public static HashFunction sha512() {
         return SHA512;
     }
 
-    private static abstract class MessageDigestHashFunction implements HashFunction {
+    /**
+     * 128-bit MurmurHash3 (x64 variant) hashing function. Not a cryptographic hash, but several times faster than MD5.
+     * Produces the same hashes as Guava's {@code murmur3_128()} with seed 0.
+     */
+    public static HashFunction murmur3() {
+        return MURMUR3;
+    }
+
+    private static abstract class AbstractHashFunction implements HashFunction {
         private final int hexDigits;
 
-        public MessageDigestHashFunction(int hashBits) {
+        public AbstractHashFunction(int hashBits) {
             this.hexDigits = hashBits / 4;
         }
 
-        public static MessageDigestHashFunction of(String algorithm) {
-            MessageDigest prototype;
-            try {
-                prototype = MessageDigest.getInstance(algorithm);
-            } catch (NoSuchAlgorithmException e) {
-                throw new IllegalArgumentException("Cannot instantiate digest algorithm: " + algorithm);
-            }
-            int hashBits = prototype.getDigestLength() * 8;
-            try {
-                prototype.clone();
-                return new CloningMessageDigestHashFunction(prototype, hashBits);
-            } catch (CloneNotSupportedException e) {
-                return new RegularMessageDigestHashFunction(algorithm, hashBits);
-            }
-        }
-
-        @Override
-        public PrimitiveHasher newPrimitiveHasher() {
-            MessageDigest digest = createDigest();
-            return new MessageDigestHasher(digest);
-        }
-
         @Override
         public Hasher newHasher() {
             return new DefaultHasher(newPrimitiveHasher());
@@ -216,8 +235,6 @@ private HashingOutputStream primitiveStreamHasher() {
             return new HashingOutputStream(this, ByteStreams.nullOutputStream());
         }
 
-        protected abstract MessageDigest createDigest();
-
         @Override
         public int getHexDigits() {
             return hexDigits;
@@ -229,6 +246,52 @@ public String toString() {
         }
     }
 
+    private static abstract class MessageDigestHashFunction extends AbstractHashFunction {
+        public MessageDigestHashFunction(int hashBits) {
+            super(hashBits);
+        }
+
+        public static MessageDigestHashFunction of(String algorithm) {
+            MessageDigest prototype;
+            try {
+                prototype = MessageDigest.getInstance(algorithm);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalArgumentException("Cannot instantiate digest algorithm: " + algorithm);
+            }
+            int hashBits = prototype.getDigestLength() * 8;
+            try {
+                prototype.clone();
+                return new CloningMessageDigestHashFunction(prototype, hashBits);
+            } catch (CloneNotSupportedException e) {
+                return new RegularMessageDigestHashFunction(algorithm, hashBits);
+            }
+        }
+
+        @Override
+        public PrimitiveHasher newPrimitiveHasher() {
+            MessageDigest digest = createDigest();
+            return new MessageDigestHasher(digest);
+        }
+
+        protected abstract MessageDigest createDigest();
+    }
+
+    private static class Murmur3HashFunction extends AbstractHashFunction {
+        public Murmur3HashFunction() {
+            super(128);
+        }
+
+        @Override
+        public String getAlgorithm() {
+            return "MURMUR3-128";
+        }
+
+        @Override
+        public PrimitiveHasher newPrimitiveHasher() {
+            return new Murmur3Hasher();
+        }
+    }
+
     private static class CloningMessageDigestHashFunction extends MessageDigestHashFunction {
         private final MessageDigest prototype;
 
@@ -305,20 +368,16 @@ public void putBytes(byte[] bytes, int off, int len) {
             getDigest().update(bytes, off, len);
         }
 
+        @Override
+        public void putBytes(ByteBuffer bytes) {
+            getDigest().update(bytes);
+        }
+
         private void update(int length) {
             getDigest().update(buffer.array(), 0, length);
             castBuffer(buffer).clear();
         }
 
-        /**
-         * Without this cast, when the code compiled by Java 9+ is executed on Java 8, it will throw
-         * java.lang.NoSuchMethodError: Method flip()Ljava/nio/ByteBuffer; does not exist in class java.nio.ByteBuffer
-         */
-        @SuppressWarnings("RedundantCast")
-        private static <T extends Buffer> Buffer castBuffer(T byteBuffer) {
-            return (Buffer) byteBuffer;
-        }
-
         @Override
         public void putInt(int value) {
             buffer.putInt(value);
@@ -360,6 +419,217 @@ public HashCode hash() {
         }
     }
 
+    /**
+     * Without this cast, when the code compiled by Java 9+ is executed on Java 8, it will throw
+     * java.lang.NoSuchMethodError: Method flip()Ljava/nio/ByteBuffer; does not exist in class java.nio.ByteBuffer
+     */
+    @SuppressWarnings("RedundantCast")
+    private static <T extends Buffer> Buffer castBuffer(T byteBuffer) {
+        return (Buffer) byteBuffer;
+    }
+
+    /**
+     * Streaming implementation of the x64 128-bit variant of MurmurHash3, with seed 0.
+     * Bytes are buffered until a full 16 byte block is available, so the result does not depend on how the input is split up.
+     */
+    private static class Murmur3Hasher implements PrimitiveHasher {
+        private static final int BLOCK_SIZE = 16;
+        private static final long C1 = 0x87c37b91114253d5L;
+        private static final long C2 = 0x4cf5ad432745937fL;
+
+        private final byte[] pending = new byte[BLOCK_SIZE];
+        private int pendingCount;
+        private long h1;
+        private long h2;
+        private long length;
+        private boolean done;
+
+        @Override
+        public void putByte(byte b) {
+            checkNotDone();
+            length++;
+            pending[pendingCount++] = b;
+            if (pendingCount == BLOCK_SIZE) {
+                processPending();
+            }
+        }
+
+        @Override
+        public void putBytes(byte[] bytes) {
+            putBytes(bytes, 0, bytes.length);
+        }
+
+        @Override
+        public void putBytes(byte[] bytes, int off, int len) {
+            checkNotDone();
+            length += len;
+            int end = off + len;
+            if (pendingCount > 0) {
+                int count = Math.min(BLOCK_SIZE - pendingCount, len);
+                System.arraycopy(bytes, off, pending, pendingCount, count);
+                pendingCount += count;
+                off += count;
+                if (pendingCount < BLOCK_SIZE) {
+                    return;
+                }
+                processPending();
+            }
+            while (end - off >= BLOCK_SIZE) {
+                processBlock(littleEndianLong(bytes, off), littleEndianLong(bytes, off + 8));
+                off += BLOCK_SIZE;
+            }
+            pendingCount = end - off;
+            System.arraycopy(bytes, off, pending, 0, pendingCount);
+        }
+
+        @Override
+        public void putBytes(ByteBuffer bytes) {
+            checkNotDone();
+            int off = bytes.position();
+            int end = bytes.limit();
+            length += end - off;
+            while (pendingCount > 0 && off < end) {
+                pending[pendingCount++] = bytes.get(off++);
+                if (pendingCount == BLOCK_SIZE) {
+                    processPending();
+                }
+            }
+            boolean bigEndian = bytes.order() == ByteOrder.BIG_ENDIAN;
+            while (end - off >= BLOCK_SIZE) {
+                long k1 = bytes.getLong(off);
+                long k2 = bytes.getLong(off + 8);
+                if (bigEndian) {
+                    k1 = Long.reverseBytes(k1);
+                    k2 = Long.reverseBytes(k2);
+                }
+                processBlock(k1, k2);
+                off += BLOCK_SIZE;
+            }
+            while (off < end) {
+                pending[pendingCount++] = bytes.get(off++);
+            }
+            castBuffer(bytes).position(end);
+        }
+
+        @Override
+        public void putInt(int value) {
+            putByte((byte) value);
+            putByte((byte) (value >>> 8));
+            putByte((byte) (value >>> 16));
+            putByte((byte) (value >>> 24));
+        }
+
+        @Override
+        public void putLong(long value) {
+            putInt((int) value);
+            putInt((int) (value >>> 32));
+        }
+
+        @Override
+        public void putDouble(double value) {
+            putLong(Double.doubleToRawLongBits(value));
+        }
+
+        @Override
+        public void putBoolean(boolean value) {
+            putByte((byte) (value ? 1 : 0));
+        }
+
+        @Override
+        public void putString(CharSequence value) {
+            putBytes(value.toString().getBytes(Charsets.UTF_8));
+        }
+
+        @Override
+        public void putHash(HashCode hashCode) {
+            hashCode.appendToHasher(this);
+        }
+
+        @Override
+        public HashCode hash() {
+            checkNotDone();
+            done = true;
+            if (pendingCount > 0) {
+                long k1 = 0;
+                long k2 = 0;
+                for (int i = pendingCount - 1; i >= 8; i--) {
+                    k2 = (k2 << 8) | (pending[i] & 0xFFL);
+                }
+                for (int i = Math.min(pendingCount, 8) - 1; i >= 0; i--) {
+                    k1 = (k1 << 8) | (pending[i] & 0xFFL);
+                }
+                h1 ^= mixK1(k1);
+                h2 ^= mixK2(k2);
+            }
+            h1 ^= length;
+            h2 ^= length;
+            h1 += h2;
+            h2 += h1;
+            h1 = fmix64(h1);
+            h2 = fmix64(h2);
+            h1 += h2;
+            h2 += h1;
+            return new HashCode.HashCode128(h1, h2);
+        }
+
+        private void checkNotDone() {
+            if (done) {
+                throw new IllegalStateException("Cannot reuse hasher!");
+            }
+        }
+
+        private void processPending() {
+            processBlock(littleEndianLong(pending, 0), littleEndianLong(pending, 8));
+            pendingCount = 0;
+        }
+
+        private void processBlock(long k1, long k2) {
+            h1 ^= mixK1(k1);
+            h1 = Long.rotateLeft(h1, 27);
+            h1 += h2;
+            h1 = h1 * 5 + 0x52dce729;
+
+            h2 ^= mixK2(k2);
+            h2 = Long.rotateLeft(h2, 31);
+            h2 += h1;
+            h2 = h2 * 5 + 0x38495ab5;
+        }
+
+        private static long mixK1(long k1) {
+            k1 *= C1;
+            k1 = Long.rotateLeft(k1, 31);
+            k1 *= C2;
+            return k1;
+        }
+
+        private static long mixK2(long k2) {
+            k2 *= C2;
+            k2 = Long.rotateLeft(k2, 33);
+            k2 *= C1;
+            return k2;
+        }
+
+        private static long fmix64(long k) {
+            k ^= k >>> 33;
+            k *= 0xff51afd7ed558ccdL;
+            k ^= k >>> 33;
+            k *= 0xc4ceb9fe1a85ec53L;
+            k ^= k >>> 33;
+            return k;
+        }
+
+        private static long littleEndianLong(byte[] bytes, int offset) {
+            return (bytes[offset] & 0xFFL)
+                | ((bytes[offset + 1] & 0xFFL) << 8)
+                | ((bytes[offset + 2] & 0xFFL) << 16)
+                | ((bytes[offset + 3] & 0xFFL) << 24)
+                | ((bytes[offset + 4] & 0xFFL) << 32)
+                | ((bytes[offset + 5] & 0xFFL) << 40)
+                | ((bytes[offset + 6] & 0xFFL) << 48)
+                | ((bytes[offset + 7] & 0xFFL) << 56);
+        }
+    }
+
     private static class DefaultHasher implements Hasher {
         private final PrimitiveHasher hasher;
 
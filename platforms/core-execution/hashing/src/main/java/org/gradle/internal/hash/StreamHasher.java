@@ -18,8 +18,14 @@
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
 
 public interface StreamHasher {
+    /**
+     * Returns the name of the algorithm of the hash function used by this hasher, for example {@code MD5}.
+     */
+    String getAlgorithm();
+
     /**
      * Returns the hash of the given input stream. The stream will not be closed by the method.
      */
@@ -30,4 +36,16 @@ public interface StreamHasher {
      * The method will not close either stream.
      */
     HashCode hashCopy(InputStream inputStream, OutputStream outputStream) throws IOException;
+
+    /**
+     * Returns the hash of the content of the given file channel, read through memory mapped buffers.
+     * Produces the same hash as {@link #hash(InputStream)} for the same content. The method will not close the channel.
+     */
+    HashCode hash(FileChannel channel) throws IOException;
+
+    /**
+     * Returns a hasher to feed content to, piece by piece.
+     * Produces the same hash as {@link #hash(InputStream)} for the same content.
+     */
+    PrimitiveHasher newContentHasher();
 }
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.hash
+
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.channels.FileChannel
+
+class DefaultFileHasherTest extends Specification {
+    @TempDir
+    File tmpDir
+
+    def streamHasher = new DefaultStreamHasher()
+
+    def "memory mapped hashing produces the same hash as stream hashing for #size bytes"() {
+        def file = new File(tmpDir, "file.bin")
+        def bytes = new byte[size]
+        new Random(size).nextBytes(bytes)
+        file.bytes = bytes
+
+        expect:
+        new DefaultFileHasher(streamHasher, 0).hash(file, file.length(), file.lastModified()) == streamHasher.hash(new ByteArrayInputStream(bytes))
+
+        where:
+        size << [0, 1, 15, 16, 17, 8192, 100000]
+    }
+
+    def "hashes small files without memory mapping them"() {
+        def file = new File(tmpDir, "file.txt")
+        file.text = "hello"
+        def hasher = Mock(StreamHasher)
+        def hash = TestHashCodes.hashCodeFrom(1)
+
+        when:
+        def result = new DefaultFileHasher(hasher, 1024).hash(file, file.length(), file.lastModified())
+
+        then:
+        result == hash
+        1 * hasher.hash(_ as InputStream) >> hash
+        0 * _
+    }
+
+    def "fails when hashing a missing file"() {
+        def file = new File(tmpDir, "missing.bin")
+
+        when:
+        new DefaultFileHasher(streamHasher, 0).hash(file, 1024, 0)
+
+        then:
+        def e = thrown(UncheckedIOException)
+        e.message == "Failed to create MD5 hash for file '${file}' as it does not exist."
+    }
+
+    def "reports the hash function used when hashing a missing file"() {
+        def file = new File(tmpDir, "missing.bin")
+
+        when:
+        new DefaultFileHasher(new DefaultStreamHasher(Hashing.murmur3()), 0).hash(file, 1024, 0)
+
+        then:
+        def e = thrown(UncheckedIOException)
+        e.message == "Failed to create MURMUR3-128 hash for file '${file}' as it does not exist."
+    }
+
+    def "fails when a memory mapped file is truncated while it is hashed"() {
+        def file = new File(tmpDir, "file.bin")
+        file.bytes = new byte[1024]
+        def hasher = Stub(StreamHasher) {
+            getAlgorithm() >> "MD5"
+            hash(_ as FileChannel) >> { throw new InternalError("a fault occurred in an unsafe memory access operation") }
+        }
+
+        when:
+        new DefaultFileHasher(hasher, 0).hash(file, file.length(), file.lastModified())
+
+        then:
+        def e = thrown(UncheckedIOException)
+        e.message == "Failed to create MD5 hash for file '${file}'."
+        e.cause.cause instanceof InternalError
+    }
+}
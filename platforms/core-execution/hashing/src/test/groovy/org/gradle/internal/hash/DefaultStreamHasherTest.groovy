@@ -36,4 +36,13 @@ class DefaultStreamHasherTest extends Specification {
         hash.toString() == "af67a92e9f73b51572e9b94e343d2840"
         output.toByteArray() == "hello".bytes
     }
+
+    def "can hash input fed piece by piece"() {
+        def hasher = new DefaultStreamHasher().newContentHasher()
+        when:
+        hasher.putBytes("he".bytes)
+        hasher.putBytes("llo".bytes)
+        then:
+        hasher.hash().toString() == "af67a92e9f73b51572e9b94e343d2840"
+    }
 }
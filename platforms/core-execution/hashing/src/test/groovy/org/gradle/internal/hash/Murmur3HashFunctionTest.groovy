@@ -0,0 +1,116 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.hash
+
+import spock.lang.Specification
+
+import java.nio.ByteBuffer
+import java.nio.ByteOrder
+
+class Murmur3HashFunctionTest extends Specification {
+    def function = Hashing.murmur3()
+
+    def "produces the same hash as Guava's murmur3_128 for #size bytes"() {
+        def bytes = randomBytes(size)
+
+        expect:
+        function.hashBytes(bytes).toString() == com.google.common.hash.Hashing.murmur3_128().hashBytes(bytes).toString()
+
+        where:
+        size << [0, 1, 7, 8, 15, 16, 17, 31, 32, 33, 1000, 65536]
+    }
+
+    def "hash does not depend on how the input is split"() {
+        def bytes = randomBytes(1000)
+        def expected = function.hashBytes(bytes)
+
+        when:
+        def hasher = function.newPrimitiveHasher()
+        int offset = 0
+        [1, 3, 16, 17, 100, 5, 15].each { int chunk ->
+            hasher.putBytes(bytes, offset, chunk)
+            offset += chunk
+        }
+        hasher.putBytes(bytes, offset, bytes.length - offset)
+
+        then:
+        hasher.hash() == expected
+    }
+
+    def "can hash #order buffers"() {
+        def bytes = randomBytes(1000)
+        def buffer = ByteBuffer.allocateDirect(bytes.length + 3).order(order)
+        buffer.put([1, 2, 3] as byte[])
+        buffer.put(bytes)
+        buffer.flip()
+        buffer.position(3)
+
+        when:
+        def hasher = function.newPrimitiveHasher()
+        hasher.putByte(bytes[0])
+        buffer.position(4)
+        hasher.putBytes(buffer)
+
+        then:
+        hasher.hash() == function.hashBytes(bytes)
+        buffer.remaining() == 0
+
+        where:
+        order << [ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN]
+    }
+
+    def "primitives are hashed as little endian bytes"() {
+        when:
+        def hasher = function.newPrimitiveHasher()
+        hasher.putInt(0x01020304)
+        hasher.putLong(0x05060708090a0b0cL)
+
+        then:
+        hasher.hash() == function.hashBytes([4, 3, 2, 1, 12, 11, 10, 9, 8, 7, 6, 5] as byte[])
+    }
+
+    def "cannot reuse hasher"() {
+        def hasher = function.newPrimitiveHasher()
+        hasher.hash()
+
+        when:
+        hasher.putInt(1)
+
+        then:
+        thrown(IllegalStateException)
+    }
+
+    def "can select file content hash function by name"() {
+        expect:
+        Hashing.selectFileContentFunction(null) == Hashing.md5()
+        Hashing.selectFileContentFunction("md5") == Hashing.md5()
+        Hashing.selectFileContentFunction("murmur3") == Hashing.murmur3()
+
+        when:
+        Hashing.selectFileContentFunction("crc32")
+
+        then:
+        def e = thrown(IllegalArgumentException)
+        e.message == "Unknown file content hash function 'crc32', supported values are 'md5' and 'murmur3'."
+    }
+
+    private static byte[] randomBytes(int size) {
+        def bytes = new byte[size]
+        new Random(size).nextBytes(bytes)
+        return bytes
+    }
+}
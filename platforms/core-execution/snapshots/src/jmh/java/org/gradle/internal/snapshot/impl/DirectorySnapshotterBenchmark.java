@@ -0,0 +1,108 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.snapshot.impl;
+
+import com.google.common.collect.Interners;
+import org.gradle.internal.hash.DefaultFileHasher;
+import org.gradle.internal.hash.DefaultStreamHasher;
+import org.gradle.internal.snapshot.FileSystemLocationSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Snapshots a synthetic tree of 200k small files, laid out like a node_modules directory with many packages of nested directories.
+ *
+ * Compares the sequential walk with the parallel walk on fork-join pools of different sizes.
+ * A {@code parallelism} of 0 means the sequential walk.
+ */
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class DirectorySnapshotterBenchmark {
+    private static final int PACKAGES = 2000;
+    private static final int DIRECTORIES_PER_PACKAGE = 10;
+    private static final int FILES_PER_DIRECTORY = 10;
+
+    @Param({"0", "2", "4", "8"})
+    int parallelism;
+
+    private Path root;
+    private ForkJoinPool forkJoinPool;
+    private DirectorySnapshotter directorySnapshotter;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        root = Files.createTempDirectory("snapshotter-benchmark");
+        for (int pkg = 0; pkg < PACKAGES; pkg++) {
+            Path packageDir = root.resolve("package-" + pkg);
+            for (int directory = 0; directory < DIRECTORIES_PER_PACKAGE; directory++) {
+                Path dir = packageDir.resolve("lib/dir-" + directory);
+                Files.createDirectories(dir);
+                for (int file = 0; file < FILES_PER_DIRECTORY; file++) {
+                    Files.write(dir.resolve("file-" + file + ".js"), ("module.exports = " + pkg + directory + file + ";\n").getBytes(StandardCharsets.UTF_8));
+                }
+            }
+        }
+        forkJoinPool = parallelism == 0 ? null : new ForkJoinPool(parallelism);
+        directorySnapshotter = new DirectorySnapshotter(
+            new DefaultFileHasher(new DefaultStreamHasher()),
+            Interners.newWeakInterner(),
+            Collections.emptyList(),
+            new DirectorySnapshotterStatistics.Collector(),
+            forkJoinPool
+        );
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (forkJoinPool != null) {
+            forkJoinPool.shutdown();
+        }
+        try (Stream<Path> paths = Files.walk(root)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public FileSystemLocationSnapshot snapshot() {
+        return directorySnapshotter.snapshot(root.toString(), null, Collections.emptyMap(), snapshot -> {});
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.vfs.impl;
+
+import org.gradle.internal.file.FileMetadata.AccessType;
+import org.gradle.internal.file.impl.DefaultFileMetadata;
+import org.gradle.internal.hash.Hashing;
+import org.gradle.internal.snapshot.CaseSensitivity;
+import org.gradle.internal.snapshot.DirectorySnapshot;
+import org.gradle.internal.snapshot.FileSystemLocationSnapshot;
+import org.gradle.internal.snapshot.MetadataSnapshot;
+import org.gradle.internal.snapshot.RegularFileSnapshot;
+import org.gradle.internal.snapshot.SnapshotHierarchy;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures lookups in and invalidations of a snapshot hierarchy that holds the snapshots of a large source tree.
+ *
+ * Run with {@code -prof gc} to also see the allocation rate of the operations. The retained heap of the hierarchy
+ * per file is reported as the {@code retainedBytesPerFile} secondary result.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class SnapshotHierarchyBenchmark {
+    private static final String ROOT = "/home/user/projects/monorepo/modules";
+
+    @Param({"3000"})
+    int directories;
+
+    @Param({"100"})
+    int filesPerDirectory;
+
+    private SnapshotHierarchy hierarchy;
+    private String[] filePaths;
+    private long retainedBytesPerFile;
+    private final Random random = new Random(1234);
+
+    @Setup(Level.Trial)
+    public void setup() {
+        long usedBefore = usedHeap();
+        hierarchy = DefaultSnapshotHierarchy.empty(CaseSensitivity.CASE_SENSITIVE);
+        filePaths = new String[directories * filesPerDirectory];
+        for (int directory = 0; directory < directories; directory++) {
+            String directoryName = "pkg" + directory;
+            String directoryPath = ROOT + "/module-" + directory / 100 + "/src/main/java/" + directoryName;
+            List<FileSystemLocationSnapshot> children = new ArrayList<FileSystemLocationSnapshot>(filesPerDirectory);
+            for (int file = 0; file < filesPerDirectory; file++) {
+                String fileName = "SourceFile" + file + ".java";
+                String filePath = directoryPath + "/" + fileName;
+                filePaths[directory * filesPerDirectory + file] = filePath;
+                children.add(new RegularFileSnapshot(filePath, fileName, Hashing.hashString(filePath), DefaultFileMetadata.file(file, file * 31L, AccessType.DIRECT)));
+            }
+            DirectorySnapshot directorySnapshot = new DirectorySnapshot(directoryPath, directoryName, AccessType.DIRECT, Hashing.hashString(directoryPath), children);
+            hierarchy = hierarchy.store(directoryPath, directorySnapshot, SnapshotHierarchy.NodeDiffListener.NOOP);
+        }
+        retainedBytesPerFile = (usedHeap() - usedBefore) / filePaths.length;
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class RetainedHeap {
+        public long retainedBytesPerFile;
+
+        @Setup(Level.Iteration)
+        public void setup(SnapshotHierarchyBenchmark benchmark) {
+            retainedBytesPerFile = benchmark.retainedBytesPerFile;
+        }
+    }
+
+    @Benchmark
+    public Optional<MetadataSnapshot> findMetadata(RetainedHeap retainedHeap) {
+        return hierarchy.findMetadata(randomFilePath());
+    }
+
+    @Benchmark
+    public SnapshotHierarchy invalidateFile(RetainedHeap retainedHeap) {
+        return hierarchy.invalidate(randomFilePath(), SnapshotHierarchy.NodeDiffListener.NOOP);
+    }
+
+    @Benchmark
+    public SnapshotHierarchy invalidateDirectory(RetainedHeap retainedHeap) {
+        String filePath = randomFilePath();
+        return hierarchy.invalidate(filePath.substring(0, filePath.lastIndexOf('/')), SnapshotHierarchy.NodeDiffListener.NOOP);
+    }
+
+    private String randomFilePath() {
+        return filePaths[random.nextInt(filePaths.length)];
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
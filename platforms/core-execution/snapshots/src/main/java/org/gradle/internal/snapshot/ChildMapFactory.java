@@ -46,9 +46,11 @@ public static <T> ChildMap<T> childMapFromSorted(List<ChildMap.Entry<T>> sortedE
             case 1:
                 return new SingletonChildMap<>(sortedEntries.get(0));
             default:
+                // Child maps are retained by the virtual file system, so copy growable lists into exactly sized immutable ones
+                List<ChildMap.Entry<T>> compactEntries = ImmutableList.copyOf(sortedEntries);
                 return (size < MINIMUM_CHILD_COUNT_FOR_BINARY_SEARCH)
-                    ? new MediumChildMap<>(sortedEntries)
-                    : new LargeChildMap<>(sortedEntries);
+                    ? new MediumChildMap<>(compactEntries)
+                    : new LargeChildMap<>(compactEntries);
         }
     }
 
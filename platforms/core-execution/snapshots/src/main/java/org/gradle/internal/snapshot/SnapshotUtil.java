@@ -126,7 +126,7 @@ public Long visitDirectory(DirectorySnapshot directorySnapshot) {
 
             @Override
             public Long visitRegularFile(RegularFileSnapshot fileSnapshot) {
-                return fileSnapshot.getMetadata().getLength();
+                return fileSnapshot.getLength();
             }
 
             @Override
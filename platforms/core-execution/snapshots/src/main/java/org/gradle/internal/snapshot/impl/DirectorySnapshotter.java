@@ -17,6 +17,7 @@
 package org.gradle.internal.snapshot.impl;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Interner;
@@ -40,6 +41,8 @@
 import java.io.File;
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
 import java.nio.file.FileSystemLoopException;
 import java.nio.file.FileVisitOption;
 import java.nio.file.FileVisitResult;
@@ -53,9 +56,13 @@
 import java.util.Deque;
 import java.util.EnumSet;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
@@ -67,6 +74,11 @@
  */
 public class DirectorySnapshotter {
     private static final EnumSet<FileVisitOption> DONT_FOLLOW_SYMLINKS = EnumSet.noneOf(FileVisitOption.class);
+    /**
+     * Subdirectories with fewer entries are walked by the task walking their parent, as forking a task for them costs more than it saves.
+     * Their own subdirectories can still be forked.
+     */
+    private static final int MIN_ENTRIES_TO_FORK = 16;
     private static final SymbolicLinkMapping EMPTY_SYMBOLIC_LINK_MAPPING = new SymbolicLinkMapping() {
 
         @Override
@@ -76,7 +88,7 @@ public String remapAbsolutePath(Path path) {
 
         @Override
         public SymbolicLinkMapping withNewMapping(String source, String target, RelativePathTracker currentPathTracker) {
-            return new DefaultSymbolicLinkMapping(source, target, currentPathTracker.getSegments());
+            return new DefaultSymbolicLinkMapping(source, target, ImmutableList.copyOf(currentPathTracker.getSegments()));
         }
 
         @Override
@@ -89,12 +101,37 @@ public Iterable<String> getRemappedSegments(Iterable<String> segments) {
     private final Interner<String> stringInterner;
     private final DefaultExcludes defaultExcludes;
     private final DirectorySnapshotterStatistics.Collector collector;
+    private final ForkJoinPool forkJoinPool;
+    private final int minEntriesToFork;
 
     public DirectorySnapshotter(FileHasher hasher, Interner<String> stringInterner, Collection<String> defaultExcludes, DirectorySnapshotterStatistics.Collector collector) {
+        this(hasher, stringInterner, defaultExcludes, collector, null);
+    }
+
+    /**
+     * Creates a snapshotter which walks subdirectories in parallel on the given pool when one is given.
+     *
+     * In parallel mode, each subdirectory is walked by its own task, so files in different directories are hashed concurrently.
+     * The snapshots of the subdirectories are joined into their parent before leaving it, which produces the same snapshot as a sequential walk.
+     * The hasher and the {@link SnapshottingFilter.DirectoryWalkerPredicate} passed to {@link #snapshot(String, SnapshottingFilter.DirectoryWalkerPredicate, Map, Consumer)}
+     * may then be called concurrently, while the unfiltered snapshot recorder is still only called from the thread calling {@code snapshot}.
+     *
+     * Subdirectories with only a few entries are walked by the task walking their parent.
+     *
+     * @param forkJoinPool the pool to walk subdirectories on, or {@code null} to walk the whole tree on the calling thread.
+     */
+    public DirectorySnapshotter(FileHasher hasher, Interner<String> stringInterner, Collection<String> defaultExcludes, DirectorySnapshotterStatistics.Collector collector, @Nullable ForkJoinPool forkJoinPool) {
+        this(hasher, stringInterner, defaultExcludes, collector, forkJoinPool, MIN_ENTRIES_TO_FORK);
+    }
+
+    @VisibleForTesting
+    DirectorySnapshotter(FileHasher hasher, Interner<String> stringInterner, Collection<String> defaultExcludes, DirectorySnapshotterStatistics.Collector collector, @Nullable ForkJoinPool forkJoinPool, int minEntriesToFork) {
         this.hasher = hasher;
         this.stringInterner = stringInterner;
         this.defaultExcludes = new DefaultExcludes(defaultExcludes);
         this.collector = collector;
+        this.forkJoinPool = forkJoinPool;
+        this.minEntriesToFork = minEntriesToFork;
     }
 
     /**
@@ -119,18 +156,60 @@ public FileSystemLocationSnapshot snapshot(
         Map<String, ? extends FileSystemLocationSnapshot> previouslyKnownSnapshots,
         Consumer<FileSystemLocationSnapshot> unfilteredSnapshotRecorder
     ) {
-        try {
-            AtomicBoolean hasBeenFiltered = new AtomicBoolean();
-            Path rootPath = Paths.get(absolutePath);
-            PathVisitor visitor = new PathVisitor(predicate, hasBeenFiltered, hasher, stringInterner, defaultExcludes, collector, EMPTY_SYMBOLIC_LINK_MAPPING, previouslyKnownSnapshots, unfilteredSnapshotRecorder);
-            Files.walkFileTree(rootPath, DONT_FOLLOW_SYMLINKS, Integer.MAX_VALUE, visitor);
-            FileSystemLocationSnapshot result = visitor.getResult();
-            if (!hasBeenFiltered.get()) {
-                unfilteredSnapshotRecorder.accept(result);
+        AtomicBoolean hasBeenFiltered = new AtomicBoolean();
+        Path rootPath = Paths.get(absolutePath);
+        PathVisitor visitor = new PathVisitor(predicate, hasBeenFiltered, hasher, stringInterner, defaultExcludes, collector, EMPTY_SYMBOLIC_LINK_MAPPING, previouslyKnownSnapshots, unfilteredSnapshotRecorder, forkJoinPool, minEntriesToFork, ImmutableList.of());
+        DirectoryWalk walk = new DirectoryWalk(rootPath, visitor);
+        FileSystemLocationSnapshot result = forkJoinPool == null
+            ? walk.walk()
+            : forkJoinPool.invoke(walk);
+        if (!hasBeenFiltered.get()) {
+            unfilteredSnapshotRecorder.accept(result);
+        }
+        return result;
+    }
+
+    /**
+     * Walks a directory with a {@link PathVisitor}, either directly or as a fork-join task.
+     */
+    private static class DirectoryWalk extends RecursiveTask<FileSystemLocationSnapshot> {
+        private final Path directory;
+        private final PathVisitor visitor;
+
+        public DirectoryWalk(Path directory, PathVisitor visitor) {
+            this.directory = directory;
+            this.visitor = visitor;
+        }
+
+        @Override
+        protected FileSystemLocationSnapshot compute() {
+            return walk();
+        }
+
+        public FileSystemLocationSnapshot walk() {
+            try {
+                Files.walkFileTree(directory, DONT_FOLLOW_SYMLINKS, Integer.MAX_VALUE, visitor);
+                return visitor.getResult();
+            } catch (IOException e) {
+                throw new UncheckedIOException(String.format("Could not list contents of directory '%s'.", directory), e);
             }
-            return result;
-        } catch (IOException e) {
-            throw new UncheckedIOException(String.format("Could not list contents of directory '%s'.", absolutePath), e);
+        }
+    }
+
+    /**
+     * A subdirectory which is snapshotted by a separate fork-join task.
+     *
+     * The unfiltered snapshots found in the subdirectory are buffered, so they can be passed on in the thread which joins the task.
+     */
+    private static class ForkedSubtree {
+        private final AtomicBoolean hasBeenFiltered;
+        private final List<FileSystemLocationSnapshot> unfilteredSnapshots;
+        private final DirectoryWalk walk;
+
+        public ForkedSubtree(AtomicBoolean hasBeenFiltered, List<FileSystemLocationSnapshot> unfilteredSnapshots, DirectoryWalk walk) {
+            this.hasBeenFiltered = hasBeenFiltered;
+            this.unfilteredSnapshots = unfilteredSnapshots;
+            this.walk = walk;
         }
     }
 
@@ -171,7 +250,7 @@ public String remapAbsolutePath(String absolutePath) {
 
         @Override
         public SymbolicLinkMapping withNewMapping(String source, String target, RelativePathTracker currentPathTracker) {
-            return new DefaultSymbolicLinkMapping(remapAbsolutePath(source), target, getRemappedSegments(currentPathTracker.getSegments()));
+            return new DefaultSymbolicLinkMapping(remapAbsolutePath(source), target, ImmutableList.copyOf(getRemappedSegments(currentPathTracker.getSegments())));
         }
 
         @Override
@@ -266,6 +345,9 @@ private static class PathVisitor extends DirectorySnapshotterStatistics.Collecti
         private final Set<FileSystemLocationSnapshot> filteredDirectorySnapshots = new HashSet<>();
         private final ImmutableMap<String, ? extends FileSystemLocationSnapshot> previouslyKnownSnapshots;
         private final Consumer<FileSystemLocationSnapshot> unfilteredSnapshotRecorder;
+        private final ForkJoinPool forkJoinPool;
+        private final int minEntriesToFork;
+        private final Deque<List<ForkedSubtree>> forkedSubtrees = new ArrayDeque<>();
 
         public PathVisitor(
             @Nullable SnapshottingFilter.DirectoryWalkerPredicate predicate,
@@ -276,9 +358,30 @@ public PathVisitor(
             DirectorySnapshotterStatistics.Collector statisticsCollector,
             SymbolicLinkMapping symbolicLinkMapping,
             Map<String, ? extends FileSystemLocationSnapshot> previouslyKnownSnapshots,
-            Consumer<FileSystemLocationSnapshot> unfilteredSnapshotRecorder
+            Consumer<FileSystemLocationSnapshot> unfilteredSnapshotRecorder,
+            @Nullable ForkJoinPool forkJoinPool,
+            int minEntriesToFork,
+            Collection<String> parentDirectories
         ) {
-            super(statisticsCollector);
+            this(predicate, hasBeenFiltered, hasher, stringInterner, defaultExcludes, statisticsCollector, symbolicLinkMapping, previouslyKnownSnapshots, unfilteredSnapshotRecorder, forkJoinPool, minEntriesToFork, parentDirectories, false);
+        }
+
+        private PathVisitor(
+            @Nullable SnapshottingFilter.DirectoryWalkerPredicate predicate,
+            AtomicBoolean hasBeenFiltered,
+            FileHasher hasher,
+            Interner<String> stringInterner,
+            DefaultExcludes defaultExcludes,
+            DirectorySnapshotterStatistics.Collector statisticsCollector,
+            SymbolicLinkMapping symbolicLinkMapping,
+            Map<String, ? extends FileSystemLocationSnapshot> previouslyKnownSnapshots,
+            Consumer<FileSystemLocationSnapshot> unfilteredSnapshotRecorder,
+            @Nullable ForkJoinPool forkJoinPool,
+            int minEntriesToFork,
+            Collection<String> parentDirectories,
+            boolean visitsForkedSubtree
+        ) {
+            super(statisticsCollector, visitsForkedSubtree);
             this.builder = FilteredTrackingMerkleDirectorySnapshotBuilder.sortingRequired(this::recordUnfilteredSnapshot);
             this.predicate = predicate;
             this.hasBeenFiltered = hasBeenFiltered;
@@ -288,6 +391,9 @@ public PathVisitor(
             this.symbolicLinkMapping = symbolicLinkMapping;
             this.previouslyKnownSnapshots = ImmutableMap.copyOf(previouslyKnownSnapshots);
             this.unfilteredSnapshotRecorder = unfilteredSnapshotRecorder;
+            this.forkJoinPool = forkJoinPool;
+            this.minEntriesToFork = minEntriesToFork;
+            this.parentDirectories.addAll(parentDirectories);
         }
 
         private void recordUnfilteredSnapshot(FileSystemLocationSnapshot snapshot) {
@@ -315,8 +421,17 @@ protected FileVisitResult doPreVisitDirectory(Path dir, BasicFileAttributes attr
                     }
                 }
 
+                if (forkJoinPool != null && !pathTracker.isRoot() && hasAtLeastEntries(dir, minEntriesToFork)) {
+                    forkSubtree(dir, forkJoinPool);
+                    pathTracker.leave();
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+
                 builder.enterDirectory(AccessType.DIRECT, internedRemappedAbsolutePath, fileName, INCLUDE_EMPTY_DIRS);
                 parentDirectories.addFirst(dir.toString());
+                if (forkJoinPool != null) {
+                    forkedSubtrees.addFirst(new ArrayList<>());
+                }
                 return FileVisitResult.CONTINUE;
             } else {
                 pathTracker.leave();
@@ -333,6 +448,9 @@ protected FileVisitResult doPostVisitDirectory(Path dir, IOException exc) {
             if (isNotFileSystemLoopException(exc)) {
                 throw new UncheckedIOException(String.format("Could not read directory path '%s'.", dir), exc);
             }
+            if (forkJoinPool != null) {
+                joinForkedSubtrees();
+            }
             boolean currentLevelComplete = builder.isCurrentLevelUnfiltered();
             FileSystemLocationSnapshot currentLevel = builder.leaveDirectory();
             if (!currentLevelComplete) {
@@ -395,7 +513,10 @@ private DirectorySnapshot followSymlink(Path file, String internedFileName, Atom
                         collector,
                         symbolicLinkMapping.withNewMapping(file.toString(), targetDirString, pathTracker),
                         previouslyKnownSnapshots,
-                        unfilteredSnapshotRecorder);
+                        unfilteredSnapshotRecorder,
+                        forkJoinPool,
+                        minEntriesToFork,
+                        ImmutableList.of());
                     Files.walkFileTree(targetDir, EnumSet.noneOf(FileVisitOption.class), Integer.MAX_VALUE, subtreeVisitor);
                     return (DirectorySnapshot) subtreeVisitor.getResult();
                 } else {
@@ -406,6 +527,72 @@ private DirectorySnapshot followSymlink(Path file, String internedFileName, Atom
             }
         }
 
+        /**
+         * Starts snapshotting the given subdirectory in a separate task.
+         *
+         * The subtree visitor sees the same relative path segments, parent directories and symlink mapping as this visitor would,
+         * so it applies the same filtering and cycle detection.
+         */
+        private void forkSubtree(Path dir, ForkJoinPool forkJoinPool) {
+            String dirString = dir.toString();
+            AtomicBoolean subtreeHasBeenFiltered = new AtomicBoolean();
+            List<FileSystemLocationSnapshot> subtreeUnfilteredSnapshots = new ArrayList<>();
+            PathVisitor subtreeVisitor = new PathVisitor(
+                predicate,
+                subtreeHasBeenFiltered,
+                hasher,
+                stringInterner,
+                defaultExcludes,
+                collector,
+                symbolicLinkMapping.withNewMapping(dirString, dirString, pathTracker),
+                previouslyKnownSnapshots,
+                subtreeUnfilteredSnapshots::add,
+                forkJoinPool,
+                minEntriesToFork,
+                parentDirectories,
+                true);
+            DirectoryWalk walk = new DirectoryWalk(dir, subtreeVisitor);
+            if (ForkJoinTask.getPool() == forkJoinPool) {
+                walk.fork();
+            } else {
+                // The walk of the root directory can end up running on the thread calling the snapshotter
+                forkJoinPool.execute(walk);
+            }
+            forkedSubtrees.getFirst().add(new ForkedSubtree(subtreeHasBeenFiltered, subtreeUnfilteredSnapshots, walk));
+        }
+
+        /**
+         * Adds the snapshots of the subdirectories forked from the current directory, in the same way as if they had been walked by this visitor.
+         */
+        private void joinForkedSubtrees() {
+            for (ForkedSubtree subtree : forkedSubtrees.removeFirst()) {
+                DirectorySnapshot subtreeSnapshot = (DirectorySnapshot) subtree.walk.join();
+                subtree.unfilteredSnapshots.forEach(unfilteredSnapshotRecorder);
+                if (subtreeSnapshot == null) {
+                    continue;
+                }
+                builder.visitDirectory(subtreeSnapshot);
+                if (subtree.hasBeenFiltered.get()) {
+                    filteredDirectorySnapshots.add(subtreeSnapshot);
+                    builder.markCurrentLevelAsFiltered();
+                    hasBeenFiltered.set(true);
+                }
+            }
+        }
+
+        private static boolean hasAtLeastEntries(Path dir, int count) {
+            int entries = 0;
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+                for (Iterator<Path> iterator = stream.iterator(); iterator.hasNext() && entries < count; iterator.next()) {
+                    entries++;
+                }
+            } catch (IOException | DirectoryIteratorException e) {
+                // The walk of the directory reports the failure
+                return false;
+            }
+            return entries >= count;
+        }
+
         private boolean introducesCycle(String targetDirString) {
             return parentDirectories.contains(targetDirString);
         }
@@ -26,4 +26,24 @@ class RegularFileSnapshotTest extends AbstractFileSystemLeafSnapshotTest {
     protected FileSystemLeafSnapshot createInitialRootNode(String absolutePath, AccessType accessType) {
         return new RegularFileSnapshot(absolutePath, PathUtil.getFileName(absolutePath), TestHashCodes.hashCodeFrom(1235), DefaultFileMetadata.file(1, 2, accessType))
     }
+
+    def "metadata is preserved"() {
+        def snapshot = new RegularFileSnapshot("/some/file.txt", "file.txt", TestHashCodes.hashCodeFrom(1235), DefaultFileMetadata.file(1, 2, AccessType.VIA_SYMLINK))
+
+        expect:
+        snapshot.lastModified == 1
+        snapshot.length == 2
+        snapshot.accessType == AccessType.VIA_SYMLINK
+        snapshot.metadata == DefaultFileMetadata.file(1, 2, AccessType.VIA_SYMLINK)
+    }
+
+    def "is only up-to-date when content and metadata are the same"() {
+        def snapshot = new RegularFileSnapshot("/some/file.txt", "file.txt", TestHashCodes.hashCodeFrom(1235), DefaultFileMetadata.file(1, 2, AccessType.DIRECT))
+
+        expect:
+        snapshot.isContentAndMetadataUpToDate(new RegularFileSnapshot("/some/file.txt", "file.txt", TestHashCodes.hashCodeFrom(1235), DefaultFileMetadata.file(1, 2, AccessType.DIRECT)))
+        !snapshot.isContentAndMetadataUpToDate(new RegularFileSnapshot("/some/file.txt", "file.txt", TestHashCodes.hashCodeFrom(1235), DefaultFileMetadata.file(3, 2, AccessType.DIRECT)))
+        !snapshot.isContentAndMetadataUpToDate(new RegularFileSnapshot("/some/file.txt", "file.txt", TestHashCodes.hashCodeFrom(1235), DefaultFileMetadata.file(1, 4, AccessType.DIRECT)))
+        !snapshot.isContentAndMetadataUpToDate(new RegularFileSnapshot("/some/file.txt", "file.txt", TestHashCodes.hashCodeFrom(5321), DefaultFileMetadata.file(1, 2, AccessType.DIRECT)))
+    }
 }
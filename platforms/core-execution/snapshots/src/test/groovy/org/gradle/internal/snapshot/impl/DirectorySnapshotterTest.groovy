@@ -42,6 +42,7 @@ import spock.lang.Issue
 import spock.lang.Specification
 
 import java.nio.file.Paths
+import java.util.concurrent.ForkJoinPool
 import java.util.function.Consumer
 
 @UsesNativeServices
@@ -52,12 +53,17 @@ class DirectorySnapshotterTest extends Specification {
 
     def fileHasher = new TestFileHasher()
     def statisticsCollector = Stub(DirectorySnapshotterStatistics.Collector)
-    def directorySnapshotter = new DirectorySnapshotter(fileHasher, new StringInterner(), [], statisticsCollector)
+    // Fork every subdirectory in parallel mode, so the features are run against forked subtrees
+    def directorySnapshotter = new DirectorySnapshotter(fileHasher, new StringInterner(), [], statisticsCollector, snapshottingPool, 1)
     List<FileSystemLocationSnapshot> unfilteredSubsnapshots = []
     Consumer<FileSystemLocationSnapshot> unfilteredSubSnapshotsCollector = { FileSystemLocationSnapshot snapshot ->
         unfilteredSubsnapshots.add(snapshot)
     }
 
+    protected ForkJoinPool getSnapshottingPool() {
+        null
+    }
+
     def "should snapshot without filters"() {
         given:
         def rootDir = tmpDir.createDir("root")
@@ -555,7 +561,7 @@ class DirectorySnapshotterTest extends Specification {
         "${Paths.get("").toAbsolutePath().root}"
     }
 
-    private static SnapshottingFilter.DirectoryWalkerPredicate directoryWalkerPredicate(PatternSet patternSet) {
+    protected static SnapshottingFilter.DirectoryWalkerPredicate directoryWalkerPredicate(PatternSet patternSet) {
         return new PatternSetSnapshottingFilter(patternSet, TestFiles.fileSystem()).asDirectoryWalkerPredicate
     }
 }
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.snapshot.impl
+
+import org.gradle.api.internal.cache.StringInterner
+import org.gradle.api.tasks.util.PatternSet
+import org.gradle.internal.hash.FileHasher
+import org.gradle.internal.hash.HashCode
+import org.gradle.internal.snapshot.FileSystemLocationSnapshot
+import org.gradle.internal.snapshot.SnapshotUtil
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ForkJoinPool
+
+class ParallelDirectorySnapshotterTest extends DirectorySnapshotterTest {
+    private static final ForkJoinPool POOL = new ForkJoinPool(4)
+
+    @Override
+    protected ForkJoinPool getSnapshottingPool() {
+        POOL
+    }
+
+    def "creates the same snapshot as a sequential walk"() {
+        given:
+        def rootDir = tmpDir.createDir("root")
+        100.times { i ->
+            rootDir.file("dir${i % 7}/sub${i % 5}/nested${i % 3}/file${i}.${i % 2 == 0 ? "txt" : "html"}").text = "content $i"
+        }
+        rootDir.file("empty/dir").createDir()
+        def sequentialSnapshotter = new DirectorySnapshotter(fileHasher, new StringInterner(), [], statisticsCollector)
+        List<FileSystemLocationSnapshot> sequentialUnfilteredSnapshots = []
+
+        when:
+        def snapshot = directorySnapshotter.snapshot(rootDir.absolutePath, predicate, [:], unfilteredSubSnapshotsCollector)
+        def sequentialSnapshot = sequentialSnapshotter.snapshot(rootDir.absolutePath, predicate, [:], { sequentialUnfilteredSnapshots << it })
+
+        then:
+        snapshot.hash == sequentialSnapshot.hash
+        SnapshotUtil.indexByAbsolutePath(snapshot) == SnapshotUtil.indexByAbsolutePath(sequentialSnapshot)
+        unfilteredSubsnapshots*.absolutePath as Set == sequentialUnfilteredSnapshots*.absolutePath as Set
+        unfilteredSubsnapshots.size() == sequentialUnfilteredSnapshots.size()
+
+        where:
+        predicate << [null, directoryWalkerPredicate(new PatternSet().include("**/*.txt").exclude("dir3/**"))]
+    }
+
+    def "walks subdirectories with few entries in the task walking their parent"() {
+        given:
+        def rootDir = tmpDir.createDir("root")
+        10.times { i ->
+            rootDir.file("dir${i}/file${i}.txt").text = "content $i"
+        }
+        Set<Thread> hashingThreads = ConcurrentHashMap.newKeySet()
+        def recordingHasher = new FileHasher() {
+            @Override
+            HashCode hash(File file) {
+                hashingThreads << Thread.currentThread()
+                fileHasher.hash(file)
+            }
+
+            @Override
+            HashCode hash(File file, long length, long lastModified) {
+                hashingThreads << Thread.currentThread()
+                fileHasher.hash(file, length, lastModified)
+            }
+        }
+        def snapshotter = new DirectorySnapshotter(recordingHasher, new StringInterner(), [], statisticsCollector, POOL)
+
+        when:
+        snapshotter.snapshot(rootDir.absolutePath, null, [:], unfilteredSubSnapshotsCollector)
+
+        then:
+        hashingThreads.size() == 1
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.resources;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.gradle.internal.resources.DefaultResourceLockCoordinationService.lock;
+import static org.gradle.internal.resources.DefaultResourceLockCoordinationService.unlock;
+
+/**
+ * Simulates plan executor workers that repeatedly take a worker lease and a project lock, do a little work and release both.
+ *
+ * Run against an earlier revision to compare with the monitor based coordination service that woke every waiting thread on each release.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class ResourceLockCoordinationBenchmark {
+    private static final int ITERATIONS_PER_WORKER = 1000;
+    private static final ResourceLockContainer NO_OP_CONTAINER = new ResourceLockContainer() {
+        @Override
+        public void lockAcquired(ResourceLock lock) {
+        }
+
+        @Override
+        public void lockReleased(ResourceLock lock) {
+        }
+    };
+
+    @Param({"8", "32", "64"})
+    int workers;
+
+    @Param({"8", "256"})
+    int projects;
+
+    private DefaultResourceLockCoordinationService coordinationService;
+    private LeaseHolder workerLeases;
+    private List<ResourceLock> projectLocks;
+
+    @Setup(Level.Invocation)
+    public void setup() {
+        coordinationService = new DefaultResourceLockCoordinationService();
+        workerLeases = new LeaseHolder(Runtime.getRuntime().availableProcessors());
+        projectLocks = new ArrayList<ResourceLock>(projects);
+        for (int i = 0; i < projects; i++) {
+            projectLocks.add(new ExclusiveAccessResourceLock("project " + i, coordinationService, NO_OP_CONTAINER));
+        }
+    }
+
+    @Benchmark
+    public void acquireAndReleaseLocks() throws InterruptedException {
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<Thread>(workers);
+        for (int i = 0; i < workers; i++) {
+            final int worker = i;
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        throw new RuntimeException(e);
+                    }
+                    runWorker(worker);
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    private void runWorker(int worker) {
+        ResourceLock workerLease = new DefaultLease("worker lease " + worker, coordinationService, NO_OP_CONTAINER, workerLeases);
+        for (int i = 0; i < ITERATIONS_PER_WORKER; i++) {
+            ResourceLock projectLock = projectLocks.get((worker * 31 + i) % projects);
+            List<ResourceLock> locks = Arrays.asList(workerLease, projectLock);
+            coordinationService.withStateLock(lock(locks));
+            coordinationService.withStateLock(unlock(locks));
+        }
+    }
+}
@@ -52,6 +52,7 @@ public boolean tryLock() {
                 coordinationService.getCurrent().registerLocked(this);
                 return true;
             } else {
+                coordinationService.getCurrent().registerContended(getContentionKey());
                 return false;
             }
         } else {
@@ -67,7 +68,9 @@ public void unlock() {
             try {
                 owner.lockReleased(this);
             } finally {
-                coordinationService.getCurrent().registerUnlocked(this);
+                ResourceLockState state = coordinationService.getCurrent();
+                state.registerUnlocked(this);
+                state.registerReleased(getContentionKey());
             }
         }
     }
@@ -75,7 +78,11 @@ public void unlock() {
     @Override
     public boolean isLocked() {
         failIfNotInResourceLockStateChange();
-        return doIsLocked();
+        boolean locked = doIsLocked();
+        if (locked && !doIsLockedByCurrentThread()) {
+            coordinationService.getCurrent().registerContended(getContentionKey());
+        }
+        return locked;
     }
 
     @Override
@@ -90,6 +97,13 @@ private void failIfNotInResourceLockStateChange() {
         }
     }
 
+    /**
+     * Returns the key that threads waiting to acquire this lock contend on. Threads are woken when a lock with the same key is released.
+     */
+    protected Object getContentionKey() {
+        return this;
+    }
+
     abstract protected boolean acquireLock();
 
     abstract protected void releaseLock();
@@ -25,6 +25,12 @@ public DefaultLease(String displayName, ResourceLockCoordinationService coordina
         this.parent = parent;
     }
 
+    @Override
+    protected Object getContentionKey() {
+        // Any lease released back to the same holder can be granted to a waiting thread
+        return parent;
+    }
+
     @Override
     protected boolean doIsLocked() {
         return ownerThread != null;
@@ -25,48 +25,72 @@
 import javax.annotation.Nullable;
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Coordinates changes to resource lock state.
+ *
+ * <p>Changes are made while holding a single state lock, so that a transform can atomically acquire several resource locks.
+ * Threads that need to retry a transform wait on their own condition and are only woken when a resource they contended on
+ * is released, or when {@link #notifyStateChange()} is called. This avoids waking every waiting worker each time any lock is released.</p>
+ */
 public class DefaultResourceLockCoordinationService implements ResourceLockCoordinationService, Closeable {
-    private final Object lock = new Object();
+    private final ReentrantLock lock = new ReentrantLock();
     private final Set<Action<ResourceLock>> releaseHandlers = new LinkedHashSet<Action<ResourceLock>>();
-    private Thread currentOwner;
-    private DefaultResourceLockState currentState;
+    // Waiters that did not register any contended resource, and so are woken on every change
+    private final Set<Waiter> untargetedWaiters = new LinkedHashSet<Waiter>();
+    private final Map<Object, Set<Waiter>> waitersByResource = new HashMap<Object, Set<Waiter>>();
+    // Only written by the thread holding the state lock, read without it by threads checking whether they are the owner
+    private volatile Thread currentOwner;
+    private volatile DefaultResourceLockState currentState;
 
     @Override
     public void close() throws IOException {
-        synchronized (lock) {
+        lock.lock();
+        try {
             if (!releaseHandlers.isEmpty()) {
                 throw new IllegalStateException("Some lock release listeners have not been removed.");
             }
+        } finally {
+            lock.unlock();
         }
     }
 
     @Override
     public void assertHasStateLock() {
-        synchronized (lock) {
-            if (getCurrent() == null) {
-                throw new IllegalStateException();
-            }
+        if (getCurrent() == null) {
+            throw new IllegalStateException();
         }
     }
 
     @Override
     public void addLockReleaseListener(Action<ResourceLock> listener) {
-        synchronized (lock) {
+        lock.lock();
+        try {
             releaseHandlers.add(listener);
+        } finally {
+            lock.unlock();
         }
     }
 
     @Override
     public void removeLockReleaseListener(Action<ResourceLock> listener) {
-        synchronized (lock) {
+        lock.lock();
+        try {
             releaseHandlers.remove(listener);
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -96,7 +120,8 @@ public ResourceLockState.Disposition transform(ResourceLockState resourceLockSta
 
     @Override
     public boolean withStateLock(InternalTransformer<ResourceLockState.Disposition, ResourceLockState> stateLockAction) {
-        synchronized (lock) {
+        lock.lock();
+        try {
             DefaultResourceLockState resourceLockState = new DefaultResourceLockState();
             DefaultResourceLockState previous = startOperation(resourceLockState);
             try {
@@ -107,13 +132,10 @@ public boolean withStateLock(InternalTransformer<ResourceLockState.Disposition,
                         case RETRY:
                             resourceLockState.releaseLocks();
                             maybeNotifyStateChange(resourceLockState);
+                            Waiter waiter = new Waiter(resourceLockState.getContendedResources());
                             resourceLockState.reset();
                             finishOperation(previous);
-                            try {
-                                lock.wait();
-                            } catch (InterruptedException e) {
-                                throw UncheckedException.throwAsUncheckedException(e);
-                            }
+                            waitForStateChange(waiter);
                             startOperation(resourceLockState);
                             break;
                         case FINISHED:
@@ -130,8 +152,78 @@ public boolean withStateLock(InternalTransformer<ResourceLockState.Disposition,
                 resourceLockState.releaseLocks();
                 throw UncheckedException.throwAsUncheckedException(t);
             } finally {
+                if (previous != null) {
+                    // A transform that retries after a nested transform failed should wait for the resources the nested transform contended on
+                    previous.contendedOn(resourceLockState.getContendedResources());
+                }
                 finishOperation(previous);
             }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void waitForStateChange(Waiter waiter) {
+        if (waiter.resources.isEmpty()) {
+            untargetedWaiters.add(waiter);
+        } else {
+            for (Object resource : waiter.resources) {
+                Set<Waiter> waiters = waitersByResource.get(resource);
+                if (waiters == null) {
+                    waiters = new LinkedHashSet<Waiter>();
+                    waitersByResource.put(resource, waiters);
+                }
+                waiters.add(waiter);
+            }
+        }
+        try {
+            while (!waiter.woken) {
+                waiter.condition.await();
+            }
+        } catch (InterruptedException e) {
+            removeWaiter(waiter);
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    private void wake(Waiter waiter) {
+        removeWaiter(waiter);
+        waiter.woken = true;
+        waiter.condition.signal();
+    }
+
+    private void removeWaiter(Waiter waiter) {
+        if (waiter.resources.isEmpty()) {
+            untargetedWaiters.remove(waiter);
+        } else {
+            for (Object resource : waiter.resources) {
+                Set<Waiter> waiters = waitersByResource.get(resource);
+                if (waiters != null) {
+                    waiters.remove(waiter);
+                    if (waiters.isEmpty()) {
+                        waitersByResource.remove(resource);
+                    }
+                }
+            }
+        }
+    }
+
+    private void wakeUntargetedWaiters() {
+        if (!untargetedWaiters.isEmpty()) {
+            for (Waiter waiter : new ArrayList<Waiter>(untargetedWaiters)) {
+                wake(waiter);
+            }
+        }
+    }
+
+    private void wakeWaitersFor(Collection<?> releasedResources) {
+        for (Object resource : releasedResources) {
+            Set<Waiter> waiters = waitersByResource.get(resource);
+            if (waiters != null) {
+                for (Waiter waiter : new ArrayList<Waiter>(waiters)) {
+                    wake(waiter);
+                }
+            }
         }
     }
 
@@ -158,19 +250,21 @@ private void finishOperation(@Nullable DefaultResourceLockState previous) {
 
     @Override
     public ResourceLockState getCurrent() {
-        synchronized (lock) {
-            if (currentOwner != Thread.currentThread()) {
-                return null;
-            } else {
-                return currentState;
-            }
+        // The owner is only ever set to the current thread by the current thread, so this check does not need the state lock
+        if (currentOwner != Thread.currentThread()) {
+            return null;
+        } else {
+            return currentState;
         }
     }
 
     private void maybeNotifyStateChange(DefaultResourceLockState resourceLockState) {
         Collection<ResourceLock> unlockedResources = resourceLockState.getUnlockedResources();
-        if (!unlockedResources.isEmpty()) {
-            notifyStateChange();
+        Collection<Object> releasedResources = resourceLockState.getReleasedResources();
+        if (!unlockedResources.isEmpty() || !releasedResources.isEmpty()) {
+            wakeUntargetedWaiters();
+            wakeWaitersFor(unlockedResources);
+            wakeWaitersFor(releasedResources);
             for (ResourceLock resource : unlockedResources) {
                 for (Action<ResourceLock> releaseHandler : releaseHandlers) {
                     releaseHandler.execute(resource);
@@ -181,14 +275,40 @@ private void maybeNotifyStateChange(DefaultResourceLockState resourceLockState)
 
     @Override
     public void notifyStateChange() {
-        synchronized (lock) {
-            lock.notifyAll();
+        lock.lock();
+        try {
+            wakeUntargetedWaiters();
+            if (!waitersByResource.isEmpty()) {
+                List<Waiter> waiters = new ArrayList<Waiter>();
+                for (Set<Waiter> waitersForResource : waitersByResource.values()) {
+                    waiters.addAll(waitersForResource);
+                }
+                for (Waiter waiter : waiters) {
+                    if (!waiter.woken) {
+                        wake(waiter);
+                    }
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private class Waiter {
+        final Condition condition = lock.newCondition();
+        final Set<Object> resources;
+        boolean woken;
+
+        Waiter(Collection<Object> resources) {
+            this.resources = resources.isEmpty() ? Collections.<Object>emptySet() : new HashSet<Object>(resources);
         }
     }
 
     private static class DefaultResourceLockState implements ResourceLockState {
         private Set<ResourceLock> lockedResources;
         private Set<ResourceLock> unlockedResources;
+        private Set<Object> contendedResources;
+        private Set<Object> releasedResources;
         boolean rollback;
 
         @Override
@@ -211,10 +331,44 @@ public void registerUnlocked(ResourceLock resourceLock) {
             }
         }
 
+        @Override
+        public void registerContended(Object resource) {
+            if (!rollback) {
+                if (contendedResources == null) {
+                    contendedResources = new HashSet<Object>();
+                }
+                contendedResources.add(resource);
+            }
+        }
+
+        @Override
+        public void registerReleased(Object resource) {
+            if (!rollback) {
+                if (releasedResources == null) {
+                    releasedResources = new HashSet<Object>();
+                }
+                releasedResources.add(resource);
+            }
+        }
+
+        void contendedOn(Collection<Object> resources) {
+            for (Object resource : resources) {
+                registerContended(resource);
+            }
+        }
+
         Collection<ResourceLock> getUnlockedResources() {
             return unlockedResources == null ? Collections.<ResourceLock>emptyList() : unlockedResources;
         }
 
+        Collection<Object> getReleasedResources() {
+            return releasedResources == null ? Collections.<Object>emptyList() : releasedResources;
+        }
+
+        Collection<Object> getContendedResources() {
+            return contendedResources == null ? Collections.<Object>emptyList() : contendedResources;
+        }
+
         @Override
         public void releaseLocks() {
             if (lockedResources != null) {
@@ -237,6 +391,12 @@ public void reset() {
             if (unlockedResources != null) {
                 unlockedResources.clear();
             }
+            if (contendedResources != null) {
+                contendedResources.clear();
+            }
+            if (releasedResources != null) {
+                releasedResources.clear();
+            }
             rollback = false;
         }
     }
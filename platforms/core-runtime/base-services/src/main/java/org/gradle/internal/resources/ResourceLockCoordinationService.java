@@ -61,7 +61,8 @@ public interface ResourceLockCoordinationService {
     <T> T withStateLock(Supplier<T> action);
 
     /**
-     * Notify other threads about changes to resource locks.
+     * Notify other threads about changes to resource locks. Wakes all threads waiting for a state change, regardless of the
+     * resources they are contending on. Use this when some state other than the resource locks themselves has changed.
      */
     void notifyStateChange();
 
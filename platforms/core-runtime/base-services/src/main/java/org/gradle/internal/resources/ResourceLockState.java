@@ -38,6 +38,23 @@ enum Disposition { FAILED, FINISHED, RETRY }
      */
     void registerUnlocked(ResourceLock resourceLock);
 
+    /**
+     * Registers a resource that could not be acquired during the transform. When the transform asks to retry, the coordination
+     * service only wakes this thread once one of its contended resources is released, instead of on every change to the lock state.
+     * A transform that registers no contended resources is woken on every change.
+     *
+     * @param resource the resource, or the key identifying a group of resources such as a pool of leases
+     */
+    void registerContended(Object resource);
+
+    /**
+     * Registers a resource that has been released during the transform, so that the coordination service can wake threads
+     * contending on it. Unlocking a resource lock via {@link #registerUnlocked(ResourceLock)} also releases the lock itself.
+     *
+     * @param resource the resource, or the key identifying a group of resources such as a pool of leases
+     */
+    void registerReleased(Object resource);
+
     /**
      * Release any locks that have been acquired during the transform.
      */
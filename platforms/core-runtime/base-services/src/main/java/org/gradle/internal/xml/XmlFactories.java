@@ -24,6 +24,7 @@
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParserFactory;
+import javax.xml.stream.XMLInputFactory;
 import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerFactory;
 import javax.xml.xpath.XPathFactory;
@@ -59,6 +60,21 @@ public static SAXParserFactory newSAXParserFactory() {
         }
     }
 
+    /**
+     * Creates a factory for streaming parsers that do not resolve external entities or DTDs.
+     * DTDs that are needed to parse a document can still be provided with an {@link javax.xml.stream.XMLResolver}.
+     */
+    public static XMLInputFactory newXMLInputFactory() {
+        try {
+            XMLInputFactory xif = XMLInputFactory.newInstance();
+            xif.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+            xif.setProperty(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+            return xif;
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException(errorMessageFor("XMLInputFactory"), e);
+        }
+    }
+
     public static XPathFactory newXPathFactory() {
         try {
             XPathFactory xpf = XPathFactory.newInstance();
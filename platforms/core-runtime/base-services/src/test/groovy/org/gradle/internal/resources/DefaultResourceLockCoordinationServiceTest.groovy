@@ -112,6 +112,109 @@ class DefaultResourceLockCoordinationServiceTest extends ConcurrentSpec {
         lock2.lockedState
     }
 
+    def "retrying thread is not woken when an unrelated lock is released"() {
+        def lock1 = resourceLock("lock1", true)
+        def lock2 = resourceLock("lock2", true)
+        def count = 0
+
+        when:
+        async {
+            start {
+                coordinationService.withStateLock(new InternalTransformer<ResourceLockState.Disposition, ResourceLockState>() {
+                    @Override
+                    ResourceLockState.Disposition transform(ResourceLockState resourceLockState) {
+                        try {
+                            return lock1.tryLock() ? FINISHED : RETRY
+                        } finally {
+                            count++
+                            instant."executed${count}"
+                        }
+                    }
+                })
+            }
+
+            thread.blockUntil.executed1
+
+            lock2.lockedState = false
+            coordinationService.withStateLock(new InternalTransformer<ResourceLockState.Disposition, ResourceLockState>() {
+                @Override
+                ResourceLockState.Disposition transform(ResourceLockState resourceLockState) {
+                    resourceLockState.registerUnlocked(lock2)
+                    return FINISHED
+                }
+            })
+            Thread.sleep(100)
+
+            lock1.lockedState = false
+            coordinationService.withStateLock(new InternalTransformer<ResourceLockState.Disposition, ResourceLockState>() {
+                @Override
+                ResourceLockState.Disposition transform(ResourceLockState resourceLockState) {
+                    resourceLockState.registerUnlocked(lock1)
+                    return FINISHED
+                }
+            })
+
+            thread.blockUntil.executed2
+        }
+
+        then:
+        count == 2
+        lock1.lockedState
+    }
+
+    def "retrying thread is woken when notified of a state change"() {
+        def lock1 = resourceLock("lock1", true)
+        def count = 0
+
+        when:
+        async {
+            start {
+                coordinationService.withStateLock(new InternalTransformer<ResourceLockState.Disposition, ResourceLockState>() {
+                    @Override
+                    ResourceLockState.Disposition transform(ResourceLockState resourceLockState) {
+                        count++
+                        instant."executed${count}"
+                        return count > 1 ? FINISHED : (lock1.tryLock() ? FINISHED : RETRY)
+                    }
+                })
+            }
+
+            thread.blockUntil.executed1
+            coordinationService.notifyStateChange()
+            thread.blockUntil.executed2
+        }
+
+        then:
+        count == 2
+    }
+
+    def "retrying thread is woken when a lease from the same holder is released"() {
+        def holder = new LeaseHolder(1)
+        def lease1 = new DefaultLease("lease1", coordinationService, Mock(ResourceLockContainer), holder)
+        def lease2 = new DefaultLease("lease2", coordinationService, Mock(ResourceLockContainer), holder)
+
+        given:
+        coordinationService.withStateLock(lock(lease1))
+
+        when:
+        async {
+            start {
+                instant.waiting
+                coordinationService.withStateLock(lock(lease2))
+                instant.acquired
+                coordinationService.withStateLock(unlock(lease2))
+            }
+
+            thread.blockUntil.waiting
+            Thread.sleep(100)
+            coordinationService.withStateLock(unlock(lease1))
+            thread.blockUntil.acquired
+        }
+
+        then:
+        noExceptionThrown()
+    }
+
     def "can nest multiple calls to withStateLock"() {
         def lock = [
             resourceLock("lock1"),
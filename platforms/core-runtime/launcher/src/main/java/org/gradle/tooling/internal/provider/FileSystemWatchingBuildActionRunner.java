@@ -24,6 +24,7 @@
 import org.gradle.internal.buildtree.BuildActionRunner;
 import org.gradle.internal.buildtree.BuildTreeLifecycleController;
 import org.gradle.internal.file.StatStatistics;
+import org.gradle.internal.hash.operations.FileHashingStatisticsProgressDetails;
 import org.gradle.internal.invocation.BuildAction;
 import org.gradle.internal.operations.BuildOperationProgressEventEmitter;
 import org.gradle.internal.operations.BuildOperationRunner;
@@ -37,6 +38,8 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.TimeUnit;
+
 public class FileSystemWatchingBuildActionRunner implements BuildActionRunner {
     private static final Logger LOGGER = LoggerFactory.getLogger(FileSystemWatchingBuildActionRunner.class);
 
@@ -96,7 +99,7 @@ public Result run(BuildAction action, BuildTreeLifecycleController buildControll
             dropVirtualFileSystemIfRequested(options, virtualFileSystem);
         }
         if (verboseVfsLogging == VfsLogging.VERBOSE) {
-            logVfsStatistics("since last build", statStatisticsCollector, fileHasherStatisticsCollector, directorySnapshotterStatisticsCollector);
+            logVfsStatistics("since last build", statStatisticsCollector, fileHasherStatisticsCollector.collect(), directorySnapshotterStatisticsCollector);
         }
 
         if (action.getStartParameter().getProjectCacheDir() != null) {
@@ -147,8 +150,10 @@ public boolean isEnabled() {
                 buildOperationRunner,
                 maximumNumberOfWatchedHierarchies
             );
+            FileHasherStatistics fileHasherStatistics = fileHasherStatisticsCollector.collect();
+            eventEmitter.emitNowForCurrent(new DefaultFileHashingStatisticsProgressDetails(fileHasherStatistics));
             if (verboseVfsLogging == VfsLogging.VERBOSE) {
-                logVfsStatistics("during current build", statStatisticsCollector, fileHasherStatisticsCollector, directorySnapshotterStatisticsCollector);
+                logVfsStatistics("during current build", statStatisticsCollector, fileHasherStatistics, directorySnapshotterStatisticsCollector);
             }
         }
     }
@@ -156,15 +161,38 @@ public boolean isEnabled() {
     private static void logVfsStatistics(
         String title,
         StatStatistics.Collector statStatisticsCollector,
-        FileHasherStatistics.Collector fileHasherStatisticsCollector,
+        FileHasherStatistics fileHasherStatistics,
         DirectorySnapshotterStatistics.Collector directorySnapshotterStatisticsCollector
     ) {
         LOGGER.warn("VFS> Statistics {}:", title);
         LOGGER.warn("VFS> > Stat: {}", statStatisticsCollector.collect());
-        LOGGER.warn("VFS> > FileHasher: {}", fileHasherStatisticsCollector.collect());
+        LOGGER.warn("VFS> > FileHasher: {}", fileHasherStatistics);
         LOGGER.warn("VFS> > DirectorySnapshotter: {}", directorySnapshotterStatisticsCollector.collect());
     }
 
+    private static class DefaultFileHashingStatisticsProgressDetails implements FileHashingStatisticsProgressDetails {
+        private final FileHasherStatistics statistics;
+
+        public DefaultFileHashingStatisticsProgressDetails(FileHasherStatistics statistics) {
+            this.statistics = statistics;
+        }
+
+        @Override
+        public long getHashedFileCount() {
+            return statistics.getHashedFileCount();
+        }
+
+        @Override
+        public long getHashedContentLength() {
+            return statistics.getHashedContentLength();
+        }
+
+        @Override
+        public long getHashingTimeMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(statistics.getHashingTime());
+        }
+    }
+
     private static void dropVirtualFileSystemIfRequested(InternalOptions options, BuildLifecycleAwareVirtualFileSystem virtualFileSystem) {
         if (VirtualFileSystemServices.isDropVfs(options)) {
             virtualFileSystem.invalidateAll();
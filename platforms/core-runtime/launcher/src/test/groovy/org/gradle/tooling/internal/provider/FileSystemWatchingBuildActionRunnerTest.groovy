@@ -24,6 +24,7 @@ import org.gradle.internal.buildoption.DefaultInternalOptions
 import org.gradle.internal.buildtree.BuildActionRunner
 import org.gradle.internal.buildtree.BuildTreeLifecycleController
 import org.gradle.internal.file.StatStatistics
+import org.gradle.internal.hash.operations.FileHashingStatisticsProgressDetails
 import org.gradle.internal.invocation.BuildAction
 import org.gradle.internal.operations.BuildOperationProgressEventEmitter
 import org.gradle.internal.operations.BuildOperationRunner
@@ -86,6 +87,9 @@ class FileSystemWatchingBuildActionRunnerTest extends Specification {
         then:
         1 * watchingHandler.beforeBuildFinished(watchMode, vfsLogging, watchLogging, buildOperationRunner, _)
 
+        then:
+        1 * buildOperationProgressEventEmitter.emitNowForCurrent(_ as FileHashingStatisticsProgressDetails)
+
         then:
         0 * _
 
@@ -122,6 +126,9 @@ class FileSystemWatchingBuildActionRunnerTest extends Specification {
         then:
         1 * watchingHandler.beforeBuildFinished(WatchMode.DISABLED, _, _, buildOperationRunner, _)
 
+        then:
+        1 * buildOperationProgressEventEmitter.emitNowForCurrent(_ as FileHashingStatisticsProgressDetails)
+
         then:
         0 * _
     }
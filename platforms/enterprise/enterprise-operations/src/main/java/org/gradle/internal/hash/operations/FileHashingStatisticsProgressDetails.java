@@ -0,0 +1,47 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.hash.operations;
+
+/**
+ * Reports how much file content was hashed during a build, emitted when the build finishes.
+ * <p>
+ * Files whose hashes were found in the file hash cache are not counted.
+ *
+ * @since 8.7
+ */
+public interface FileHashingStatisticsProgressDetails {
+    /**
+     * The number of files hashed.
+     *
+     * @since 8.7
+     */
+    long getHashedFileCount();
+
+    /**
+     * The number of bytes hashed.
+     *
+     * @since 8.7
+     */
+    long getHashedContentLength();
+
+    /**
+     * The total time spent hashing files, in milliseconds. Files can be hashed in parallel, so this can exceed the build time.
+     *
+     * @since 8.7
+     */
+    long getHashingTimeMillis();
+}
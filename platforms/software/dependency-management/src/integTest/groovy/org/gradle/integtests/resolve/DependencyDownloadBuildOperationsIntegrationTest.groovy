@@ -76,6 +76,7 @@ class DependencyDownloadBuildOperationsIntegrationTest extends AbstractHttpDepen
         def artifactOps = buildOperations.all(DownloadArtifactBuildOperationType)
         artifactOps.size() == 1
         artifactOps[0].details.artifactIdentifier == 'impl-1.3.jar (org.utils:impl:1.3)'
+        artifactOps[0].result.bytesDownloaded == m.artifact.file.length()
 
         when:
         executer.withArguments("--refresh-dependencies")
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses and compares versions the way conflict resolution and version selection do, where
+ * the same versions are looked up and compared over and over.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class VersionComparatorBenchmark {
+    private static final String[] QUALIFIERS = {"", "-SNAPSHOT", "-rc1", "-RC2", ".Final", "-jre", "-android", "-beta-3", "-M1", "-dev"};
+
+    private final VersionParser versionParser = new VersionParser();
+    private final Comparator<Version> comparator = new DefaultVersionComparator().asVersionComparator();
+    private final List<String> sources = new ArrayList<>();
+    private final List<Version> versions = new ArrayList<>();
+
+    @Setup
+    public void createVersions() {
+        for (int major = 1; major <= 5; major++) {
+            for (int minor = 0; minor < 10; minor++) {
+                for (String qualifier : QUALIFIERS) {
+                    String source = major + "." + minor + ".0" + qualifier;
+                    sources.add(source);
+                    versions.add(versionParser.transform(source));
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void lookUpParsedVersions(Blackhole blackhole) {
+        for (String source : sources) {
+            blackhole.consume(versionParser.transform(source));
+        }
+    }
+
+    @Benchmark
+    public void compareVersions(Blackhole blackhole) {
+        for (int i = 1; i < versions.size(); i++) {
+            blackhole.consume(comparator.compare(versions.get(i - 1), versions.get(i)));
+            blackhole.consume(comparator.compare(versions.get(i), versions.get(versions.size() - i)));
+        }
+    }
+}
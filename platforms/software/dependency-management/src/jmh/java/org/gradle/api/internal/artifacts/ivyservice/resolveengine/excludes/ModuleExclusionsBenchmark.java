@@ -0,0 +1,100 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes;
+
+import org.gradle.api.internal.artifacts.DefaultModuleIdentifier;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.specs.ExcludeSpec;
+import org.gradle.internal.component.external.descriptor.DefaultExclude;
+import org.gradle.internal.component.model.ExcludeMetadata;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Merges the excludes of the edges of a dependency graph the way the resolution engine does, for graphs
+ * where most dependencies declare the same few excludes, as happens when they are aligned by a BOM.
+ *
+ * Each invocation starts from new {@link ModuleExclusions}, so from empty caches, like a resolution does.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class ModuleExclusionsBenchmark {
+    private static final int EDGES = 5000;
+    private static final int DEPTH = 8;
+    private static final int DISTINCT_EXCLUDES = 50;
+
+    @Param({"0", "1", "4"})
+    int excludesPerEdge;
+
+    private List<List<ExcludeMetadata>> edgeExcludes;
+
+    @Setup
+    public void createExcludes() {
+        Random random = new Random(42);
+        List<ExcludeMetadata> pool = new ArrayList<>(DISTINCT_EXCLUDES);
+        for (int i = 0; i < DISTINCT_EXCLUDES; i++) {
+            pool.add(new DefaultExclude(DefaultModuleIdentifier.newId("org.group" + (i % 10), "module" + i)));
+        }
+        edgeExcludes = new ArrayList<>(EDGES);
+        for (int i = 0; i < EDGES; i++) {
+            if (excludesPerEdge == 0) {
+                edgeExcludes.add(Collections.emptyList());
+                continue;
+            }
+            List<ExcludeMetadata> excludes = new ArrayList<>(excludesPerEdge);
+            for (int j = 0; j < excludesPerEdge; j++) {
+                // Skewed, so that most edges share the same few excludes
+                excludes.add(pool.get((int) (Math.abs(random.nextGaussian()) * DISTINCT_EXCLUDES / 4) % DISTINCT_EXCLUDES));
+            }
+            edgeExcludes.add(excludes);
+        }
+    }
+
+    @Benchmark
+    public void mergeEdgeExclusions(Blackhole blackhole) {
+        ModuleExclusions exclusions = new ModuleExclusions();
+        ExcludeSpec transitive = exclusions.nothing();
+        ExcludeSpec otherPath = exclusions.nothing();
+        for (int i = 0; i < EDGES; i++) {
+            ExcludeSpec edge = exclusions.excludeAny(edgeExcludes.get(i));
+            ExcludeSpec merged = exclusions.excludeAny(edge, transitive);
+            // A node reached through several paths only excludes what all the paths exclude
+            blackhole.consume(exclusions.excludeAll(merged, otherPath));
+            otherPath = merged;
+            transitive = i % DEPTH == 0 ? exclusions.nothing() : merged;
+        }
+    }
+}
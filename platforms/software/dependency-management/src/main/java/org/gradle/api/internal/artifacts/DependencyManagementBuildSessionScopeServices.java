@@ -15,6 +15,7 @@
  */
 package org.gradle.api.internal.artifacts;
 
+import org.gradle.api.internal.artifacts.ivyservice.modulecache.ModuleMetadataInterner;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.CachingComponentSelectionDescriptorFactory;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.ComponentSelectionDescriptorFactory;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.DesugaredAttributeContainerSerializer;
@@ -24,6 +25,7 @@
 import org.gradle.api.internal.attributes.ImmutableAttributesFactory;
 import org.gradle.api.internal.catalog.DependenciesAccessorsWorkspaceProvider;
 import org.gradle.api.internal.model.NamedObjectInstantiator;
+import org.gradle.internal.resource.transfer.ArtifactDownloadScheduler;
 import org.gradle.internal.service.ServiceRegistration;
 import org.gradle.internal.snapshot.impl.ValueSnapshotterSerializerRegistry;
 
@@ -35,6 +37,8 @@ void configure(ServiceRegistration registration) {
         registration.add(DesugaredAttributeContainerSerializer.class);
         registration.add(MavenMutableModuleMetadataFactory.class);
         registration.add(IvyMutableModuleMetadataFactory.class);
+        registration.add(ModuleMetadataInterner.class);
+        registration.add(ArtifactDownloadScheduler.class);
     }
 
     ComponentSelectionDescriptorFactory createComponentSelectionDescriptorFactory() {
@@ -39,6 +39,7 @@
 import org.gradle.api.internal.artifacts.transform.InputArtifactDependenciesAnnotationHandler;
 import org.gradle.api.internal.artifacts.transform.TransformActionScheme;
 import org.gradle.api.internal.artifacts.transform.TransformParameterScheme;
+import org.gradle.api.internal.artifacts.verification.signatures.CrossBuildKeyringFileCache;
 import org.gradle.api.internal.model.NamedObjectInstantiator;
 import org.gradle.api.internal.tasks.properties.InspectionScheme;
 import org.gradle.api.internal.tasks.properties.InspectionSchemeFactory;
@@ -75,6 +76,7 @@
 class DependencyManagementGlobalScopeServices {
     void configure(ServiceRegistration registration) {
         registration.add(MarkConfigurationObservedListener.class);
+        registration.add(CrossBuildKeyringFileCache.class);
     }
 
     ImmutableModuleIdentifierFactory createModuleIdentifierFactory() {
@@ -35,6 +35,27 @@ public interface Details {
 
     public interface Result {
 
+        /**
+         * The number of bytes transferred from the repository, or 0 when the artifact was already available locally.
+         *
+         * @since 8.7
+         */
+        long getBytesDownloaded();
+
+        /**
+         * The time spent transferring the artifact from the repository, in milliseconds.
+         *
+         * @since 8.7
+         */
+        long getDownloadTimeMillis();
+
+        /**
+         * The time spent waiting for a slot to transfer the artifact, when the number of concurrent transfers to the repository host is limited.
+         *
+         * @since 8.7
+         */
+        long getQueuedTimeMillis();
+
     }
 
     public static class DetailsImpl implements Details {
@@ -52,8 +73,34 @@ public String getArtifactIdentifier() {
 
     }
 
-    public final static Result RESULT = new Result() {
-    };
+    public static class ResultImpl implements Result {
+
+        private final long bytesDownloaded;
+        private final long downloadTimeMillis;
+        private final long queuedTimeMillis;
+
+        public ResultImpl(long bytesDownloaded, long downloadTimeMillis, long queuedTimeMillis) {
+            this.bytesDownloaded = bytesDownloaded;
+            this.downloadTimeMillis = downloadTimeMillis;
+            this.queuedTimeMillis = queuedTimeMillis;
+        }
+
+        @Override
+        public long getBytesDownloaded() {
+            return bytesDownloaded;
+        }
+
+        @Override
+        public long getDownloadTimeMillis() {
+            return downloadTimeMillis;
+        }
+
+        @Override
+        public long getQueuedTimeMillis() {
+            return queuedTimeMillis;
+        }
+
+    }
 
     private DownloadArtifactBuildOperationType() {
     }
@@ -82,11 +82,13 @@ public class DynamicVersionResolver {
     private final ComponentMetadataProcessorFactory componentMetadataProcessor;
     private final ComponentMetadataSupplierRuleExecutor componentMetadataSupplierRuleExecutor;
     private final CachePolicy cachePolicy;
+    private final VersionListingExecutor versionListingExecutor;
 
     public DynamicVersionResolver(
         VersionedComponentChooser versionedComponentChooser, VersionParser versionParser,
         ImmutableAttributesFactory attributesFactory, ComponentMetadataProcessorFactory componentMetadataProcessor,
-        ComponentMetadataSupplierRuleExecutor componentMetadataSupplierRuleExecutor, CachePolicy cachePolicy
+        ComponentMetadataSupplierRuleExecutor componentMetadataSupplierRuleExecutor, CachePolicy cachePolicy,
+        VersionListingExecutor versionListingExecutor
     ) {
         this.versionedComponentChooser = versionedComponentChooser;
         this.versionParser = versionParser;
@@ -94,6 +96,7 @@ public DynamicVersionResolver(
         this.componentMetadataProcessor = componentMetadataProcessor;
         this.componentMetadataSupplierRuleExecutor = componentMetadataSupplierRuleExecutor;
         this.cachePolicy = cachePolicy;
+        this.versionListingExecutor = versionListingExecutor;
     }
 
     public void add(ModuleComponentRepository<ModuleComponentGraphResolveState> repository) {
@@ -165,6 +168,7 @@ private RepositoryChainModuleResolution findLatestModule(List<RepositoryResolveS
         // Nothing found - do a second pass
         queue.addAll(missing);
         missing.clear();
+        listVersionsRemotely(queue);
         return findLatestModule(queue, failures, missing);
     }
 
@@ -210,6 +214,21 @@ private RepositoryChainModuleResolution findLatestModule(LinkedList<RepositoryRe
         return best;
     }
 
+    /**
+     * Lists the versions of the remaining repositories up front, so that the listings can run concurrently. The outcome of each listing,
+     * including a failure, is kept by the repository state and then processed in repository order, exactly as a listing made on demand.
+     */
+    private void listVersionsRemotely(List<RepositoryResolveState> states) {
+        if (!versionListingExecutor.isEnabled() || states.size() < 2) {
+            return;
+        }
+        List<Runnable> listings = new ArrayList<>(states.size());
+        for (RepositoryResolveState state : states) {
+            listings.add(state.versionListingResult::resolveAndKeepFailure);
+        }
+        versionListingExecutor.listAll(listings);
+    }
+
     @Nullable
     private RepositoryChainModuleResolution chooseBest(@Nullable RepositoryChainModuleResolution one, @Nullable RepositoryChainModuleResolution two) {
         if (one == null || two == null) {
@@ -509,6 +528,8 @@ private static class VersionListResult {
 
         private boolean searchedLocally;
         private boolean searchedRemotely;
+        @Nullable
+        private RuntimeException failure;
 
         public VersionListResult(ModuleDependencyMetadata dependency, ModuleComponentRepository<?> repository) {
             this.dependency = dependency;
@@ -516,6 +537,11 @@ public VersionListResult(ModuleDependencyMetadata dependency, ModuleComponentRep
         }
 
         void resolve() {
+            if (failure != null) {
+                RuntimeException listingFailure = failure;
+                failure = null;
+                throw listingFailure;
+            }
             if (!searchedLocally) {
                 searchedLocally = true;
                 process(dependency, repository.getLocalAccess());
@@ -536,6 +562,17 @@ void resolve() {
             // Otherwise, just reuse previous result
         }
 
+        /**
+         * Same as {@link #resolve()}, except that a failure is rethrown by the next call to {@link #resolve()} instead.
+         */
+        void resolveAndKeepFailure() {
+            try {
+                resolve();
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+        }
+
         public boolean canMakeFurtherAttempts() {
             return !searchedRemotely;
         }
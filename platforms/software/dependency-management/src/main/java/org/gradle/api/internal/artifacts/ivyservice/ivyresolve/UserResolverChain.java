@@ -46,11 +46,12 @@ public UserResolverChain(VersionComparator versionComparator,
                              ComponentMetadataProcessorFactory componentMetadataProcessor,
                              ComponentMetadataSupplierRuleExecutor componentMetadataSupplierRuleExecutor,
                              CalculatedValueContainerFactory calculatedValueContainerFactory,
-                             CachePolicy cachePolicy
+                             CachePolicy cachePolicy,
+                             VersionListingExecutor versionListingExecutor
     ) {
         this.componentSelectionRules = componentSelectionRules;
         VersionedComponentChooser componentChooser = new DefaultVersionedComponentChooser(versionComparator, versionParser, componentSelectionRules, attributesSchema);
-        componentIdResolver = new RepositoryChainDependencyToComponentIdResolver(componentChooser, versionParser, consumerAttributes, attributesFactory, componentMetadataProcessor, componentMetadataSupplierRuleExecutor, cachePolicy);
+        componentIdResolver = new RepositoryChainDependencyToComponentIdResolver(componentChooser, versionParser, consumerAttributes, attributesFactory, componentMetadataProcessor, componentMetadataSupplierRuleExecutor, cachePolicy, versionListingExecutor);
         componentResolver = new RepositoryChainComponentMetaDataResolver(componentChooser, calculatedValueContainerFactory);
         artifactResolver = new RepositoryChainArtifactResolver(calculatedValueContainerFactory);
     }
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.ivyresolve;
+
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.operations.BuildOperationRef;
+import org.gradle.internal.operations.CurrentBuildOperationRef;
+import org.gradle.internal.service.scopes.Scopes;
+import org.gradle.internal.service.scopes.ServiceScope;
+
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Runs the remote version listings of a dynamic version against the repositories of a chain concurrently, rather than one repository after the other.
+ *
+ * <p>The listings are the only part of the selection of a dynamic version that is done in parallel. Selecting a version, which runs the user
+ * provided rules, and fetching the metadata of the selected version still happen on the resolving thread, in repository order.</p>
+ */
+@ServiceScope(Scopes.Build.class)
+public class VersionListingExecutor implements Stoppable {
+    /**
+     * The number of repositories that are listed concurrently for a dynamic version, including the one listed by the resolving thread.
+     * Listings are done in sequence when not set, or when set to 1 or less, as a single repository is then listed at a time.
+     */
+    public static final String PARALLEL_VERSION_LISTING_PROPERTY = "org.gradle.dependency.resolution.parallel-version-listing";
+
+    private final ExecutorFactory executorFactory;
+    private final int parallelism;
+    private ManagedExecutor executor;
+
+    @Inject
+    public VersionListingExecutor(ExecutorFactory executorFactory) {
+        this(executorFactory, Integer.getInteger(PARALLEL_VERSION_LISTING_PROPERTY, 0));
+    }
+
+    public VersionListingExecutor(ExecutorFactory executorFactory, int parallelism) {
+        this.executorFactory = executorFactory;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Returns whether listings run concurrently, that is when more than one repository may be listed at a time.
+     */
+    public boolean isEnabled() {
+        return parallelism > 1;
+    }
+
+    /**
+     * Runs the given listings and waits for all of them to complete. The last listing is run on the calling thread.
+     * A failure of a listing is rethrown once all listings have completed.
+     */
+    public void listAll(List<? extends Runnable> listings) {
+        if (!isEnabled() || listings.size() < 2) {
+            listings.forEach(Runnable::run);
+            return;
+        }
+        @Nullable BuildOperationRef parentOperation = CurrentBuildOperationRef.instance().get();
+        ManagedExecutor executor = getExecutor();
+        List<FutureTask<Void>> pending = new ArrayList<>(listings.size() - 1);
+        for (Runnable listing : listings.subList(0, listings.size() - 1)) {
+            FutureTask<Void> task = new FutureTask<>(() -> CurrentBuildOperationRef.instance().with(parentOperation, listing), null);
+            executor.execute(task);
+            pending.add(task);
+        }
+        try {
+            listings.get(listings.size() - 1).run();
+        } finally {
+            await(pending);
+        }
+    }
+
+    private static void await(List<FutureTask<Void>> pending) {
+        Throwable failure = null;
+        boolean interrupted = false;
+        try {
+            for (FutureTask<Void> task : pending) {
+                while (true) {
+                    try {
+                        task.get();
+                        break;
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    } catch (ExecutionException e) {
+                        if (failure == null) {
+                            failure = e.getCause();
+                        }
+                        break;
+                    }
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (failure != null) {
+            throw UncheckedException.throwAsUncheckedException(failure);
+        }
+    }
+
+    private synchronized ManagedExecutor getExecutor() {
+        if (executor == null) {
+            // The resolving thread lists a repository as well
+            executor = executorFactory.create("Dependency version listing", parallelism - 1);
+        }
+        return executor;
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.stop();
+            executor = null;
+        }
+    }
+}
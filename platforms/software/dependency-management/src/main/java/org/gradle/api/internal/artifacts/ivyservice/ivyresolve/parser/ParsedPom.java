@@ -0,0 +1,47 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser;
+
+/**
+ * The content of a POM file, before any interpolation. Can be shared by all the {@link PomReader}s reading the same file.
+ */
+public final class ParsedPom {
+    private final String systemId;
+    private final PomElement projectElement;
+    private final boolean gradleMetadataMarker;
+
+    ParsedPom(String systemId, PomElement projectElement, boolean gradleMetadataMarker) {
+        this.systemId = systemId;
+        this.projectElement = projectElement;
+        this.gradleMetadataMarker = gradleMetadataMarker;
+    }
+
+    public String getSystemId() {
+        return systemId;
+    }
+
+    public PomElement getProjectElement() {
+        return projectElement;
+    }
+
+    /**
+     * Whether the project element contains a comment that marks the module as published with Gradle metadata.
+     */
+    public boolean hasGradleMetadataMarker() {
+        return gradleMetadataMarker;
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.gradle.internal.resource.local.LocallyAvailableExternalResource;
+import org.gradle.internal.service.scopes.Scopes;
+import org.gradle.internal.service.scopes.ServiceScope;
+
+import java.io.File;
+
+/**
+ * Keeps the POMs that are read for other POMs, such as parent POMs and imported BOMs, so that they are parsed once per build rather than once per POM that uses them.
+ *
+ * <p>Only the parsed content is shared. Interpolation depends on the properties of the child POM, and so still happens for each child.</p>
+ */
+@ServiceScope(Scopes.Build.class)
+public class ParsedPomCache {
+    private final Cache<File, CachedPom> cache = CacheBuilder.newBuilder().softValues().build();
+
+    public ParsedPom parse(LocallyAvailableExternalResource resource) {
+        File file = resource.getFile();
+        long length = file.length();
+        long lastModified = file.lastModified();
+        CachedPom cached = cache.getIfPresent(file);
+        if (cached != null && cached.length == length && cached.lastModified == lastModified) {
+            return cached.pom;
+        }
+        ParsedPom pom = PomReader.parse(resource);
+        cache.put(file, new CachedPom(pom, length, lastModified));
+        return pom;
+    }
+
+    private static class CachedPom {
+        private final ParsedPom pom;
+        private final long length;
+        private final long lastModified;
+
+        CachedPom(ParsedPom pom, long length, long lastModified) {
+            this.pom = pom;
+            this.length = length;
+            this.lastModified = lastModified;
+        }
+    }
+}
@@ -16,72 +16,167 @@
 
 package org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser;
 
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
+import com.google.common.collect.ImmutableList;
+import org.apache.commons.io.IOUtils;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.classloader.ClassLoaderUtils;
+import org.gradle.internal.xml.XmlFactories;
 
+import javax.annotation.Nullable;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import java.io.*;
-import java.util.LinkedList;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
 
 public final class PomDomParser {
-    private PomDomParser() {}
+    private static final byte[] M2_ENTITIES_RESOURCE;
+    private static final XMLInputFactory XML_INPUT_FACTORY;
+
+    static {
+        byte[] bytes;
+        try {
+            bytes = IOUtils.toByteArray(org.apache.ivy.plugins.parser.m2.PomReader.class.getResourceAsStream("m2-entities.ent"));
+        } catch (IOException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+        M2_ENTITIES_RESOURCE = bytes;
 
-    public static String getTextContent(Element element) {
-        StringBuilder result = new StringBuilder();
+        // Set the context classloader the bootstrap classloader, to work around the way that JAXP locates implementation classes
+        // This should ensure that the JAXP classes provided by the JVM are used, rather than some other implementation
+        ClassLoader original = Thread.currentThread().getContextClassLoader();
+        Thread.currentThread().setContextClassLoader(ClassLoaderUtils.getPlatformClassLoader());
+        try {
+            XML_INPUT_FACTORY = XmlFactories.newXMLInputFactory();
+            XML_INPUT_FACTORY.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+            XML_INPUT_FACTORY.setProperty(XMLInputFactory.IS_VALIDATING, false);
+            XML_INPUT_FACTORY.setXMLResolver((publicId, systemId, baseUri, namespace) -> {
+                if ((systemId != null) && systemId.endsWith("m2-entities.ent")) {
+                    return new ByteArrayInputStream(M2_ENTITIES_RESOURCE);
+                }
+                return null;
+            });
+        } finally {
+            Thread.currentThread().setContextClassLoader(original);
+        }
+    }
 
-        NodeList childNodes = element.getChildNodes();
-        for (int i = 0; i < childNodes.getLength(); i++) {
-            Node child = childNodes.item(i);
+    private PomDomParser() {}
 
-            switch (child.getNodeType()) {
-                case Node.CDATA_SECTION_NODE:
-                case Node.TEXT_NODE:
-                    result.append(child.getNodeValue());
-                    break;
-                default:
-                    break;
+    /**
+     * Parses the given POM content in a single pass, without building a DOM.
+     *
+     * The HTML entities that Maven accepts in POMs are declared by a DTD added in front of the content, as Maven does.
+     */
+    public static ParsedPom parse(InputStream stream, String systemId) throws IOException, XMLStreamException {
+        XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(systemId, new AddDTDFilterInputStream(stream));
+        try {
+            Deque<ElementBuilder> openElements = new ArrayDeque<>();
+            PomElement rootElement = null;
+            boolean gradleMetadataMarker = false;
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                    case XMLStreamConstants.START_ELEMENT:
+                        openElements.push(new ElementBuilder(reader.getLocalName()));
+                        break;
+                    case XMLStreamConstants.END_ELEMENT:
+                        PomElement element = openElements.pop().build();
+                        if (openElements.isEmpty()) {
+                            rootElement = element;
+                        } else {
+                            openElements.peek().addChild(element);
+                        }
+                        break;
+                    case XMLStreamConstants.CHARACTERS:
+                    case XMLStreamConstants.CDATA:
+                    case XMLStreamConstants.SPACE:
+                        if (!openElements.isEmpty()) {
+                            openElements.peek().addText(reader.getText());
+                        }
+                        break;
+                    case XMLStreamConstants.COMMENT:
+                        if (openElements.size() == 1 && isGradleMetadataMarker(reader.getText())) {
+                            gradleMetadataMarker = true;
+                        }
+                        break;
+                    default:
+                        break;
+                }
             }
+            return new ParsedPom(systemId, rootElement, gradleMetadataMarker);
+        } finally {
+            reader.close();
         }
+    }
 
-        return result.toString();
+    private static boolean isGradleMetadataMarker(String comment) {
+        return comment.contains(MetaDataParser.GRADLE_6_METADATA_MARKER) || comment.contains(MetaDataParser.GRADLE_METADATA_MARKER);
     }
 
-    public static String getFirstChildText(Element parentElem, String name) {
-        Element node = getFirstChildElement(parentElem, name);
+    public static String getTextContent(PomElement element) {
+        return element.getTextContent();
+    }
+
+    @Nullable
+    public static String getFirstChildText(@Nullable PomElement parentElem, String name) {
+        PomElement node = getFirstChildElement(parentElem, name);
         if (node != null) {
-            return getTextContent(node);
+            return node.getTextContent();
         } else {
             return null;
         }
     }
 
-    public static Element getFirstChildElement(Element parentElem, String name) {
+    @Nullable
+    public static PomElement getFirstChildElement(@Nullable PomElement parentElem, String name) {
         if (parentElem == null) {
             return null;
         }
-        NodeList childs = parentElem.getChildNodes();
-        for (int i = 0; i < childs.getLength(); i++) {
-            Node node = childs.item(i);
-            if (node instanceof Element && name.equals(node.getNodeName())) {
-                return (Element) node;
-            }
+        return parentElem.getFirstChild(name);
+    }
+
+    public static List<PomElement> getAllChilds(@Nullable PomElement parent) {
+        if (parent == null) {
+            return Collections.emptyList();
         }
-        return null;
+        return parent.getChildren();
     }
 
-    public static List<Element> getAllChilds(Element parent) {
-        List<Element> r = new LinkedList<>();
-        if (parent != null) {
-            NodeList childs = parent.getChildNodes();
-            for (int i = 0; i < childs.getLength(); i++) {
-                Node node = childs.item(i);
-                if (node instanceof Element) {
-                    r.add((Element) node);
-                }
+    private static final class ElementBuilder {
+        private final String name;
+        private String text = "";
+        private StringBuilder textBuilder;
+        private ImmutableList.Builder<PomElement> children;
+
+        ElementBuilder(String name) {
+            this.name = name;
+        }
+
+        void addText(String chunk) {
+            // Most elements contain a single chunk of text, so only copy when there are more
+            if (textBuilder != null) {
+                textBuilder.append(chunk);
+            } else if (text.isEmpty()) {
+                text = chunk;
+            } else {
+                textBuilder = new StringBuilder(text).append(chunk);
+            }
+        }
+
+        void addChild(PomElement child) {
+            if (children == null) {
+                children = ImmutableList.builder();
             }
+            children.add(child);
+        }
+
+        PomElement build() {
+            return new PomElement(name, textBuilder != null ? textBuilder.toString() : text, children != null ? children.build() : ImmutableList.of());
         }
-        return r;
     }
 
     public static final class AddDTDFilterInputStream extends FilterInputStream {
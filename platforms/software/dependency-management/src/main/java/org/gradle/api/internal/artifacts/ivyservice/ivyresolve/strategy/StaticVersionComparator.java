@@ -18,6 +18,7 @@
 
 import com.google.common.collect.ImmutableMap;
 
+import javax.annotation.Nullable;
 import java.util.Comparator;
 import java.util.Locale;
 import java.util.Map;
@@ -77,8 +78,8 @@ public int compare(Version version1, Version version2) {
                 return result;
             }
             // both are strings, we compare them taking into account special meaning
-            Integer sm1 = SPECIAL_MEANINGS.get(part1.toLowerCase(Locale.US));
-            Integer sm2 = SPECIAL_MEANINGS.get(part2.toLowerCase(Locale.US));
+            Integer sm1 = specialMeaning(part1);
+            Integer sm2 = specialMeaning(part2);
             if (sm1 != null) {
                 sm2 = sm2 == null ? 0 : sm2;
                 return sm1 - sm2;
@@ -97,4 +98,16 @@ public int compare(Version version1, Version version2) {
 
         return 0;
     }
+
+    @Nullable
+    private static Integer specialMeaning(String part) {
+        // Qualifiers are usually lower case already, in which case there's no need to create a lower case copy
+        for (int i = 0; i < part.length(); i++) {
+            char ch = part.charAt(i);
+            if ((ch >= 'A' && ch <= 'Z') || ch > 127) {
+                return SPECIAL_MEANINGS.get(part.toLowerCase(Locale.US));
+            }
+        }
+        return SPECIAL_MEANINGS.get(part);
+    }
 }
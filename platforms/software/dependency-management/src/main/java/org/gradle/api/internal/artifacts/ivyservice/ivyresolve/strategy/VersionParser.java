@@ -32,10 +32,16 @@ public VersionParser() {
 
     @Override
     public Version transform(String original) {
-        return cache.computeIfAbsent(original, this::parse);
+        // Versions are parsed once, and then looked up again and again: avoid the
+        // locking and the allocation of computeIfAbsent when the version is known
+        Version version = cache.get(original);
+        if (version != null) {
+            return version;
+        }
+        return cache.computeIfAbsent(original, VersionParser::parse);
     }
 
-    private Version parse(String original) {
+    private static Version parse(String original) {
         List<String> parts = new ArrayList<>();
         boolean digit = false;
         int startPart = 0;
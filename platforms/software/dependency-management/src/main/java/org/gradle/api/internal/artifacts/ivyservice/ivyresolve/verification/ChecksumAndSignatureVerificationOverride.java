@@ -42,6 +42,8 @@
 import org.gradle.internal.UncheckedException;
 import org.gradle.internal.component.external.model.ModuleComponentArtifactIdentifier;
 import org.gradle.internal.component.external.model.ModuleComponentGraphResolveState;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
 import org.gradle.internal.concurrent.Stoppable;
 import org.gradle.internal.hash.ChecksumService;
 import org.gradle.internal.logging.ConsoleRenderer;
@@ -51,6 +53,7 @@
 import org.gradle.internal.operations.RunnableBuildOperation;
 import org.gradle.internal.resource.local.FileResourceListener;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -58,12 +61,24 @@
 import java.util.Collection;
 import java.util.Deque;
 import java.util.List;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 public class ChecksumAndSignatureVerificationOverride implements DependencyVerificationOverride, ArtifactVerificationOperation, Stoppable {
     private final static Logger LOGGER = Logging.getLogger(ChecksumAndSignatureVerificationOverride.class);
 
+    /**
+     * The number of threads that compute the checksums of artifacts as soon as they are resolved, rather than when they are verified.
+     * Verification happens when the artifacts are first accessed, which usually comes after all artifacts of a configuration were resolved.
+     */
+    public static final String BACKGROUND_CHECKSUMS_PROPERTY = "org.gradle.dependency.verification.background-checksums";
+    private static final int BACKGROUND_CHECKSUMS_PARALLELISM = Integer.getInteger(BACKGROUND_CHECKSUMS_PROPERTY, 0);
+
     private final DependencyVerifier verifier;
     private final Multimap<ModuleComponentArtifactIdentifier, RepositoryAwareVerificationFailure> failures = LinkedHashMultimap.create();
     private final BuildOperationExecutor buildOperationExecutor;
@@ -76,6 +91,9 @@ public class ChecksumAndSignatureVerificationOverride implements DependencyVerif
     private final AtomicBoolean closed = new AtomicBoolean();
     private final AtomicBoolean hasFatalFailure = new AtomicBoolean();
     private final DependencyVerificationReportWriter reportWriter;
+    @Nullable
+    private final ManagedExecutor checksumExecutor;
+    private final Queue<Future<?>> pendingChecksums = new ConcurrentLinkedQueue<>();
 
     public ChecksumAndSignatureVerificationOverride(
         BuildOperationExecutor buildOperationExecutor,
@@ -87,7 +105,8 @@ public ChecksumAndSignatureVerificationOverride(
         DocumentationRegistry documentationRegistry,
         File reportsDirectory,
         Factory<GradleProperties> gradlePropertiesFactory,
-        FileResourceListener fileResourceListener
+        FileResourceListener fileResourceListener,
+        ExecutorFactory executorFactory
     ) {
         this.buildOperationExecutor = buildOperationExecutor;
         this.checksumService = checksumService;
@@ -105,6 +124,7 @@ public ChecksumAndSignatureVerificationOverride(
         }
         BuildTreeDefinedKeys localKeyring = new BuildTreeDefinedKeys(verificationsFile.getParentFile(), verifier.getConfiguration().getKeyringFormat());
         this.signatureVerificationService = signatureVerificationServiceFactory.create(localKeyring, keyServers(), verifier.getConfiguration().isUseKeyServers());
+        this.checksumExecutor = BACKGROUND_CHECKSUMS_PARALLELISM > 0 ? executorFactory.create("Dependency verification checksums", BACKGROUND_CHECKSUMS_PARALLELISM) : null;
     }
 
     private List<URI> keyServers() {
@@ -118,6 +138,35 @@ public void onArtifact(ArtifactKind kind, ModuleComponentArtifactIdentifier arti
             synchronized (verificationEvents) {
                 verificationEvents.add(event);
             }
+            if (checksumExecutor != null) {
+                computeChecksumsInBackground(event);
+            }
+        }
+    }
+
+    private void computeChecksumsInBackground(VerificationEvent event) {
+        try {
+            pendingChecksums.add(checksumExecutor.submit(() -> verifier.precomputeChecksums(checksumService, event.kind, event.artifact, event.mainFile)));
+        } catch (RejectedExecutionException e) {
+            // Stopped concurrently, the checksums are computed on verification
+        }
+    }
+
+    /**
+     * Waits for the checksums computed in the background, so that verification does not hash the same files again.
+     */
+    private void awaitBackgroundChecksums() {
+        Future<?> pending;
+        while ((pending = pendingChecksums.poll()) != null) {
+            try {
+                pending.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                // Any problem with the artifact is reported by its verification
+                LOGGER.debug("Could not compute the checksums of an artifact ahead of its verification.", e.getCause());
+            }
         }
     }
 
@@ -132,6 +181,7 @@ private void verifyConcurrently() {
             LOGGER.debug("Cannot perform verification of all dependencies because the verification service has been shutdown. Under normal circumstances this shouldn't happen unless a user buildFinished was added in an unexpected way.");
             return;
         }
+        awaitBackgroundChecksums();
         buildOperationExecutor.runAll(queue -> {
             VerificationEvent event;
             synchronized (verificationEvents) {
@@ -235,6 +285,9 @@ private File observed(File file) {
     @Override
     public void stop() {
         closed.set(true);
+        if (checksumExecutor != null) {
+            checksumExecutor.stop();
+        }
         signatureVerificationService.stop();
     }
 
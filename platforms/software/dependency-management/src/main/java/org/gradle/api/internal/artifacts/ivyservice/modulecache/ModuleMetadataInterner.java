@@ -0,0 +1,67 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.modulecache;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
+import org.gradle.api.artifacts.component.ModuleComponentSelector;
+import org.gradle.api.internal.capabilities.CapabilityInternal;
+import org.gradle.internal.component.external.model.maven.MavenDependencyDescriptor;
+import org.gradle.internal.component.model.ExcludeMetadata;
+import org.gradle.internal.service.scopes.Scopes;
+import org.gradle.internal.service.scopes.ServiceScope;
+
+/**
+ * Canonicalizes the immutable values that make up module metadata read from the module metadata cache.
+ *
+ * <p>Many modules of a build depend on the same modules, in the same versions, with the same excludes, as they are usually aligned by a
+ * platform. Without canonicalization, each module read from the cache holds its own copies of these values. Strings and attributes are
+ * already interned when decoded, this takes care of the identifiers, selectors, excludes, capabilities and dependencies built from them.</p>
+ *
+ * <p>Values are held weakly, so a value is only retained for as long as some metadata refers to it.</p>
+ */
+@ServiceScope(Scopes.BuildSession.class)
+public class ModuleMetadataInterner {
+    private final Interner<ModuleComponentIdentifier> componentIdentifiers = Interners.newWeakInterner();
+    private final Interner<ModuleComponentSelector> selectors = Interners.newWeakInterner();
+    private final Interner<ExcludeMetadata> excludes = Interners.newWeakInterner();
+    private final Interner<CapabilityInternal> capabilities = Interners.newWeakInterner();
+    private final Interner<MavenDependencyDescriptor> mavenDependencies = Interners.newWeakInterner();
+
+    public ModuleComponentIdentifier intern(ModuleComponentIdentifier identifier) {
+        return componentIdentifiers.intern(identifier);
+    }
+
+    public ModuleComponentSelector intern(ModuleComponentSelector selector) {
+        return selectors.intern(selector);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T extends ExcludeMetadata> T intern(T exclude) {
+        // An exclude is only ever equal to an exclude of the same type
+        return (T) excludes.intern(exclude);
+    }
+
+    public CapabilityInternal intern(CapabilityInternal capability) {
+        return capabilities.intern(capability);
+    }
+
+    public MavenDependencyDescriptor intern(MavenDependencyDescriptor dependency) {
+        return mavenDependencies.intern(dependency);
+    }
+}
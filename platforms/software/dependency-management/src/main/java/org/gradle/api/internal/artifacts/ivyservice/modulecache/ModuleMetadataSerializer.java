@@ -83,17 +83,23 @@ public class ModuleMetadataSerializer {
     private final IvyMutableModuleMetadataFactory ivyMetadataFactory;
     private final AttributeContainerSerializer attributeContainerSerializer;
     private final ModuleSourcesSerializer moduleSourcesSerializer;
+    private final ModuleMetadataInterner interner;
 
     public ModuleMetadataSerializer(AttributeContainerSerializer attributeContainerSerializer, MavenMutableModuleMetadataFactory mavenMetadataFactory, IvyMutableModuleMetadataFactory ivyMetadataFactory, ModuleSourcesSerializer moduleSourcesSerializer) {
+        this(attributeContainerSerializer, mavenMetadataFactory, ivyMetadataFactory, moduleSourcesSerializer, new ModuleMetadataInterner());
+    }
+
+    public ModuleMetadataSerializer(AttributeContainerSerializer attributeContainerSerializer, MavenMutableModuleMetadataFactory mavenMetadataFactory, IvyMutableModuleMetadataFactory ivyMetadataFactory, ModuleSourcesSerializer moduleSourcesSerializer, ModuleMetadataInterner interner) {
         this.mavenMetadataFactory = mavenMetadataFactory;
         this.ivyMetadataFactory = ivyMetadataFactory;
         this.attributeContainerSerializer = attributeContainerSerializer;
         this.componentSelectorSerializer = new ModuleComponentSelectorSerializer(attributeContainerSerializer);
         this.moduleSourcesSerializer = moduleSourcesSerializer;
+        this.interner = interner;
     }
 
     public MutableModuleComponentResolveMetadata read(Decoder decoder, ImmutableModuleIdentifierFactory moduleIdentifierFactory, Map<Integer, MavenDependencyDescriptor> deduplicationDependencyCache) throws IOException {
-        return new Reader(decoder, moduleIdentifierFactory, attributeContainerSerializer, componentSelectorSerializer, mavenMetadataFactory, ivyMetadataFactory, moduleSourcesSerializer).read(deduplicationDependencyCache);
+        return new Reader(decoder, moduleIdentifierFactory, attributeContainerSerializer, componentSelectorSerializer, mavenMetadataFactory, ivyMetadataFactory, moduleSourcesSerializer, interner).read(deduplicationDependencyCache);
     }
 
     public void write(Encoder encoder, ModuleComponentResolveMetadata metadata, Map<ExternalDependencyDescriptor, Integer> deduplicationDependencyCache) throws IOException {
@@ -397,6 +403,7 @@ private static class Reader {
         private final MavenMutableModuleMetadataFactory mavenMetadataFactory;
         private final IvyMutableModuleMetadataFactory ivyMetadataFactory;
         private final ModuleSourcesSerializer moduleSourcesSerializer;
+        private final ModuleMetadataInterner interner;
         private ModuleComponentIdentifier id;
         private ImmutableAttributes attributes;
 
@@ -405,7 +412,8 @@ private Reader(Decoder decoder,
                        AttributeContainerSerializer attributeContainerSerializer,
                        ModuleComponentSelectorSerializer componentSelectorSerializer, MavenMutableModuleMetadataFactory mavenMutableModuleMetadataFactory,
                        IvyMutableModuleMetadataFactory ivyMetadataFactory,
-                       ModuleSourcesSerializer moduleSourcesSerializer) {
+                       ModuleSourcesSerializer moduleSourcesSerializer,
+                       ModuleMetadataInterner interner) {
             this.decoder = decoder;
             this.moduleIdentifierFactory = moduleIdentifierFactory;
             this.excludeRuleConverter = new DefaultExcludeRuleConverter(moduleIdentifierFactory);
@@ -414,6 +422,7 @@ private Reader(Decoder decoder,
             this.mavenMetadataFactory = mavenMutableModuleMetadataFactory;
             this.ivyMetadataFactory = ivyMetadataFactory;
             this.moduleSourcesSerializer = moduleSourcesSerializer;
+            this.interner = interner;
         }
 
         public MutableModuleComponentResolveMetadata read(Map<Integer, MavenDependencyDescriptor> deduplicationDependencyCache) throws IOException {
@@ -478,7 +487,7 @@ private ImmutableAttributes readAttributes() throws IOException {
         private void readVariantDependencies(MutableComponentVariant variant) throws IOException {
             int count = decoder.readSmallInt();
             for (int i = 0; i < count; i++) {
-                ModuleComponentSelector selector = componentSelectorSerializer.read(decoder);
+                ModuleComponentSelector selector = readSelector();
                 String reason = decoder.readNullableString();
                 ImmutableList<ExcludeMetadata> excludes = readVariantDependencyExcludes();
                 boolean endorsing = decoder.readBoolean();
@@ -490,7 +499,7 @@ private void readVariantDependencies(MutableComponentVariant variant) throws IOE
         private void readVariantConstraints(MutableComponentVariant variant) throws IOException {
             int count = decoder.readSmallInt();
             for (int i = 0; i < count; i++) {
-                ModuleComponentSelector selector = componentSelectorSerializer.read(decoder);
+                ModuleComponentSelector selector = readSelector();
                 String reason = decoder.readNullableString();
                 variant.addDependencyConstraint(selector.getGroup(), selector.getModule(), selector.getVersionConstraint(), reason, (ImmutableAttributes) selector.getAttributes());
             }
@@ -502,7 +511,7 @@ private ImmutableList<ExcludeMetadata> readVariantDependencyExcludes() throws IO
             for (int i = 0; i < len; i++) {
                 String group = readString();
                 String module = readString();
-                builder.add(excludeRuleConverter.createExcludeRule(group, module));
+                builder.add(interner.intern(excludeRuleConverter.createExcludeRule(group, module)));
             }
             return builder.build();
         }
@@ -518,7 +527,7 @@ private void readVariantCapabilities(MutableComponentVariant variant) throws IOE
             int capabilitiesCount = decoder.readSmallInt();
             for (int j = 0; j < capabilitiesCount; j++) {
                 String appendix = decoder.readNullableString();
-                CapabilityInternal capability = new DefaultImmutableCapability(decoder.readString(), decoder.readString(), decoder.readString());
+                CapabilityInternal capability = interner.intern(new DefaultImmutableCapability(decoder.readString(), decoder.readString(), decoder.readString()));
                 if (appendix != null) {
                     capability = new ShadowedImmutableCapability(capability, appendix);
                 }
@@ -549,7 +558,11 @@ private void readInfoSection() throws IOException {
         }
 
         private ModuleComponentIdentifier readId() throws IOException {
-            return DefaultModuleComponentIdentifier.newId(DefaultModuleIdentifier.newId(readString(), readString()), readString());
+            return interner.intern(DefaultModuleComponentIdentifier.newId(DefaultModuleIdentifier.newId(readString(), readString()), readString()));
+        }
+
+        private ModuleComponentSelector readSelector() throws IOException {
+            return interner.intern(componentSelectorSerializer.read(decoder));
         }
 
         private Map<NamespaceId, String> readExtraInfo() throws IOException {
@@ -601,7 +614,7 @@ private List<IvyDependencyDescriptor> readIvyDependencies() throws IOException {
         }
 
         private IvyDependencyDescriptor readIvyDependency() throws IOException {
-            ModuleComponentSelector requested = componentSelectorSerializer.read(decoder);
+            ModuleComponentSelector requested = readSelector();
             SetMultimap<String, String> configMappings = readDependencyConfigurationMapping();
             List<Artifact> artifacts = readDependencyArtifactDescriptors();
             List<Exclude> excludes = readDependencyExcludes();
@@ -658,7 +671,7 @@ private DefaultExclude readExcludeRule() throws IOException {
             IvyArtifactName artifactName = IvyArtifactNameSerializer.INSTANCE.readNullable(decoder);
             String[] confs = readStringArray();
             String matcher = readNullableString();
-            return new DefaultExclude(moduleIdentifierFactory.module(moduleOrg, moduleName), artifactName, confs, matcher);
+            return interner.intern(new DefaultExclude(moduleIdentifierFactory.module(moduleOrg, moduleName), artifactName, confs, matcher));
         }
 
         private List<MavenDependencyDescriptor> readMavenDependencies(Map<Integer, MavenDependencyDescriptor> deduplicationDependencyCache) throws IOException {
@@ -673,12 +686,12 @@ private List<MavenDependencyDescriptor> readMavenDependencies(Map<Integer, Maven
         private MavenDependencyDescriptor readMavenDependency(Map<Integer, MavenDependencyDescriptor> deduplicationDependencyCache) throws IOException {
             int mapping = decoder.readSmallInt();
             if (mapping == deduplicationDependencyCache.size()) {
-                ModuleComponentSelector requested = componentSelectorSerializer.read(decoder);
+                ModuleComponentSelector requested = readSelector();
                 IvyArtifactName artifactName = IvyArtifactNameSerializer.INSTANCE.readNullable(decoder);
                 List<ExcludeMetadata> mavenExcludes = readMavenDependencyExcludes();
                 MavenScope scope = MavenScope.values()[decoder.readSmallInt()];
                 MavenDependencyType type = MavenDependencyType.values()[decoder.readSmallInt()];
-                MavenDependencyDescriptor mavenDependencyDescriptor = new MavenDependencyDescriptor(scope, type, requested, artifactName, mavenExcludes);
+                MavenDependencyDescriptor mavenDependencyDescriptor = interner.intern(new MavenDependencyDescriptor(scope, type, requested, artifactName, mavenExcludes));
                 deduplicationDependencyCache.put(mapping, mavenDependencyDescriptor);
                 return mavenDependencyDescriptor;
             } else {
@@ -694,7 +707,7 @@ private List<ExcludeMetadata> readMavenDependencyExcludes() throws IOException {
             for (int i = 0; i < len; i++) {
                 String moduleOrg = readString();
                 String moduleName = readString();
-                DefaultExclude rule = new DefaultExclude(moduleIdentifierFactory.module(moduleOrg, moduleName));
+                DefaultExclude rule = interner.intern(new DefaultExclude(moduleIdentifierFactory.module(moduleOrg, moduleName)));
                 result.add(rule);
             }
             return result;
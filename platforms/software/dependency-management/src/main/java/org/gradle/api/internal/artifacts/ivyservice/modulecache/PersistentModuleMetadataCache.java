@@ -49,10 +49,11 @@ public PersistentModuleMetadataCache(BuildCommencedTimeProvider timeProvider,
                                          MavenMutableModuleMetadataFactory mavenMetadataFactory,
                                          IvyMutableModuleMetadataFactory ivyMetadataFactory,
                                          Interner<String> stringInterner,
+                                         ModuleMetadataInterner metadataInterner,
                                          ModuleSourcesSerializer moduleSourcesSerializer,
                                          ChecksumService checksumService) {
         super(timeProvider);
-        moduleMetadataStore = new ModuleMetadataStore(new DefaultPathKeyFileStore(checksumService, artifactCacheMetadata.getMetaDataStoreDirectory()), new ModuleMetadataSerializer(attributeContainerSerializer, mavenMetadataFactory, ivyMetadataFactory, moduleSourcesSerializer), moduleIdentifierFactory, stringInterner);
+        moduleMetadataStore = new ModuleMetadataStore(new DefaultPathKeyFileStore(checksumService, artifactCacheMetadata.getMetaDataStoreDirectory()), new ModuleMetadataSerializer(attributeContainerSerializer, mavenMetadataFactory, ivyMetadataFactory, moduleSourcesSerializer, metadataInterner), moduleIdentifierFactory, stringInterner);
         this.artifactCacheLockingManager = cacheAccessCoordinator;
     }
 
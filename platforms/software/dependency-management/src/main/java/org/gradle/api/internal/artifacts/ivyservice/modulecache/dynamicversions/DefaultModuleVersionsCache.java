@@ -39,7 +39,8 @@ public DefaultModuleVersionsCache(BuildCommencedTimeProvider timeProvider, Artif
         this.moduleIdentifierFactory = moduleIdentifierFactory;
     }
 
-    private IndexedCache<ModuleAtRepositoryKey, ModuleVersionsCacheEntry> getCache() {
+    // Versions of a module may be listed for several repositories at the same time
+    private synchronized IndexedCache<ModuleAtRepositoryKey, ModuleVersionsCacheEntry> getCache() {
         if (cache == null) {
             cache = initCache();
         }
@@ -84,6 +84,7 @@ public class DependencyGraphResolver {
     private final ComponentIdGenerator idGenerator;
     private final GraphVariantSelector variantSelector;
     private final ImmutableAttributesFactory attributesFactory;
+    private final MetadataPrefetchExecutor metadataPrefetchExecutor;
 
     @Inject
     public DependencyGraphResolver(
@@ -100,7 +101,8 @@ public DependencyGraphResolver(
         ModuleComponentGraphResolveStateFactory moduleResolveStateFactory,
         ComponentIdGenerator idGenerator,
         GraphVariantSelector variantSelector,
-        ImmutableAttributesFactory attributesFactory
+        ImmutableAttributesFactory attributesFactory,
+        MetadataPrefetchExecutor metadataPrefetchExecutor
     ) {
         this.dependencyMetadataFactory = dependencyMetadataFactory;
         this.versionComparator = versionComparator;
@@ -116,6 +118,7 @@ public DependencyGraphResolver(
         this.idGenerator = idGenerator;
         this.variantSelector = variantSelector;
         this.attributesFactory = attributesFactory;
+        this.metadataPrefetchExecutor = metadataPrefetchExecutor;
     }
 
     /**
@@ -133,6 +136,11 @@ public void resolveGraph(
         ComponentMetaDataResolver componentMetaDataResolver = new ClientModuleResolver(
             resolvers.getComponentResolver(), dependencyMetadataFactory, moduleResolveStateFactory
         );
+        PrefetchingComponentMetaDataResolver prefetchingResolver = null;
+        if (metadataPrefetchExecutor.isEnabled()) {
+            prefetchingResolver = new PrefetchingComponentMetaDataResolver(componentMetaDataResolver, versionSelectorScheme, metadataPrefetchExecutor);
+            componentMetaDataResolver = prefetchingResolver;
+        }
 
         ResolutionStrategyInternal resolutionStrategy = resolveContext.getResolutionStrategy();
         ModuleConflictHandler conflictHandler = createModuleConflictHandler(
@@ -167,7 +175,13 @@ public void resolveGraph(
             ? resolveContext.getSyntheticDependencies()
             : Collections.emptyList();
 
-        builder.resolve(resolveContext.toRootComponent(), resolutionStrategy, syntheticDependencies, new CompositeDependencyGraphVisitor(visitors));
+        try {
+            builder.resolve(resolveContext.toRootComponent(), resolutionStrategy, syntheticDependencies, new CompositeDependencyGraphVisitor(visitors));
+        } finally {
+            if (prefetchingResolver != null) {
+                prefetchingResolver.stop();
+            }
+        }
     }
 
     private DependencySubstitutionApplicator createDependencySubstitutionApplicator(ImmutableActionSet<DependencySubstitutionInternal> substitutionRules) {
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine;
+
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.service.scopes.Scopes;
+import org.gradle.internal.service.scopes.ServiceScope;
+import org.gradle.internal.work.WorkerThreadRegistry;
+
+import javax.inject.Inject;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Runs the speculative metadata fetches of all the dependency resolutions of a build.
+ *
+ * <p>The fetches are run on a single pool shared by all resolutions, and each fetch holds a worker lease while it runs, so that prefetching
+ * never runs more work concurrently than the maximum number of workers.</p>
+ */
+@ServiceScope(Scopes.Build.class)
+public class MetadataPrefetchExecutor implements Stoppable {
+    /**
+     * The number of threads used to speculatively prefetch the metadata of transitive dependencies. Prefetching is disabled when not set, or when set to 0.
+     */
+    public static final String METADATA_PREFETCH_PROPERTY = "org.gradle.dependency.resolution.metadata-prefetch";
+
+    private final ExecutorFactory executorFactory;
+    private final WorkerThreadRegistry workerThreadRegistry;
+    private final int parallelism;
+    private ManagedExecutor executor;
+
+    @Inject
+    public MetadataPrefetchExecutor(ExecutorFactory executorFactory, WorkerThreadRegistry workerThreadRegistry) {
+        this(executorFactory, workerThreadRegistry, Integer.getInteger(METADATA_PREFETCH_PROPERTY, 0));
+    }
+
+    public MetadataPrefetchExecutor(ExecutorFactory executorFactory, WorkerThreadRegistry workerThreadRegistry, int parallelism) {
+        this.executorFactory = executorFactory;
+        this.workerThreadRegistry = workerThreadRegistry;
+        this.parallelism = parallelism;
+    }
+
+    public boolean isEnabled() {
+        return parallelism > 0;
+    }
+
+    /**
+     * Queues the given fetch. The fetch is skipped when it has already been run or cancelled by the time a worker lease is available for it.
+     */
+    public void execute(FutureTask<?> fetch) {
+        getExecutor().execute(() -> {
+            if (!fetch.isDone()) {
+                workerThreadRegistry.runAsWorkerThread(fetch);
+            }
+        });
+    }
+
+    private synchronized ManagedExecutor getExecutor() {
+        if (executor == null) {
+            executor = executorFactory.create("Dependency metadata prefetch", parallelism);
+        }
+        return executor;
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.stop();
+            executor = null;
+        }
+    }
+}
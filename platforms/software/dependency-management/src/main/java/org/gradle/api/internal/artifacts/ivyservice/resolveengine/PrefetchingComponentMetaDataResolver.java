@@ -0,0 +1,269 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine;
+
+import org.gradle.api.artifacts.VersionConstraint;
+import org.gradle.api.artifacts.component.ComponentIdentifier;
+import org.gradle.api.artifacts.component.ComponentSelector;
+import org.gradle.api.artifacts.component.ModuleComponentSelector;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionSelectorScheme;
+import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier;
+import org.gradle.internal.component.model.ComponentGraphResolveState;
+import org.gradle.internal.component.model.ComponentOverrideMetadata;
+import org.gradle.internal.component.model.ConfigurationGraphResolveState;
+import org.gradle.internal.component.model.DefaultComponentOverrideMetadata;
+import org.gradle.internal.component.model.DependencyMetadata;
+import org.gradle.internal.component.model.GraphSelectionCandidates;
+import org.gradle.internal.component.model.VariantGraphResolveState;
+import org.gradle.internal.operations.BuildOperationRef;
+import org.gradle.internal.operations.CurrentBuildOperationRef;
+import org.gradle.internal.resolve.resolver.ComponentMetaDataResolver;
+import org.gradle.internal.resolve.result.BuildableComponentResolveResult;
+import org.gradle.internal.resolve.result.DefaultBuildableComponentResolveResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A component metadata resolver that speculatively fetches the metadata of the declared dependencies of each component it resolves,
+ * so that the metadata of the next levels of the graph is being downloaded while the graph builder is still busy with the current one.
+ *
+ * <p>Only dependencies on a fixed version of a module are prefetched, as these are the only ones for which the target component can be
+ * known without running the selection process. The graph builder still resolves and attaches every edge itself: a prefetched result
+ * is only handed out when the builder asks for the very same component, and is otherwise discarded and counted as wasted.</p>
+ */
+public class PrefetchingComponentMetaDataResolver implements ComponentMetaDataResolver {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PrefetchingComponentMetaDataResolver.class);
+
+    /**
+     * The number of levels below a component requested by the graph builder for which metadata is prefetched.
+     */
+    private static final int MAX_SPECULATION_DEPTH = 3;
+
+    private final ComponentMetaDataResolver delegate;
+    private final VersionSelectorScheme versionSelectorScheme;
+    private final MetadataPrefetchExecutor executor;
+    @Nullable
+    private final BuildOperationRef parentOperation;
+    private final Map<ComponentIdentifier, FutureTask<BuildableComponentResolveResult>> prefetches = new ConcurrentHashMap<>();
+    private final Set<ComponentIdentifier> requested = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger prefetched = new AtomicInteger();
+    private final AtomicInteger hits = new AtomicInteger();
+    private final Object lock = new Object();
+    private boolean stopped;
+    private int running;
+
+    public PrefetchingComponentMetaDataResolver(ComponentMetaDataResolver delegate, VersionSelectorScheme versionSelectorScheme, MetadataPrefetchExecutor executor) {
+        this.delegate = delegate;
+        this.versionSelectorScheme = versionSelectorScheme;
+        this.executor = executor;
+        this.parentOperation = CurrentBuildOperationRef.instance().get();
+    }
+
+    @Override
+    public void resolve(ComponentIdentifier identifier, ComponentOverrideMetadata componentOverrideMetadata, BuildableComponentResolveResult result) {
+        requested.add(identifier);
+        // Prefetches are made without overrides, so their result can only stand in for a request without overrides
+        FutureTask<BuildableComponentResolveResult> prefetch = componentOverrideMetadata == DefaultComponentOverrideMetadata.EMPTY ? prefetches.remove(identifier) : null;
+        if (prefetch != null) {
+            BuildableComponentResolveResult prefetchedResult = takeResult(prefetch);
+            if (prefetchedResult != null) {
+                hits.incrementAndGet();
+                prefetchedResult.applyTo(result);
+                // The component is now part of the graph, so speculate from here on, even if the prefetch reached the maximum depth
+                prefetchDependenciesOf(prefetchedResult.getState(), 1);
+                return;
+            }
+        }
+        delegate.resolve(identifier, componentOverrideMetadata, result);
+        if (result.hasResult() && result.getFailure() == null) {
+            prefetchDependenciesOf(result.getState(), 1);
+        }
+    }
+
+    @Override
+    public boolean isFetchingMetadataCheap(ComponentIdentifier identifier) {
+        return delegate.isFetchingMetadataCheap(identifier);
+    }
+
+    /**
+     * Returns the number of components whose prefetched metadata was used by the graph builder.
+     */
+    public int getPrefetchHits() {
+        return hits.get();
+    }
+
+    /**
+     * Returns the number of prefetches whose result was not used by the graph builder, either because the component was not selected,
+     * was requested with overrides, or because the prefetch failed.
+     */
+    public int getWastedPrefetches() {
+        return prefetched.get() - hits.get();
+    }
+
+    /**
+     * Cancels the pending prefetches and waits for the running ones to complete.
+     */
+    public void stop() {
+        synchronized (lock) {
+            stopped = true;
+        }
+        for (FutureTask<BuildableComponentResolveResult> prefetch : prefetches.values()) {
+            prefetch.cancel(false);
+        }
+        prefetches.clear();
+        // The running prefetches hold their own worker lease, so they complete without the lease of this thread
+        boolean interrupted = false;
+        synchronized (lock) {
+            while (running > 0) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        LOGGER.debug("Prefetched metadata for {} components: {} used, {} wasted.", prefetched.get(), getPrefetchHits(), getWastedPrefetches());
+    }
+
+    @Nullable
+    private static BuildableComponentResolveResult takeResult(FutureTask<BuildableComponentResolveResult> prefetch) {
+        // Run the prefetch on this thread when it is still queued behind other prefetches, rather than waiting for it. This does nothing when the prefetch has already started.
+        prefetch.run();
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    BuildableComponentResolveResult result = prefetch.get();
+                    // Failures are not reused, so that they are reported exactly as if the component was resolved on demand
+                    return result.hasResult() && result.getFailure() == null ? result : null;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    return null;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void prefetchDependenciesOf(ComponentGraphResolveState state, int depth) {
+        if (isStopped()) {
+            return;
+        }
+        GraphSelectionCandidates candidates = state.getCandidatesForGraphVariantSelection();
+        if (candidates.isUseVariants()) {
+            for (VariantGraphResolveState variant : candidates.getVariants()) {
+                prefetchAll(variant.getMetadata().getDependencies(), depth);
+            }
+        } else {
+            ConfigurationGraphResolveState configuration = candidates.getLegacyConfiguration();
+            if (configuration != null) {
+                prefetchAll(configuration.getMetadata().getDependencies(), depth);
+            }
+        }
+    }
+
+    private void prefetchAll(List<? extends DependencyMetadata> dependencies, int depth) {
+        for (DependencyMetadata dependency : dependencies) {
+            if (dependency.isConstraint()) {
+                continue;
+            }
+            ComponentIdentifier target = fixedTargetOf(dependency.getSelector());
+            if (target != null && !requested.contains(target) && !prefetches.containsKey(target) && !delegate.isFetchingMetadataCheap(target)) {
+                prefetch(target, depth);
+            }
+        }
+    }
+
+    @Nullable
+    private ComponentIdentifier fixedTargetOf(ComponentSelector selector) {
+        if (!(selector instanceof ModuleComponentSelector)) {
+            return null;
+        }
+        ModuleComponentSelector moduleSelector = (ModuleComponentSelector) selector;
+        VersionConstraint versionConstraint = moduleSelector.getVersionConstraint();
+        String version = versionConstraint.getStrictVersion().isEmpty() ? versionConstraint.getRequiredVersion() : versionConstraint.getStrictVersion();
+        if (version.isEmpty() || versionSelectorScheme.parseSelector(version).isDynamic()) {
+            return null;
+        }
+        return DefaultModuleComponentIdentifier.newId(moduleSelector.getModuleIdentifier(), version);
+    }
+
+    private void prefetch(ComponentIdentifier identifier, int depth) {
+        FutureTask<BuildableComponentResolveResult> prefetch = new FutureTask<>(() -> {
+            DefaultBuildableComponentResolveResult result = new DefaultBuildableComponentResolveResult();
+            if (!startRunning()) {
+                // Stopped after the prefetch was picked up
+                return result;
+            }
+            try {
+                CurrentBuildOperationRef.instance().with(parentOperation, () -> {
+                    delegate.resolve(identifier, DefaultComponentOverrideMetadata.EMPTY, result);
+                    if (result.hasResult() && result.getFailure() == null && depth < MAX_SPECULATION_DEPTH) {
+                        prefetchDependenciesOf(result.getState(), depth + 1);
+                    }
+                });
+            } finally {
+                finishRunning();
+            }
+            return result;
+        });
+        if (prefetches.putIfAbsent(identifier, prefetch) != null) {
+            return;
+        }
+        executor.execute(prefetch);
+        prefetched.incrementAndGet();
+    }
+
+    private boolean isStopped() {
+        synchronized (lock) {
+            return stopped;
+        }
+    }
+
+    private boolean startRunning() {
+        synchronized (lock) {
+            if (stopped) {
+                return false;
+            }
+            running++;
+            return true;
+        }
+    }
+
+    private void finishRunning() {
+        synchronized (lock) {
+            running--;
+            lock.notifyAll();
+        }
+    }
+}
@@ -32,6 +32,7 @@
 import org.gradle.internal.operations.BuildOperationQueue;
 import org.gradle.internal.operations.RunnableBuildOperation;
 import org.gradle.internal.resolve.resolver.ComponentArtifactResolver;
+import org.gradle.internal.resource.transfer.ArtifactDownloadScheduler;
 
 import javax.annotation.Nullable;
 import java.util.ArrayList;
@@ -186,8 +187,11 @@ private static class DownloadArtifactFile implements RunnableBuildOperation {
 
         @Override
         public void run(BuildOperationContext context) {
+            ArtifactDownloadScheduler.Statistics before = ArtifactDownloadScheduler.currentThreadStatistics();
             artifact.getFileSource().finalizeIfNotAlready();
-            context.setResult(DownloadArtifactBuildOperationType.RESULT);
+            // Only counts the transfers made by this thread, an artifact that is being downloaded by another operation counts as not transferred
+            ArtifactDownloadScheduler.Statistics transferred = ArtifactDownloadScheduler.currentThreadStatistics().since(before);
+            context.setResult(new DownloadArtifactBuildOperationType.ResultImpl(transferred.getBytes(), transferred.getTransferMillis(), transferred.getWaitMillis()));
         }
 
         @Override
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes;
+
+import java.util.Collection;
+
+/**
+ * Computes hash codes for sets of excludes, or of the values excludes are made of.
+ *
+ * <p>The hash code of a {@link java.util.Set} is the sum of the hash codes of its elements. Merged excludes
+ * are made of the same few modules and groups over and over, which have names that only differ by a few
+ * characters, and so hash codes that only differ in their low bits. Many different sets of them end up with
+ * the same sum, which turns the lookups in the merge caches into linear searches comparing sets.
+ * Spreading the bits of each element hash before summing keeps the hash code independent of the iteration
+ * order, while making such collisions unlikely.</p>
+ */
+public abstract class ExcludeHashing {
+    public static int unorderedHashCode(Collection<?> elements) {
+        int hashCode = elements.size();
+        for (Object element : elements) {
+            hashCode += spread(element.hashCode());
+        }
+        return hashCode;
+    }
+
+    private static int spread(int hash) {
+        // Finalization step of MurmurHash3
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+}
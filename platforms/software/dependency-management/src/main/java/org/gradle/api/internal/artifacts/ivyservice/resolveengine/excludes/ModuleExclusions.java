@@ -106,10 +106,27 @@ private static boolean isWildcard(String attribute) {
     }
 
     public ExcludeSpec excludeAny(ExcludeSpec one, ExcludeSpec two) {
+        // fast path for the most common case, when there are no excludes at all, which doesn't allocate
+        if (one != null && two != null) {
+            if (one == two || two == nothing) {
+                return one;
+            }
+            if (one == nothing) {
+                return two;
+            }
+        }
         return factory.anyOf(one, two);
     }
 
     public ExcludeSpec excludeAll(ExcludeSpec one, ExcludeSpec two) {
+        if (one != null && two != null) {
+            if (one == two) {
+                return one;
+            }
+            if (one == nothing || two == nothing) {
+                return nothing;
+            }
+        }
         return factory.allOf(one, two);
     }
 
@@ -15,6 +15,7 @@
  */
 package org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.factories;
 
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.ExcludeHashing;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.specs.ExcludeSpec;
 
 import java.util.HashMap;
@@ -115,7 +116,7 @@ private static class ExcludesKey {
         private ExcludesKey(Set<ExcludeSpec> specs) {
             this.specs = specs;
             this.size = specs.size();
-            this.hashCode = specs.hashCode();
+            this.hashCode = ExcludeHashing.unorderedHashCode(specs);
         }
 
         @Override
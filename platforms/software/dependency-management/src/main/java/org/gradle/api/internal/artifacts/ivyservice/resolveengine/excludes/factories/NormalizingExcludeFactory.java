@@ -363,6 +363,9 @@ private enum UnionOf {
         MODULE_SET(ModuleSetExclude.class),
         NOT_JOINABLE(ExcludeSpec.class);
 
+        // values() creates a new array on every call
+        private static final UnionOf[] VALUES = values();
+
         private final Class<? extends ExcludeSpec> excludeClass;
 
         UnionOf(Class<? extends ExcludeSpec> excludeClass) {
@@ -374,7 +377,7 @@ public <T extends ExcludeSpec> List<T> fromMap(Map<UnionOf, List<ExcludeSpec>> f
         }
 
         public static UnionOf typeOf(ExcludeSpec spec) {
-            for (UnionOf unionOf : UnionOf.values()) {
+            for (UnionOf unionOf : VALUES) {
                 if (unionOf.excludeClass.isInstance(spec)) {
                     return unionOf;
                 }
@@ -17,6 +17,7 @@
 
 import com.google.common.base.Objects;
 import com.google.common.collect.ImmutableSet;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.ExcludeHashing;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.specs.CompositeExclude;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.specs.ExcludeSpec;
 
@@ -30,7 +31,7 @@ abstract class DefaultCompositeExclude implements CompositeExclude {
     DefaultCompositeExclude(ImmutableSet<ExcludeSpec> components) {
         this.components = components;
         this.size = components.size();
-        this.hashCode = (31 * components.hashCode() + this.size) ^ mask();
+        this.hashCode = (31 * ExcludeHashing.unorderedHashCode(components) + this.size) ^ mask();
     }
 
     abstract int mask();
@@ -16,6 +16,7 @@
 package org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.simple;
 
 import org.gradle.api.artifacts.ModuleIdentifier;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.ExcludeHashing;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.specs.GroupSetExclude;
 import org.gradle.internal.component.model.IvyArtifactName;
 
@@ -27,7 +28,7 @@ final class DefaultGroupSetExclude implements GroupSetExclude {
 
     DefaultGroupSetExclude(Set<String> groups) {
         this.groups = groups;
-        this.hashCode = groups.hashCode();
+        this.hashCode = ExcludeHashing.unorderedHashCode(groups);
     }
 
     @Override
@@ -41,7 +42,7 @@ public boolean equals(Object o) {
 
         DefaultGroupSetExclude that = (DefaultGroupSetExclude) o;
 
-        return groups.equals(that.groups);
+        return hashCode == that.hashCode && groups.equals(that.groups);
 
     }
 
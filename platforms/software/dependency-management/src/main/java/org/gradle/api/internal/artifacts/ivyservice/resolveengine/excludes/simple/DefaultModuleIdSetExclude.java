@@ -17,6 +17,7 @@
 
 import com.google.common.collect.ImmutableSet;
 import org.gradle.api.artifacts.ModuleIdentifier;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.ExcludeHashing;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.specs.ModuleIdSetExclude;
 import org.gradle.internal.component.model.IvyArtifactName;
 
@@ -32,7 +33,7 @@ static ModuleIdSetExclude of(Set<ModuleIdentifier> ids) {
 
     private DefaultModuleIdSetExclude(ImmutableSet<ModuleIdentifier> moduleIds) {
         this.moduleIds = moduleIds;
-        this.hashCode = moduleIds.hashCode();
+        this.hashCode = ExcludeHashing.unorderedHashCode(moduleIds);
     }
 
     @Override
@@ -66,7 +67,7 @@ public boolean equals(Object o) {
 
         DefaultModuleIdSetExclude that = (DefaultModuleIdSetExclude) o;
 
-        return moduleIds.equals(that.moduleIds);
+        return hashCode == that.hashCode && moduleIds.equals(that.moduleIds);
 
     }
 
@@ -16,6 +16,7 @@
 package org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.simple;
 
 import org.gradle.api.artifacts.ModuleIdentifier;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.ExcludeHashing;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.specs.ModuleSetExclude;
 import org.gradle.internal.component.model.IvyArtifactName;
 
@@ -27,7 +28,7 @@ final class DefaultModuleSetExclude implements ModuleSetExclude {
 
     DefaultModuleSetExclude(Set<String> modules) {
         this.modules = modules;
-        this.hashCode = modules.hashCode();
+        this.hashCode = ExcludeHashing.unorderedHashCode(modules);
     }
 
     @Override
@@ -41,7 +42,7 @@ public boolean equals(Object o) {
 
         DefaultModuleSetExclude that = (DefaultModuleSetExclude) o;
 
-        return modules.equals(that.modules);
+        return hashCode == that.hashCode && modules.equals(that.modules);
 
     }
 
@@ -170,6 +170,13 @@ public String toString() {
         return transformStep.getDisplayName();
     }
 
+    @Override
+    public String getDurationHistoryKey() {
+        ProjectInternal owningProject = transformStep.getOwningProject();
+        String transformType = transformStep.getTransform().getImplementationClass().getName();
+        return owningProject == null ? transformType : owningProject.getIdentityPath() + " " + transformType;
+    }
+
     public TransformStep getTransformStep() {
         return transformStep;
     }
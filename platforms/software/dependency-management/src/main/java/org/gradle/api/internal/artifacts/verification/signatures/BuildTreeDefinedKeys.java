@@ -17,18 +17,18 @@
 package org.gradle.api.internal.artifacts.verification.signatures;
 
 import org.gradle.api.internal.artifacts.verification.verifier.DependencyVerificationConfiguration;
-import org.gradle.security.internal.KeyringFilePublicKeyService;
 import org.gradle.security.internal.PublicKeyService;
 import org.gradle.security.internal.PublicKeyServiceChain;
 
 import javax.annotation.Nullable;
 import java.io.File;
+import java.util.function.Function;
 
 public class BuildTreeDefinedKeys {
     private static final String VERIFICATION_KEYRING_GPG = "verification-keyring.gpg";
     private static final String VERIFICATION_KEYRING_ASCII = "verification-keyring.keys";
 
-    private final KeyringFilePublicKeyService keyService;
+    private final boolean hasKeyringsFile;
     private final File keyringsRoot;
 
     private final File effectiveKeyringsFile;
@@ -54,11 +54,7 @@ public BuildTreeDefinedKeys(
         }
 
         this.effectiveKeyringsFile = effectiveFile;
-        if (effectiveFile.exists()) {
-            this.keyService = new KeyringFilePublicKeyService(effectiveKeyringsFile);
-        } else {
-            this.keyService = null;
-        }
+        this.hasKeyringsFile = effectiveFile.exists();
     }
 
     public File getBinaryKeyringsFile() {
@@ -73,9 +69,14 @@ public File getEffectiveKeyringsFile() {
         return effectiveKeyringsFile;
     }
 
-    public PublicKeyService applyTo(PublicKeyService original) {
-        if (keyService != null) {
-            return PublicKeyServiceChain.of(keyService, original);
+    /**
+     * Returns a key service which looks up keys in the effective keyring file first, then in the given key service.
+     *
+     * @param keyringKeyService provides the key service for the keyring file, which is only called if the file exists
+     */
+    public PublicKeyService applyTo(PublicKeyService original, Function<? super File, ? extends PublicKeyService> keyringKeyService) {
+        if (hasKeyringsFile) {
+            return PublicKeyServiceChain.of(keyringKeyService.apply(effectiveKeyringsFile), original);
         } else {
             return original;
         }
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.verification.signatures;
+
+import org.gradle.cache.internal.CrossBuildInMemoryCache;
+import org.gradle.cache.internal.CrossBuildInMemoryCacheFactory;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.service.scopes.Scope;
+import org.gradle.internal.service.scopes.ServiceScope;
+import org.gradle.security.internal.KeyringFilePublicKeyService;
+import org.gradle.security.internal.PublicKeyService;
+
+import java.io.File;
+
+/**
+ * Keeps the keys loaded from verification keyring files in memory for the lifetime of the daemon.
+ *
+ * <p>Parsing and indexing a keyring holding thousands of keys takes a noticeable amount of time, which used to be spent again by every build.
+ * Keys are looked up by the location of the keyring file and the hash of its contents, so an updated keyring file is loaded again, while an
+ * unchanged keyring is shared by all the builds that use it. The location is part of the key as the keys are loaded from the file on first
+ * use, and the same contents found at another location may outlive the file the keys would otherwise be loaded from.</p>
+ */
+@ServiceScope(Scope.Global.class)
+public class CrossBuildKeyringFileCache {
+    private final CrossBuildInMemoryCache<KeyringFile, PublicKeyService> keyServices;
+
+    public CrossBuildKeyringFileCache(CrossBuildInMemoryCacheFactory cacheFactory) {
+        this.keyServices = cacheFactory.newCache();
+    }
+
+    /**
+     * Returns the key service for the given keyring file, which has contents with the given hash.
+     * The keys are loaded lazily, on first use.
+     */
+    public PublicKeyService getKeyService(File keyringFile, HashCode keyringFileHash) {
+        return keyServices.get(new KeyringFile(keyringFile, keyringFileHash), key -> new KeyringFilePublicKeyService(key.file));
+    }
+
+    private static final class KeyringFile {
+        private final File file;
+        private final HashCode hash;
+
+        KeyringFile(File file, HashCode hash) {
+            this.file = file;
+            this.hash = hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            KeyringFile that = (KeyringFile) o;
+            return file.equals(that.file) && hash.equals(that.hash);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * file.hashCode() + hash.hashCode();
+        }
+    }
+}
@@ -67,6 +67,7 @@ public class DefaultSignatureVerificationServiceFactory implements SignatureVeri
     private final BuildCommencedTimeProvider timeProvider;
     private final boolean refreshKeys;
     private final FileResourceListener fileResourceListener;
+    private final CrossBuildKeyringFileCache keyringFileCache;
 
     public DefaultSignatureVerificationServiceFactory(
         RepositoryTransportFactory transportFactory,
@@ -77,7 +78,8 @@ public DefaultSignatureVerificationServiceFactory(
         BuildScopedCacheBuilderFactory buildScopedCacheBuilderFactory,
         BuildCommencedTimeProvider timeProvider,
         boolean refreshKeys,
-        FileResourceListener fileResourceListener
+        FileResourceListener fileResourceListener,
+        CrossBuildKeyringFileCache keyringFileCache
     ) {
         this.transportFactory = transportFactory;
         this.globalScopedCacheBuilderFactory = globalScopedCacheBuilderFactory;
@@ -88,6 +90,7 @@ public DefaultSignatureVerificationServiceFactory(
         this.timeProvider = timeProvider;
         this.refreshKeys = refreshKeys;
         this.fileResourceListener = fileResourceListener;
+        this.keyringFileCache = keyringFileCache;
     }
 
     @Override
@@ -101,11 +104,11 @@ public SignatureVerificationService create(BuildTreeDefinedKeys keyrings, List<U
         } else {
             keyService = EmptyPublicKeyService.getInstance();
         }
-        keyService = keyrings.applyTo(keyService);
         File effectiveKeyringsFile = keyrings.getEffectiveKeyringsFile();
         HashCode keyringFileHash = observed(effectiveKeyringsFile).exists()
             ? fileHasher.hash(effectiveKeyringsFile)
             : NO_KEYRING_FILE_HASH;
+        keyService = keyrings.applyTo(keyService, keyringFile -> keyringFileCache.getKeyService(keyringFile, keyringFileHash));
         DefaultSignatureVerificationService delegate = new DefaultSignatureVerificationService(keyService);
         return new CrossBuildSignatureVerificationService(
             delegate,
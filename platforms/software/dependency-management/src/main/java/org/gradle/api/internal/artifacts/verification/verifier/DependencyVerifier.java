@@ -83,6 +83,30 @@ public void verify(ChecksumService checksumService,
             });
     }
 
+    /**
+     * Computes the checksums that {@link #verify} will check for the given artifact, so that they are already known to the checksum service
+     * by the time the artifact is verified. Does not report anything: any problem is reported when the artifact is verified.
+     */
+    public void precomputeChecksums(ChecksumService checksumService,
+                                    ArtifactVerificationOperation.ArtifactKind kind,
+                                    ModuleComponentArtifactIdentifier foundArtifact,
+                                    File artifactFile) {
+        if (shouldSkipVerification(kind) || !artifactFile.exists()) {
+            return;
+        }
+        ComponentVerificationMetadata componentVerification = verificationMetadata.get(toStringKey(foundArtifact.getComponentIdentifier()));
+        if (componentVerification != null) {
+            for (ArtifactVerificationMetadata verification : componentVerification.getArtifactVerifications()) {
+                if (verification.getArtifactName().equals(foundArtifact.getFileName())) {
+                    for (Checksum checksum : verification.getChecksums()) {
+                        checksumOf(checksum.getKind(), artifactFile, checksumService);
+                    }
+                    return;
+                }
+            }
+        }
+    }
+
     private boolean shouldSkipVerification(ArtifactVerificationOperation.ArtifactKind kind) {
         return kind == ArtifactVerificationOperation.ArtifactKind.METADATA && !config.isVerifyMetadata();
     }
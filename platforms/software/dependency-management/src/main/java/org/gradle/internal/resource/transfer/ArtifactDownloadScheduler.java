@@ -0,0 +1,301 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.resource.transfer;
+
+import com.google.common.annotations.VisibleForTesting;
+import org.gradle.internal.execution.WorkExecutionTracker;
+import org.gradle.internal.service.scopes.Scopes;
+import org.gradle.internal.service.scopes.ServiceScope;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import java.io.Closeable;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Schedules the transfers of remote resources into the cache.
+ *
+ * <p>The number of transfers that run at the same time against a host can be capped. When a host has no free slot, transfers wait for one,
+ * and those made on behalf of a task that is executing, and so blocked on them, are given a slot before the others.</p>
+ *
+ * <p>The scheduler also accounts for the bytes transferred and the time spent, per host and per thread. The per thread statistics let a build
+ * operation find out what was transferred while it ran, see {@link #currentThreadStatistics()}.</p>
+ */
+@ServiceScope(Scopes.BuildSession.class)
+public class ArtifactDownloadScheduler implements Closeable {
+    /**
+     * The maximum number of concurrent transfers per host, as a default for all hosts and as overrides for specific hosts,
+     * for example {@code 8,repo.example.com=2}. Transfers are not limited when not set.
+     */
+    public static final String MAX_DOWNLOADS_PER_HOST_PROPERTY = "org.gradle.dependency.resolution.max-downloads-per-host";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ArtifactDownloadScheduler.class);
+    private static final ThreadLocal<MutableStatistics> THREAD_STATISTICS = ThreadLocal.withInitial(MutableStatistics::new);
+
+    private final BooleanSupplier isBlockingTask;
+    private final int defaultLimit;
+    private final Map<String, Integer> hostLimits;
+    private final Map<String, Host> hosts = new ConcurrentHashMap<>();
+
+    @Inject
+    public ArtifactDownloadScheduler(WorkExecutionTracker workExecutionTracker) {
+        this(() -> workExecutionTracker.getCurrentTask().isPresent(), System.getProperty(MAX_DOWNLOADS_PER_HOST_PROPERTY));
+    }
+
+    @VisibleForTesting
+    ArtifactDownloadScheduler(BooleanSupplier isBlockingTask, @Nullable String limits) {
+        this.isBlockingTask = isBlockingTask;
+        Map<String, Integer> hostLimits = new HashMap<>();
+        this.defaultLimit = parseLimits(limits, hostLimits);
+        this.hostLimits = hostLimits;
+    }
+
+    private static int parseLimits(@Nullable String limits, Map<String, Integer> hostLimits) {
+        int defaultLimit = 0;
+        if (limits == null) {
+            return defaultLimit;
+        }
+        for (String entry : limits.split(",")) {
+            String trimmed = entry.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            int separator = trimmed.indexOf('=');
+            try {
+                if (separator < 0) {
+                    defaultLimit = Integer.parseInt(trimmed);
+                } else {
+                    hostLimits.put(trimmed.substring(0, separator).trim().toLowerCase(Locale.ROOT), Integer.parseInt(trimmed.substring(separator + 1).trim()));
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(String.format("Invalid value '%s' for %s, expected a number of transfers, optionally prefixed with a host name and '='.", trimmed, MAX_DOWNLOADS_PER_HOST_PROPERTY), e);
+            }
+        }
+        return defaultLimit;
+    }
+
+    /**
+     * Waits for a slot to transfer the given resource. The returned transfer must be completed once the content has been transferred, or the transfer failed.
+     */
+    public Transfer start(URI location) {
+        Host host = hostFor(location);
+        long waitNanos = host.acquire(isBlockingTask);
+        return new Transfer(host, waitNanos);
+    }
+
+    /**
+     * Returns the statistics of the transfers completed by the current thread so far. Compare two of these to find out what was transferred in between.
+     */
+    public static Statistics currentThreadStatistics() {
+        return THREAD_STATISTICS.get().snapshot();
+    }
+
+    private Host hostFor(URI location) {
+        String hostName = location.getHost() == null ? "" : location.getHost().toLowerCase(Locale.ROOT);
+        // Local resources, such as files, are not limited
+        return hosts.computeIfAbsent(hostName, name -> new Host(name, name.isEmpty() ? 0 : hostLimits.getOrDefault(name, defaultLimit)));
+    }
+
+    @Override
+    public void close() {
+        if (LOGGER.isDebugEnabled()) {
+            for (Host host : hosts.values()) {
+                long millis = TimeUnit.NANOSECONDS.toMillis(host.transferNanos.get());
+                LOGGER.debug("Transferred {} bytes from '{}' in {} transfers, {} ms transferring, {} ms waiting for a slot.", host.bytes.get(), host.name, host.transfers.get(), millis, TimeUnit.NANOSECONDS.toMillis(host.waitNanos.get()));
+            }
+        }
+    }
+
+    /**
+     * A running transfer, which holds a slot for its host.
+     */
+    public static class Transfer {
+        private final Host host;
+        private final long waitNanos;
+        private final long startNanos = System.nanoTime();
+        private boolean completed;
+
+        private Transfer(Host host, long waitNanos) {
+            this.host = host;
+            this.waitNanos = waitNanos;
+        }
+
+        /**
+         * Releases the slot of this transfer, recording the given number of bytes as transferred.
+         */
+        public void complete(long bytes) {
+            if (completed) {
+                return;
+            }
+            completed = true;
+            long transferNanos = System.nanoTime() - startNanos;
+            host.release();
+            host.record(bytes, transferNanos, waitNanos);
+            THREAD_STATISTICS.get().record(bytes, transferNanos, waitNanos);
+        }
+    }
+
+    /**
+     * The bytes transferred, and the time spent, by transfers.
+     */
+    public static class Statistics {
+        private final long bytes;
+        private final long transferNanos;
+        private final long waitNanos;
+
+        private Statistics(long bytes, long transferNanos, long waitNanos) {
+            this.bytes = bytes;
+            this.transferNanos = transferNanos;
+            this.waitNanos = waitNanos;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getTransferMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(transferNanos);
+        }
+
+        public long getWaitMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(waitNanos);
+        }
+
+        /**
+         * Returns what was transferred since the given earlier statistics were taken.
+         */
+        public Statistics since(Statistics earlier) {
+            return new Statistics(bytes - earlier.bytes, transferNanos - earlier.transferNanos, waitNanos - earlier.waitNanos);
+        }
+    }
+
+    private static class MutableStatistics {
+        private long bytes;
+        private long transferNanos;
+        private long waitNanos;
+
+        void record(long bytes, long transferNanos, long waitNanos) {
+            this.bytes += bytes;
+            this.transferNanos += transferNanos;
+            this.waitNanos += waitNanos;
+        }
+
+        Statistics snapshot() {
+            return new Statistics(bytes, transferNanos, waitNanos);
+        }
+    }
+
+    private static class Host {
+        private final String name;
+        private final int limit;
+        private final PriorityQueue<Waiter> waiters = new PriorityQueue<>();
+        private final AtomicLong bytes = new AtomicLong();
+        private final AtomicLong transfers = new AtomicLong();
+        private final AtomicLong transferNanos = new AtomicLong();
+        private final AtomicLong waitNanos = new AtomicLong();
+        private int running;
+        private long sequence;
+
+        Host(String name, int limit) {
+            this.name = name;
+            this.limit = limit;
+        }
+
+        /**
+         * Takes a slot, waiting for one if needed. Returns the time spent waiting.
+         */
+        long acquire(BooleanSupplier isBlockingTask) {
+            if (limit <= 0) {
+                return 0;
+            }
+            synchronized (this) {
+                if (running < limit && waiters.isEmpty()) {
+                    running++;
+                    return 0;
+                }
+            }
+            // Only look up who is waiting when there is contention, as this walks the build operation ancestry
+            boolean priority = isBlockingTask.getAsBoolean();
+            long startNanos = System.nanoTime();
+            boolean interrupted = false;
+            synchronized (this) {
+                Waiter waiter = new Waiter(priority, sequence++);
+                waiters.add(waiter);
+                while (running >= limit || waiters.peek() != waiter) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+                waiters.remove();
+                running++;
+                // Let the next waiter check whether there is another free slot
+                notifyAll();
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            return System.nanoTime() - startNanos;
+        }
+
+        void release() {
+            if (limit <= 0) {
+                return;
+            }
+            synchronized (this) {
+                running--;
+                notifyAll();
+            }
+        }
+
+        void record(long bytes, long transferNanos, long waitNanos) {
+            this.bytes.addAndGet(bytes);
+            this.transfers.incrementAndGet();
+            this.transferNanos.addAndGet(transferNanos);
+            this.waitNanos.addAndGet(waitNanos);
+        }
+    }
+
+    private static class Waiter implements Comparable<Waiter> {
+        private final boolean priority;
+        private final long sequence;
+
+        Waiter(boolean priority, long sequence) {
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(Waiter other) {
+            if (priority != other.priority) {
+                return priority ? -1 : 1;
+            }
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+}
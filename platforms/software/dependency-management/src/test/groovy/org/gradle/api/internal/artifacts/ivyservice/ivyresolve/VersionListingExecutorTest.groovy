@@ -0,0 +1,85 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.ivyresolve
+
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import spock.lang.Specification
+
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+class VersionListingExecutorTest extends Specification {
+    def executorFactory = new DefaultExecutorFactory()
+
+    def cleanup() {
+        executorFactory.stop()
+    }
+
+    def "runs listings in sequence when parallelism is #parallelism"() {
+        def executor = new VersionListingExecutor(executorFactory, parallelism)
+        def threads = new CopyOnWriteArrayList<Thread>()
+
+        when:
+        executor.listAll([{ threads << Thread.currentThread() } as Runnable, { threads << Thread.currentThread() } as Runnable])
+
+        then:
+        !executor.enabled
+        threads == [Thread.currentThread(), Thread.currentThread()]
+
+        where:
+        parallelism << [0, 1]
+    }
+
+    def "runs listings concurrently and waits for all of them"() {
+        def executor = new VersionListingExecutor(executorFactory, 3)
+        def started = new CountDownLatch(3)
+        def completed = new CopyOnWriteArrayList<Integer>()
+        def listing = { int index ->
+            return {
+                started.countDown()
+                // Only completes when all listings run at the same time
+                assert started.await(10, TimeUnit.SECONDS)
+                completed << index
+            } as Runnable
+        }
+
+        when:
+        executor.listAll([listing(1), listing(2), listing(3)])
+        executor.stop()
+
+        then:
+        completed.sort() == [1, 2, 3]
+    }
+
+    def "rethrows the failure of a listing once all listings have completed"() {
+        def executor = new VersionListingExecutor(executorFactory, 2)
+        def failure = new RuntimeException("broken")
+        def completed = new CountDownLatch(1)
+
+        when:
+        executor.listAll([{ throw failure } as Runnable, { Thread.sleep(100); completed.countDown() } as Runnable])
+
+        then:
+        def e = thrown(RuntimeException)
+        e.is(failure)
+        completed.count == 0
+
+        cleanup:
+        executor.stop()
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser
+
+import org.gradle.api.internal.file.TestFiles
+import org.gradle.internal.resource.local.LocalFileStandInExternalResource
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class ParsedPomCacheTest extends Specification {
+    @Rule
+    final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider(getClass())
+    def cache = new ParsedPomCache()
+
+    def "parses a POM once"() {
+        def pomFile = tmpDir.file("parent.pom")
+        pomFile.text = pom("1.0")
+        def resource = new LocalFileStandInExternalResource(pomFile, TestFiles.fileSystem())
+
+        when:
+        def first = cache.parse(resource)
+        def second = cache.parse(new LocalFileStandInExternalResource(pomFile, TestFiles.fileSystem()))
+
+        then:
+        first.is(second)
+        first.projectElement.getFirstChild("version").textContent == "1.0"
+    }
+
+    def "parses a POM again when it changes"() {
+        def pomFile = tmpDir.file("parent.pom")
+        pomFile.text = pom("1.0")
+        def resource = new LocalFileStandInExternalResource(pomFile, TestFiles.fileSystem())
+        def first = cache.parse(resource)
+
+        when:
+        pomFile.text = pom("1.0.1")
+        def second = cache.parse(resource)
+
+        then:
+        !first.is(second)
+        second.projectElement.getFirstChild("version").textContent == "1.0.1"
+    }
+
+    private static String pom(String version) {
+        """<project>
+    <groupId>group</groupId>
+    <artifactId>parent</artifactId>
+    <version>${version}</version>
+</project>"""
+    }
+}
@@ -1116,4 +1116,51 @@ class PomReaderTest extends AbstractPomReaderTest {
         then:
         pomReader.hasGradleMetadataMarker()
     }
+
+    def "parses entities, character references and CDATA sections"() {
+        when:
+        pomFile << """
+<project>
+    <modelVersion>4.0.0</modelVersion>
+    <groupId>group&amp;one</groupId>
+    <artifactId>artifact&#45;one</artifactId>
+    <version>version<![CDATA[-one]]></version>
+    <description>&copy; some&nbsp;company</description>
+    <properties>
+        <some.prop>&lt;value&gt;</some.prop>
+    </properties>
+</project>
+"""
+        pomReader = new PomReader(locallyAvailableExternalResource, moduleIdentifierFactory)
+
+        then:
+        pomReader.groupId == 'group&one'
+        pomReader.artifactId == 'artifact-one'
+        pomReader.version == 'version-one'
+        pomReader.properties['some.prop'] == '<value>'
+    }
+
+    def "can read the same parsed POM with the properties of different children"() {
+        given:
+        pomFile << """
+<project>
+    <modelVersion>4.0.0</modelVersion>
+    <groupId>group-one</groupId>
+    <artifactId>artifact-one</artifactId>
+    <version>\${some.version}</version>
+    <properties>
+        <some.version>1.0</some.version>
+    </properties>
+</project>
+"""
+        def parsedPom = PomReader.parse(locallyAvailableExternalResource)
+
+        when:
+        def first = new PomReader(parsedPom, moduleIdentifierFactory, [:])
+        def second = new PomReader(parsedPom, moduleIdentifierFactory, ['some.version': '2.0'])
+
+        then:
+        first.version == '1.0'
+        second.version == '2.0'
+    }
 }
@@ -27,6 +27,7 @@ import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser.GradlePomM
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser.IvyModuleDescriptorConverter
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser.IvyXmlModuleDescriptorParser
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser.MetaDataParser
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser.ParsedPomCache
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.DefaultVersionComparator
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.DefaultVersionSelectorScheme
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.MavenVersionSelectorScheme
@@ -93,6 +94,23 @@ class ModuleMetadataSerializerTest extends Specification {
 
     }
 
+    def "shares the values of metadata file #sample.name when it is read more than once"() {
+        given:
+        def bytes = serialize(parse(sample))
+
+        when:
+        def first = deserialize(bytes) as MutableMavenModuleResolveMetadata
+        def second = deserialize(bytes) as MutableMavenModuleResolveMetadata
+
+        then:
+        first.id.is(second.id)
+        first.dependencies.size() == second.dependencies.size()
+        [first.dependencies, second.dependencies].transpose().every { it[0].is(it[1]) }
+
+        where:
+        sample << sampleFiles().findAll { it.parentFile.name == 'pom' }
+    }
+
     private MutableModuleComponentResolveMetadata deserialize(byte[] serializedForm) {
         serializer.read(new InputStreamBackedDecoder(new ByteArrayInputStream(serializedForm)), moduleIdentifierFactory, new HashMap())
     }
@@ -166,7 +184,8 @@ class ModuleMetadataSerializerTest extends Specification {
             new MavenVersionSelectorScheme(new DefaultVersionSelectorScheme(new DefaultVersionComparator(), new VersionParser())),
             moduleIdentifierFactory,
             Stub(FileResourceRepository),
-            mavenMetadataFactory
+            mavenMetadataFactory,
+            new ParsedPomCache()
         )
     }
 
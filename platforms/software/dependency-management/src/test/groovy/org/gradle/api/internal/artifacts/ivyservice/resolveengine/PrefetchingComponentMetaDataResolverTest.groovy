@@ -0,0 +1,200 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine
+
+import org.gradle.api.artifacts.component.ComponentIdentifier
+import org.gradle.api.internal.artifacts.DefaultModuleIdentifier
+import org.gradle.api.internal.artifacts.dependencies.DefaultMutableVersionConstraint
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.DefaultVersionComparator
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.DefaultVersionSelectorScheme
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionParser
+import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier
+import org.gradle.internal.component.external.model.DefaultModuleComponentSelector
+import org.gradle.internal.component.model.ComponentGraphResolveState
+import org.gradle.internal.component.model.ComponentGraphSpecificResolveState
+import org.gradle.internal.component.model.ConfigurationGraphResolveMetadata
+import org.gradle.internal.component.model.ConfigurationGraphResolveState
+import org.gradle.internal.component.model.DefaultComponentOverrideMetadata
+import org.gradle.internal.component.model.DependencyMetadata
+import org.gradle.internal.component.model.GraphSelectionCandidates
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.resolve.resolver.ComponentMetaDataResolver
+import org.gradle.internal.resolve.result.DefaultBuildableComponentResolveResult
+import org.gradle.test.fixtures.work.TestWorkerLeaseService
+import spock.lang.Specification
+
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.CountDownLatch
+
+class PrefetchingComponentMetaDataResolverTest extends Specification {
+    def executorFactory = new DefaultExecutorFactory()
+    def versionSelectorScheme = new DefaultVersionSelectorScheme(new DefaultVersionComparator(), new VersionParser())
+    def states = [:]
+    def fetched = new CopyOnWriteArrayList<ComponentIdentifier>()
+    def fetchingThreads = [:].asSynchronized()
+    def blocked = [] as Set
+    def unblock = new CountDownLatch(1)
+    def delegate = [
+        resolve: { ComponentIdentifier id, overrides, DefaultBuildableComponentResolveResult result ->
+            fetched << id
+            fetchingThreads[id.displayName] = Thread.currentThread()
+            if (blocked.contains(id.displayName)) {
+                unblock.await()
+            }
+            result.resolved(states[id.displayName] as ComponentGraphResolveState, ComponentGraphSpecificResolveState.EMPTY_STATE)
+        },
+        isFetchingMetadataCheap: { false }
+    ] as ComponentMetaDataResolver
+    def prefetchExecutor = new MetadataPrefetchExecutor(executorFactory, new TestWorkerLeaseService(), 1)
+    def resolver = new PrefetchingComponentMetaDataResolver(delegate, versionSelectorScheme, prefetchExecutor)
+
+    def cleanup() {
+        unblock.countDown()
+        resolver.stop()
+        prefetchExecutor.stop()
+        executorFactory.stop()
+    }
+
+    def "hands out prefetched metadata of transitive dependencies"() {
+        given:
+        component("org:a:1", "org:b:1")
+        component("org:b:1", "org:c:1")
+        component("org:c:1")
+
+        when:
+        def a = resolve("org:a:1")
+        def b = resolve("org:b:1")
+        def c = resolve("org:c:1")
+
+        then:
+        a.state.is(states["org:a:1"])
+        b.state.is(states["org:b:1"])
+        c.state.is(states["org:c:1"])
+        fetched*.displayName == ["org:a:1", "org:b:1", "org:c:1"]
+        resolver.prefetchHits == 2
+        resolver.wastedPrefetches == 0
+    }
+
+    def "counts prefetches that are not requested as wasted"() {
+        given:
+        component("org:a:1", "org:b:1", "org:c:1")
+        component("org:b:1")
+        component("org:c:1")
+
+        when:
+        resolve("org:a:1")
+        resolve("org:b:1")
+        resolver.stop()
+
+        then:
+        resolver.prefetchHits == 1
+        resolver.wastedPrefetches == 1
+        fetched.count { it.displayName == "org:b:1" } == 1
+    }
+
+    def "runs a queued prefetch on the resolving thread instead of waiting for it"() {
+        given:
+        component("org:a:1", "org:b:1", "org:c:1")
+        component("org:b:1")
+        component("org:c:1")
+        blocked << "org:b:1"
+
+        when:
+        resolve("org:a:1")
+        // The single prefetch thread is busy with b, so the prefetch of c is still queued
+        def c = resolve("org:c:1")
+
+        then:
+        c.state.is(states["org:c:1"])
+        fetchingThreads["org:c:1"] == Thread.currentThread()
+        fetched.count { it.displayName == "org:c:1" } == 1
+        resolver.prefetchHits == 1
+
+        when:
+        unblock.countDown()
+        def b = resolve("org:b:1")
+
+        then:
+        b.state.is(states["org:b:1"])
+        fetchingThreads["org:b:1"] != Thread.currentThread()
+        resolver.prefetchHits == 2
+    }
+
+    def "does not prefetch dependencies on dynamic versions"() {
+        given:
+        component("org:a:1", "org:b:1.+", "org:c:[1.0,2.0)", "org:d:latest.release")
+
+        when:
+        resolve("org:a:1")
+        resolver.stop()
+
+        then:
+        fetched*.displayName == ["org:a:1"]
+        resolver.prefetchHits == 0
+        resolver.wastedPrefetches == 0
+    }
+
+    def "does not use prefetched metadata when the component is requested with overrides"() {
+        given:
+        component("org:a:1", "org:b:1")
+        component("org:b:1")
+
+        when:
+        resolve("org:a:1")
+        def result = new DefaultBuildableComponentResolveResult()
+        resolver.resolve(id("org:b:1"), DefaultComponentOverrideMetadata.forDependency(true, null, null), result)
+        resolver.stop()
+
+        then:
+        result.state.is(states["org:b:1"])
+        resolver.prefetchHits == 0
+        resolver.wastedPrefetches == 1
+    }
+
+    def resolve(String displayName) {
+        def result = new DefaultBuildableComponentResolveResult()
+        resolver.resolve(id(displayName), DefaultComponentOverrideMetadata.EMPTY, result)
+        return result
+    }
+
+    def component(String displayName, String... dependencies) {
+        def dependencyMetadata = dependencies.collect { dependency ->
+            def (group, name, version) = dependency.split(":")
+            def selector = DefaultModuleComponentSelector.newSelector(DefaultModuleIdentifier.newId(group, name), new DefaultMutableVersionConstraint(version))
+            Stub(DependencyMetadata) {
+                getSelector() >> selector
+                isConstraint() >> false
+            }
+        }
+        def configuration = Stub(ConfigurationGraphResolveState) {
+            getMetadata() >> Stub(ConfigurationGraphResolveMetadata) {
+                getDependencies() >> dependencyMetadata
+            }
+        }
+        states[displayName] = Stub(ComponentGraphResolveState) {
+            getCandidatesForGraphVariantSelection() >> Stub(GraphSelectionCandidates) {
+                isUseVariants() >> false
+                getLegacyConfiguration() >> configuration
+            }
+        }
+    }
+
+    static ComponentIdentifier id(String displayName) {
+        def (group, name, version) = displayName.split(":")
+        return DefaultModuleComponentIdentifier.newId(DefaultModuleIdentifier.newId(group, name), version)
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes
+
+import org.gradle.api.internal.artifacts.DefaultModuleIdentifier
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.simple.DefaultExcludeFactory
+import spock.lang.Specification
+
+class ExcludeHashingTest extends Specification {
+    def factory = new DefaultExcludeFactory()
+
+    def "hash code does not depend on iteration order"() {
+        expect:
+        ExcludeHashing.unorderedHashCode(["a", "b", "c"]) == ExcludeHashing.unorderedHashCode(["c", "a", "b"])
+        ExcludeHashing.unorderedHashCode(["a", "b"]) != ExcludeHashing.unorderedHashCode(["a", "b", "c"])
+    }
+
+    def "sets of similar modules have distinct hash codes"() {
+        def ids = (0..<20).collect { DefaultModuleIdentifier.newId("org", "module$it") }
+        def sets = [] as Set
+        ids.eachWithIndex { first, i ->
+            ids.subList(i + 1, ids.size()).each { second ->
+                sets << ([first, second] as Set)
+            }
+        }
+
+        expect:
+        // The sum of the hash codes of these sets only has a few distinct values
+        sets.collect { it.hashCode() }.unique().size() < sets.size() / 2
+        sets.collect { factory.moduleIdSet(it).hashCode() }.unique().size() == sets.size()
+    }
+}
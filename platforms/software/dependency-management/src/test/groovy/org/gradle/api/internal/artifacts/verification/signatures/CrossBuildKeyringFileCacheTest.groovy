@@ -0,0 +1,79 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.verification.signatures
+
+import org.gradle.cache.internal.DefaultCrossBuildInMemoryCacheFactory
+import org.gradle.internal.event.DefaultListenerManager
+import org.gradle.internal.hash.Hashing
+import org.gradle.internal.service.scopes.Scope
+import org.gradle.security.internal.KeyringFilePublicKeyService
+import org.gradle.security.internal.PublicKeyService
+import org.gradle.security.internal.PublicKeyServiceChain
+import spock.lang.Specification
+
+class CrossBuildKeyringFileCacheTest extends Specification {
+    def cache = new CrossBuildKeyringFileCache(new DefaultCrossBuildInMemoryCacheFactory(new DefaultListenerManager(Scope.Global)))
+    def keyringFile = new File("verification-keyring.gpg")
+
+    def "reuses the key service of a keyring file with unchanged contents"() {
+        when:
+        def first = cache.getKeyService(keyringFile, Hashing.hashString("1"))
+        def second = cache.getKeyService(keyringFile, Hashing.hashString("1"))
+
+        then:
+        first instanceof KeyringFilePublicKeyService
+        first.is(second)
+    }
+
+    def "loads the keyring file again when its contents change"() {
+        when:
+        def first = cache.getKeyService(keyringFile, Hashing.hashString("1"))
+        def second = cache.getKeyService(keyringFile, Hashing.hashString("2"))
+
+        then:
+        !first.is(second)
+    }
+
+    def "loads a keyring file with the same contents again when found at another location"() {
+        when:
+        def first = cache.getKeyService(keyringFile, Hashing.hashString("1"))
+        def second = cache.getKeyService(new File("other/verification-keyring.gpg"), Hashing.hashString("1"))
+
+        then:
+        !first.is(second)
+    }
+
+    def "build tree keys use the cached key service only when the keyring file exists"() {
+        def original = Mock(PublicKeyService)
+        def root = File.createTempDir()
+        def keys = new BuildTreeDefinedKeys(root, null)
+
+        expect:
+        keys.applyTo(original, { throw new AssertionError() }).is(original)
+
+        when:
+        new File(root, "verification-keyring.keys").text = ""
+        keys = new BuildTreeDefinedKeys(root, null)
+        def cached = cache.getKeyService(keys.effectiveKeyringsFile, Hashing.hashString("1"))
+
+        then:
+        keys.applyTo(original, { cached }) instanceof PublicKeyServiceChain
+
+        cleanup:
+        root.deleteDir()
+    }
+}
@@ -93,6 +93,38 @@ class DependencyVerifierTest extends Specification {
         0 * result.failWith(_)
     }
 
+    def "precomputes the checksums declared for an artifact"() {
+        def componentId = DefaultModuleComponentIdentifier.newId(DefaultModuleIdentifier.newId("org", "foo"), "1.0")
+        def checksums = [
+            new Checksum(ChecksumKind.sha256, "sha256-checksum", [] as Set<String>, "", ""),
+            new Checksum(ChecksumKind.sha512, "sha512-checksum", [] as Set<String>, "", "")
+        ]
+        def verificationMetadata = new ImmutableComponentVerificationMetadata(componentId, [new ImmutableArtifactVerificationMetadata("foo-1.0.jar", checksums, [] as Set, [] as Set)])
+        verifier = new DependencyVerifier([(componentId): verificationMetadata], new DependencyVerificationConfiguration(true, true, [], true, [], [] as Set, [], null), [])
+        artifact("org", "foo", "1.0")
+
+        when:
+        artifactFile.exists() >> true
+        verifier.precomputeChecksums(checksumService, kind, artifact, artifactFile)
+
+        then:
+        1 * checksumService.sha256(artifactFile) >> Mock(HashCode)
+        1 * checksumService.sha512(artifactFile) >> Mock(HashCode)
+        0 * checksumService._
+        0 * signatureVerificationService._
+    }
+
+    def "does not precompute checksums of artifacts without declared checksums"() {
+        artifact("org", "foo", "1.0")
+
+        when:
+        artifactFile.exists() >> true
+        verifier.precomputeChecksums(checksumService, kind, artifact, artifactFile)
+
+        then:
+        0 * checksumService._
+    }
+
     private void artifact(String group, String name, String version) {
         artifact = new ModuleComponentFileArtifactIdentifier(
             DefaultModuleComponentIdentifier.newId(DefaultModuleIdentifier.newId(group, name), version),
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.resource.transfer
+
+import spock.lang.Specification
+
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+class ArtifactDownloadSchedulerTest extends Specification {
+    def blockingTask = new ThreadLocal<Boolean>()
+
+    def "does not limit transfers by default"() {
+        def scheduler = scheduler(null)
+
+        when:
+        def transfers = (1..10).collect { scheduler.start(uri("repo.example.com")) }
+
+        then:
+        transfers.size() == 10
+
+        cleanup:
+        transfers*.complete(0)
+    }
+
+    def "records what the current thread transferred"() {
+        def scheduler = scheduler("1")
+        def before = ArtifactDownloadScheduler.currentThreadStatistics()
+
+        when:
+        scheduler.start(uri("repo.example.com")).complete(100)
+        def transfer = scheduler.start(uri("other.example.com"))
+        transfer.complete(20)
+        transfer.complete(20)
+
+        then:
+        ArtifactDownloadScheduler.currentThreadStatistics().since(before).bytes == 120
+    }
+
+    def "limits the number of concurrent transfers per host"() {
+        def scheduler = scheduler("1,slow.example.com=2")
+        def first = scheduler.start(uri("repo.example.com"))
+        def started = new CountDownLatch(1)
+
+        when:
+        def waiting = Thread.start {
+            scheduler.start(uri("repo.example.com")).complete(0)
+            started.countDown()
+        }
+
+        then:
+        !started.await(100, TimeUnit.MILLISECONDS)
+
+        when:
+        // Other hosts are not affected
+        def slow = [scheduler.start(uri("slow.example.com")), scheduler.start(uri("slow.example.com"))]
+        scheduler.start(uri("other.example.com")).complete(0)
+        scheduler.start(new URI("file:/some/file")).complete(0)
+        first.complete(0)
+
+        then:
+        started.await(10, TimeUnit.SECONDS)
+
+        cleanup:
+        waiting?.join()
+        slow*.complete(0)
+    }
+
+    def "gives transfers that block a task a slot first"() {
+        def scheduler = scheduler("1")
+        def first = scheduler.start(uri("repo.example.com"))
+        def order = new CopyOnWriteArrayList<String>()
+
+        when:
+        def background = Thread.start {
+            def transfer = scheduler.start(uri("repo.example.com"))
+            order << "background"
+            transfer.complete(0)
+        }
+        Thread.sleep(100)
+        def task = Thread.start {
+            blockingTask.set(true)
+            def transfer = scheduler.start(uri("repo.example.com"))
+            order << "task"
+            transfer.complete(0)
+        }
+        Thread.sleep(100)
+        first.complete(0)
+        background.join()
+        task.join()
+
+        then:
+        order == ["task", "background"]
+    }
+
+    def "reports invalid limits"() {
+        when:
+        scheduler("2,repo.example.com=many")
+
+        then:
+        def e = thrown(IllegalArgumentException)
+        e.message == "Invalid value 'repo.example.com=many' for org.gradle.dependency.resolution.max-downloads-per-host, expected a number of transfers, optionally prefixed with a host name and '='."
+    }
+
+    private ArtifactDownloadScheduler scheduler(String limits) {
+        return new ArtifactDownloadScheduler({ blockingTask.get() == Boolean.TRUE }, limits)
+    }
+
+    private static URI uri(String host) {
+        return new URI("https://${host}/org/foo/1.0/foo-1.0.jar")
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.resource.transport.http;
+
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.gradle.api.internal.DocumentationRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Simulates a cold resolution that downloads the metadata of many modules from several repositories served by the same host,
+ * with and without sharing connection pools between the repositories.
+ *
+ * Each invocation starts from new clients, so no connection is reused from an earlier invocation.
+ * Set {@code remoteUri} to the base URI of a repository manager to measure against a remote host, including the TLS handshakes.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class HttpConnectionPoolsBenchmark {
+    private static final int MODULES = 1000;
+    private static final int THREADS = 8;
+    private static final byte[] POM = new byte[2048];
+
+    static {
+        Arrays.fill(POM, (byte) 'x');
+    }
+
+    @Param({"1", "8"})
+    int repositories;
+
+    @Param({"false", "true"})
+    boolean sharedConnectionPool;
+
+    @Param({""})
+    String remoteUri;
+
+    private Server server;
+    private String baseUri;
+    private ExecutorService executor;
+
+    @Setup
+    public void startServer() throws Exception {
+        if (remoteUri.isEmpty()) {
+            server = new Server(0);
+            server.setHandler(new AbstractHandler() {
+                @Override
+                public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response) throws IOException {
+                    response.setStatus(HttpServletResponse.SC_OK);
+                    response.setContentLength(POM.length);
+                    response.getOutputStream().write(POM);
+                    baseRequest.setHandled(true);
+                }
+            });
+            server.start();
+            baseUri = "http://localhost:" + ((ServerConnector) server.getConnectors()[0]).getLocalPort();
+        } else {
+            baseUri = remoteUri;
+        }
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @TearDown
+    public void stopServer() throws Exception {
+        executor.shutdownNow();
+        if (server != null) {
+            server.stop();
+        }
+    }
+
+    @Benchmark
+    public void downloadMetadata() throws Exception {
+        HttpSettings settings = DefaultHttpSettings.builder()
+            .withAuthenticationSettings(new ArrayList<>())
+            .withSslContextFactory(new DefaultSslContextFactory())
+            .withRedirectVerifier(uris -> {})
+            .build();
+        HttpConnectionPools connectionPools = new HttpConnectionPools();
+        List<HttpClientHelper> clients = new ArrayList<>(repositories);
+        for (int i = 0; i < repositories; i++) {
+            clients.add(new HttpClientHelper(new DocumentationRegistry(), settings, sharedConnectionPool ? connectionPools : null));
+        }
+        try {
+            List<Future<?>> downloads = new ArrayList<>(MODULES);
+            for (int i = 0; i < MODULES; i++) {
+                HttpClientHelper client = clients.get(i % repositories);
+                String uri = baseUri + "/repo" + (i % repositories) + "/org/module" + i + "/1.0/module" + i + "-1.0.pom";
+                downloads.add(executor.submit(() -> {
+                    try (HttpClientResponse response = client.performGet(uri, false)) {
+                        byte[] buffer = new byte[8192];
+                        while (response.getContent().read(buffer) >= 0) {
+                            // Drain the response, as a resolution does
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> download : downloads) {
+                download.get();
+            }
+        } finally {
+            for (HttpClientHelper client : clients) {
+                client.close();
+            }
+            connectionPools.close();
+        }
+    }
+}
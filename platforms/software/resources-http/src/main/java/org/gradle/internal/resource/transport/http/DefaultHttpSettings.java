@@ -164,7 +164,7 @@ public Builder withAuthenticationSettings(Collection<Authentication> authenticat
 
         public Builder withSslContextFactory(SslContextFactory sslContextFactory) {
             this.sslContextFactory = sslContextFactory;
-            this.hostnameVerifier = new DefaultHostnameVerifier(null);
+            this.hostnameVerifier = DEFAULT_HOSTNAME_VERIFIER;
             return this;
         }
 
@@ -207,6 +207,9 @@ public HttpSettings build() {
         }
     }
 
+    // Stateless, so a single instance can be shared, which also allows clients with the default settings to share a connection pool
+    private static final HostnameVerifier DEFAULT_HOSTNAME_VERIFIER = new DefaultHostnameVerifier(null);
+
     private static final HostnameVerifier ALL_TRUSTING_HOSTNAME_VERIFIER = new HostnameVerifier() {
         @Override
         public boolean verify(String hostname, SSLSession session) {
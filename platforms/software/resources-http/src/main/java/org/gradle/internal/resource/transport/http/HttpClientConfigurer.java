@@ -38,6 +38,8 @@
 import org.apache.http.client.utils.DateUtils;
 import org.apache.http.config.RegistryBuilder;
 import org.apache.http.config.SocketConfig;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
 import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
 import org.apache.http.conn.util.PublicSuffixMatcher;
 import org.apache.http.conn.util.PublicSuffixMatcherLoader;
@@ -49,6 +51,7 @@
 import org.apache.http.impl.auth.SPNegoSchemeFactory;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.impl.client.SystemDefaultCredentialsProvider;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.impl.conn.SystemDefaultRoutePlanner;
 import org.apache.http.impl.cookie.DefaultCookieSpecProvider;
 import org.apache.http.impl.cookie.IgnoreSpecProvider;
@@ -149,8 +152,33 @@ public void configure(HttpClientBuilder builder) {
         builder.setConnectionTimeToLive(httpSettings.getTimeoutSettings().getIdleConnectionTimeoutMs(), TimeUnit.MILLISECONDS);
     }
 
+    /**
+     * Creates a connection manager with the connection settings that {@link #configure(HttpClientBuilder)} applies to a client, so that it can be shared by several clients.
+     */
+    public PoolingHttpClientConnectionManager createConnectionManager() {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(
+            RegistryBuilder.<ConnectionSocketFactory>create()
+                .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                .register("https", createSslSocketFactory(httpSettings.getSslContextFactory(), httpSettings.getHostnameVerifier()))
+                .build(),
+            null,
+            null,
+            null,
+            httpSettings.getTimeoutSettings().getIdleConnectionTimeoutMs(),
+            TimeUnit.MILLISECONDS
+        );
+        connectionManager.setMaxTotal(httpSettings.getMaxConnTotal());
+        connectionManager.setDefaultMaxPerRoute(httpSettings.getMaxConnPerRoute());
+        connectionManager.setDefaultSocketConfig(createSocketConfig());
+        return connectionManager;
+    }
+
     private void configureSslSocketConnectionFactory(HttpClientBuilder builder, SslContextFactory sslContextFactory, HostnameVerifier hostnameVerifier) {
-        builder.setSSLSocketFactory(new SSLConnectionSocketFactory(sslContextFactory.createSslContext(), sslProtocols, null, hostnameVerifier));
+        builder.setSSLSocketFactory(createSslSocketFactory(sslContextFactory, hostnameVerifier));
+    }
+
+    private SSLConnectionSocketFactory createSslSocketFactory(SslContextFactory sslContextFactory, HostnameVerifier hostnameVerifier) {
+        return new SSLConnectionSocketFactory(sslContextFactory.createSslContext(), sslProtocols, null, hostnameVerifier);
     }
 
     private void configureAuthSchemeRegistry(HttpClientBuilder builder) {
@@ -292,8 +320,12 @@ private void configureRequestConfig(HttpClientBuilder builder) {
     }
 
     private void configureSocketConfig(HttpClientBuilder builder) {
+        builder.setDefaultSocketConfig(createSocketConfig());
+    }
+
+    private SocketConfig createSocketConfig() {
         HttpTimeoutSettings timeoutSettings = httpSettings.getTimeoutSettings();
-        builder.setDefaultSocketConfig(SocketConfig.custom().setSoTimeout(timeoutSettings.getSocketTimeoutMs()).setSoKeepAlive(true).build());
+        return SocketConfig.custom().setSoTimeout(timeoutSettings.getSocketTimeoutMs()).setSoKeepAlive(true).build();
     }
 
     private void configureRedirectStrategy(HttpClientBuilder builder) {
@@ -60,6 +60,8 @@ public class HttpClientHelper implements Closeable {
     private CloseableHttpClient client;
     private final DocumentationRegistry documentationRegistry;
     private final HttpSettings settings;
+    @Nullable
+    private final HttpConnectionPools connectionPools;
 
     private Collection<String> supportedTlsVersions;
 
@@ -77,8 +79,14 @@ public class HttpClientHelper implements Closeable {
      */
     @VisibleForTesting
     HttpClientHelper(DocumentationRegistry documentationRegistry, HttpSettings settings) {
+        this(documentationRegistry, settings, null);
+    }
+
+    @VisibleForTesting
+    HttpClientHelper(DocumentationRegistry documentationRegistry, HttpSettings settings, @Nullable HttpConnectionPools connectionPools) {
         this.documentationRegistry = documentationRegistry;
         this.settings = settings;
+        this.connectionPools = connectionPools;
         if (!settings.getAuthenticationSettings().isEmpty()) {
             sharedContext = new ConcurrentLinkedQueue<HttpContext>();
         } else {
@@ -103,6 +111,21 @@ public HttpClientResponse performGet(String source, boolean revalidate) {
         return processResponse(performRawGet(source, revalidate));
     }
 
+    /**
+     * Performs a GET that the server may answer with {@code 304 Not Modified} when the resource still matches the given validators.
+     */
+    @Nonnull
+    public HttpClientResponse performConditionalGet(String source, boolean revalidate, @Nullable String etag, @Nullable String lastModified) {
+        HttpGet request = new HttpGet(source);
+        if (etag != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, etag);
+        }
+        if (lastModified != null) {
+            request.addHeader(HttpHeaders.IF_MODIFIED_SINCE, lastModified);
+        }
+        return processResponse(performRequest(request, revalidate));
+    }
+
     public HttpClientResponse performRequest(HttpRequestBase request, boolean revalidate) {
         String method = request.getMethod();
         if (revalidate) {
@@ -254,6 +277,10 @@ private synchronized CloseableHttpClient getClient() {
             HttpClientBuilder builder = HttpClientBuilder.create();
             HttpClientConfigurer configurer = new HttpClientConfigurer(settings);
             configurer.configure(builder);
+            if (connectionPools != null) {
+                builder.setConnectionManager(connectionPools.getConnectionManager(settings, configurer));
+                builder.setConnectionManagerShared(true);
+            }
             this.supportedTlsVersions = configurer.supportedTlsVersions();
             this.client = builder.build();
         }
@@ -314,6 +341,15 @@ public interface Factory {
         static Factory createFactory(DocumentationRegistry documentationRegistry) {
             return settings -> new HttpClientHelper(documentationRegistry, settings);
         }
+
+        /**
+         * Creates a factory whose clients share the connection pools of the given {@link HttpConnectionPools}.
+         *
+         * Method should only be used for DI registry and testing.
+         */
+        static Factory createFactory(DocumentationRegistry documentationRegistry, HttpConnectionPools connectionPools) {
+            return settings -> new HttpClientHelper(documentationRegistry, settings, connectionPools);
+        }
     }
 
 }
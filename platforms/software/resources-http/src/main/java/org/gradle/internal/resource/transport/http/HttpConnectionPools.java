@@ -0,0 +1,168 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.resource.transport.http;
+
+import com.google.common.collect.ImmutableList;
+import org.apache.http.conn.HttpClientConnectionManager;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.gradle.internal.session.BuildSessionLifecycleListener;
+
+import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.SSLContext;
+import java.io.Closeable;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Connection pools shared by all {@link HttpClientHelper} instances that use the same connection settings.
+ *
+ * <p>Each repository gets its own {@link HttpClientHelper}, and so without sharing, every repository opens its own connections, and does its own TLS handshakes,
+ * even when several repositories are served by the same host. A shared pool lets the requests for all these repositories reuse the same kept-alive connections.</p>
+ *
+ * <p>Only connection level settings are shared. Authentication, proxies, redirects and request configuration stay specific to each client. The pool keys
+ * connections by route and by the state of connection based authentication schemes such as NTLM, so a connection authenticated for one client is never
+ * handed out to another one.</p>
+ *
+ * <p>The pools only live as long as a build session. When the session completes, all the pools are shut down, so no idle connections are kept open
+ * between builds. Pools are keyed on the SSL context of the clients without holding on to it, and a pool whose SSL context has been discarded is retired,
+ * so that a new context does not leave the pools for the previous ones behind.</p>
+ */
+public class HttpConnectionPools implements Closeable, BuildSessionLifecycleListener {
+    /**
+     * Enables sharing connection pools between HTTP repositories.
+     */
+    public static final String SHARED_CONNECTION_POOL_PROPERTY = "org.gradle.internal.http.shared-connection-pool";
+
+    private final Map<PoolKey, PoolingHttpClientConnectionManager> pools = new ConcurrentHashMap<>();
+    private final List<PoolingHttpClientConnectionManager> retiredPools = new ArrayList<>();
+
+    public static boolean isEnabled() {
+        return Boolean.getBoolean(SHARED_CONNECTION_POOL_PROPERTY);
+    }
+
+    /**
+     * Returns the connection manager to use for a client with the given settings.
+     * The connection manager is owned by this object, and should not be shut down by the client.
+     */
+    HttpClientConnectionManager getConnectionManager(HttpSettings settings, HttpClientConfigurer configurer) {
+        retireStalePools();
+        PoolKey key = new PoolKey(settings, configurer);
+        PoolingHttpClientConnectionManager connectionManager = pools.computeIfAbsent(key, k -> configurer.createConnectionManager());
+        // Clients sharing a pool do not run their own idle connection eviction, so clean up here instead
+        connectionManager.closeExpiredConnections();
+        connectionManager.closeIdleConnections(settings.getTimeoutSettings().getIdleConnectionTimeoutMs(), TimeUnit.MILLISECONDS);
+        return connectionManager;
+    }
+
+    /**
+     * Stops using the pools whose SSL context has been garbage collected. Clients may still be using such a pool, so it is only shut down at the end of the session.
+     */
+    private void retireStalePools() {
+        pools.entrySet().removeIf(entry -> {
+            if (!entry.getKey().isStale()) {
+                return false;
+            }
+            PoolingHttpClientConnectionManager connectionManager = entry.getValue();
+            connectionManager.closeIdleConnections(0, TimeUnit.MILLISECONDS);
+            synchronized (retiredPools) {
+                retiredPools.add(connectionManager);
+            }
+            return true;
+        });
+    }
+
+    @Override
+    public void beforeComplete() {
+        // Clients are owned by the builds of the session, so none of them use the pools any more
+        close();
+    }
+
+    @Override
+    public void close() {
+        List<PoolingHttpClientConnectionManager> connectionManagers = new ArrayList<>();
+        for (Iterator<PoolingHttpClientConnectionManager> iterator = pools.values().iterator(); iterator.hasNext(); ) {
+            connectionManagers.add(iterator.next());
+            iterator.remove();
+        }
+        synchronized (retiredPools) {
+            connectionManagers.addAll(retiredPools);
+            retiredPools.clear();
+        }
+        for (PoolingHttpClientConnectionManager connectionManager : connectionManagers) {
+            connectionManager.shutdown();
+        }
+    }
+
+    private static class PoolKey {
+        // The connection manager only references the socket factory of the SSL context, so this does not keep the context alive either
+        private final WeakReference<SSLContext> sslContext;
+        private final int sslContextHashCode;
+        private final HostnameVerifier hostnameVerifier;
+        private final List<String> sslProtocols;
+        private final int maxConnTotal;
+        private final int maxConnPerRoute;
+        private final int socketTimeoutMs;
+        private final int idleConnectionTimeoutMs;
+
+        PoolKey(HttpSettings settings, HttpClientConfigurer configurer) {
+            SSLContext sslContext = settings.getSslContextFactory().createSslContext();
+            this.sslContext = new WeakReference<>(sslContext);
+            this.sslContextHashCode = System.identityHashCode(sslContext);
+            this.hostnameVerifier = settings.getHostnameVerifier();
+            this.sslProtocols = ImmutableList.copyOf(configurer.supportedTlsVersions());
+            this.maxConnTotal = settings.getMaxConnTotal();
+            this.maxConnPerRoute = settings.getMaxConnPerRoute();
+            this.socketTimeoutMs = settings.getTimeoutSettings().getSocketTimeoutMs();
+            this.idleConnectionTimeoutMs = settings.getTimeoutSettings().getIdleConnectionTimeoutMs();
+        }
+
+        boolean isStale() {
+            return sslContext.get() == null;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            PoolKey poolKey = (PoolKey) o;
+            SSLContext sslContext = this.sslContext.get();
+            return sslContext != null
+                && sslContext == poolKey.sslContext.get()
+                && maxConnTotal == poolKey.maxConnTotal
+                && maxConnPerRoute == poolKey.maxConnPerRoute
+                && socketTimeoutMs == poolKey.socketTimeoutMs
+                && idleConnectionTimeoutMs == poolKey.idleConnectionTimeoutMs
+                && hostnameVerifier == poolKey.hostnameVerifier
+                && sslProtocols.equals(poolKey.sslProtocols);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(sslContextHashCode, System.identityHashCode(hostnameVerifier), sslProtocols, maxConnTotal, maxConnPerRoute, socketTimeoutMs, idleConnectionTimeoutMs);
+        }
+    }
+}
@@ -40,10 +40,12 @@ public class HttpConnectorFactory implements ResourceConnectorFactory {
 
     private final SslContextFactory sslContextFactory;
     private final HttpClientHelper.Factory httpClientHelperFactory;
+    private final HttpDirectoryListingCache directoryListingCache;
 
-    public HttpConnectorFactory(SslContextFactory sslContextFactory, HttpClientHelper.Factory httpClientHelperFactory) {
+    public HttpConnectorFactory(SslContextFactory sslContextFactory, HttpClientHelper.Factory httpClientHelperFactory, HttpDirectoryListingCache directoryListingCache) {
         this.sslContextFactory = sslContextFactory;
         this.httpClientHelperFactory = httpClientHelperFactory;
+        this.directoryListingCache = directoryListingCache;
     }
 
     @Override
@@ -65,7 +67,7 @@ public ExternalResourceConnector createResourceConnector(ResourceConnectorSpecif
             .build()
         );
         HttpResourceAccessor accessor = new HttpResourceAccessor(http);
-        HttpResourceLister lister = new HttpResourceLister(accessor);
+        HttpResourceLister lister = new HttpResourceLister(accessor, directoryListingCache);
         HttpResourceUploader uploader = new HttpResourceUploader(http);
         return new DefaultExternalResourceConnector(accessor, lister, uploader);
     }
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.resource.transport.http;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+
+import javax.annotation.Nullable;
+import java.net.URI;
+import java.util.List;
+
+/**
+ * Keeps the last directory listing received for a URI, along with the validators the server sent with it.
+ *
+ * <p>A listing is only requested when the version listing cached for a module has expired, or when the build refreshes dependencies.
+ * The validators let the next request for the same directory be made conditional, so that an unchanged listing is confirmed with
+ * a {@code 304 Not Modified} response instead of being downloaded and parsed again.</p>
+ */
+public class HttpDirectoryListingCache {
+    private static final int MAX_LISTINGS = 10000;
+
+    private final Cache<URI, Listing> listings = CacheBuilder.newBuilder()
+        .maximumSize(MAX_LISTINGS)
+        .softValues()
+        .build();
+
+    @Nullable
+    Listing get(URI directory) {
+        return listings.getIfPresent(directory);
+    }
+
+    void store(URI directory, @Nullable String etag, @Nullable String lastModified, List<String> entries) {
+        if (etag == null && lastModified == null) {
+            // Nothing to revalidate with
+            listings.invalidate(directory);
+            return;
+        }
+        listings.put(directory, new Listing(etag, lastModified, ImmutableList.copyOf(entries)));
+    }
+
+    void remove(URI directory) {
+        listings.invalidate(directory);
+    }
+
+    static class Listing {
+        @Nullable
+        private final String etag;
+        @Nullable
+        private final String lastModified;
+        private final ImmutableList<String> entries;
+
+        Listing(@Nullable String etag, @Nullable String lastModified, ImmutableList<String> entries) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.entries = entries;
+        }
+
+        @Nullable
+        String getEtag() {
+            return etag;
+        }
+
+        @Nullable
+        String getLastModified() {
+            return lastModified;
+        }
+
+        List<String> getEntries() {
+            return entries;
+        }
+    }
+}
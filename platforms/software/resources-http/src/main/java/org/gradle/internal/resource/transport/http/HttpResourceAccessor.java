@@ -46,6 +46,18 @@ public HttpResponseResource openResource(final ExternalResourceName location, bo
         return wrapResponse(location.getUri(), response);
     }
 
+    /**
+     * Same as {@link #openResource(ExternalResourceName, boolean)}, except that the request is conditional on the given validators.
+     * Use {@link HttpResponseResource#wasNotModified()} to find out whether the resource still matches them, in which case the response has no content.
+     */
+    public HttpResponseResource openConditionalResource(final ExternalResourceName location, boolean revalidate, @Nullable String etag, @Nullable String lastModified) {
+        String uri = location.getUri().toString();
+        LOGGER.debug("Constructing conditional external resource: {}", location);
+
+        HttpClientResponse response = http.performConditionalGet(uri, revalidate, etag, lastModified);
+        return wrapResponse(location.getUri(), response);
+    }
+
     /**
      * Same as #getResource except that it always gives access to the response body,
      * irrespective of the returned HTTP status code. Never returns {@code null}.
@@ -16,32 +16,82 @@
 
 package org.gradle.internal.resource.transport.http;
 
+import org.apache.http.HttpHeaders;
 import org.gradle.api.resources.ResourceException;
 import org.gradle.internal.resource.ExternalResourceName;
+import org.gradle.internal.resource.ResourceExceptions;
+import org.gradle.internal.resource.metadata.ExternalResourceMetaData;
 import org.gradle.internal.resource.transfer.ExternalResourceLister;
 
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
 import java.util.List;
 
 public class HttpResourceLister implements ExternalResourceLister {
     private final HttpResourceAccessor accessor;
+    @Nullable
+    private final HttpDirectoryListingCache listingCache;
 
     public HttpResourceLister(HttpResourceAccessor accessor) {
+        this(accessor, null);
+    }
+
+    public HttpResourceLister(HttpResourceAccessor accessor, @Nullable HttpDirectoryListingCache listingCache) {
         this.accessor = accessor;
+        this.listingCache = listingCache;
     }
 
     @Override
     public List<String> list(final ExternalResourceName directory) {
+        if (listingCache != null) {
+            return listConditionally(directory, listingCache);
+        }
         return accessor.withContent(directory, true, (inputStream, metaData) -> {
             if (metaData.wasMissing()) {
                 return null;
             }
-            String contentType = metaData.getContentType();
-            ApacheDirectoryListingParser directoryListingParser = new ApacheDirectoryListingParser();
-            try {
-                return directoryListingParser.parse(directory.getUri(), inputStream, contentType);
-            } catch (Exception e) {
-                throw new ResourceException(directory.getUri(), String.format("Unable to parse HTTP directory listing for '%s'.", directory.getUri()), e);
-            }
+            return parse(directory, inputStream, metaData);
         });
     }
+
+    @Nullable
+    private List<String> listConditionally(ExternalResourceName directory, HttpDirectoryListingCache listingCache) {
+        URI uri = directory.getUri();
+        HttpDirectoryListingCache.Listing previous = listingCache.get(uri);
+        HttpResponseResource response = previous == null
+            ? accessor.openConditionalResource(directory, true, null, null)
+            : accessor.openConditionalResource(directory, true, previous.getEtag(), previous.getLastModified());
+        try {
+            ExternalResourceMetaData metaData = response.getMetaData();
+            if (metaData.wasMissing()) {
+                listingCache.remove(uri);
+                return null;
+            }
+            if (previous != null && response.wasNotModified()) {
+                return previous.getEntries();
+            }
+            List<String> entries;
+            try (InputStream inputStream = response.openStream()) {
+                entries = parse(directory, inputStream, metaData);
+            } catch (IOException e) {
+                throw ResourceExceptions.getFailed(uri, e);
+            }
+            listingCache.store(uri, metaData.getEtag(), response.getHeaderValue(HttpHeaders.LAST_MODIFIED), entries);
+            return entries;
+        } finally {
+            response.close();
+        }
+    }
+
+    private static List<String> parse(ExternalResourceName directory, InputStream inputStream, ExternalResourceMetaData metaData) {
+        String contentType = metaData.getContentType();
+        ApacheDirectoryListingParser directoryListingParser = new ApacheDirectoryListingParser();
+        try {
+            return directoryListingParser.parse(directory.getUri(), inputStream, contentType);
+        } catch (Exception e) {
+            throw new ResourceException(directory.getUri(), String.format("Unable to parse HTTP directory listing for '%s'.", directory.getUri()), e);
+        }
+    }
 }
@@ -24,6 +24,7 @@
 import org.gradle.internal.authentication.DefaultBasicAuthentication;
 import org.gradle.internal.authentication.DefaultDigestAuthentication;
 import org.gradle.internal.authentication.DefaultHttpHeaderAuthentication;
+import org.gradle.internal.event.ListenerManager;
 import org.gradle.internal.resource.connector.ResourceConnectorFactory;
 import org.gradle.internal.service.ServiceRegistration;
 import org.gradle.internal.service.scopes.AbstractPluginServiceRegistry;
@@ -44,12 +45,25 @@ SslContextFactory createSslContextFactory() {
             return new DefaultSslContextFactory();
         }
 
-        HttpClientHelper.Factory createHttpClientHelperFactory(DocumentationRegistry documentationRegistry) {
+        HttpConnectionPools createHttpConnectionPools(ListenerManager listenerManager) {
+            HttpConnectionPools connectionPools = new HttpConnectionPools();
+            listenerManager.addListener(connectionPools);
+            return connectionPools;
+        }
+
+        HttpClientHelper.Factory createHttpClientHelperFactory(DocumentationRegistry documentationRegistry, HttpConnectionPools connectionPools) {
+            if (HttpConnectionPools.isEnabled()) {
+                return HttpClientHelper.Factory.createFactory(documentationRegistry, connectionPools);
+            }
             return HttpClientHelper.Factory.createFactory(documentationRegistry);
         }
 
-        ResourceConnectorFactory createHttpConnectorFactory(SslContextFactory sslContextFactory, HttpClientHelper.Factory httpClientHelperFactory) {
-            return new HttpConnectorFactory(sslContextFactory, httpClientHelperFactory);
+        HttpDirectoryListingCache createHttpDirectoryListingCache() {
+            return new HttpDirectoryListingCache();
+        }
+
+        ResourceConnectorFactory createHttpConnectorFactory(SslContextFactory sslContextFactory, HttpClientHelper.Factory httpClientHelperFactory, HttpDirectoryListingCache directoryListingCache) {
+            return new HttpConnectorFactory(sslContextFactory, httpClientHelperFactory, directoryListingCache);
         }
     }
 
@@ -65,6 +65,10 @@ public int getStatusCode() {
         return response.getStatusLine().getStatusCode();
     }
 
+    public boolean wasNotModified() {
+        return response.wasNotModified();
+    }
+
     public Date getLastModified() {
         String responseHeader = response.getHeader(HttpHeaders.LAST_MODIFIED);
         if (responseHeader == null) {
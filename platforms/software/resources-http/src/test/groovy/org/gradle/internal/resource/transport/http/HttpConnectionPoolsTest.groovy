@@ -0,0 +1,122 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.resource.transport.http
+
+import org.gradle.api.internal.DocumentationRegistry
+import org.gradle.test.fixtures.server.http.HttpServer
+import org.junit.Rule
+import spock.lang.Specification
+
+class HttpConnectionPoolsTest extends Specification {
+    @Rule HttpServer httpServer = new HttpServer()
+
+    def sslContextFactory = new DefaultSslContextFactory()
+    def pools = new HttpConnectionPools()
+
+    def cleanup() {
+        pools.close()
+    }
+
+    def "clients with the same connection settings share a connection pool"() {
+        def settings1 = settings()
+        def settings2 = settings()
+
+        expect:
+        pools.getConnectionManager(settings1, new HttpClientConfigurer(settings1)).is(pools.getConnectionManager(settings2, new HttpClientConfigurer(settings2)))
+    }
+
+    def "clients with different connection settings do not share a connection pool"() {
+        def settings = settings()
+        def untrusted = DefaultHttpSettings.builder()
+            .withAuthenticationSettings([])
+            .withRedirectVerifier({})
+            .allowUntrustedConnections()
+            .build()
+        def limited = DefaultHttpSettings.builder()
+            .withAuthenticationSettings([])
+            .withSslContextFactory(sslContextFactory)
+            .withRedirectVerifier({})
+            .maxConnPerRoute(2)
+            .build()
+
+        when:
+        def connectionManager = pools.getConnectionManager(settings, new HttpClientConfigurer(settings))
+
+        then:
+        !connectionManager.is(pools.getConnectionManager(untrusted, new HttpClientConfigurer(untrusted)))
+        !connectionManager.is(pools.getConnectionManager(limited, new HttpClientConfigurer(limited)))
+    }
+
+    def "clients reuse connections opened by other clients"() {
+        def settings = settings()
+        def client1 = new HttpClientHelper(new DocumentationRegistry(), settings, pools)
+        def client2 = new HttpClientHelper(new DocumentationRegistry(), settings, pools)
+        httpServer.expectGetEmptyOk("/first")
+        httpServer.expectGetEmptyOk("/second")
+        httpServer.start()
+
+        when:
+        client1.performGet("${httpServer.uri}/first", false).close()
+        client2.performGet("${httpServer.uri}/second", false).close()
+
+        then:
+        def stats = pools.getConnectionManager(settings, new HttpClientConfigurer(settings)).totalStats
+        stats.available == 1
+        stats.leased == 0
+
+        when:
+        client1.close()
+        client2.close()
+
+        then:
+        // The pool outlives the clients
+        pools.getConnectionManager(settings, new HttpClientConfigurer(settings)).totalStats.available == 1
+    }
+
+    def "closes kept-alive connections when the build session completes"() {
+        def settings = settings()
+        def client = new HttpClientHelper(new DocumentationRegistry(), settings, pools)
+        httpServer.expectGetEmptyOk("/first")
+        httpServer.start()
+
+        when:
+        client.performGet("${httpServer.uri}/first", false).close()
+        def connectionManager = pools.getConnectionManager(settings, new HttpClientConfigurer(settings))
+
+        then:
+        connectionManager.totalStats.available == 1
+
+        when:
+        client.close()
+        pools.beforeComplete()
+
+        then:
+        connectionManager.totalStats.available == 0
+
+        and:
+        // The next session uses new pools
+        !pools.getConnectionManager(settings, new HttpClientConfigurer(settings)).is(connectionManager)
+    }
+
+    private HttpSettings settings() {
+        DefaultHttpSettings.builder()
+            .withAuthenticationSettings([])
+            .withSslContextFactory(sslContextFactory)
+            .withRedirectVerifier({})
+            .build()
+    }
+}
@@ -16,6 +16,10 @@
 
 package org.gradle.internal.resource.transport.http
 
+import org.apache.http.Header
+import org.apache.http.HttpEntity
+import org.apache.http.StatusLine
+import org.apache.http.client.methods.CloseableHttpResponse
 import org.gradle.internal.resource.ExternalResourceName
 import org.gradle.internal.resource.metadata.ExternalResourceMetaData
 import spock.lang.Specification
@@ -45,4 +49,84 @@ class HttpResourceListerTest extends Specification {
         expect:
         null == lister.list(new ExternalResourceName("http://testrepo"))
     }
+
+    def "revalidates a listing it has seen before"() {
+        def cache = new HttpDirectoryListingCache()
+        def lister = new HttpResourceLister(accessorMock, cache)
+        def name = new ExternalResourceName("http://testrepo/")
+
+        when:
+        def first = lister.list(name)
+
+        then:
+        1 * accessorMock.openConditionalResource(name, true, null, null) >> response(200, "<a href='1.0/'/><a href='2.0/'/>", '"v1"', "Wed, 01 May 2024 10:00:00 GMT")
+        first == ["1.0", "2.0"]
+
+        when:
+        def second = lister.list(name)
+
+        then:
+        1 * accessorMock.openConditionalResource(name, true, '"v1"', "Wed, 01 May 2024 10:00:00 GMT") >> response(304, null, '"v1"', null)
+        second == ["1.0", "2.0"]
+
+        when:
+        def third = lister.list(name)
+
+        then:
+        1 * accessorMock.openConditionalResource(name, true, '"v1"', "Wed, 01 May 2024 10:00:00 GMT") >> response(200, "<a href='1.0/'/><a href='2.0/'/><a href='3.0/'/>", '"v2"', null)
+        third == ["1.0", "2.0", "3.0"]
+
+        when:
+        lister.list(name)
+
+        then:
+        1 * accessorMock.openConditionalResource(name, true, '"v2"', null) >> response(304, null, '"v2"', null)
+    }
+
+    def "does not keep listings that cannot be revalidated"() {
+        def cache = new HttpDirectoryListingCache()
+        def lister = new HttpResourceLister(accessorMock, cache)
+        def name = new ExternalResourceName("http://testrepo/")
+
+        when:
+        lister.list(name)
+        lister.list(name)
+
+        then:
+        2 * accessorMock.openConditionalResource(name, true, null, null) >> { response(200, "<a href='1.0/'/>", null, null) }
+    }
+
+    def "forgets a listing when the directory is missing"() {
+        def cache = new HttpDirectoryListingCache()
+        def lister = new HttpResourceLister(accessorMock, cache)
+        def name = new ExternalResourceName("http://testrepo/")
+
+        when:
+        lister.list(name)
+        def missing = lister.list(name)
+        lister.list(name)
+
+        then:
+        2 * accessorMock.openConditionalResource(name, true, null, null) >> { response(200, "<a href='1.0/'/>", '"v1"', null) }
+        1 * accessorMock.openConditionalResource(name, true, '"v1"', null) >> response(404, null, null, null)
+        missing == null
+    }
+
+    private HttpResponseResource response(int statusCode, String content, String etag, String lastModified) {
+        def uri = new URI("http://testrepo/")
+        def headers = ["Content-Type": content == null ? null : "text/html", "ETag": etag, "Last-Modified": lastModified]
+        def httpResponse = Stub(CloseableHttpResponse) {
+            getStatusLine() >> Stub(StatusLine) {
+                getStatusCode() >> statusCode
+            }
+            getFirstHeader(_) >> { String header ->
+                def value = headers[header]
+                value == null ? null : Stub(Header) { getValue() >> value }
+            }
+            getEntity() >> (content == null ? null : Stub(HttpEntity) {
+                getContent() >> new ByteArrayInputStream(content.bytes)
+            })
+        }
+        return new HttpResponseResource("GET", uri, new HttpClientResponse("GET", uri, httpResponse))
+    }
 }
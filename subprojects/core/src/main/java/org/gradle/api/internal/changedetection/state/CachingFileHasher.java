@@ -91,10 +91,11 @@ private FileInfo snapshot(File file, long length, long timestamp) {
             }
         }
 
-        HashCode hash = delegate.hash(file);
+        long startTime = System.nanoTime();
+        HashCode hash = delegate.hash(file, length, timestamp);
+        statisticsCollector.reportFileHashed(length, System.nanoTime() - startTime);
         FileInfo info = new FileInfo(hash, length, timestamp);
         cache.put(stringInterner.intern(absolutePath), info);
-        statisticsCollector.reportFileHashed(length);
         return info;
     }
 
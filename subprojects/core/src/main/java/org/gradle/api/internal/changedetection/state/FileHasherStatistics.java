@@ -17,6 +17,7 @@
 package org.gradle.api.internal.changedetection.state;
 
 import java.text.MessageFormat;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
 public interface FileHasherStatistics {
@@ -30,18 +31,26 @@ public interface FileHasherStatistics {
      */
     long getHashedContentLength();
 
+    /**
+     * Time spent hashing files, in nanoseconds.
+     */
+    long getHashingTime();
+
     class Collector {
         private final AtomicLong hashedFileCount = new AtomicLong();
         private final AtomicLong hashedContentLength = new AtomicLong();
+        private final AtomicLong hashingTime = new AtomicLong();
 
-        public void reportFileHashed(long length) {
+        public void reportFileHashed(long length, long hashingTimeNanos) {
             hashedFileCount.incrementAndGet();
             hashedContentLength.addAndGet(length);
+            hashingTime.addAndGet(hashingTimeNanos);
         }
 
         public FileHasherStatistics collect() {
             long hashedFileCount = this.hashedFileCount.getAndSet(0);
             long hashedContentLength = this.hashedContentLength.getAndSet(0);
+            long hashingTime = this.hashingTime.getAndSet(0);
             return new FileHasherStatistics() {
                 @Override
                 public long getHashedFileCount() {
@@ -53,10 +62,15 @@ public long getHashedContentLength() {
                     return hashedContentLength;
                 }
 
+                @Override
+                public long getHashingTime() {
+                    return hashingTime;
+                }
+
                 @Override
                 public String toString() {
-                    return MessageFormat.format("Hashed {0,number,integer} files ({1,number,integer} bytes)",
-                        hashedFileCount, hashedContentLength
+                    return MessageFormat.format("Hashed {0,number,integer} files ({1,number,integer} bytes) in {2,number,integer} ms",
+                        hashedFileCount, hashedContentLength, TimeUnit.NANOSECONDS.toMillis(hashingTime)
                     );
                 }
             };
@@ -31,6 +31,7 @@
 import org.gradle.caching.internal.packaging.impl.DefaultTarPackerFileSystemSupport;
 import org.gradle.caching.internal.packaging.impl.FilePermissionAccess;
 import org.gradle.caching.internal.packaging.impl.GZipBuildCacheEntryPacker;
+import org.gradle.caching.internal.packaging.impl.IndexedBuildCacheEntryPacker;
 import org.gradle.caching.internal.packaging.impl.TarBuildCacheEntryPacker;
 import org.gradle.caching.internal.packaging.impl.TarPackerFileSystemSupport;
 import org.gradle.caching.internal.services.BuildCacheControllerFactory;
@@ -39,6 +40,7 @@
 import org.gradle.caching.local.internal.DirectoryBuildCacheFileStoreFactory;
 import org.gradle.caching.local.internal.DirectoryBuildCacheServiceFactory;
 import org.gradle.internal.SystemProperties;
+import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.file.BufferProvider;
 import org.gradle.internal.file.Deleter;
 import org.gradle.internal.file.FileException;
@@ -62,11 +64,19 @@
 
 import java.io.File;
 import java.util.List;
+import java.util.zip.Deflater;
 
 /**
  * Build scoped services for build cache usage.
  */
 public final class BuildCacheServices extends AbstractPluginServiceRegistry {
+    /**
+     * Selects the format of build cache entries, either {@code tar} (the default) for gzipped TAR files, or {@code indexed} for the format
+     * of {@link IndexedBuildCacheEntryPacker}. Entries in either format can be loaded with both settings.
+     */
+    private static final String ENTRY_FORMAT_PROPERTY = "org.gradle.caching.internal.entry-format";
+    private static final String COMPRESSION_LEVEL_PROPERTY = "org.gradle.caching.internal.compression-level";
+
     @Override
     public void registerGlobalServices(ServiceRegistration registration) {
         registration.addProvider(new Object() {
@@ -141,10 +151,26 @@ BuildCacheEntryPacker createResultPacker(
                 FileSystem fileSystem,
                 StreamHasher fileHasher,
                 StringInterner stringInterner,
-                BufferProvider bufferProvider
+                BufferProvider bufferProvider,
+                ExecutorFactory executorFactory,
+                StartParameterInternal startParameter
             ) {
-                return new GZipBuildCacheEntryPacker(
-                    new TarBuildCacheEntryPacker(fileSystemSupport, new FilePermissionsAccessAdapter(fileSystem), fileHasher, stringInterner, bufferProvider));
+                FilePermissionsAccessAdapter filePermissionAccess = new FilePermissionsAccessAdapter(fileSystem);
+                BuildCacheEntryPacker tarPacker = new GZipBuildCacheEntryPacker(
+                    new TarBuildCacheEntryPacker(fileSystemSupport, filePermissionAccess, fileHasher, stringInterner, bufferProvider));
+                String format = System.getProperty(ENTRY_FORMAT_PROPERTY, "tar");
+                switch (format) {
+                    case "tar":
+                        return tarPacker;
+                    case "indexed":
+                        int parallelism = startParameter.getMaxWorkerCount();
+                        int compressionLevel = Integer.getInteger(COMPRESSION_LEVEL_PROPERTY, Deflater.DEFAULT_COMPRESSION);
+                        return new IndexedBuildCacheEntryPacker(
+                            fileSystemSupport, filePermissionAccess, fileHasher, stringInterner, tarPacker,
+                            executorFactory.create("Build cache entry packer", parallelism), parallelism, compressionLevel);
+                    default:
+                        throw new IllegalArgumentException(String.format("Unknown build cache entry format '%s' set by system property '%s', supported formats are 'tar' and 'indexed'.", format, ENTRY_FORMAT_PROPERTY));
+                }
             }
 
             BuildCacheController createBuildCacheController(
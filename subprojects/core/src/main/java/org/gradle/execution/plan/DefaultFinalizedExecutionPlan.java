@@ -65,9 +65,25 @@ public int compare(Node node1, Node node2) {
             return NodeComparator.INSTANCE.compare(node1, node2);
         }
     };
+    /**
+     * Orders nodes with the longest critical path first, falling back to {@link #NODE_EXECUTION_ORDER} for nodes with the same critical path length.
+     */
+    public static final Comparator<Node> CRITICAL_PATH_EXECUTION_ORDER = new Comparator<Node>() {
+        @Override
+        public int compare(Node node1, Node node2) {
+            if (node1.isPriority() != node2.isPriority()) {
+                return NODE_EXECUTION_ORDER.compare(node1, node2);
+            }
+            int result = Long.compare(node2.getCriticalPathLength(), node1.getCriticalPathLength());
+            if (result != 0) {
+                return result;
+            }
+            return NODE_EXECUTION_ORDER.compare(node1, node2);
+        }
+    };
 
     private final Set<Node> waitingToStartNodes = new HashSet<>();
-    private final ExecutionQueue readyNodes = new ExecutionQueue();
+    private final ExecutionQueue readyNodes;
     private final List<Throwable> failures = new ArrayList<>();
     private final List<DiagnosticEvent> diagnosticEvents = new ArrayList<>();
     private final String displayName;
@@ -100,7 +116,8 @@ public DefaultFinalizedExecutionPlan(
         List<Node> scheduledNodes,
         boolean continueOnFailure,
         QueryableExecutionPlan contents,
-        Consumer<LocalTaskNode> completionHandler
+        Consumer<LocalTaskNode> completionHandler,
+        @Nullable NodeDurationEstimator durationEstimator
     ) {
         this.displayName = displayName;
         this.outputHierarchy = outputHierarchy;
@@ -110,6 +127,7 @@ public DefaultFinalizedExecutionPlan(
         this.continueOnFailure = continueOnFailure;
         this.contents = contents;
         this.completionHandler = completionHandler;
+        this.readyNodes = new ExecutionQueue(durationEstimator == null ? NODE_EXECUTION_ORDER : CRITICAL_PATH_EXECUTION_ORDER);
 
         SetMultimap<FinalizerGroup, FinalizerGroup> reachableGroups = LinkedHashMultimap.create();
         for (Node node : scheduledNodes) {
@@ -119,14 +137,35 @@ public DefaultFinalizedExecutionPlan(
         }
 
         for (int i = 0; i < scheduledNodes.size(); i++) {
+            scheduledNodes.get(i).setIndex(i);
+        }
+        if (durationEstimator != null) {
+            calculateCriticalPathLengths(scheduledNodes, durationEstimator);
+        }
+        // Hold the state lock, so that a monitored node cannot become ready while the nodes are being prepared
+        lockCoordinator.withStateLock(() -> {
+            for (Node node : scheduledNodes) {
+                node.prepareForExecution(this::monitoredNodeReady);
+                node.updateAllDependenciesComplete();
+                maybeNodeReady(node);
+                maybeWaitingForNewNode(node, "scheduled");
+            }
+        });
+        lockCoordinator.addLockReleaseListener(resourceUnlockListener);
+    }
+
+    /**
+     * Scheduled nodes are sorted so that each node comes after its dependencies, so visiting them in reverse order sees the nodes that depend on a node before the node itself.
+     */
+    private static void calculateCriticalPathLengths(List<Node> scheduledNodes, NodeDurationEstimator durationEstimator) {
+        for (int i = scheduledNodes.size() - 1; i >= 0; i--) {
             Node node = scheduledNodes.get(i);
-            node.setIndex(i);
-            node.prepareForExecution(this::monitoredNodeReady);
-            node.updateAllDependenciesComplete();
-            maybeNodeReady(node);
-            maybeWaitingForNewNode(node, "scheduled");
+            long longestDependentPath = 0;
+            for (Node predecessor : node.getDependencyPredecessors()) {
+                longestDependentPath = Math.max(longestDependentPath, predecessor.getCriticalPathLength());
+            }
+            node.setCriticalPathLength(longestDependentPath + durationEstimator.estimateDuration(node));
         }
-        lockCoordinator.addLockReleaseListener(resourceUnlockListener);
     }
 
     @Override
@@ -262,7 +301,9 @@ public Selection<Node> selectNext() {
                     // The node is ready to execute and its pre-execution nodes have not been scheduled, so do this now
                     node.visitPreExecutionNodes(prepareNode -> {
                         prepareNode.setIndex(node.getIndex());
+                        prepareNode.setCriticalPathLength(node.getCriticalPathLength());
                         prepareNode.require();
+                        prepareNode.prepareForExecution(this::monitoredNodeReady);
                         prepareNode.updateAllDependenciesComplete();
                         node.addDependencySuccessor(prepareNode);
                         addNodeToPlan(prepareNode);
@@ -567,6 +608,7 @@ public void finishedExecuting(Node node, @Nullable Throwable failure) {
                 LOGGER.debug("Node {} finished executing", node);
                 node.visitPostExecutionNodes(postNode -> {
                     postNode.setIndex(node.getIndex());
+                    postNode.setCriticalPathLength(node.getCriticalPathLength());
                     postNode.require();
                     postNode.updateAllDependenciesComplete();
                     addNodeToPlan(postNode);
@@ -679,12 +721,16 @@ public boolean allExecutionComplete() {
     }
 
     /**
-     * An ordered queue of nodes, sorted by {@link #NODE_EXECUTION_ORDER}.
+     * An ordered queue of nodes, sorted by {@link #NODE_EXECUTION_ORDER} or {@link #CRITICAL_PATH_EXECUTION_ORDER}.
      */
     static class ExecutionQueue {
-        private final Set<Node> nodes = new TreeSet<>(NODE_EXECUTION_ORDER);
+        private final Set<Node> nodes;
         private Iterator<Node> current;
 
+        ExecutionQueue(Comparator<Node> order) {
+            this.nodes = new TreeSet<>(order);
+        }
+
         public void clear() {
             nodes.clear();
             current = null;
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.plan;
+
+import org.gradle.api.internal.tasks.TaskStateInternal;
+import org.gradle.cache.FileLockManager;
+import org.gradle.cache.IndexedCache;
+import org.gradle.cache.IndexedCacheParameters;
+import org.gradle.cache.PersistentCache;
+import org.gradle.cache.internal.InMemoryCacheDecoratorFactory;
+import org.gradle.cache.scopes.ScopedCacheBuilderFactory;
+import org.gradle.internal.serialize.AbstractSerializer;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.Encoder;
+
+import java.io.Closeable;
+import java.util.Optional;
+
+import static org.gradle.cache.internal.filelock.LockOptionsBuilder.mode;
+
+/**
+ * Stores node duration statistics in the project cache directory, keyed by {@link Node#getDurationHistoryKey()}.
+ */
+public class DefaultNodeDurationHistory implements NodeDurationHistory, Closeable {
+    private static final long UNKNOWN_DURATION_ESTIMATE = 1;
+
+    private final PersistentCache cache;
+    private final IndexedCache<String, NodeDurationStatistics> store;
+
+    public DefaultNodeDurationHistory(ScopedCacheBuilderFactory cacheBuilderFactory, InMemoryCacheDecoratorFactory inMemoryCacheDecoratorFactory) {
+        this.cache = cacheBuilderFactory
+            .createCacheBuilder("nodeDurations")
+            .withDisplayName("node duration history cache")
+            .withLockOptions(mode(FileLockManager.LockMode.OnDemand)) // Lock on demand
+            .open();
+        this.store = cache.createIndexedCache(
+            IndexedCacheParameters.of("nodeDurations", String.class, new NodeDurationStatisticsSerializer())
+                .withCacheDecorator(inMemoryCacheDecoratorFactory.decorator(10000, false))
+        );
+    }
+
+    @Override
+    public Optional<NodeDurationStatistics> getDurationStatistics(Node node) {
+        String key = node.getDurationHistoryKey();
+        if (key == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(store.getIfPresent(key));
+    }
+
+    @Override
+    public void recordExecution(Node node, long durationMillis) {
+        String key = node.getDurationHistoryKey();
+        if (key == null || !didWork(node)) {
+            return;
+        }
+        NodeDurationStatistics previous = store.getIfPresent(key);
+        store.put(key, previous == null ? NodeDurationStatistics.of(durationMillis) : previous.update(durationMillis));
+    }
+
+    @Override
+    public long estimateDuration(Node node) {
+        return getDurationStatistics(node)
+            .map(statistics -> Math.max(UNKNOWN_DURATION_ESTIMATE, Math.round(statistics.getAverageMillis())))
+            .orElse(UNKNOWN_DURATION_ESTIMATE);
+    }
+
+    private static boolean didWork(Node node) {
+        if (node.isFailed()) {
+            return false;
+        }
+        if (node instanceof LocalTaskNode) {
+            // Up-to-date, from-cache and no-source executions say nothing about how long the task's actions take
+            TaskStateInternal state = ((LocalTaskNode) node).getTask().getState();
+            return state.getExecuted() && !state.getSkipped();
+        }
+        return true;
+    }
+
+    @Override
+    public void close() {
+        cache.close();
+    }
+
+    private static class NodeDurationStatisticsSerializer extends AbstractSerializer<NodeDurationStatistics> {
+        @Override
+        public NodeDurationStatistics read(Decoder decoder) throws Exception {
+            long executionCount = decoder.readSmallLong();
+            double averageMillis = Double.longBitsToDouble(decoder.readLong());
+            long minMillis = decoder.readSmallLong();
+            long maxMillis = decoder.readSmallLong();
+            long lastMillis = decoder.readSmallLong();
+            return new NodeDurationStatistics(executionCount, averageMillis, minMillis, maxMillis, lastMillis);
+        }
+
+        @Override
+        public void write(Encoder encoder, NodeDurationStatistics value) throws Exception {
+            encoder.writeSmallLong(value.getExecutionCount());
+            encoder.writeLong(Double.doubleToLongBits(value.getAverageMillis()));
+            encoder.writeSmallLong(value.getMinMillis());
+            encoder.writeSmallLong(value.getMaxMillis());
+            encoder.writeSmallLong(value.getLastMillis());
+        }
+    }
+}
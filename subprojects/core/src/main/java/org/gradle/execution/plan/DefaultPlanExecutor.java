@@ -678,6 +678,7 @@ public void report() {
                 LOGGER.lifecycle("average select time: " + format(stats -> stats.totalSelectTime));
                 LOGGER.lifecycle("average execute time: " + format(stats -> stats.totalExecuteTime));
                 LOGGER.lifecycle("average finish time: " + format(stats -> stats.totalMarkFinishedTime));
+                LOGGER.lifecycle("average idle time: " + format(stats -> stats.totalWaitTime));
             }
             completedWorkers.clear();
         }
@@ -697,6 +698,8 @@ private static class CollectingWorkerStats implements WorkerStats {
         long totalSelectTime;
         long totalExecuteTime;
         long totalMarkFinishedTime;
+        long startWaiting;
+        long totalWaitTime;
 
         public CollectingWorkerStats(CollectingExecutorStats owner, WorkerState delegate) {
             this.owner = owner;
@@ -750,12 +753,17 @@ public void finishMarkFinished() {
 
         @Override
         public void startWaitingForNextItem() {
+            startWaiting = System.nanoTime();
             delegate.startWaitingForNextItem();
         }
 
         @Override
         public void finishWaitingForNextItem() {
             delegate.finishWaitingForNextItem();
+            long duration = System.nanoTime() - startWaiting;
+            if (duration > 0) {
+                totalWaitTime += duration;
+            }
         }
     }
 }
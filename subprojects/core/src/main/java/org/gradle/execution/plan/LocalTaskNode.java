@@ -16,7 +16,9 @@
 
 package org.gradle.execution.plan;
 
+import org.gradle.api.Action;
 import org.gradle.api.file.FileCollection;
+import org.gradle.api.internal.GeneratedSubclasses;
 import org.gradle.api.internal.TaskInternal;
 import org.gradle.api.internal.file.FileCollectionFactory;
 import org.gradle.api.internal.project.ProjectInternal;
@@ -24,6 +26,7 @@
 import org.gradle.api.internal.tasks.properties.OutputFilePropertySpec;
 import org.gradle.api.internal.tasks.properties.TaskProperties;
 import org.gradle.api.tasks.TaskExecutionException;
+import org.gradle.internal.UncheckedException;
 import org.gradle.internal.execution.WorkValidationContext;
 import org.gradle.internal.properties.bean.PropertyWalker;
 import org.gradle.internal.resources.ResourceLock;
@@ -33,6 +36,8 @@
 import java.io.File;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
@@ -50,6 +55,8 @@ public class LocalTaskNode extends TaskNode {
     private List<? extends ResourceLock> resourceLocks;
     private TaskProperties taskProperties;
     private ProjectInternal taskProject;
+    @Nullable
+    private CompletableFuture<?> pendingState;
 
     public LocalTaskNode(TaskInternal task, WorkValidationContext workValidationContext, Function<LocalTaskNode, ResolveMutationsNode> resolveNodeFactory) {
         this.task = task;
@@ -65,6 +72,14 @@ public void isolated() {
         isolated = true;
     }
 
+    /**
+     * Indicates that the state of this task is still being loaded, and completes the given future once it has been loaded.
+     * Neither the task nor the resolution of its mutations is ready to execute until then. The future must be completed while holding the state lock.
+     */
+    public void stateLoadedBy(CompletableFuture<?> pendingState) {
+        this.pendingState = pendingState;
+    }
+
     public WorkValidationContext getValidationContext() {
         return validationContext;
     }
@@ -165,6 +180,13 @@ public String toString() {
         return task.getIdentityPath().toString();
     }
 
+    @Override
+    public String getDurationHistoryKey() {
+        // The fingerprints of the task inputs are only known once the task is about to execute, long after the estimate is needed
+        // to schedule the task, so the implementation type of the task stands in for them
+        return task.getIdentityPath() + " " + GeneratedSubclasses.unpackType(task).getName();
+    }
+
     private void addOutputFilesToMutations(Set<OutputFilePropertySpec> outputFilePropertySpecs) {
         final MutationInfo mutations = getMutationInfo();
         outputFilePropertySpecs.forEach(spec -> {
@@ -228,6 +250,7 @@ public void resolveMutations() {
         final FileCollectionFactory fileCollectionFactory = serviceRegistry.get(FileCollectionFactory.class);
         PropertyWalker propertyWalker = serviceRegistry.get(PropertyWalker.class);
         try {
+            assertStateLoaded();
             taskProperties = DefaultTaskProperties.resolve(propertyWalker, fileCollectionFactory, task);
 
             addOutputFilesToMutations(taskProperties.getOutputFileProperties());
@@ -254,6 +277,47 @@ public void resolveMutations() {
         }
     }
 
+    boolean isStatePending() {
+        return pendingState != null && !pendingState.isDone();
+    }
+
+    /**
+     * Runs the given action, while holding the state lock, once the state of this task has been loaded. Does nothing when the state is not pending.
+     */
+    void whenStateLoaded(Runnable action) {
+        if (isStatePending()) {
+            pendingState.whenComplete((state, failure) -> action.run());
+        }
+    }
+
+    private void assertStateLoaded() {
+        if (pendingState != null) {
+            if (!pendingState.isDone()) {
+                throw new IllegalStateException("The state of " + this + " has not been loaded yet.");
+            }
+            try {
+                pendingState.join();
+            } catch (CompletionException e) {
+                throw UncheckedException.throwAsUncheckedException(e.getCause());
+            }
+        }
+    }
+
+    @Override
+    public void prepareForExecution(Action<Node> monitor) {
+        whenStateLoaded(() -> monitor.execute(this));
+    }
+
+    @Override
+    protected DependenciesState doCheckDependenciesComplete() {
+        DependenciesState dependenciesState = super.doCheckDependenciesComplete();
+        if (dependenciesState == DependenciesState.COMPLETE_AND_SUCCESSFUL && isStatePending()) {
+            // This node is ready to execute once its state has been loaded
+            return DependenciesState.NOT_COMPLETE;
+        }
+        return dependenciesState;
+    }
+
     @Override
     public Set<Node> getLifecycleSuccessors() {
         return lifecycleSuccessors;
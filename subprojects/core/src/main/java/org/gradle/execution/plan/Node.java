@@ -68,6 +68,7 @@ public enum DependenciesState {
     private Throwable executionFailure;
     private boolean filtered;
     private int index;
+    private long criticalPathLength;
     private DependencyNodesSet dependencyNodes = DependencyNodesSet.EMPTY;
     private DependentNodesSet dependentNodes = DependentNodesSet.EMPTY;
     private final MutationInfo mutationInfo = new MutationInfo();
@@ -333,6 +334,17 @@ public void setIndex(int index) {
         this.index = index;
     }
 
+    /**
+     * Returns the estimated time to execute this node and the longest chain of nodes that depend on it, or 0 when not calculated for the current plan.
+     */
+    public long getCriticalPathLength() {
+        return criticalPathLength;
+    }
+
+    public void setCriticalPathLength(long criticalPathLength) {
+        this.criticalPathLength = criticalPathLength;
+    }
+
     /**
      * Mark this node as filtered from the current plan. The node will be considered complete and successful.
      */
@@ -349,6 +361,7 @@ public void filtered() {
     public void reset() {
         group = NodeGroup.DEFAULT_GROUP;
         index = 0;
+        criticalPathLength = 0;
         if (!isCannotRunInAnyPlan()) {
             filtered = false;
             dependenciesProcessed = false;
@@ -616,6 +629,14 @@ public ProjectInternal getOwningProject() {
         return null;
     }
 
+    /**
+     * Returns a key that identifies the work of this node across builds, used to record how long the node takes to execute. Returns null when durations are not recorded for this node.
+     */
+    @Nullable
+    public String getDurationHistoryKey() {
+        return null;
+    }
+
     /**
      * Returns the resources which should be locked before starting this node.
      *
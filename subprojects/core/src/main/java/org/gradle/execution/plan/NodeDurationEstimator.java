@@ -0,0 +1,32 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.plan;
+
+/**
+ * Estimates how long a node will take to execute, so that nodes on the critical path of a plan can be started first.
+ */
+public interface NodeDurationEstimator {
+    /**
+     * Treats every node as taking the same amount of time, so the critical path is the longest chain of dependent nodes.
+     */
+    NodeDurationEstimator UNIFORM = node -> 1;
+
+    /**
+     * Returns the estimated execution time of the given node in milliseconds. The value only needs to be meaningful relative to the estimates for other nodes.
+     */
+    long estimateDuration(Node node);
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.plan;
+
+import org.gradle.internal.service.scopes.Scopes;
+import org.gradle.internal.service.scopes.ServiceScope;
+
+import java.util.Optional;
+
+/**
+ * Remembers how long nodes took to execute in earlier builds of this project.
+ *
+ * <p>Durations are recorded for nodes that provide a {@link Node#getDurationHistoryKey()}, such as tasks and transform steps.
+ * The history can be used to estimate the remaining execution time of a plan, or to order nodes by their critical path.</p>
+ */
+@ServiceScope(Scopes.Build.class)
+public interface NodeDurationHistory extends NodeDurationEstimator {
+    /**
+     * Remembers nothing, used when the history is not needed by the build.
+     */
+    NodeDurationHistory NONE = new NodeDurationHistory() {
+        @Override
+        public Optional<NodeDurationStatistics> getDurationStatistics(Node node) {
+            return Optional.empty();
+        }
+
+        @Override
+        public void recordExecution(Node node, long durationMillis) {
+        }
+
+        @Override
+        public long estimateDuration(Node node) {
+            return UNIFORM.estimateDuration(node);
+        }
+    };
+
+    /**
+     * Returns the statistics recorded for the given node, if any.
+     */
+    Optional<NodeDurationStatistics> getDurationStatistics(Node node);
+
+    /**
+     * Records a successful execution of the given node. Nodes that did not do any work, for example because they were up-to-date, are ignored.
+     */
+    void recordExecution(Node node, long durationMillis);
+
+    /**
+     * Returns the rolling average duration of the node, or a nominal estimate of 1ms when nothing has been recorded for it.
+     */
+    @Override
+    long estimateDuration(Node node);
+}
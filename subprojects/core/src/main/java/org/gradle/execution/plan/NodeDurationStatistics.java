@@ -0,0 +1,86 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.plan;
+
+/**
+ * Rolling statistics about the execution time of a node, collected over earlier builds.
+ */
+public class NodeDurationStatistics {
+    /**
+     * The weight given to the latest execution when updating the rolling average.
+     */
+    static final double ROLLING_AVERAGE_WEIGHT = 0.3;
+
+    private final long executionCount;
+    private final double averageMillis;
+    private final long minMillis;
+    private final long maxMillis;
+    private final long lastMillis;
+
+    public NodeDurationStatistics(long executionCount, double averageMillis, long minMillis, long maxMillis, long lastMillis) {
+        this.executionCount = executionCount;
+        this.averageMillis = averageMillis;
+        this.minMillis = minMillis;
+        this.maxMillis = maxMillis;
+        this.lastMillis = lastMillis;
+    }
+
+    public static NodeDurationStatistics of(long durationMillis) {
+        return new NodeDurationStatistics(1, durationMillis, durationMillis, durationMillis, durationMillis);
+    }
+
+    /**
+     * Returns new statistics that include the given execution. Recent executions are weighted more heavily, so the average follows changes to the work over time.
+     */
+    public NodeDurationStatistics update(long durationMillis) {
+        return new NodeDurationStatistics(
+            executionCount + 1,
+            averageMillis + ROLLING_AVERAGE_WEIGHT * (durationMillis - averageMillis),
+            Math.min(minMillis, durationMillis),
+            Math.max(maxMillis, durationMillis),
+            durationMillis
+        );
+    }
+
+    public long getExecutionCount() {
+        return executionCount;
+    }
+
+    /**
+     * The exponentially weighted average of the recorded execution times.
+     */
+    public double getAverageMillis() {
+        return averageMillis;
+    }
+
+    public long getMinMillis() {
+        return minMillis;
+    }
+
+    public long getMaxMillis() {
+        return maxMillis;
+    }
+
+    public long getLastMillis() {
+        return lastMillis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d executions, average %.1fms, min %dms, max %dms, last %dms", executionCount, averageMillis, minMillis, maxMillis, lastMillis);
+    }
+}
@@ -16,6 +16,7 @@
 
 package org.gradle.execution.plan;
 
+import org.gradle.api.Action;
 import org.gradle.api.internal.project.ProjectInternal;
 import org.gradle.api.internal.project.taskfactory.TaskIdentity;
 import org.gradle.api.internal.tasks.NodeExecutionContext;
@@ -66,6 +67,21 @@ public boolean isCanCancel() {
     public void resolveDependencies(TaskDependencyResolver dependencyResolver) {
     }
 
+    @Override
+    public void prepareForExecution(Action<Node> monitor) {
+        node.whenStateLoaded(() -> monitor.execute(this));
+    }
+
+    @Override
+    protected DependenciesState doCheckDependenciesComplete() {
+        DependenciesState dependenciesState = super.doCheckDependenciesComplete();
+        if (dependenciesState == DependenciesState.COMPLETE_AND_SUCCESSFUL && node.isStatePending()) {
+            // The mutations of the task are resolved once its state has been loaded
+            return DependenciesState.NOT_COMPLETE;
+        }
+        return dependenciesState;
+    }
+
     @Nullable
     @Override
     public ResourceLock getProjectToLock() {
@@ -33,6 +33,7 @@
 import org.gradle.execution.ProjectExecutionServiceRegistry;
 import org.gradle.execution.plan.FinalizedExecutionPlan;
 import org.gradle.execution.plan.Node;
+import org.gradle.execution.plan.NodeDurationHistory;
 import org.gradle.execution.plan.NodeExecutor;
 import org.gradle.execution.plan.PlanExecutor;
 import org.gradle.execution.plan.TaskNode;
@@ -47,6 +48,8 @@
 import org.gradle.internal.operations.CurrentBuildOperationRef;
 import org.gradle.internal.operations.RunnableBuildOperation;
 import org.gradle.internal.service.ServiceRegistry;
+import org.gradle.internal.time.Time;
+import org.gradle.internal.time.Timer;
 import org.gradle.listener.ClosureBackedMethodInvocationDispatch;
 import org.gradle.util.Path;
 import org.slf4j.Logger;
@@ -65,6 +68,7 @@ public class DefaultTaskExecutionGraph implements TaskExecutionGraphInternal {
 
     private final PlanExecutor planExecutor;
     private final List<NodeExecutor> nodeExecutors;
+    private final NodeDurationHistory nodeDurationHistory;
     private final GradleInternal gradleInternal;
     private final ListenerBroadcast<TaskExecutionGraphListener> graphListeners;
     private final ListenerBroadcast<org.gradle.api.execution.TaskExecutionListener> taskListeners;
@@ -79,6 +83,7 @@ public class DefaultTaskExecutionGraph implements TaskExecutionGraphInternal {
     public DefaultTaskExecutionGraph(
         PlanExecutor planExecutor,
         List<NodeExecutor> nodeExecutors,
+        NodeDurationHistory nodeDurationHistory,
         BuildOperationExecutor buildOperationExecutor,
         ListenerBuildOperationDecorator listenerBuildOperationDecorator,
         GradleInternal gradleInternal,
@@ -89,6 +94,7 @@ public DefaultTaskExecutionGraph(
     ) {
         this.planExecutor = planExecutor;
         this.nodeExecutors = nodeExecutors;
+        this.nodeDurationHistory = nodeDurationHistory;
         this.buildOperationExecutor = buildOperationExecutor;
         this.listenerBuildOperationDecorator = listenerBuildOperationDecorator;
         this.gradleInternal = gradleInternal;
@@ -139,7 +145,7 @@ private ExecutionResult<Void> executeWithServices(ProjectExecutionServiceRegistr
             executionPlan.asWorkSource(),
             new BuildOperationAwareExecutionAction(
                 buildOperationExecutor.getCurrentOperation(),
-                new InvokeNodeExecutorsAction(nodeExecutors, projectExecutionServices)
+                new InvokeNodeExecutorsAction(nodeExecutors, nodeDurationHistory, projectExecutionServices)
             )
         );
     }
@@ -317,18 +323,22 @@ public void execute(Node node) {
 
     private static class InvokeNodeExecutorsAction implements Action<Node> {
         private final List<NodeExecutor> nodeExecutors;
+        private final NodeDurationHistory nodeDurationHistory;
         private final ProjectExecutionServiceRegistry projectExecutionServices;
 
-        public InvokeNodeExecutorsAction(List<NodeExecutor> nodeExecutors, ProjectExecutionServiceRegistry projectExecutionServices) {
+        public InvokeNodeExecutorsAction(List<NodeExecutor> nodeExecutors, NodeDurationHistory nodeDurationHistory, ProjectExecutionServiceRegistry projectExecutionServices) {
             this.nodeExecutors = nodeExecutors;
+            this.nodeDurationHistory = nodeDurationHistory;
             this.projectExecutionServices = projectExecutionServices;
         }
 
         @Override
         public void execute(Node node) {
             NodeExecutionContext context = projectExecutionServices.forProject(node.getOwningProject());
+            Timer timer = Time.startTimer();
             for (NodeExecutor nodeExecutor : nodeExecutors) {
                 if (nodeExecutor.execute(node, context)) {
+                    nodeDurationHistory.recordExecution(node, timer.getElapsedMillis());
                     return;
                 }
             }
@@ -47,6 +47,7 @@
 import org.gradle.execution.commandline.CommandLineTaskConfigurer;
 import org.gradle.execution.commandline.CommandLineTaskParser;
 import org.gradle.execution.plan.LocalTaskNodeExecutor;
+import org.gradle.execution.plan.NodeDurationHistory;
 import org.gradle.execution.plan.NodeExecutor;
 import org.gradle.execution.plan.PlanExecutor;
 import org.gradle.execution.plan.WorkNodeExecutor;
@@ -147,11 +148,13 @@ TaskExecutionGraphInternal createTaskExecutionGraph(
         ListenerBroadcast<org.gradle.api.execution.TaskExecutionListener> taskListeners,
         ListenerBroadcast<TaskExecutionGraphListener> graphListeners,
         ListenerManager listenerManager,
+        NodeDurationHistory nodeDurationHistory,
         ServiceRegistry gradleScopedServices
     ) {
         return new DefaultTaskExecutionGraph(
             planExecutor,
             nodeExecutors,
+            nodeDurationHistory,
             buildOperationExecutor,
             listenerBuildOperationDecorator,
             gradleInternal,
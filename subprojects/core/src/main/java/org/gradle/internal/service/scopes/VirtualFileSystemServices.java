@@ -20,6 +20,7 @@
 import net.rubygrapefruit.platform.NativeIntegrationUnavailableException;
 import net.rubygrapefruit.platform.file.FileSystems;
 import org.apache.tools.ant.DirectoryScanner;
+import org.gradle.StartParameter;
 import org.gradle.api.internal.DocumentationRegistry;
 import org.gradle.api.internal.cache.StringInterner;
 import org.gradle.api.internal.changedetection.state.BuildSessionScopeFileTimeStampInspector;
@@ -48,6 +49,7 @@
 import org.gradle.internal.buildoption.InternalFlag;
 import org.gradle.internal.buildoption.InternalOptions;
 import org.gradle.internal.classloader.ClasspathHasher;
+import org.gradle.internal.concurrent.Stoppable;
 import org.gradle.internal.event.ListenerManager;
 import org.gradle.internal.execution.FileCollectionFingerprinterRegistry;
 import org.gradle.internal.execution.FileCollectionSnapshotter;
@@ -68,6 +70,7 @@
 import org.gradle.internal.hash.DefaultFileHasher;
 import org.gradle.internal.hash.FileHasher;
 import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hashing;
 import org.gradle.internal.hash.StreamHasher;
 import org.gradle.internal.nativeintegration.NativeCapabilities;
 import org.gradle.internal.nativeintegration.filesystem.FileSystem;
@@ -97,8 +100,12 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import java.io.File;
+import java.util.Locale;
 import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.function.Predicate;
 
 import static org.gradle.internal.snapshot.CaseSensitivity.CASE_INSENSITIVE;
@@ -116,7 +123,23 @@ public class VirtualFileSystemServices extends AbstractPluginServiceRegistry {
     public static final InternalFlag VFS_DROP_PROPERTY = new InternalFlag("org.gradle.vfs.drop");
     private static final int DEFAULT_MAX_HIERARCHIES_TO_WATCH = 50;
     public static final IntegerInternalOption MAX_HIERARCHIES_TO_WATCH_PROPERTY = new IntegerInternalOption("org.gradle.vfs.watch.hierarchies.max", DEFAULT_MAX_HIERARCHIES_TO_WATCH);
+    /**
+     * Snapshots the subdirectories of a directory in parallel when set to {@code true}, using as many threads as the build may use workers.
+     */
+    private static final String PARALLEL_SNAPSHOTTING_PROPERTY = "org.gradle.vfs.snapshot.parallel";
     private static final int FILE_HASHER_MEMORY_CACHE_SIZE = 400000;
+    /**
+     * File hashes produced by different hash functions must not be mixed, so hashes not produced by the default function live in a separate indexed cache.
+     */
+    private static final String FILE_HASHES_CACHE_NAME = Hashing.fileContentFunction() == Hashing.defaultFunction()
+        ? "fileHashes"
+        : "fileHashes-" + Hashing.fileContentFunction().getAlgorithm().toLowerCase(Locale.ROOT);
+    /**
+     * Windows does not allow deleting or replacing a file while it is mapped, and mappings are only released on garbage collection, so files are never mapped there.
+     */
+    private static final long MEMORY_MAPPED_HASHING_THRESHOLD = OperatingSystem.current().isWindows()
+        ? Long.MAX_VALUE
+        : DefaultFileHasher.DEFAULT_MEMORY_MAPPED_THRESHOLD;
 
     public static boolean isDropVfs(InternalOptions options) {
         return options.getOption(VFS_DROP_PROPERTY).get();
@@ -166,7 +189,7 @@ FileHasher createCachingFileHasher(
             StreamHasher streamHasher,
             StringInterner stringInterner
         ) {
-            CachingFileHasher fileHasher = new CachingFileHasher(new DefaultFileHasher(streamHasher), fileStore, stringInterner, fileTimeStampInspector, "fileHashes", fileSystem, FILE_HASHER_MEMORY_CACHE_SIZE, statisticsCollector);
+            CachingFileHasher fileHasher = new CachingFileHasher(new DefaultFileHasher(streamHasher, MEMORY_MAPPED_HASHING_THRESHOLD), fileStore, stringInterner, fileTimeStampInspector, FILE_HASHES_CACHE_NAME, fileSystem, FILE_HASHER_MEMORY_CACHE_SIZE, statisticsCollector);
             fileTimeStampInspector.attach(fileHasher);
             return fileHasher;
         }
@@ -317,10 +340,14 @@ FileHasher createFileHasher(
             StringInterner stringInterner,
             FileHasherStatistics.Collector statisticsCollector
         ) {
-            CachingFileHasher localHasher = new CachingFileHasher(new DefaultFileHasher(streamHasher), cacheAccess, stringInterner, fileTimeStampInspector, "fileHashes", fileSystem, FILE_HASHER_MEMORY_CACHE_SIZE, statisticsCollector);
+            CachingFileHasher localHasher = new CachingFileHasher(new DefaultFileHasher(streamHasher, MEMORY_MAPPED_HASHING_THRESHOLD), cacheAccess, stringInterner, fileTimeStampInspector, FILE_HASHES_CACHE_NAME, fileSystem, FILE_HASHER_MEMORY_CACHE_SIZE, statisticsCollector);
             return new SplitFileHasher(globalHasher, localHasher, globalCacheLocations);
         }
 
+        SnapshottingPool createSnapshottingPool(StartParameter startParameter) {
+            return new SnapshottingPool(Boolean.getBoolean(PARALLEL_SNAPSHOTTING_PROPERTY) ? startParameter.getMaxWorkerCount() : 0);
+        }
+
         FileSystemAccess createFileSystemAccess(
             FileHasher hasher,
             ListenerManager listenerManager,
@@ -328,7 +355,8 @@ FileSystemAccess createFileSystemAccess(
             StringInterner stringInterner,
             VirtualFileSystem root,
             FileSystemAccess.WriteListener writeListener,
-            DirectorySnapshotterStatistics.Collector statisticsCollector
+            DirectorySnapshotterStatistics.Collector statisticsCollector,
+            SnapshottingPool snapshottingPool
         ) {
             DefaultFileSystemAccess buildSessionsScopedVirtualFileSystem = new DefaultFileSystemAccess(
                 hasher,
@@ -337,6 +365,7 @@ FileSystemAccess createFileSystemAccess(
                 root,
                 writeListener,
                 statisticsCollector,
+                snapshottingPool.getPool(),
                 DirectoryScanner.getDefaultExcludes()
             );
 
@@ -391,4 +420,38 @@ ResourceSnapshotterCacheService createResourceSnapshotterCacheService(
             return new SplitResourceSnapshotterCacheService(globalCache, localCache, globalCacheLocations);
         }
     }
+
+    /**
+     * The pool the subdirectories of a directory are snapshotted on in parallel, if enabled.
+     *
+     * The pool belongs to the build session, so it is sized after its maximum number of workers and stopped with it.
+     */
+    static class SnapshottingPool implements Stoppable {
+        @Nullable
+        private final ForkJoinPool pool;
+
+        SnapshottingPool(int parallelism) {
+            this.pool = parallelism > 0
+                ? new ForkJoinPool(parallelism, SnapshottingPool::newThread, null, false)
+                : null;
+        }
+
+        private static ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("File system snapshotting " + thread.getPoolIndex());
+            return thread;
+        }
+
+        @Nullable
+        ForkJoinPool getPool() {
+            return pool;
+        }
+
+        @Override
+        public void stop() {
+            if (pool != null) {
+                pool.shutdown();
+            }
+        }
+    }
 }
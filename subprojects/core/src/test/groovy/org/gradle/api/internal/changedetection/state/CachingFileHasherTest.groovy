@@ -60,13 +60,13 @@ class CachingFileHasherTest extends Specification {
         and:
         1 * timeStampInspector.timestampCanBeUsedToDetectFileChange(file.absolutePath, stat.lastModified) >> true
         1 * cache.getIfPresent(file.absolutePath) >> null
-        1 * target.hash(file) >> hash
+        1 * target.hash(file, stat.length, stat.lastModified) >> hash
         1 * cache.put(file.absolutePath, _) >> { String key, FileInfo fileInfo ->
             assert fileInfo.hash == hash
             assert fileInfo.length == stat.length
             assert fileInfo.timestamp == stat.lastModified
         }
-        1 * statisticsCollector.reportFileHashed(file.length())
+        1 * statisticsCollector.reportFileHashed(file.length(), _)
         0 * _
     }
 
@@ -82,13 +82,13 @@ class CachingFileHasherTest extends Specification {
         and:
         1 * timeStampInspector.timestampCanBeUsedToDetectFileChange(file.absolutePath, stat.lastModified) >> true
         1 * cache.getIfPresent(file.absolutePath) >> new FileInfo(oldHash, 1024, stat.lastModified)
-        1 * target.hash(file) >> hash
+        1 * target.hash(file, stat.length, stat.lastModified) >> hash
         1 * cache.put(file.absolutePath, _) >> { String key, FileInfo fileInfo ->
             assert fileInfo.hash == hash
             assert fileInfo.length == stat.length
             assert fileInfo.timestamp == stat.lastModified
         }
-        1 * statisticsCollector.reportFileHashed(file.length())
+        1 * statisticsCollector.reportFileHashed(file.length(), _)
         0 * _
     }
 
@@ -104,13 +104,13 @@ class CachingFileHasherTest extends Specification {
         and:
         1 * timeStampInspector.timestampCanBeUsedToDetectFileChange(file.absolutePath, stat.lastModified) >> true
         1 * cache.getIfPresent(file.absolutePath) >> new FileInfo(oldHash, file.length(), 124)
-        1 * target.hash(file) >> hash
+        1 * target.hash(file, stat.length, stat.lastModified) >> hash
         1 * cache.put(file.absolutePath, _) >> { String key, FileInfo fileInfo ->
             assert fileInfo.hash == hash
             assert fileInfo.length == stat.length
             assert fileInfo.timestamp == stat.lastModified
         }
-        1 * statisticsCollector.reportFileHashed(file.length())
+        1 * statisticsCollector.reportFileHashed(file.length(), _)
         0 * _
     }
 
@@ -140,13 +140,13 @@ class CachingFileHasherTest extends Specification {
 
         and:
         1 * timeStampInspector.timestampCanBeUsedToDetectFileChange(file.absolutePath, stat.lastModified) >> false
-        1 * target.hash(file) >> hash
+        1 * target.hash(file, stat.length, stat.lastModified) >> hash
         1 * cache.put(file.absolutePath, _) >> { String key, FileInfo fileInfo ->
             assert fileInfo.hash == hash
             assert fileInfo.length == stat.length
             assert fileInfo.timestamp == stat.lastModified
         }
-        1 * statisticsCollector.reportFileHashed(file.length())
+        1 * statisticsCollector.reportFileHashed(file.length(), _)
         0 * _
     }
 
@@ -164,13 +164,13 @@ class CachingFileHasherTest extends Specification {
         and:
         1 * timeStampInspector.timestampCanBeUsedToDetectFileChange(file.absolutePath, lastModified) >> true
         1 * cache.getIfPresent(file.absolutePath) >> null
-        1 * target.hash(file) >> hash
+        1 * target.hash(file, length, lastModified) >> hash
         1 * cache.put(file.absolutePath, _) >> { String key, FileInfo fileInfo ->
             assert fileInfo.hash == hash
             assert fileInfo.length == length
             assert fileInfo.timestamp == lastModified
         }
-        1 * statisticsCollector.reportFileHashed(length)
+        1 * statisticsCollector.reportFileHashed(length, _)
         0 * _
     }
 }
@@ -43,6 +43,7 @@ import org.gradle.util.internal.ToBeImplemented
 import spock.lang.Issue
 
 import javax.annotation.Nullable
+import java.util.concurrent.CompletableFuture
 import java.util.function.Consumer
 
 import static org.gradle.internal.snapshot.CaseSensitivity.CASE_SENSITIVE
@@ -1078,6 +1079,38 @@ class DefaultExecutionPlanParallelTest extends AbstractExecutionPlanSpec {
 
     }
 
+    def "starts tasks on the longest dependency chain first when critical path ordering is enabled"() {
+        given:
+        def dependencyResolver = new TaskDependencyResolver([new TaskNodeDependencyResolver(taskNodeFactory)])
+        executionPlan = new DefaultExecutionPlan(Path.ROOT.toString(), taskNodeFactory, new OrdinalGroupFactory(), dependencyResolver, accessHierarchies.outputHierarchy, accessHierarchies.destroyableHierarchy, coordinator, NodeDurationEstimator.UNIFORM)
+        Task a = task("a", type: Async)
+        Task b = task("b", type: Async)
+        Task c = task("c", type: Async, dependsOn: [b])
+        Task d = task("d", type: Async, dependsOn: [c])
+
+        when:
+        addToGraphAndPopulate(a, d)
+
+        then:
+        selectNextTask() == b
+        selectNextTask() == a
+    }
+
+    def "starts tasks in plan order when critical path ordering is not enabled"() {
+        given:
+        Task a = task("a", type: Async)
+        Task b = task("b", type: Async)
+        Task c = task("c", type: Async, dependsOn: [b])
+        Task d = task("d", type: Async, dependsOn: [c])
+
+        when:
+        addToGraphAndPopulate(a, d)
+
+        then:
+        selectNextTask() == a
+        selectNextTask() == b
+    }
+
     def "two tasks that have the same file in outputs are not executed in parallel"() {
         def sharedFile = file("output")
 
@@ -2061,6 +2094,85 @@ class DefaultExecutionPlanParallelTest extends AbstractExecutionPlanSpec {
         continueOnFailure << [false, true]
     }
 
+    def "task is not selected until its state has been loaded"() {
+        given:
+        def first = task("first", type: Async)
+        def second = task("second", type: Async)
+        def state = new CompletableFuture<Void>()
+
+        when:
+        addToGraph(first, second)
+        taskNodeFactory.getNode(first).stateLoadedBy(state)
+        populateGraph()
+        def secondNode = selectNextTaskNode()
+
+        then:
+        secondNode.task == second
+        assertNoTaskReadyToStart()
+
+        when:
+        coordinator.withStateLock {
+            state.complete(null)
+        }
+        def firstNode = selectNextTaskNode()
+
+        then:
+        firstNode.task == first
+        assertNoMoreWorkToStartButNotAllComplete()
+
+        when:
+        finishedExecuting(firstNode)
+        finishedExecuting(secondNode)
+
+        then:
+        assertAllWorkComplete()
+    }
+
+    def "task is selected when its state has been loaded before the plan is finalized"() {
+        given:
+        def task = task("task", type: Async)
+
+        when:
+        addToGraph(task)
+        taskNodeFactory.getNode(task).stateLoadedBy(CompletableFuture.completedFuture(null))
+        populateGraph()
+
+        then:
+        assertTaskReadyAndNoMoreToStart(task)
+        assertAllWorkComplete()
+    }
+
+    def "mutations of a task are not resolved until its state has been loaded"() {
+        given:
+        def task = task("task", type: Async)
+        def state = new CompletableFuture<Void>()
+        LocalTaskNode taskNode = taskNodeFactory.getOrCreateNode(task)
+        taskNode.stateLoadedBy(state)
+        def prepareNode = taskNode.prepareNode
+        def readyNodes = []
+
+        when:
+        prepareNode.require()
+        coordinator.withStateLock {
+            prepareNode.prepareForExecution { readyNodes << it }
+            prepareNode.updateAllDependenciesComplete()
+        }
+
+        then:
+        !prepareNode.allDependenciesComplete()
+        readyNodes.empty
+
+        when:
+        coordinator.withStateLock {
+            state.complete(null)
+        }
+        prepareNode.updateAllDependenciesComplete()
+
+        then:
+        readyNodes == [prepareNode]
+        prepareNode.allDependenciesComplete()
+    }
+
     private void tasksAreNotExecutedInParallel(Task first, Task second) {
         addToGraphAndPopulate(first, second)
 
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.plan
+
+import org.gradle.api.internal.TaskInternal
+import org.gradle.api.internal.tasks.TaskStateInternal
+import org.gradle.cache.CacheDecorator
+import org.gradle.cache.internal.DefaultInMemoryCacheDecoratorFactory
+import org.gradle.cache.internal.DefaultUnscopedCacheBuilderFactory
+import org.gradle.cache.internal.scopes.DefaultCacheScopeMapping
+import org.gradle.cache.internal.scopes.DefaultGlobalScopedCacheBuilderFactory
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.testfixtures.internal.TestInMemoryCacheFactory
+import org.gradle.util.GradleVersion
+import org.junit.Rule
+import spock.lang.Specification
+
+class DefaultNodeDurationHistoryTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider(getClass())
+
+    def cachesDir = tmpDir.createDir("caches")
+    def cacheRepository = new DefaultUnscopedCacheBuilderFactory(new DefaultCacheScopeMapping(cachesDir, GradleVersion.current()), new TestInMemoryCacheFactory())
+    def cacheBuilderFactory = new DefaultGlobalScopedCacheBuilderFactory(cachesDir, cacheRepository)
+    def cacheDecoratorFactory = Stub(DefaultInMemoryCacheDecoratorFactory) {
+        decorator(_, _) >> Stub(CacheDecorator) {
+            decorate(_, _, _, _, _) >> { cacheId, cacheName, persistentCache, crossProcessCacheAccess, asyncCacheAccess ->
+                persistentCache
+            }
+        }
+    }
+    def history = new DefaultNodeDurationHistory(cacheBuilderFactory, cacheDecoratorFactory)
+
+    def cleanup() {
+        history.close()
+    }
+
+    def "keeps rolling statistics of executed tasks"() {
+        def node = taskNode(":a")
+
+        when:
+        history.recordExecution(node, 100)
+        history.recordExecution(node, 200)
+        def statistics = history.getDurationStatistics(node).get()
+
+        then:
+        statistics.executionCount == 2
+        statistics.averageMillis == 130d
+        statistics.minMillis == 100
+        statistics.maxMillis == 200
+        statistics.lastMillis == 200
+        history.estimateDuration(node) == 130
+    }
+
+    def "statistics are available to later builds"() {
+        def node = taskNode(":a")
+        history.recordExecution(node, 100)
+        history.close()
+
+        when:
+        history = new DefaultNodeDurationHistory(cacheBuilderFactory, cacheDecoratorFactory)
+
+        then:
+        history.getDurationStatistics(node).get().averageMillis == 100d
+    }
+
+    def "does not record tasks that did no work"() {
+        def node = taskNode(":a", true)
+
+        when:
+        history.recordExecution(node, 100)
+
+        then:
+        !history.getDurationStatistics(node).present
+    }
+
+    def "tasks with the same path but a different type have separate statistics"() {
+        def node = taskNode(":a", false, "Copy")
+        def otherNode = taskNode(":a", false, "Sync")
+
+        when:
+        history.recordExecution(node, 100)
+
+        then:
+        history.getDurationStatistics(node).present
+        !history.getDurationStatistics(otherNode).present
+    }
+
+    def "uses nominal estimate for nodes without history"() {
+        expect:
+        history.estimateDuration(taskNode(":a")) == 1
+        history.estimateDuration(Stub(Node)) == 1
+    }
+
+    def "ignores nodes without a duration history key"() {
+        def node = Stub(Node)
+
+        when:
+        history.recordExecution(node, 100)
+
+        then:
+        !history.getDurationStatistics(node).present
+    }
+
+    LocalTaskNode taskNode(String path, boolean skipped = false, String type = "Copy") {
+        def state = Stub(TaskStateInternal) {
+            getExecuted() >> true
+            getSkipped() >> skipped
+        }
+        def task = Stub(TaskInternal) {
+            getState() >> state
+        }
+        return Stub(LocalTaskNode) {
+            getTask() >> task
+            getDurationHistoryKey() >> "$path $type".toString()
+        }
+    }
+}
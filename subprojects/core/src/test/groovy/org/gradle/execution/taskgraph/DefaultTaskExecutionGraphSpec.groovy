@@ -48,6 +48,7 @@ import org.gradle.execution.plan.ExecutionNodeAccessHierarchy
 import org.gradle.execution.plan.FinalizedExecutionPlan
 import org.gradle.execution.plan.LocalTaskNode
 import org.gradle.execution.plan.Node
+import org.gradle.execution.plan.NodeDurationHistory
 import org.gradle.execution.plan.NodeExecutor
 import org.gradle.execution.plan.OrdinalGroupFactory
 import org.gradle.execution.plan.PlanExecutor
@@ -78,6 +79,7 @@ class DefaultTaskExecutionGraphSpec extends AbstractExecutionPlanSpec {
     def taskExecutionListeners = listenerManager.createAnonymousBroadcaster(TaskExecutionListener.class)
     def listenerRegistrationListener = listenerManager.getBroadcaster(BuildScopeListenerRegistrationListener.class)
     def nodeExecutor = Mock(NodeExecutor)
+    def nodeDurationHistory = Mock(NodeDurationHistory)
     def buildOperationExecutor = new TestBuildOperationExecutor()
     def listenerBuildOperationDecorator = new TestListenerBuildOperationDecorator()
     def parallelismConfiguration = new DefaultParallelismConfiguration(true, 1)
@@ -91,6 +93,7 @@ class DefaultTaskExecutionGraphSpec extends AbstractExecutionPlanSpec {
     def taskGraph = new DefaultTaskExecutionGraph(
         new DefaultPlanExecutor(parallelismConfiguration, executorFactory, workerLeases, cancellationToken, coordinator, new DefaultInternalOptions([:])),
         [nodeExecutor],
+        nodeDurationHistory,
         buildOperationExecutor,
         listenerBuildOperationDecorator,
         thisBuild,
@@ -196,6 +199,19 @@ class DefaultTaskExecutionGraphSpec extends AbstractExecutionPlanSpec {
         failures.empty
     }
 
+    def "records duration of each executed node"() {
+        Task a = task("a")
+        Task b = task("b", a)
+
+        when:
+        populateAndExecute([b])
+
+        then:
+        1 * nodeDurationHistory.recordExecution({ it instanceof LocalTaskNode && it.task == a }, { it >= 0 })
+        1 * nodeDurationHistory.recordExecution({ it instanceof LocalTaskNode && it.task == b }, { it >= 0 })
+        executedTasks == [a, b]
+    }
+
     def "executes dependencies in name order"() {
         Task a = task("a")
         Task b = task("b")
@@ -374,6 +390,7 @@ class DefaultTaskExecutionGraphSpec extends AbstractExecutionPlanSpec {
         def taskGraph = new DefaultTaskExecutionGraph(
             planExecutor,
             [nodeExecutor],
+            nodeDurationHistory,
             buildOperationExecutor,
             listenerBuildOperationDecorator,
             thisBuild,
@@ -409,6 +426,7 @@ class DefaultTaskExecutionGraphSpec extends AbstractExecutionPlanSpec {
         def taskGraph = new DefaultTaskExecutionGraph(
             planExecutor,
             [nodeExecutor],
+            nodeDurationHistory,
             buildOperationExecutor,
             listenerBuildOperationDecorator,
             thisBuild,